@@ -17,13 +17,15 @@ package com.clarkparsia.empire;
 
 import org.openrdf.model.Value;
 
+import java.util.Collection;
+
 /**
  * <p>Interface for specifying the query language dialect supported by a data source and providing language specific
  * opterations such as validation, and serialization.</p>
  *
  * @author Michael Grove
  * @since 0.1
- * @version 0.7.1
+ * @version 0.7.2
  *
  * @see com.clarkparsia.empire.impl.RdfQuery
  * @see QueryFactory
@@ -66,6 +68,15 @@ public interface Dialect {
 	 */
 	public void insertNamespaces(StringBuffer theBuffer);
 
+	/**
+	 * Insert the global namespaces with the given prefixes into the query string.  This is used rather than
+	 * {@link #insertNamespaces(StringBuffer)} when the prefixes the query uses are known, so the query does not
+	 * declare, and the database does not have to parse, all of the other global namespaces.
+	 * @param theBuffer the buffer containing the current, complete query without namespaces.
+	 * @param thePrefixes the prefixes to insert, prefixes which are not global namespaces are ignored
+	 */
+	public void insertNamespaces(StringBuffer theBuffer, Collection<String> thePrefixes);
+
 	/**
 	 * Return the variable name as a syntactically correct variable for use in an query atom.
 	 * @param theVar the variable name, or null for an unnamed variable
@@ -81,4 +92,12 @@ public interface Dialect {
 	 * @return true if stable ids are supported, false otherwise.
 	 */
 	public boolean supportsStableBnodeIds();
+
+	/**
+	 * Return whether or not the dialect supports property paths, such as <code>rdf:rest*&#47;rdf:first</code>, which
+	 * allow things like the whole of an rdf:List to be retrieved with a single query.
+	 *
+	 * @return true if property paths are supported, false otherwise.
+	 */
+	public boolean supportsPropertyPaths();
 }
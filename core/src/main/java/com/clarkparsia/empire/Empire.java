@@ -29,6 +29,7 @@ import com.google.inject.Injector;
 import com.google.inject.Guice;
 import com.google.inject.Module;
 import com.google.inject.Inject;
+import com.google.inject.Key;
 import com.google.common.base.Predicate;
 import static com.google.common.collect.Iterables.find;
 
@@ -47,7 +48,7 @@ import org.openrdf.model.vocabulary.XMLSchema;
  *
  * @author Michael Grove
  * @since 0.1
- * @version 0.7
+ * @version 0.7.2
  */
 public final class Empire {
 
@@ -178,6 +179,9 @@ public final class Empire {
 		}
 		
 		injector = Guice.createInjector(mModules.values());
+
+		// the bindings have changed, so which classes are created with guice may have too
+		RdfGenerator.clearInstantiators();
 	}
 
 	private static <T> boolean find2(final Iterable<T> theIterable, final Predicate<? super T> thePredicate) {
@@ -203,6 +207,17 @@ public final class Empire {
 		return injector().getInstance(theClass);
 	}
 
+	/**
+	 * Return whether or not there is an explicit binding for the class in the current Empire context.  Instances of
+	 * classes which are not bound can still be created with {@link #instance}, Guice will use their default
+	 * constructor, but there is no need to go through Guice to do so.
+	 * @param theClass the class
+	 * @return true if one of the modules binds the class, false otherwise
+	 */
+	public boolean isBound(Class<?> theClass) {
+		return injector().getBindings().containsKey(Key.get(theClass));
+	}
+
 	/**
 	 * Predicate to use for finding an instance of {@link DefaultEmpireModule}
 	 */
@@ -43,4 +43,21 @@ public interface EmpireGenerated {
 	public Graph getInstanceTriples();
 	
 	public void setInstanceTriples(Graph aGraph);
+
+	/**
+	 * Gets the bean properties which have been assigned via their setters since changes started being tracked, which
+	 * is when the instance was last populated from, or written to, the database.  The array is indexed like the
+	 * {@link com.clarkparsia.empire.util.EntityMetadata#getReadableProperties readable properties} of the class of the
+	 * instance.  Only implementations of interfaces track their changes, the properties of a
+	 * subclass of a bean class can be written without going through a setter.
+	 *
+	 * @return the changed properties, or null if changes to this instance are not being tracked
+	 */
+	public boolean[] getDirtyProperties();
+
+	/**
+	 * Forgets the properties which have been changed so far and tracks the changes made from now on, if changes to
+	 * this instance can be tracked.
+	 */
+	public void clearDirtyProperties();
 }
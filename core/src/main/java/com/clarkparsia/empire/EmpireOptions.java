@@ -20,7 +20,7 @@ package com.clarkparsia.empire;
  *
  * @author Michael Grove
  * @since 0.1
- * @version 0.7
+ * @version 0.7.2
  */
 public final class EmpireOptions {
 
@@ -54,6 +54,29 @@ public final class EmpireOptions {
 	 */
 	public static boolean ENABLE_QUERY_RESULT_PROXY = true;
 
+	/**
+	 * The maximum number of individuals whose descriptions are retrieved with a single query when loading many beans at
+	 * once, such as the results of a query when {@link #ENABLE_QUERY_RESULT_PROXY query result proxies} are disabled.
+	 * Larger values mean fewer round trips to the database, but larger queries.
+	 */
+	public static int BATCH_LOAD_SIZE = 100;
+
+	/**
+	 * When true, individuals are loaded from their concise bounded description, that is, the statements about the
+	 * individual along with the statements about the bnodes they reference, and the bnodes those reference, and so on.
+	 * The description is retrieved with a single query, and the beans for the bnode values of the individual are then
+	 * created from it rather than with additional queries for each bnode.  This is most useful for data with a lot of
+	 * nested bnodes, such as rdf:Lists; otherwise the larger describe query is of no benefit.  The default is false.
+	 */
+	public static boolean CONCISE_BOUNDED_DESCRIPTION = false;
+
+	/**
+	 * The number of bnodes deep the {@link #CONCISE_BOUNDED_DESCRIPTION concise bounded description} of an individual
+	 * goes when it has to be retrieved with a query, each level adds a branch to the query.  Data sources which can
+	 * look up statements directly always get the complete description.  The default is 3.
+	 */
+	public static int CONCISE_BOUNDED_DESCRIPTION_DEPTH = 3;
+
 	/**
 	 * Flag to signal whether or not the @Entity annotation should be required on Empire-enabled beans.  Strictly speaking,
 	 * it is not required for an Empire-only stack; @RdfsClass handles the same responsibility.  But if you want to use Empire
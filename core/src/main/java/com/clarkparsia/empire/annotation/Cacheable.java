@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2009-2012 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clarkparsia.empire.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>Annotation for opting a Java object into the entity cache shared by the EntityManagers of an
+ * EntityManagerFactory.  The data of instances of annotated classes which are loaded by a find or a query is kept in
+ * the cache, so subsequent loads of the same individual do not need to go to the database.  This is intended for
+ * reference data which is read often and rarely changes.</p>
+ * <p>
+ * Usage:<br/>
+ * <code><pre>
+ * &#64;RdfsClass("foaf:Person")
+ * &#64;Cacheable
+ * public class Foo implements SupportsRdfId {
+ *   ...
+ * }
+ * </pre></code>
+ * </p>
+ *
+ * @since 0.7.2
+ * @version 0.7.2
+ * @see com.clarkparsia.empire.util.EntityCache
+ */
+@Target({ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Cacheable {
+}
@@ -28,20 +28,21 @@ import org.openrdf.model.vocabulary.RDF;
 import org.openrdf.model.vocabulary.XMLSchema;
 import org.openrdf.model.vocabulary.RDFS;
 
-import java.lang.reflect.Type;
-
 import java.util.Arrays;
 
 import java.util.Date;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Modifier;
 
@@ -50,6 +51,8 @@ import java.util.Set;
 import java.util.Iterator;
 import java.util.Locale;
 import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import java.net.URISyntaxException;
 
@@ -62,6 +65,7 @@ import com.clarkparsia.empire.ds.DataSource;
 import com.clarkparsia.empire.ds.DataSourceException;
 import com.clarkparsia.empire.ds.QueryException;
 import com.clarkparsia.empire.ds.DataSourceUtil;
+import com.clarkparsia.empire.ds.SupportsNamedGraphs;
 import com.clarkparsia.empire.EmpireOptions;
 import com.clarkparsia.empire.EmpireGenerated;
 import com.clarkparsia.empire.SupportsRdfId;
@@ -72,15 +76,14 @@ import com.clarkparsia.empire.annotation.runtime.Proxy;
 import com.clarkparsia.empire.impl.serql.SerqlDialect;
 import com.clarkparsia.empire.impl.sparql.ARQSPARQLDialect;
 
-import static com.clarkparsia.empire.util.BeanReflectUtil.set;
-import static com.clarkparsia.empire.util.BeanReflectUtil.setAccessible;
-import static com.clarkparsia.empire.util.BeanReflectUtil.getAnnotatedFields;
-import static com.clarkparsia.empire.util.BeanReflectUtil.getAnnotatedGetters;
-import static com.clarkparsia.empire.util.BeanReflectUtil.getAnnotatedSetters;
-import static com.clarkparsia.empire.util.BeanReflectUtil.get;
 
 import com.clarkparsia.empire.util.BeanReflectUtil;
+import com.clarkparsia.empire.util.EntityMetadata;
+import com.clarkparsia.empire.util.EntityMetadata.PropertyMetadata;
 import com.clarkparsia.empire.util.EmpireUtil;
+import com.clarkparsia.empire.util.EntityCache;
+import com.clarkparsia.empire.util.IndexedGraph;
+import com.clarkparsia.empire.util.SubjectGraph;
 import static com.clarkparsia.empire.util.EmpireUtil.asPrimaryKey;
 import com.clarkparsia.openrdf.util.ResourceBuilder;
 import com.clarkparsia.openrdf.util.GraphBuilder;
@@ -92,23 +95,24 @@ import com.clarkparsia.common.net.NetUtils;
 import com.clarkparsia.common.collect.Iterables2;
 
 import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.Sets;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Collections2;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Iterables;
+import com.google.common.base.Objects;
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
-import com.google.inject.ProvisionException;
-import com.google.inject.ConfigurationException;
+import com.google.common.base.Supplier;
 
 import javax.persistence.Entity;
-import javax.persistence.Transient;
 
 import javassist.util.proxy.ProxyFactory;
 import javassist.util.proxy.MethodHandler;
 import javassist.util.proxy.ProxyObject;
 import javassist.util.proxy.MethodFilter;
 import javassist.CannotCompileException;
-import sun.reflect.generics.reflectiveObjects.WildcardTypeImpl;
 
 /**
  * <p>Description: Utility for creating RDF from a compliant Java Bean, and for turning RDF (the results of a describe
@@ -133,7 +137,7 @@ import sun.reflect.generics.reflectiveObjects.WildcardTypeImpl;
  *
  * @author Michael Grove
  * @since 0.1
- * @version 0.7.1
+ * @version 0.7.2
  */
 public final class RdfGenerator {
 
@@ -144,25 +148,24 @@ public final class RdfGenerator {
 
 	private static final ContainsResourceValues CONTAINS_RESOURCES = new ContainsResourceValues();
 
-	private static final LanguageFilter LANG_FILTER = new LanguageFilter(getLanguageForLocale());
-
 	/**
 	 * The logger
 	 */
 	private static final Logger LOGGER = LogManager.getLogger(RdfGenerator.class.getName());
 
 	/**
-	 * Map from rdf:type URI's to the Java class which corresponds to that resource.
+	 * Map from rdf:type URI's to the Java class which corresponds to that resource.  This is replaced, rather than
+	 * modified, by {@link #init} so that it can be read concurrently without locking.
 	 */
-	private final static Multimap<URI, Class> TYPE_TO_CLASS = HashMultimap.create();
+	private static volatile Multimap<URI, Class> TYPE_TO_CLASS = ImmutableSetMultimap.of();
+
+	private final static Set<Class<?>> REGISTERED_FOR_NS = Sets.newSetFromMap(new ConcurrentHashMap<Class<?>, Boolean>());
 
 	/**
-	 * Map to keep a record of what instances are currently being created in order to prevent cycles.  Keys are the
-	 * identifiers of the instances and the values are the instances
+	 * How instances of each class are created, keyed by the class
+	 * @see #instantiator
 	 */
-	public final static Map<Object, Object> OBJECT_M = new HashMap<Object, Object>();
-
-	private final static Set<Class<?>> REGISTERED_FOR_NS = new HashSet<Class<?>>();
+	private static final ConcurrentMap<Class<?>, Instantiator<?>> INSTANTIATORS = new ConcurrentHashMap<Class<?>, Instantiator<?>>();
 
 	/**
 	 * Initialize some parameters in the RdfGenerator.  This caches namespace and type mapping information locally
@@ -170,15 +173,73 @@ public final class RdfGenerator {
 	 * @param theClasses the list of classes to be handled by the RdfGenerator
 	 */
 	public static synchronized void init(Collection<Class<?>> theClasses) {
+		Multimap<URI, Class> aTypeToClass = HashMultimap.create(TYPE_TO_CLASS);
+
 		for (Class<?> aClass : theClasses) {
 			RdfsClass aAnnotation = aClass.getAnnotation(RdfsClass.class);
 
 			if (aAnnotation != null) {
 				addNamespaces(aClass);
 
-				TYPE_TO_CLASS.put(FACTORY.createURI(PrefixMapping.GLOBAL.uri(aAnnotation.value())), aClass);
+				aTypeToClass.put(FACTORY.createURI(PrefixMapping.GLOBAL.uri(aAnnotation.value())), aClass);
 			}
 		}
+
+		TYPE_TO_CLASS = ImmutableSetMultimap.copyOf(aTypeToClass);
+	}
+
+	/**
+	 * Forget how instances of each class are created.  Whether a class is created with Guice depends on the bindings
+	 * of the Empire context, so this has to be called whenever {@link Empire#init} replaces them.
+	 */
+	public static void clearInstantiators() {
+		INSTANTIATORS.clear();
+	}
+
+	/**
+	 * Return a new context for loading beans read-only.  The beans loaded with it, and the beans they reference, are
+	 * not tracked: the statements about them are not kept in their {@link EmpireGenerated bookkeeping}, and changes
+	 * made to them are not recorded.  The context is only used to resolve references between the beans of a single
+	 * load, the beans are detached and cannot be {@link javax.persistence.EntityManager#merge merged} unless they are
+	 * first {@link javax.persistence.EntityManager#refresh refreshed}.
+	 * @return a new, empty, context for loading beans read-only
+	 * @see #isUntracked
+	 */
+	public static Map<Object, Object> untrackedContext() {
+		return new UntrackedContext();
+	}
+
+	/**
+	 * Return whether or not the object is a bean that was loaded read-only, with an {@link #untrackedContext}, and
+	 * has not been refreshed since
+	 * @param theObj the object
+	 * @return true if the object was loaded read-only, false otherwise
+	 */
+	public static boolean isUntracked(Object theObj) {
+		return theObj instanceof EmpireGenerated && ((EmpireGenerated) theObj).getAllTriples() == SubjectGraph.UNTRACKED;
+	}
+
+	/**
+	 * Return a new context for the beans managed by an EntityManager.  Lazily loaded references of the beans loaded
+	 * with it resolve to the beans in the context, and add the beans they load to it, until it is cleared.  References
+	 * created before the context was cleared are resolved with a new context of their own instead, so they never add
+	 * detached beans to it.
+	 * @return a new, empty, context for managed beans
+	 */
+	public static Map<Object, Object> managedContext() {
+		return new ManagedContext();
+	}
+
+	/**
+	 * Return what supplies the context a lazily loaded reference, created while loading with the given context, is
+	 * resolved with.  That is the given context only while it is the current context of an EntityManager, otherwise
+	 * it is a new context of the same kind.
+	 * @param theContext the context of the load which creates the reference
+	 * @return the context supplier for the reference
+	 * @see Proxy
+	 */
+	public static Supplier<Map<Object, Object>> proxyContext(final Map<Object, Object> theContext) {
+		return new ProxyContext(theContext);
 	}
 
 	/**
@@ -223,93 +284,497 @@ public final class RdfGenerator {
 	 * @throws DataSourceException thrown if there is an error while retrieving data from the graph
 	 */
 	public static <T> T fromRdf(Class<T> theClass, SupportsRdfId.RdfKey theId, DataSource theSource) throws InvalidRdfException, DataSourceException {
-		T aObj;
+		return fromRdf(theClass, theId, theSource, new HashMap<Object, Object>());
+	}
 
-		long start = System.currentTimeMillis();
-		try {
-			aObj = Empire.get().instance(theClass);
+	/**
+	 * <p>Create an instance of the specified class and populate it from the data source if there are any statements
+	 * about the individual with the given id.  A single describe of the individual is used to check that it exists,
+	 * to choose the subclass to create from its rdf:types, and to populate the instance; only when the chosen subclass
+	 * uses a different named graph than the requested class, or when nothing about it is found in its named graph, are
+	 * additional queries made.</p>
+	 * @param theClass the class to create
+	 * @param theId the id of the RDF individual containing the data for the new instance
+	 * @param theSource the KB to get the RDF data from
+	 * @param <T> the type of the instance to create
+	 * @return a new instance, or null if there are no statements about the individual
+	 * @throws InvalidRdfException thrown if the class does not support RDF JPA operations, or does not provide sufficient access to its fields/data.
+	 * @throws DataSourceException thrown if there is an error while retrieving data from the graph
+	 */
+	public static <T> T fromRdfIfExists(Class<T> theClass, SupportsRdfId.RdfKey theId, DataSource theSource) throws InvalidRdfException, DataSourceException {
+		return fromRdfIfExists(theClass, theId, theSource, new HashMap<Object, Object>(), null);
+	}
+
+	/**
+	 * As {@link #fromRdfIfExists(Class, SupportsRdfId.RdfKey, DataSource)}, but instances already in the given context
+	 * are returned as-is, and the instances created are added to the context.  When the class is cacheable, the
+	 * description of the individual is taken from, or put in, the given cache.
+	 * @param theClass the class to create
+	 * @param theId the id of the RDF individual containing the data for the new instance
+	 * @param theSource the KB to get the RDF data from
+	 * @param theContext the instances already loaded, keyed by their identifiers
+	 * @param theCache the cache of descriptions of individuals, or null if there is none
+	 * @param <T> the type of the instance to create
+	 * @return the instance, or null if there are no statements about the individual
+	 * @throws InvalidRdfException thrown if the class does not support RDF JPA operations, or does not provide sufficient access to its fields/data.
+	 * @throws DataSourceException thrown if there is an error while retrieving data from the graph
+	 */
+	public static <T> T fromRdfIfExists(Class<T> theClass, SupportsRdfId.RdfKey theId, DataSource theSource, Map<Object, Object> theContext, EntityCache theCache) throws InvalidRdfException, DataSourceException {
+		Object aExisting = theContext.get(theId);
+
+		if (theClass.isInstance(aExisting)) {
+			return theClass.cast(aExisting);
 		}
-		catch (ConfigurationException ex) {
-			aObj = null;
+
+		if (!(theId instanceof SupportsRdfId.URIKey)) {
+			// bnodes cannot be described reliably, so we can't tell from the description if one exists
+			return DataSourceUtil.exists(theSource, theId) ? fromRdf(theClass, theId, theSource, theContext) : null;
 		}
-		catch (ProvisionException ex) {
-			aObj = null;
+
+		T aObj = newInstance(theClass, theId);
+		Resource aSubject = EmpireUtil.asResource(asSupportsRdfId(aObj));
+		java.net.URI aNamedGraph = namedGraph(theSource, aObj);
+
+		ExtGraph aGraph = describe(theSource, theClass, Collections.singletonList(aSubject), aNamedGraph, theCache);
+
+		if (aGraph.size() == 0) {
+			// existence is decided against the whole graph, the individual might exist, just not in its named graph
+			return aNamedGraph != null && DataSourceUtil.exists(theSource, theId) ? fromRdf(theClass, theId, theSource, theContext) : null;
 		}
-		LOGGER.debug("Tried to get instance of class : " + (System.currentTimeMillis()-start ) );
-		start = System.currentTimeMillis();
 
-		if (aObj == null) {
-			// this means Guice construction failed, which is not surprising since that's not going to be the default.
-			// so we'll try our own reflect based creation or create bytecode for an interface.
+		T aRefined = refineInstance(theClass, aObj, aGraph.getValues(aSubject, RDF.TYPE));
 
-			try {
-				long istart = System.currentTimeMillis();
-				if (theClass.isInterface() || Modifier.isAbstract(theClass.getModifiers())) {		
-					aObj = com.clarkparsia.empire.codegen.InstanceGenerator.generateInstanceClass(theClass).newInstance();
-					LOGGER.debug("CodeGenerated instance in : " + (System.currentTimeMillis() - istart) + "ms. ");
-				}
-				else {
-					aObj = theClass.newInstance();
-					LOGGER.debug("CodeGenerated instance in : " + (System.currentTimeMillis() - istart) + "ms. ");
+		if (aRefined != aObj && !Objects.equal(aNamedGraph, namedGraph(theSource, aRefined))) {
+			aGraph = describe(theSource, aRefined);
+		}
+
+		theContext.put(theId, aRefined);
+
+		return populate(aRefined, aGraph, theSource, theContext);
+	}
+
+	/**
+	 * <p>Create instances of the specified class for each of the given identifiers and populate them from the data
+	 * source.  Rather than querying for each individual separately, the descriptions of the individuals are retrieved
+	 * in batches of {@link EmpireOptions#BATCH_LOAD_SIZE} with a single query per batch, and the instances are then
+	 * populated from the results.  Individuals which cannot be described in a batch, such as bnodes, are loaded one at
+	 * a time as with {@link #fromRdf(Class, SupportsRdfId.RdfKey, DataSource)}.</p>
+	 * @param theClass the class to create
+	 * @param theIds the ids of the RDF individuals containing the data for the new instances
+	 * @param theSource the KB to get the RDF data from
+	 * @param <T> the type of the instances to create
+	 * @return the new instances, in the same order as the ids
+	 * @throws InvalidRdfException thrown if the class does not support RDF JPA operations, or does not provide sufficient access to its fields/data.
+	 * @throws DataSourceException thrown if there is an error while retrieving data from the graph
+	 */
+	public static <T> List<T> fromRdf(Class<T> theClass, Collection<? extends SupportsRdfId.RdfKey> theIds, DataSource theSource) throws InvalidRdfException, DataSourceException {
+		return fromRdf(theClass, theIds, theSource, new HashMap<Object, Object>(), null);
+	}
+
+	/**
+	 * As {@link #fromRdf(Class, Collection, DataSource)}, but instances already in the given context are returned
+	 * as-is rather than being loaded again, and the instances created are added to the context.  When the class is
+	 * cacheable, the descriptions of the individuals are taken from, or put in, the given cache.
+	 * @param theClass the class to create
+	 * @param theIds the ids of the RDF individuals containing the data for the new instances
+	 * @param theSource the KB to get the RDF data from
+	 * @param theContext the instances already loaded, keyed by their identifiers
+	 * @param theCache the cache of descriptions of individuals, or null if there is none
+	 * @param <T> the type of the instances to create
+	 * @return the instances, in the same order as the ids
+	 * @throws InvalidRdfException thrown if the class does not support RDF JPA operations, or does not provide sufficient access to its fields/data.
+	 * @throws DataSourceException thrown if there is an error while retrieving data from the graph
+	 */
+	public static <T> List<T> fromRdf(Class<T> theClass, Collection<? extends SupportsRdfId.RdfKey> theIds, DataSource theSource, Map<Object, Object> theContext, EntityCache theCache) throws InvalidRdfException, DataSourceException {
+		Set<SupportsRdfId.RdfKey> aBatchable = new LinkedHashSet<SupportsRdfId.RdfKey>();
+		for (SupportsRdfId.RdfKey aId : theIds) {
+			if (aId instanceof SupportsRdfId.URIKey) {
+				aBatchable.add(aId);
+			}
+		}
+
+		for (List<SupportsRdfId.RdfKey> aBatch : Iterables.partition(aBatchable, Math.max(1, EmpireOptions.BATCH_LOAD_SIZE))) {
+			fromRdf(theClass, aBatch, theSource, theContext, theCache);
+		}
+
+		List<T> aResults = new ArrayList<T>(theIds.size());
+
+		// everything loaded by the batches is in the context now, anything else is loaded individually
+		for (SupportsRdfId.RdfKey aId : theIds) {
+			aResults.add(fromRdf(theClass, aId, theSource, theContext));
+		}
+
+		return aResults;
+	}
+
+	/**
+	 * Load a single batch of instances.  The descriptions of the individuals in each named graph are retrieved with
+	 * one query, and each instance is populated from those and added to the context.
+	 * @param theClass the class to create
+	 * @param theIds the ids of the RDF individuals, all of which are URIs
+	 * @param theSource the KB to get the RDF data from
+	 * @param theContext the instances already created during the current load, keyed by their identifiers
+	 * @param theCache the cache of descriptions of individuals, or null if there is none
+	 * @param <T> the type of the instances to create
+	 * @throws InvalidRdfException thrown if the class does not support RDF JPA operations, or does not provide sufficient access to its fields/data.
+	 * @throws DataSourceException thrown if there is an error while retrieving data from the graph
+	 */
+	private static <T> void fromRdf(Class<T> theClass, List<SupportsRdfId.RdfKey> theIds, DataSource theSource, Map<Object, Object> theContext, EntityCache theCache) throws InvalidRdfException, DataSourceException {
+		// instances are described in the named graph they would be described in individually, which depends on the instance
+		Map<java.net.URI, List<T>> aInstancesByGraph = new LinkedHashMap<java.net.URI, List<T>>();
+
+		for (SupportsRdfId.RdfKey aId : theIds) {
+			if (theClass.isInstance(theContext.get(aId))) {
+				continue;
+			}
+
+			T aObj = newInstance(theClass, aId);
+			java.net.URI aGraph = namedGraph(theSource, aObj);
+
+			if (!aInstancesByGraph.containsKey(aGraph)) {
+				aInstancesByGraph.put(aGraph, new ArrayList<T>());
+			}
+
+			aInstancesByGraph.get(aGraph).add(aObj);
+		}
+
+		List<T> aLoaded = new ArrayList<T>();
+		List<ExtGraph> aDescriptions = new ArrayList<ExtGraph>();
+
+		for (Map.Entry<java.net.URI, List<T>> aEntry : aInstancesByGraph.entrySet()) {
+			List<Resource> aSubjects = new ArrayList<Resource>();
+			for (T aObj : aEntry.getValue()) {
+				aSubjects.add(EmpireUtil.asResource(asSupportsRdfId(aObj)));
+			}
+
+			ExtGraph aGraph = describe(theSource, theClass, aSubjects, aEntry.getKey(), theCache);
+
+			for (T aObj : aEntry.getValue()) {
+				Resource aSubject = EmpireUtil.asResource(asSupportsRdfId(aObj));
+
+				ExtGraph aDescription = descriptionOf(aGraph, aSubject);
+
+				T aRefined = refineInstance(theClass, aObj, aDescription.getValues(aSubject, RDF.TYPE));
+
+				// a subclass might live in a different named graph, leave those to be loaded individually
+				if (aRefined == aObj || Objects.equal(aEntry.getKey(), namedGraph(theSource, aRefined))) {
+					theContext.put(asSupportsRdfId(aRefined).getRdfId(), aRefined);
+					aLoaded.add(aRefined);
+					aDescriptions.add(aDescription);
 				}
 			}
-			catch (InstantiationException e) {
-				throw new InvalidRdfException("Cannot create instance of bean, should have a default constructor.", e);
+		}
+
+		// everything in the batch is in the context before any of it is populated so references between the
+		// instances in the batch resolve to those instances rather than being loaded again
+		for (int i = 0; i < aLoaded.size(); i++) {
+			populate(aLoaded.get(i), aDescriptions.get(i), theSource, theContext);
+		}
+	}
+
+	/**
+	 * Describe the subjects with a single query, as {@link DataSourceUtil#describe(DataSource, Collection, java.net.URI)}
+	 * does, except that when the class is cacheable, only the subjects whose descriptions are not in the cache are
+	 * queried for, and their descriptions are then put in the cache.
+	 * @param theSource the data source
+	 * @param theClass the class the subjects are loaded as
+	 * @param theSubjects the subjects to describe
+	 * @param theNamedGraph the named graph to describe them in, or null
+	 * @param theCache the cache of descriptions of individuals, or null if there is none
+	 * @return the statements about the subjects
+	 * @throws QueryException if there is an error while querying for the descriptions
+	 */
+	private static ExtGraph describe(DataSource theSource, Class<?> theClass, List<Resource> theSubjects, java.net.URI theNamedGraph, EntityCache theCache) throws QueryException {
+		if (theCache == null || !theCache.isCacheable(theClass)) {
+			return describe(theSource, theSubjects, theNamedGraph);
+		}
+
+		ExtGraph aGraph = new ExtGraph(new IndexedGraph());
+		List<Resource> aMisses = new ArrayList<Resource>();
+
+		for (Resource aSubject : theSubjects) {
+			ExtGraph aCached = theCache.get(EmpireUtil.asPrimaryKey(aSubject), theNamedGraph);
+
+			if (aCached != null) {
+				aGraph.addAll(aCached);
 			}
-			catch (IllegalAccessException e) {
-				throw new InvalidRdfException("Could not access default constructor for class: " + theClass, e);
+			else {
+				aMisses.add(aSubject);
 			}
-			catch (Exception e) {
-				throw new InvalidRdfException("Cannot create an instance of bean", e);
+		}
+
+		if (!aMisses.isEmpty()) {
+			// has to be read before the query so a write which happens during the query is not missed
+			long aGeneration = theCache.generation();
+
+			ExtGraph aDescribed = describe(theSource, aMisses, theNamedGraph);
+
+			for (Resource aSubject : aMisses) {
+				ExtGraph aDescription = descriptionOf(aDescribed, aSubject);
+
+				// individuals which do not exist are not cached, they are the ones most likely to be created
+				if (!aDescription.isEmpty()) {
+					theCache.put(EmpireUtil.asPrimaryKey(aSubject), theNamedGraph, aDescription, aGeneration);
+				}
 			}
-			LOGGER.debug("Got reflect instance of class : " + (System.currentTimeMillis()-start ) );
-			start = System.currentTimeMillis();
 
+			aGraph.addAll(aDescribed);
 		}
 
+		return aGraph;
+	}
+
+	/**
+	 * Describe the object, as {@link DataSourceUtil#describe(DataSource, Object)}, or when
+	 * {@link EmpireOptions#CONCISE_BOUNDED_DESCRIPTION} is enabled, as {@link DataSourceUtil#describeConcise(DataSource, Object)}
+	 * @param theSource the data source
+	 * @param theObj the object to describe
+	 * @return the description of the object
+	 * @throws QueryException if there is an error while querying for the description
+	 */
+	private static ExtGraph describe(DataSource theSource, Object theObj) throws QueryException {
+		return EmpireOptions.CONCISE_BOUNDED_DESCRIPTION
+			   ? DataSourceUtil.describeConcise(theSource, theObj)
+			   : DataSourceUtil.describe(theSource, theObj);
+	}
+
+	/**
+	 * Describe the subjects with a single query, as {@link DataSourceUtil#describe(DataSource, Collection, java.net.URI)},
+	 * or when {@link EmpireOptions#CONCISE_BOUNDED_DESCRIPTION} is enabled, as
+	 * {@link DataSourceUtil#describeConcise(DataSource, Collection, java.net.URI)}
+	 * @param theSource the data source
+	 * @param theSubjects the subjects to describe
+	 * @param theNamedGraph the named graph to describe them in, or null
+	 * @return the descriptions of the subjects
+	 * @throws QueryException if there is an error while querying for the descriptions
+	 */
+	private static ExtGraph describe(DataSource theSource, Collection<Resource> theSubjects, java.net.URI theNamedGraph) throws QueryException {
+		return EmpireOptions.CONCISE_BOUNDED_DESCRIPTION
+			   ? DataSourceUtil.describeConcise(theSource, theSubjects, theNamedGraph)
+			   : DataSourceUtil.describe(theSource, theSubjects, theNamedGraph);
+	}
+
+	/**
+	 * Return the statements in the graph whose subject is the given resource, along with the statements about the bnodes
+	 * they reference, and so on, which are there when the graph holds concise bounded descriptions
+	 * @param theGraph the graph
+	 * @param theSubject the subject
+	 * @return the description of the subject
+	 */
+	private static ExtGraph descriptionOf(ExtGraph theGraph, Resource theSubject) {
+		ExtGraph aDescription = new ExtGraph(new IndexedGraph());
+
+		List<Resource> aQueue = new ArrayList<Resource>();
+		Set<Resource> aSeen = new HashSet<Resource>();
+
+		aQueue.add(theSubject);
+		aSeen.add(theSubject);
+
+		for (int i = 0; i < aQueue.size(); i++) {
+			Iterator<Statement> aStmts = theGraph.match(aQueue.get(i), null, null);
+			while (aStmts.hasNext()) {
+				Statement aStmt = aStmts.next();
+
+				aDescription.add(aStmt);
+
+				if (aStmt.getObject() instanceof BNode && aSeen.add((BNode) aStmt.getObject())) {
+					aQueue.add((BNode) aStmt.getObject());
+				}
+			}
+		}
+
+		return aDescription;
+	}
+
+	/**
+	 * Return the named graph the description of the object would be retrieved from
+	 * @param theSource the data source
+	 * @param theObj the object
+	 * @return the named graph, or null if the description is not restricted to a named graph
+	 * @see DataSourceUtil#describe(DataSource, Object)
+	 */
+	private static java.net.URI namedGraph(DataSource theSource, Object theObj) {
+		return theSource instanceof SupportsNamedGraphs && EmpireUtil.hasNamedGraphSpecified(theObj)
+			   ? EmpireUtil.getNamedGraph(theObj)
+			   : null;
+	}
+
+	/**
+	 * Create an instance of the specified class and instantiate it's data from the given data source using the RDF
+	 * instance specified by the given URI
+	 * @param theClass the class to create
+	 * @param theId the id of the RDF individual containing the data for the new instance
+	 * @param theSource the KB to get the RDF data from
+	 * @param theContext the instances already loaded, keyed by their identifiers.  This is used to prevent cycles, and
+	 * is local to a single top level call unless the caller, such as an EntityManager, keeps its own context.  Instances
+	 * in the context are returned as-is, and the instances created are added to it.
+	 * @param <T> the type of the instance to create
+	 * @return a new instance, or the instance from the context
+	 * @throws InvalidRdfException thrown if the class does not support RDF JPA operations, or does not provide sufficient access to its fields/data.
+	 * @throws DataSourceException thrown if there is an error while retrieving data from the graph
+	 */
+	public static <T> T fromRdf(Class<T> theClass, SupportsRdfId.RdfKey theId, DataSource theSource, Map<Object, Object> theContext) throws InvalidRdfException, DataSourceException {
+		Object aExisting = theContext.get(theId);
+
+		if (theClass.isInstance(aExisting)) {
+			return theClass.cast(aExisting);
+		}
+
+		T aObj = newInstance(theClass, theId);
+
+		aObj = refineInstance(theClass, aObj, DataSourceUtil.getValues(theSource, EmpireUtil.asResource(asSupportsRdfId(aObj)), RDF.TYPE));
+
+		return fromRdf(aObj, theSource, theContext);
+	}
+	
+	/**
+	 * Create a new instance of the class with the given identifier.  The instance is not populated.
+	 * @param theClass the class to create
+	 * @param theId the id of the new instance
+	 * @param <T> the type of the instance to create
+	 * @return a new instance
+	 * @throws InvalidRdfException thrown if an instance of the class cannot be created
+	 */
+	private static <T> T newInstance(Class<T> theClass, SupportsRdfId.RdfKey theId) throws InvalidRdfException {
+		T aObj = newInstance(theClass);
+
 		asSupportsRdfId(aObj).setRdfId(theId);
-		LOGGER.debug("Has rdfId : " + (System.currentTimeMillis()-start ) );
-		start = System.currentTimeMillis();
-		
-		Class<T> aNewClass = determineClass(theClass, aObj, theSource);
-		
-		if (!aNewClass.equals(aObj.getClass())) {
+
+		return aObj;
+	}
+
+	/**
+	 * Create a new instance of the class, with Guice when the class is bound in the Empire context, otherwise with the
+	 * default constructor of the class, or of the class generated for it when it is an interface or abstract.
+	 * @param theClass the class to create
+	 * @param <T> the type of the instance to create
+	 * @return a new instance
+	 * @throws InvalidRdfException thrown if an instance of the class cannot be created
+	 */
+	private static <T> T newInstance(Class<T> theClass) throws InvalidRdfException {
+		try {
+			return instantiator(theClass).newInstance();
+		}
+		catch (InstantiationException e) {
+			throw new InvalidRdfException("Cannot create instance of bean, should have a default constructor.", e);
+		}
+		catch (IllegalAccessException e) {
+			throw new InvalidRdfException("Could not access default constructor for class: " + theClass, e);
+		}
+		catch (InvalidRdfException e) {
+			throw e;
+		}
+		catch (Exception e) {
+			throw new InvalidRdfException("Cannot create an instance of bean", e);
+		}
+	}
+
+	/**
+	 * Return how instances of the class are created.  This is worked out the first time an instance of the class is
+	 * created, after that creating one is just a call to Guice or to a constructor.
+	 * @param theClass the class
+	 * @param <T> the type of the class
+	 * @return the instantiator for the class
+	 * @throws Exception if the class cannot be instantiated
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> Instantiator<T> instantiator(final Class<T> theClass) throws Exception {
+		Instantiator<T> aInstantiator = (Instantiator<T>) INSTANTIATORS.get(theClass);
+
+		if (aInstantiator != null) {
+			return aInstantiator;
+		}
+
+		if (Empire.get().isBound(theClass)) {
+			aInstantiator = new Instantiator<T>() {
+				public T newInstance() {
+					return Empire.get().instance(theClass);
+				}
+			};
+		}
+		else {
+			Class<T> aClass = theClass.isInterface() || Modifier.isAbstract(theClass.getModifiers())
+							  ? com.clarkparsia.empire.codegen.InstanceGenerator.generateInstanceClass(theClass)
+							  : theClass;
+
+			final Constructor<T> aConstructor;
+
 			try {
-	            aObj = aNewClass.newInstance();
-            }
-            catch (InstantiationException e) {
-            	throw new InvalidRdfException("Cannot create instance of bean, should have a default constructor.", e);
-            }
-            catch (IllegalAccessException e) {
-            	throw new InvalidRdfException("Could not access default constructor for class: " + theClass, e);
-            }
-			catch (Exception e) {
-				throw new InvalidRdfException("Cannot create an instance of bean", e);
+				aConstructor = aClass.getDeclaredConstructor();
+			}
+			catch (NoSuchMethodException e) {
+				throw new InvalidRdfException("Cannot create instance of bean, should have a default constructor.", e);
 			}
 
-			asSupportsRdfId(aObj).setRdfId(theId);
+			aInstantiator = new Instantiator<T>() {
+				public T newInstance() throws Exception {
+					return aConstructor.newInstance();
+				}
+			};
 		}
 
-		return fromRdf(aObj, theSource);
+		INSTANTIATORS.put(theClass, aInstantiator);
+
+		return aInstantiator;
 	}
-	
+
+	/**
+	 * Creates instances of a class
+	 * @param <T> the type of the class
+	 */
+	private interface Instantiator<T> {
+		/**
+		 * Create a new instance
+		 * @return the new instance
+		 * @throws Exception if there is an error creating the instance
+		 */
+		public T newInstance() throws Exception;
+	}
+
+	/**
+	 * Given an instance of the requested class, return an instance of the most specific subclass of that class which
+	 * is mapped to one of the rdf:types of the individual, or the instance itself if there is no better match.
+	 * @param theClass the requested class
+	 * @param theObj the instance of the requested class
+	 * @param theTypes the rdf:types of the individual
+	 * @param <T> the type of the requested class
+	 * @return the instance to populate
+	 * @throws InvalidRdfException thrown if an instance of the refined class cannot be created
+	 */
+	private static <T> T refineInstance(Class<T> theClass, T theObj, Collection<Value> theTypes) throws InvalidRdfException {
+		T aObj = theObj;
+
+		Class<T> aNewClass = determineClass(theClass, theTypes);
+		
+		if (!aNewClass.equals(aObj.getClass())) {
+			aObj = newInstance(aNewClass);
+
+			asSupportsRdfId(aObj).setRdfId(asSupportsRdfId(theObj).getRdfId());
+		}
+
+		return aObj;
+	}
+
+	/**
+	 * Return the class of the bean to create for an individual.  This is the most specific subclass of the requested
+	 * class mapped to one of the rdf:types of the individual, or an implementation of it when it cannot be instantiated.
+	 * @param theOrigClass the requested class
+	 * @param theTypes the rdf:types of the individual
+	 * @param <T> the type of the requested class
+	 * @return the class to create
+	 * @throws InvalidRdfException thrown if an implementation of the class cannot be generated
+	 */
 	@SuppressWarnings("unchecked")
-    private static <T> Class<T> determineClass(Class<T> theOrigClass, T theObj, DataSource theSource) throws InvalidRdfException, DataSourceException {
+    private static <T> Class<T> determineClass(Class<T> theOrigClass, Collection<Value> theTypes) throws InvalidRdfException {
 		Class aResult = theOrigClass;
-		final SupportsRdfId aTmpSupportsRdfId = asSupportsRdfId(theObj);
-	 
-//		ExtGraph aGraph = new ExtGraph(DataSourceUtil.describe(theSource, theObj));
-		final Collection<Value> aTypes = DataSourceUtil.getValues(theSource, EmpireUtil.asResource(EmpireUtil.asSupportsRdfId(theObj)), RDF.TYPE);
-		
+
 		// right now, our best match is the original class (we will refine later)
-		
-//		final Resource aTmpRes = EmpireUtil.asResource(aTmpSupportsRdfId);
-				
+
 		// iterate for all rdf:type triples in the data
 		// There may be multiple rdf:type triples, which can then translate onto multiple candidate Java classes
 		// some of the Java classes may belong to the same class hierarchy, whereas others can have no common
 		// super class (other than java.lang.Object)
-		for (Value aValue : aTypes) {
+		for (Value aValue : theTypes) {
 			if (!(aValue instanceof URI)) {
 				// there is no URI in the object position of rdf:type
 				// ignore that data
@@ -350,191 +815,188 @@ public final class RdfGenerator {
 	 * Populate the fields of the current instance from the RDF indiviual with the given URI
 	 * @param theObj the Java object to populate
 	 * @param theSource the KB to get the RDF data from
+	 * @param theContext the instances already created during the current load, keyed by their identifiers
 	 * @param <T> the type of the class being populated
 	 * @return theObj, populated from the specified DataSource
 	 * @throws InvalidRdfException thrown if the object does not support the RDF JPA API.
 	 * @throws DataSourceException thrown if there is an error retrieving data from the database
 	 */
 	@SuppressWarnings("unchecked")
-	private synchronized static <T> T fromRdf(T theObj, DataSource theSource) throws InvalidRdfException, DataSourceException {
+	private static <T> T fromRdf(T theObj, DataSource theSource, Map<Object, Object> theContext) throws InvalidRdfException, DataSourceException {
 		final SupportsRdfId aTmpSupportsRdfId = asSupportsRdfId(theObj);
 		final SupportsRdfId.RdfKey theKeyObj = aTmpSupportsRdfId.getRdfId();
 		
 		LOGGER.debug("Got obj : " + theObj );
 		
-		if (OBJECT_M.containsKey(theKeyObj)) {
-			// TODO: this is probably a safe cast, i dont see how something w/ the same URI, which should be the same
-			// object would change types
-			return (T) OBJECT_M.get(theKeyObj);
+		// the context can outlive a single load, so something with the same URI might have been loaded as another type
+		if (theObj.getClass().isInstance(theContext.get(theKeyObj))) {
+			return (T) theContext.get(theKeyObj);
 		}
 
-		try {
+		theContext.put(theKeyObj, theObj);
 
-			OBJECT_M.put(theKeyObj, theObj);
+		return populate(theObj, describe(theSource, theObj), theSource, theContext);
+	}
 
-			ExtGraph aGraph = new ExtGraph(DataSourceUtil.describe(theSource, theObj));
+	/**
+	 * Populate the fields of the current instance from the given description of the RDF individual
+	 * @param theObj the Java object to populate
+	 * @param theGraph the statements about the individual
+	 * @param theSource the KB to get the RDF data of related individuals from
+	 * @param theContext the instances already created during the current load, keyed by their identifiers
+	 * @param <T> the type of the class being populated
+	 * @return theObj, populated from the graph
+	 * @throws InvalidRdfException thrown if the object does not support the RDF JPA API.
+	 * @throws DataSourceException thrown if there is an error retrieving data from the database
+	 */
+	private static <T> T populate(T theObj, ExtGraph theGraph, DataSource theSource, Map<Object, Object> theContext) throws InvalidRdfException, DataSourceException {
+		if (theGraph.size() == 0) {
+			return theObj;
+		}
 
-			if (aGraph.size() == 0) {
-				return theObj;
-			}
+		final Resource aTmpRes = EmpireUtil.asResource(asSupportsRdfId(theObj));
+		Set<URI> aProps = new HashSet<URI>();
 
-			final Resource aTmpRes = EmpireUtil.asResource(aTmpSupportsRdfId);
-			Set<URI> aProps = new HashSet<URI>();
-			
-			Iterator<Statement> sIter = aGraph.match(aTmpRes, null, null);
+		// beans loaded read-only do not keep the statements about them
+		final boolean aTracked = !(theContext instanceof UntrackedContext);
+
+		// the graph can also hold the descriptions of the bnodes the individual references, only the statements about
+		// the individual itself belong to it
+		List<Statement> aTriples = aTracked ? new ArrayList<Statement>() : null;
+		
+		Iterator<Statement> sIter = theGraph.match(aTmpRes, null, null);
 
-			while (sIter.hasNext()) {
-				Statement aStmt = sIter.next();
-				aProps.add(aStmt.getPredicate());
+		while (sIter.hasNext()) {
+			Statement aStmt = sIter.next();
+			aProps.add(aStmt.getPredicate());
+
+			if (aTracked) {
+				aTriples.add(aStmt);
 			}
-			
-			
-			final SupportsRdfId aSupportsRdfId = asSupportsRdfId(theObj);
-			
-			final EmpireGenerated aEmpireGenerated = asEmpireGenerated(theObj);
-			
-			aEmpireGenerated.setAllTriples(aGraph);		
-			
-			OBJECT_M.put(theKeyObj, theObj);
-			final Resource aRes = EmpireUtil.asResource(aSupportsRdfId);
-			
-			Collection<Field> aFields = getAnnotatedFields(theObj.getClass());
-			Collection<Method> aMethods = getAnnotatedSetters(theObj.getClass(), true);
+		}
+		
+		
+		final SupportsRdfId aSupportsRdfId = asSupportsRdfId(theObj);
+		
+		final EmpireGenerated aEmpireGenerated = asEmpireGenerated(theObj);
+		
+		final Resource aRes = EmpireUtil.asResource(aSupportsRdfId);
+		
+		final EntityMetadata aMetadata = EntityMetadata.of(theObj.getClass());
 
-			addNamespaces(theObj.getClass());
+		Set<URI> aUsedProps = new HashSet<URI>();
 
-			final Map<URI, AccessibleObject> aAccessMap = new HashMap<URI, AccessibleObject>();
+		for (URI aProp : aProps) {
+			PropertyMetadata aPropMetadata = aMetadata.getWritableProperty(aRes, aProp);
+			AccessibleObject aAccess = aPropMetadata == null ? null : aPropMetadata.getAccessor();
 
-			Iterables2.each(aFields, new Predicate<Field>() {
-				public boolean apply(final Field theField) {
-					if (theField.getAnnotation(RdfProperty.class) != null) {
-						aAccessMap.put(FACTORY.createURI(PrefixMapping.GLOBAL.uri(theField.getAnnotation(RdfProperty.class).value())),
-									   theField);
+			if (aAccess == null && RDF.TYPE.equals(aProp)) {
+				// TODO: the following block should be entirely removed (leaving continue only)
+				// right now, leaving it until the code review: code review before removing the following block
+				
+				// my understanding is that the following block was only necessary when having a support for a single-typed objects,
+				// which is no longer the case 					
+				
+				// we can skip the rdf:type property.  it's basically assigned in the @RdfsClass annotation on the
+				// java class, so we can figure it out later if need be. TODO: of course, if something has multiple types
+				// that information is lost, which is not good.
+
+				
+				/*
+				URI aType = (URI) theGraph.getValue(aRes, aProp);
+				if (!TYPE_TO_CLASS.containsKey(aType) ||
+					!TYPE_TO_CLASS.get(aType).isAssignableFrom(theObj.getClass())) {
+
+					if (TYPE_TO_CLASS.containsKey(aType) && !TYPE_TO_CLASS.get(aType).getName().equals(theObj.getClass().getName())) {
+						// TODO: this might just be an error
+						LOGGER.warn("Asserted rdf:type of the individual does not match the rdf:type annotation on the object. " + aType + " " + TYPE_TO_CLASS.get(aType) + " " + theObj.getClass() + " " +TYPE_TO_CLASS.get(aType).isAssignableFrom(theObj.getClass())+ " " +TYPE_TO_CLASS.get(aType).equals(theObj.getClass()) + " " + TYPE_TO_CLASS.get(aType).getName().equals(theObj.getClass().getName()));
 					}
 					else {
-						String aBase = "urn:empire:clark-parsia:";
-						if (aRes instanceof URI) {
-							aBase = ((URI)aRes).getNamespace();
-						}
-
-						aAccessMap.put(FACTORY.createURI(aBase + theField.getName()),
-									   theField);
+						// if they're not equals() or isAssignableFrom, but have the same name, this is usually
+						// means that the class loaders don't match.  so probably not an error, so no warning.
 					}
-
-					return true;
 				}
-			});
-
-			Iterables2.each(aMethods, new Predicate<Method>() {
-				public boolean apply(final Method theMethod) {
-					RdfProperty aAnnotation = BeanReflectUtil.getAnnotation(theMethod, RdfProperty.class);
-					if (aAnnotation != null) {
-						aAccessMap.put(FACTORY.createURI(PrefixMapping.GLOBAL.uri(aAnnotation.value())),
-									   theMethod);
-					}
+				*/
 
-					return true;
-				}
-			});			
-			
-			Set<URI> aUsedProps = new HashSet<URI>();
-
-			for (URI aProp : aProps) {
-				AccessibleObject aAccess = aAccessMap.get(aProp);
-
-				if (aAccess == null && RDF.TYPE.equals(aProp)) {
-					// TODO: the following block should be entirely removed (leaving continue only)
-					// right now, leaving it until the code review: code review before removing the following block
-					
-					// my understanding is that the following block was only necessary when having a support for a single-typed objects,
-					// which is no longer the case 					
-					
-					// we can skip the rdf:type property.  it's basically assigned in the @RdfsClass annotation on the
-					// java class, so we can figure it out later if need be. TODO: of course, if something has multiple types
-					// that information is lost, which is not good.
-
-					
-					/*
-					URI aType = (URI) aGraph.getValue(aRes, aProp);
-					if (!TYPE_TO_CLASS.containsKey(aType) ||
-						!TYPE_TO_CLASS.get(aType).isAssignableFrom(theObj.getClass())) {
-
-						if (TYPE_TO_CLASS.containsKey(aType) && !TYPE_TO_CLASS.get(aType).getName().equals(theObj.getClass().getName())) {
-							// TODO: this might just be an error
-							LOGGER.warn("Asserted rdf:type of the individual does not match the rdf:type annotation on the object. " + aType + " " + TYPE_TO_CLASS.get(aType) + " " + theObj.getClass() + " " +TYPE_TO_CLASS.get(aType).isAssignableFrom(theObj.getClass())+ " " +TYPE_TO_CLASS.get(aType).equals(theObj.getClass()) + " " + TYPE_TO_CLASS.get(aType).getName().equals(theObj.getClass().getName()));
-						}
-						else {
-							// if they're not equals() or isAssignableFrom, but have the same name, this is usually
-							// means that the class loaders don't match.  so probably not an error, so no warning.
-						}
-					}
-					*/
+				continue;
+			}
+			else if (aAccess == null) {
+				// this must be data that is not covered by the bean (perhaps accessible by a different view/bean for a differnent type of an individual)					
+				continue;
+			}
+
+			aUsedProps.add(aProp);
+
+			Collection<Value> aValues = theGraph.getValues(aRes, aProp);
 
+			try {
+				if (setPrimitive(theObj, aPropMetadata, aValues)) {
 					continue;
 				}
-				else if (aAccess == null) {
-					// this must be data that is not covered by the bean (perhaps accessible by a different view/bean for a differnent type of an individual)					
-					continue;
-				}
-
-				aUsedProps.add(aProp);
-				
-				ToObjectFunction aFunc = new ToObjectFunction(theSource, aRes, aAccess, aProp);
-
-				Object aValue = aFunc.apply(aGraph.getValues(aRes, aProp));
+			}
+			catch (InvocationTargetException e) {
+				throw new InvalidRdfException(e);
+			}
 
-				boolean aOldAccess = aAccess.isAccessible();
+			Object aValue;
 
-				try {
-					setAccessible(aAccess, true);					
-					set(aAccess, theObj, aValue);				
-				}				
-				catch (InvocationTargetException e) {
-					// oh crap
-					throw new InvalidRdfException(e);
-				}
-				catch (IllegalAccessException e) {
-					// this should not happen since we toggle the accessibility of the field, but we'll re-throw regardless
-					throw new InvalidRdfException(e);
-				}
-				catch (IllegalArgumentException e) {
-					// this is "likely" to happen.  we'll get this exception if the rdf does not match the java.  for example
-					// if something is specified to be an int in the java class, but it typed as a float (though down conversion
-					// in that case might work) the set call will fail.
-					// TODO: shouldnt this be an error?
-					LOGGER.warn("Probable type mismatch: " + aValue + " " + aAccess);
-				}
-				catch (RuntimeException e) {
-					// TODO: i dont like keying on a RuntimeException here to get the error condition, but since the
-					// Function interface does not throw anything, this is the best we can do.  maybe consider a
-					// version of the Function interface that has a throws clause, it would make this more clear.
+			try {
+				aValue = new ToObjectFunction(theSource, aRes, aPropMetadata, aProp, theGraph, theContext).apply(aValues);
+			}
+			catch (RuntimeException e) {
+				// TODO: i dont like keying on a RuntimeException here to get the error condition, but since the
+				// Function interface does not throw anything, this is the best we can do.  maybe consider a
+				// version of the Function interface that has a throws clause, it would make this more clear.
 
-					// this was probably an error converting from a Value to an Object
-					throw new InvalidRdfException(e);
-				}
-				finally {
-					setAccessible(aAccess, aOldAccess);
-				}
+				// this was probably an error converting from a Value to an Object
+				throw new InvalidRdfException(e);
 			}
-			
-			sIter = aGraph.match(aTmpRes, null, null);
-			ExtGraph aInstanceTriples = new ExtGraph();
 
-			while (sIter.hasNext()) {
-				Statement aStmt = sIter.next();
-				
-				if (aUsedProps.contains(aStmt.getPredicate())) {
-					aInstanceTriples.add(aStmt);
-				}								
+			try {
+				aPropMetadata.set(theObj, aValue);
 			}
-			
-			aEmpireGenerated.setInstanceTriples(aInstanceTriples);
+			catch (InvocationTargetException e) {
+				// oh crap
+				throw new InvalidRdfException(e);
+			}
+			catch (IllegalArgumentException e) {
+				// this is "likely" to happen.  we'll get this exception if the rdf does not match the java.  for example
+				// if something is specified to be an int in the java class, but it typed as a float (though down conversion
+				// in that case might work) the set call will fail.
+				// TODO: shouldnt this be an error?
+				LOGGER.warn("Probable type mismatch: " + aValue + " " + aAccess);
+			}
+		}
+
+		if (!aTracked) {
+			// no statements and no dirty properties are kept, the bean is only marked so that it can't be merged
+			aEmpireGenerated.setAllTriples(SubjectGraph.UNTRACKED);
 
 			return theObj;
 		}
-		finally {
-			OBJECT_M.remove(theKeyObj);
+		
+		// the statements are kept as arrays of their predicates and objects, with those used to populate the bean
+		// first, so the instance triples are the start of the arrays for all the triples, and the two share them
+		URI[] aPredicates = new URI[aTriples.size()];
+		Value[] aObjects = new Value[aTriples.size()];
+
+		int aUsed = 0;
+		int aUnused = aTriples.size();
+
+		for (Statement aStmt : aTriples) {
+			int aIndex = aUsedProps.contains(aStmt.getPredicate()) ? aUsed++ : --aUnused;
+
+			aPredicates[aIndex] = aStmt.getPredicate();
+			aObjects[aIndex] = aStmt.getObject();
 		}
+
+		aEmpireGenerated.setAllTriples(new SubjectGraph(aTmpRes, aPredicates, aObjects, aPredicates.length));
+		aEmpireGenerated.setInstanceTriples(new SubjectGraph(aTmpRes, aPredicates, aObjects, aUsed));
+
+		// the instance now matches the database, changes made to it from here on are what a merge has to write
+		aEmpireGenerated.clearDirtyProperties();
+
+		return theObj;
 	}
 
 
@@ -690,50 +1152,30 @@ public final class RdfGenerator {
 			return null;
 		}
 
-		RdfsClass aClass = asValidRdfClass(theObj);
+		asValidRdfClass(theObj);
 
 		Resource aSubj = id(theObj);
 
-		addNamespaces(theObj.getClass());
+		EntityMetadata aMetadata = EntityMetadata.of(theObj.getClass());
 
 		GraphBuilder aBuilder = new GraphBuilder();
 
-		Collection<AccessibleObject> aAccessors = new HashSet<AccessibleObject>();
-		aAccessors.addAll(getAnnotatedFields(theObj.getClass()));
-		aAccessors.addAll(getAnnotatedGetters(theObj.getClass(), true));
-
 		try {
-			ResourceBuilder aRes = aBuilder.instance(aBuilder.getValueFactory().createURI(PrefixMapping.GLOBAL.uri(aClass.value())),
-													 aSubj);
-
-			for (AccessibleObject aAccess : aAccessors) {
-				LOGGER.debug("Getting rdf for : " + aAccess.toString() );
-				AsValueFunction aFunc = new AsValueFunction(aAccess);
-
-				if (aAccess.isAnnotationPresent(Transient.class)
-					|| (aAccess instanceof Field
-						&& Modifier.isTransient( ((Field)aAccess).getModifiers() ))) {
+			ResourceBuilder aRes = aBuilder.instance(aMetadata.getRdfsClass(), aSubj);
 
+			for (PropertyMetadata aPropMetadata : aMetadata.getReadableProperties()) {
+				if (aPropMetadata.isTransient()) {
 					// transient fields or accessors with the Transient annotation do not get converted.
 					continue;
 				}
 
-				RdfProperty aPropertyAnnotation = BeanReflectUtil.getAnnotation(aAccess, RdfProperty.class);
-				String aBase = "urn:empire:clark-parsia:";
-				if (aRes instanceof URI) {
-					aBase = ((URI)aRes).getNamespace();
-				}
-
-				URI aProperty = aPropertyAnnotation != null
-								? aBuilder.getValueFactory().createURI(PrefixMapping.GLOBAL.uri(aPropertyAnnotation.value()))
-								: (aAccess instanceof Field ? aBuilder.getValueFactory().createURI(aBase + ((Field)aAccess).getName()) : null);
-
-				boolean aOldAccess = aAccess.isAccessible();
-				setAccessible(aAccess, true);
+				AccessibleObject aAccess = aPropMetadata.getAccessor();
+				AsValueFunction aFunc = new AsValueFunction(aAccess);
 
-				Object aValue = get(aAccess, theObj);
+				// when writing, properties of un-annotated fields use the default base rather than the namespace of the subject
+				URI aProperty = aPropMetadata.getProperty(null);
 
-				setAccessible(aAccess, aOldAccess);
+				Object aValue = aPropMetadata.get(theObj);
 
 				if (aValue == null || aValue.toString().equals("")) {
 					continue;
@@ -746,7 +1188,7 @@ public final class RdfGenerator {
 						continue;
 					}
 
-					if (aPropertyAnnotation.isList()) {
+					if (aPropMetadata.isList()) {
 						aRes.addProperty(aProperty, aValueList);
 					}
 					else {
@@ -760,9 +1202,6 @@ public final class RdfGenerator {
 				}
 			}
 		}
-		catch (IllegalAccessException e) {
-			throw new InvalidRdfException(e);
-		}
 		catch (RuntimeException e) {
 			throw new InvalidRdfException(e);
 		}
@@ -875,6 +1314,68 @@ public final class RdfGenerator {
 	@Deprecated
 	public static final boolean PROXY_COLLECTIONS = false;
 
+	/**
+	 * Set the value of a property of a primitive type directly from a single typed literal, parsing its label and
+	 * setting it with the setter for that type, without going through {@link ToObjectFunction} and the boxed value.
+	 * This only handles the case where the datatype of the literal is converted by {@link ValueToObject} to the boxed
+	 * version of the primitive type of the property, everything else is left to the normal conversion.
+	 * @param theObj the object to set the value on
+	 * @param theProperty the property
+	 * @param theValues the values of the property
+	 * @return true if the value was set, false if it must be converted with {@link ToObjectFunction} and set by the caller
+	 * @throws InvalidRdfException if the label of the literal is not valid for its datatype
+	 * @throws InvocationTargetException if there is an error while setting the value
+	 */
+	private static boolean setPrimitive(final Object theObj, final PropertyMetadata theProperty, final Collection<Value> theValues)
+			throws InvalidRdfException, InvocationTargetException {
+		Class aType = theProperty.getType();
+
+		if (!aType.isPrimitive() || theValues.size() != 1) {
+			return false;
+		}
+
+		Value aValue = theValues.iterator().next();
+
+		if (!(aValue instanceof Literal) || ((Literal) aValue).getDatatype() == null) {
+			return false;
+		}
+
+		URI aDatatype = ((Literal) aValue).getDatatype();
+		String aLabel = aValue.stringValue();
+
+		try {
+			if (aType == int.class && ValueToObject.integerTypes.contains(aDatatype)) {
+				theProperty.setInt(theObj, Integer.parseInt(aLabel));
+			}
+			else if (aType == long.class && ValueToObject.longTypes.contains(aDatatype)) {
+				theProperty.setLong(theObj, Long.parseLong(aLabel));
+			}
+			else if (aType == double.class && XMLSchema.DOUBLE.equals(aDatatype)) {
+				theProperty.setDouble(theObj, Double.parseDouble(aLabel));
+			}
+			else if (aType == float.class && ValueToObject.floatTypes.contains(aDatatype)) {
+				theProperty.setFloat(theObj, Float.parseFloat(aLabel));
+			}
+			else if (aType == boolean.class && XMLSchema.BOOLEAN.equals(aDatatype)) {
+				theProperty.setBoolean(theObj, Boolean.parseBoolean(aLabel));
+			}
+			else if (aType == short.class && ValueToObject.shortTypes.contains(aDatatype)) {
+				theProperty.setShort(theObj, Short.parseShort(aLabel));
+			}
+			else if (aType == byte.class && ValueToObject.byteTypes.contains(aDatatype)) {
+				theProperty.setByte(theObj, Byte.parseByte(aLabel));
+			}
+			else {
+				return false;
+			}
+		}
+		catch (NumberFormatException e) {
+			throw new InvalidRdfException(e);
+		}
+
+		return true;
+	}
+
 	/**
 	 * Implementation of the function interface to turn a Collection of RDF values into Java bean(s).
 	 */
@@ -889,33 +1390,35 @@ public final class RdfGenerator {
 		 */
 		private AccessibleObject mField;
 
-		public ToObjectFunction(final DataSource theSource, Resource theResource, final AccessibleObject theField, final URI theProp) {
-			valueToObject = new ValueToObject(theSource, theResource, theField, theProp);
+		/**
+		 * The mapping information for the property the values will be assigned to
+		 */
+		private PropertyMetadata mProperty;
+
+		public ToObjectFunction(final DataSource theSource, Resource theResource, final PropertyMetadata theProperty, final URI theProp,
+								final ExtGraph theGraph, final Map<Object, Object> theContext) {
+			valueToObject = new ValueToObject(theSource, theResource, theProperty, theProp, theGraph, theContext);
 
-			mField = theField;
+			mField = theProperty.getAccessor();
+			mProperty = theProperty;
 		}
 
 		public Object apply(final Collection<Value> theList) {
 			if (theList == null || theList.isEmpty()) {
-				return BeanReflectUtil.instantiateCollectionFromField(BeanReflectUtil.classFrom(mField));
+				return BeanReflectUtil.instantiateCollectionFromField(mProperty.getType());
 			}
-			if (Collection.class.isAssignableFrom(BeanReflectUtil.classFrom(mField))) {
+			if (Collection.class.isAssignableFrom(mProperty.getType())) {
 				try {
 
-					if (PROXY_COLLECTIONS && !BeanReflectUtil.isPrimitive(refineClass(mField, BeanReflectUtil.classFrom(mField), null, null))) {
-						Object aColType = BeanReflectUtil.instantiateCollectionFromField(BeanReflectUtil.classFrom(mField));
-
-						ProxyFactory aFactory = new ProxyFactory();
-						aFactory.setInterfaces(aColType.getClass().getInterfaces());
-						aFactory.setSuperclass(aColType.getClass());
-						aFactory.setFilter(METHOD_FILTER);
+					if (PROXY_COLLECTIONS && !BeanReflectUtil.isPrimitive(refineClass(mProperty.getElementType(), (DataSource) null, null))) {
+						Object aColType = BeanReflectUtil.instantiateCollectionFromField(mProperty.getType());
 
-						Object aResult = aFactory.createClass().newInstance();
+						Object aResult = proxyClass(COLLECTION_PROXY_CLASSES, aColType.getClass(), aColType.getClass().getInterfaces()).newInstance();
 						((ProxyObject) aResult).setHandler(new CollectionProxyHandler(new CollectionProxy(mField, theList, valueToObject)));
 						return aResult;
 					}
 					else {
-						Collection<Object> aValues = BeanReflectUtil.instantiateCollectionFromField(BeanReflectUtil.classFrom(mField));
+						Collection<Object> aValues = BeanReflectUtil.instantiateCollectionFromField(mProperty.getType());
 
 						for (Value aValue : theList) {
 							Object aListValue = valueToObject.apply(aValue);
@@ -965,8 +1468,7 @@ public final class RdfGenerator {
 					Collection<Value> aLangFiltered = Collections2.filter(aList, new Predicate<Value>() { public boolean apply(final Value theValue) { return ((Literal)theValue).getLanguage() == null; }});
 
 					if (aLangFiltered.isEmpty()) {
-						LANG_FILTER.setLangCode(getLanguageForLocale());
-						aLangFiltered = Collections2.filter(aList, LANG_FILTER);
+						aLangFiltered = Collections2.filter(aList, new LanguageFilter(getLanguageForLocale()));
 					}
 
 					if (!aLangFiltered.isEmpty()) {
@@ -974,8 +1476,7 @@ public final class RdfGenerator {
 					}
 				}
 				else {
-					LANG_FILTER.setLangCode(mField.getAnnotation(RdfProperty.class).language());
-					aList = Collections2.filter(aList, LANG_FILTER);
+					aList = Collections2.filter(aList, new LanguageFilter(mProperty.getAnnotation().language()));
 				}
 			}
 
@@ -999,7 +1500,7 @@ public final class RdfGenerator {
 			if (aList.isEmpty()) {
 				// yes, we checked for emptiness to begin the method, but we might have done some filtering based on the
 				// language tags, so we need to check again.
-				return BeanReflectUtil.instantiateCollectionFromField(BeanReflectUtil.classFrom(mField));
+				return BeanReflectUtil.instantiateCollectionFromField(mProperty.getType());
 			}
 			else if (aList.size() == 1) {
 				// collection of one element, just convert the single element and send that back
@@ -1019,76 +1520,41 @@ public final class RdfGenerator {
 				  : Locale.getDefault().toString());
 	}
 
-	private static Class refineClass(final Object theAccessor, final Class theClass, final DataSource theSource, final Resource theId) {
-		Class aClass = theClass;
-
-		if (Collection.class.isAssignableFrom(aClass)) {
-			// if the field we're assigning from is a collection, try and figure out the type of the thing
-			// we're creating from the collection
-
-			Type[] aTypes = null;
+	/**
+	 * Refine the type of the bean to create for a value.  If the type of the values of the property does not map to a
+	 * bean type, the rdf:type of the value in the data source is used to find one.
+	 * @param theClass the type of the values of the property, for a collection, the type of its elements
+	 * @param theSource the data source
+	 * @param theId the value
+	 * @return the type of the bean to create
+	 * @see EntityMetadata#elementType
+	 */
+	private static Class refineClass(final Class theClass, final DataSource theSource, final Resource theId) {
+		if (BeanReflectUtil.hasAnnotation(theClass, RdfsClass.class)) {
+			return theClass;
+		}
 
-			if (theAccessor instanceof Field && ((Field)theAccessor).getGenericType() instanceof ParameterizedType) {
-				aTypes = ((ParameterizedType) ((Field)theAccessor).getGenericType()).getActualTypeArguments();
-			}
-			else if (theAccessor instanceof Method) {
-				aTypes = ((Method) theAccessor).getGenericParameterTypes();
-			}
+		return refineClass(theClass, DataSourceUtil.getType(theSource, theId));
+	}
 
-			if (aTypes != null && aTypes.length >= 1) {
-				// first type argument to a collection is usually the one we care most about
-				if (aTypes[0] instanceof ParameterizedType && ((ParameterizedType)aTypes[0]).getActualTypeArguments().length > 0) {
-					Type aType = ((ParameterizedType)aTypes[0]).getActualTypeArguments()[0];
+	/**
+	 * As {@link #refineClass(Class, DataSource, Resource)}, but the rdf:type of the value is taken from a graph which
+	 * contains its description rather than from the data source.
+	 * @param theClass the type of the values of the property, for a collection, the type of its elements
+	 * @param theGraph the graph the value is described in
+	 * @param theId the value
+	 * @return the type of the bean to create
+	 */
+	private static Class refineClass(final Class theClass, final ExtGraph theGraph, final Resource theId) {
+		if (BeanReflectUtil.hasAnnotation(theClass, RdfsClass.class)) {
+			return theClass;
+		}
 
-					if (aType instanceof Class) {
-						aClass = (Class) aType;
-					}
-					else if (aType instanceof WildcardTypeImpl) {
-						WildcardTypeImpl aWildcard = (WildcardTypeImpl) aType;
-							// trying to suss out super v extends w/o resorting to string munging.
-							if (aWildcard.getLowerBounds().length == 0 && aWildcard.getUpperBounds().length > 0) {
-								// no lower bounds afaik indicates ? extends Foo
-								aClass = ((Class)aWildcard.getUpperBounds()[0]);
-							}
-							else if (aWildcard.getLowerBounds().length > 0) {
-								// lower & upper bounds I believe indicates something of the form Foo super Bar
-								aClass = ((Class)aWildcard.getLowerBounds()[0]);
-							}
-							else {
-								// shoot, we'll try the string hack that Adrian posted on the mailing list.
-								try {
-									aClass = Class.forName(aType.toString().split(" ")[2].substring(0, aTypes[0].toString().split(" ")[2].length()-1));
-								}
-								catch (Exception e) {
-									// everything has failed, let aClass be the default (theClass) and hope for the best
-								}
-							}
-					}
-					else {
-						// punt? wtf else could it be?
-						try {
-							aClass = Class.forName(aType.toString());
-						}
-						catch (ClassNotFoundException e) {
-							// oh well, we did the best we can
-						}
-					}
-				}
-				else if (aTypes[0] instanceof Class) {
-					aClass = (Class) aTypes[0];
-				}
-			}
-			else {
-				// could not figure out the type from the generics assertions on the Collection, they are either
-				// not present, or my algorithm is not bullet proof.  So lets try checking on the annotations
-				// for a type hint.
+		return refineClass(theClass, theGraph.getType(theId));
+	}
 
-				Class aTarget = BeanReflectUtil.getTargetEntity(theAccessor);
-				if (aTarget != null) {
-					aClass = aTarget;
-				}
-			}
-		}
+	private static Class refineClass(final Class theClass, final Resource theType) {
+		Class aClass = theClass;
 
 		if (!BeanReflectUtil.hasAnnotation(aClass, RdfsClass.class)) {
 			// k, so either the parameter of the collection or the declared type of the field does
@@ -1097,7 +1563,7 @@ public final class RdfGenerator {
 			// create an instance of that.  that will work, and pushes the likely failure back off to
 			// the assignment of the created instance
 
-			Resource aType = DataSourceUtil.getType(theSource, theId);
+			Resource aType = theType;
 
 			// k, so now we know the type, if we can match the type to a class then we're in business
 			if (aType != null && aType instanceof URI) {
@@ -1128,11 +1594,59 @@ public final class RdfGenerator {
 		private DataSource mSource;
 		private Resource mResource;
 
+		/**
+		 * The declared type of the accessor
+		 */
+		private Class mType;
+
+		/**
+		 * The type of the values of the accessor, for a collection, the type of its elements
+		 */
+		private Class mElementType;
+
+		private RdfProperty mAnnotation;
+
+		private boolean mFetchLazy;
+
+		/**
+		 * The instances already created during the load this conversion is a part of
+		 */
+		private Map<Object, Object> mContext;
+
+		/**
+		 * The description the values are from, or null.  When it is a concise bounded description, it holds the
+		 * statements about the bnode values as well.
+		 */
+		private ExtGraph mGraph;
+
 		public ValueToObject(final DataSource theSource, Resource theResource, final Object theAccessor, final URI theProp) {
 			mResource = theResource;
 			mSource = theSource;
 			mAccessor = theAccessor;
 			mProperty = theProp;
+			mContext = new HashMap<Object, Object>();
+
+			if (theAccessor != null) {
+				mType = BeanReflectUtil.classFrom(theAccessor);
+				mElementType = EntityMetadata.elementType(theAccessor, mType);
+				mAnnotation = BeanReflectUtil.getAnnotation(theAccessor, RdfProperty.class);
+				mFetchLazy = BeanReflectUtil.isFetchTypeLazy(theAccessor);
+			}
+		}
+
+		private ValueToObject(final DataSource theSource, Resource theResource, final PropertyMetadata theAccessor, final URI theProp,
+							  final ExtGraph theGraph, final Map<Object, Object> theContext) {
+			mResource = theResource;
+			mSource = theSource;
+			mAccessor = theAccessor.getAccessor();
+			mProperty = theProp;
+			mGraph = theGraph;
+			mContext = theContext;
+
+			mType = theAccessor.getType();
+			mElementType = theAccessor.getElementType();
+			mAnnotation = theAccessor.getAnnotation();
+			mFetchLazy = theAccessor.isFetchTypeLazy();
 		}
 
 		public Object apply(final Value theValue) {
@@ -1185,7 +1699,7 @@ public final class RdfGenerator {
 				else {
 					// no idea what this value is from its data type.  if the field takes a string
 					// we'll just assign the plain string, otherwise its an error
-					if (BeanReflectUtil.classFrom(mAccessor).isAssignableFrom(String.class)) {
+					if (mType.isAssignableFrom(String.class)) {
 						return aLit.getLabel();
 					}
 					else {
@@ -1198,14 +1712,38 @@ public final class RdfGenerator {
 
 				BNode aBNode = (BNode) theValue;
 
-				// we need to figure out what type of bean this instance maps to.
-				Class<?> aClass = BeanReflectUtil.classFrom(mAccessor);
+				// with a concise bounded description, the bnode is described in the graph the value came from, so the
+				// bean is created from that rather than with more queries, which can't find the bnode reliably anyway
+				if (isDescribed(aBNode)) {
+					Class<?> aClass = refineClass(mElementType, mGraph, aBNode);
+
+					// a description from a query only goes a few bnodes deep, a list longer than that is not all in
+					// the graph and is read from the data source instead
+					List<Value> aList = mGraph.isList(aBNode) ? asList(aBNode) : null;
+
+					if (aList != null && Collection.class.isAssignableFrom(mType)) {
+						return asCollection(aClass, aList);
+					}
+					else if (!mGraph.isList(aBNode)) {
+						try {
+							return asObject(aClass, aBNode);
+						}
+						catch (Exception e) {
+							if (EmpireOptions.STRICT_MODE) {
+								throw new RuntimeException(e);
+							}
+							else {
+								return null;
+							}
+						}
+					}
+				}
 
-				aClass = refineClass(mAccessor, aClass, mSource, aBNode);
+				// we need to figure out what type of bean this instance maps to.
+				Class<?> aClass = refineClass(mElementType, mSource, aBNode);
 
-				if (Collection.class.isAssignableFrom(BeanReflectUtil.classFrom(mAccessor))) {
-					AccessibleObject aAccess = (AccessibleObject) mAccessor;
-					RdfProperty aPropAnnotation = aAccess.getAnnotation(RdfProperty.class);
+				if (Collection.class.isAssignableFrom(mType)) {
+					RdfProperty aPropAnnotation = mAnnotation;
 
 					// the field takes a collection, lets create a new instance of said collection, and hopefully the
 					// bnode is a list.  this approach will only work if the property is a singleton value, eg
@@ -1218,7 +1756,7 @@ public final class RdfGenerator {
 					try {
 						String aQuery = getBNodeConstructQuery(mSource, mResource, mProperty);
 						
-						ExtGraph aGraph = new ExtGraph(mSource.graphQuery(aQuery));
+						ExtGraph aGraph = new ExtGraph(new IndexedGraph(mSource.graphQuery(aQuery)));
 						Resource aPossibleListHead = (Resource) aGraph.getValue(mResource, mProperty);
 						
 						if (aGraph.isList(aPossibleListHead)) {
@@ -1227,7 +1765,7 @@ public final class RdfGenerator {
 							// getting the list is only safe the the query dialect supports stable bnode ids in the query language.
 							if (aPropAnnotation != null && aPropAnnotation.isList() && mSource.getQueryFactory().getDialect().supportsStableBnodeIds()) {
 								try {
-									aList = asList(mSource, aPossibleListHead);
+									aList = DataSourceUtil.getList(mSource, aPossibleListHead);
 								}
 								catch (DataSourceException e) {
 									throw new RuntimeException(e);
@@ -1238,27 +1776,7 @@ public final class RdfGenerator {
 							}
 
 							//return new ToObjectFunction(mSource, null, (AccessibleObject) mAccessor, null).apply(aList);
-							Collection<Object> aValues = BeanReflectUtil.instantiateCollectionFromField(BeanReflectUtil.classFrom(aAccess));
-
-							for (Value aValue : aList) {
-								Object aListValue = null;
-
-								try {
-									aListValue = getProxyOrDbObject(mAccessor, aClass, aValue, mSource);
-								}
-								catch (Exception e) {
-									// we'll throw an error in a second...
-								}
-
-								if (aListValue == null) {
-									throw new RuntimeException("Error converting a list value: " + aValue + " -> " + aClass);
-								}
-
-								aValues.add(aListValue);
-
-							}
-							
-							return aValues;
+							return asCollection(aClass, aList);
 						}
 					}
 					catch (QueryException e) {
@@ -1267,7 +1785,7 @@ public final class RdfGenerator {
 				}
 
 				try {
-					return getProxyOrDbObject(mAccessor, aClass, aBNode, mSource);
+					return getProxyOrDbObject(mFetchLazy, aClass, aBNode, mSource, mContext);
 				}
 				catch (Exception e) {
 					if (EmpireOptions.STRICT_MODE) {
@@ -1282,15 +1800,13 @@ public final class RdfGenerator {
 				URI aURI = (URI) theValue;
 				try {
 					// we need to figure out what type of bean this instance maps to.
-					Class<?> aClass = BeanReflectUtil.classFrom(mAccessor);
-
-					aClass = refineClass(mAccessor, aClass, mSource, aURI);
+					Class<?> aClass = refineClass(mElementType, mSource, aURI);
 
 					if (aClass.isAssignableFrom(java.net.URI.class)) {
 						return java.net.URI.create(aURI.toString());
 					}
 					else {
-						return getProxyOrDbObject(mAccessor, aClass, java.net.URI.create(aURI.toString()), mSource);
+						return getProxyOrDbObject(mFetchLazy, aClass, java.net.URI.create(aURI.toString()), mSource, mContext);
 					}
 				}
 				catch (Exception e) {
@@ -1313,31 +1829,120 @@ public final class RdfGenerator {
 				}
 			}
 		}
-	}
 
-	private static List<Value> asList(DataSource theSource, Resource theRes) throws DataSourceException {
-        List<Value> aList = Lists.newArrayList();
+		/**
+		 * Return whether or not the bnode is described in the graph the values are from
+		 * @param theBNode the bnode
+		 * @return true if there are statements about the bnode in the graph, false otherwise
+		 */
+		private boolean isDescribed(final BNode theBNode) {
+			return mGraph != null && mGraph.match(theBNode, null, null).hasNext();
+		}
+
+		/**
+		 * Return the elements of the rdf:List with the given head from the graph the values are from
+		 * @param theHead the head of the list
+		 * @return the elements of the list, or null if the list is not entirely in the graph
+		 */
+		private List<Value> asList(final BNode theHead) {
+			List<Value> aList = new ArrayList<Value>();
+			Set<Value> aVisited = new HashSet<Value>();
 
-        Resource aListRes = theRes;
+			Value aNode = theHead;
 
-        while (aListRes != null) {
+			while (!RDF.NIL.equals(aNode)) {
+				if (!(aNode instanceof BNode) || !aVisited.add(aNode) || !isDescribed((BNode) aNode)) {
+					return null;
+				}
 
-            Resource aFirst = (Resource) DataSourceUtil.getValue(theSource, aListRes, RDF.FIRST);
-            Resource aRest = (Resource) DataSourceUtil.getValue(theSource, aListRes, RDF.REST);
+				Value aFirst = mGraph.getValue((BNode) aNode, RDF.FIRST);
 
-            if (aFirst != null) {
-               aList.add(aFirst);
-            }
+				if (aFirst == null) {
+					return null;
+				}
 
-            if (aRest == null || aRest.equals(RDF.NIL)) {
-               aListRes = null;
-            }
-            else {
-                aListRes = aRest;
-            }
-        }
+				aList.add(aFirst);
+
+				aNode = mGraph.getValue((BNode) aNode, RDF.REST);
+			}
+
+			return aList;
+		}
+
+		/**
+		 * Convert the elements of a list to beans and return them in a new instance of the collection type of the accessor
+		 * @param theClass the type of bean to create
+		 * @param theList the elements of the list
+		 * @return the collection of beans
+		 */
+		private Collection<Object> asCollection(final Class<?> theClass, final List<Value> theList) {
+			Collection<Object> aValues = BeanReflectUtil.instantiateCollectionFromField(mType);
+
+			for (Value aValue : theList) {
+				Object aListValue = null;
+
+				try {
+					aListValue = asObject(theClass, aValue);
+				}
+				catch (Exception e) {
+					// we'll throw an error in a second...
+				}
+
+				if (aListValue == null) {
+					throw new RuntimeException("Error converting a list value: " + aValue + " -> " + theClass);
+				}
+
+				aValues.add(aListValue);
+			}
+
+			return aValues;
+		}
+
+		/**
+		 * Return the bean for the value.  A bnode described in the graph the values are from is created from that
+		 * description, even when it's fetched lazily since there is nothing left to fetch, otherwise the bean is loaded
+		 * from the data source, or proxied.
+		 * @param theClass the type of bean to create
+		 * @param theValue the value
+		 * @return the bean
+		 * @throws Exception if there is an error creating the bean
+		 */
+		private Object asObject(final Class<?> theClass, final Value theValue) throws Exception {
+			if (theValue instanceof BNode && isDescribed((BNode) theValue)) {
+				return fromRdf(theClass, (BNode) theValue, mGraph, mSource, mContext);
+			}
+			else {
+				return getProxyOrDbObject(mFetchLazy, theClass, theValue, mSource, mContext);
+			}
+		}
+	}
+
+	/**
+	 * Create an instance of the specified class and populate it from the description of the bnode in the given graph,
+	 * such as a concise bounded description which includes the bnode.
+	 * @param theClass the class to create
+	 * @param theBNode the bnode
+	 * @param theGraph the graph containing the description of the bnode
+	 * @param theSource the KB to get the RDF data of other related individuals from
+	 * @param theContext the instances already created during the current load, keyed by their identifiers
+	 * @param <T> the type of the instance to create
+	 * @return the new instance, or the instance from the context
+	 * @throws InvalidRdfException thrown if the class does not support RDF JPA operations, or does not provide sufficient access to its fields/data.
+	 * @throws DataSourceException thrown if there is an error while retrieving data from the graph
+	 */
+	private static <T> T fromRdf(Class<T> theClass, BNode theBNode, ExtGraph theGraph, DataSource theSource, Map<Object, Object> theContext) throws InvalidRdfException, DataSourceException {
+		SupportsRdfId.RdfKey aKey = asPrimaryKey(theBNode);
+		Object aExisting = theContext.get(aKey);
+
+		if (theClass.isInstance(aExisting)) {
+			return theClass.cast(aExisting);
+		}
 
-        return aList;
+		T aObj = refineInstance(theClass, newInstance(theClass, aKey), theGraph.getValues(theBNode, RDF.TYPE));
+
+		theContext.put(aKey, aObj);
+
+		return populate(aObj, theGraph, theSource, theContext);
 	}
 
 	private static final MethodFilter METHOD_FILTER = new MethodFilter() {
@@ -1346,16 +1951,58 @@ public final class RdfGenerator {
 		}
 	};
 
-	@SuppressWarnings("unchecked")
-	private static <T> T getProxyOrDbObject(Object theAccessor, Class<T> theClass, Object theKey, DataSource theSource) throws Exception {
-		if (BeanReflectUtil.isFetchTypeLazy(theAccessor)) {
-			Proxy<T> aProxy = new Proxy<T>(theClass, asPrimaryKey(theKey), theSource);
+	/**
+	 * The proxy classes of lazily fetched beans, keyed by the class of the bean.  Generating a proxy class is expensive,
+	 * and the class takes up space in the JVM for as long as its class loader is around, so a single proxy class is
+	 * generated for each bean class, and each proxy is a new instance of it with its own handler.
+	 */
+	private static final ConcurrentMap<Class<?>, Class<?>> PROXY_CLASSES = new ConcurrentHashMap<Class<?>, Class<?>>();
+
+	/**
+	 * The proxy classes of lazily loaded collections, keyed by the type of the collection
+	 * @see #PROXY_COLLECTIONS
+	 */
+	private static final ConcurrentMap<Class<?>, Class<?>> COLLECTION_PROXY_CLASSES = new ConcurrentHashMap<Class<?>, Class<?>>();
 
+	/**
+	 * Return the proxy class for the given class from the cache, generating it and adding it to the cache if needed
+	 * @param theCache the cache of proxy classes
+	 * @param theClass the class to proxy
+	 * @param theInterfaces the interfaces the proxy class implements, or null
+	 * @return the proxy class
+	 */
+	private static Class<?> proxyClass(ConcurrentMap<Class<?>, Class<?>> theCache, Class<?> theClass, Class<?>[] theInterfaces) {
+		Class<?> aProxyClass = theCache.get(theClass);
+
+		if (aProxyClass == null) {
 			ProxyFactory aFactory = new ProxyFactory();
+
+			if (theInterfaces != null) {
+				aFactory.setInterfaces(theInterfaces);
+			}
+
 			aFactory.setSuperclass(theClass);
 			aFactory.setFilter(METHOD_FILTER);
-			
-			Object aObj = aFactory.createClass().newInstance();
+
+			aProxyClass = aFactory.createClass();
+
+			// two threads can generate the class at the same time, they both go on to use whichever one is cached
+			Class<?> aExisting = theCache.putIfAbsent(theClass, aProxyClass);
+
+			if (aExisting != null) {
+				aProxyClass = aExisting;
+			}
+		}
+
+		return aProxyClass;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T getProxyOrDbObject(boolean theFetchLazy, Class<T> theClass, Object theKey, DataSource theSource, Map<Object, Object> theContext) throws Exception {
+		if (theFetchLazy) {
+			Proxy<T> aProxy = new Proxy<T>(theClass, asPrimaryKey(theKey), theSource, proxyContext(theContext));
+
+			Object aObj = proxyClass(PROXY_CLASSES, theClass, null).newInstance();
 
 			((ProxyObject) aObj).setHandler(new ProxyHandler<T>(aProxy));
 			
@@ -1364,7 +2011,7 @@ public final class RdfGenerator {
 			return (T) aObj;
 		}
 		else {
-			return fromRdf(theClass, asPrimaryKey(theKey), theSource);
+			return fromRdf(theClass, asPrimaryKey(theKey), theSource, theContext);
 		}
 	}
 
@@ -1504,6 +2151,57 @@ public final class RdfGenerator {
 		}
 	}
 
+	/**
+	 * The context of a read-only load, the beans populated with it are not tracked
+	 * @see #untrackedContext
+	 */
+	private static final class UntrackedContext extends HashMap<Object, Object> {
+		private static final long serialVersionUID = 1L;
+	}
+
+	/**
+	 * The context of the beans managed by an EntityManager, which counts how many times it was cleared so that the
+	 * lazily loaded references created before that can tell
+	 * @see #managedContext
+	 */
+	private static final class ManagedContext extends HashMap<Object, Object> {
+		private static final long serialVersionUID = 1L;
+
+		private volatile int mGeneration = 0;
+
+		@Override
+		public void clear() {
+			mGeneration++;
+			super.clear();
+		}
+	}
+
+	/**
+	 * Supplies the context a lazily loaded reference is resolved with.  The context of the load which created the
+	 * reference is only used if it is the still current context of an EntityManager; the context of a standalone load
+	 * is not kept, it is not safe to share between the threads the reference might be resolved from, and it would keep
+	 * every bean of the load reachable from the reference.
+	 */
+	private static final class ProxyContext implements Supplier<Map<Object, Object>> {
+		private final ManagedContext mContext;
+		private final int mGeneration;
+		private final boolean mTracked;
+
+		private ProxyContext(final Map<Object, Object> theContext) {
+			mContext = theContext instanceof ManagedContext ? (ManagedContext) theContext : null;
+			mGeneration = mContext == null ? 0 : mContext.mGeneration;
+			mTracked = !(theContext instanceof UntrackedContext);
+		}
+
+		public Map<Object, Object> get() {
+			if (mContext != null && mContext.mGeneration == mGeneration) {
+				return mContext;
+			}
+
+			return mTracked ? new HashMap<Object, Object>() : untrackedContext();
+		}
+	}
+
 	private static class ContainsResourceValues implements Predicate<Value> {
 		public boolean apply(final Value theValue) {
 			return theValue instanceof Resource;
@@ -1511,16 +2209,12 @@ public final class RdfGenerator {
 	}
 
 	private static class LanguageFilter implements Predicate<Value> {
-		private String mLangCode;
+		private final String mLangCode;
 
 		private LanguageFilter(final String theLangCode) {
 			mLangCode = theLangCode;
 		}
 
-		public void setLangCode(final String theLangCode) {
-			mLangCode = theLangCode;
-		}
-
 		public boolean apply(final Value theValue) {
 			return theValue instanceof Literal && mLangCode.equals(((Literal)theValue).getLanguage());
 		}
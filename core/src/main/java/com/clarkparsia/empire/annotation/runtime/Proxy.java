@@ -20,6 +20,11 @@ import com.clarkparsia.empire.SupportsRdfId;
 
 import com.clarkparsia.empire.annotation.RdfGenerator;
 
+import com.google.common.base.Supplier;
+
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * <p>Wrapper class which serves as a proxy for an object to the database.</p>
  *
@@ -49,6 +54,11 @@ public class Proxy<T> {
 	 */
 	private DataSource mDataSource;
 
+	/**
+	 * Supplies the instances already loaded, which the proxied object is resolved against before going to the database
+	 */
+	private Supplier<Map<Object, Object>> mContext;
+
 	/**
 	 * Create a new Proxy object
 	 * @param theClass the type of the object
@@ -56,9 +66,23 @@ public class Proxy<T> {
 	 * @param theSource the database to grab the proxied object from
 	 */
 	public Proxy(Class<T> theClass, SupportsRdfId.RdfKey theKey, DataSource theSource) {
+		this(theClass, theKey, theSource, null);
+	}
+
+	/**
+	 * Create a new Proxy object
+	 * @param theClass the type of the object
+	 * @param theKey the database key of the object
+	 * @param theSource the database to grab the proxied object from
+	 * @param theContext supplies, when the proxy is resolved, the instances already loaded keyed by their identifiers.
+	 * If the proxied object is in the context, that instance is used, otherwise the loaded instance is added to the
+	 * context.  If null, the object is loaded with a new context.
+	 */
+	public Proxy(Class<T> theClass, SupportsRdfId.RdfKey theKey, DataSource theSource, Supplier<Map<Object, Object>> theContext) {
 		mClass = theClass;
 		mURI = theKey;
 		mDataSource = theSource;
+		mContext = theContext;
 	}
 	
 	/**
@@ -66,10 +90,10 @@ public class Proxy<T> {
 	 * it will actually go and grab the object from the database.
 	 * @return the value this class proxies for
 	 */
-	public T value() {
+	public synchronized T value() {
 		if (mValue == null) {
 			try {
-				mValue = RdfGenerator.fromRdf(mClass, mURI, mDataSource);
+				mValue = RdfGenerator.fromRdf(mClass, mURI, mDataSource, mContext == null ? new HashMap<Object, Object>() : mContext.get());
 			}
 			catch (Exception e) {
 				throw new RuntimeException(e);
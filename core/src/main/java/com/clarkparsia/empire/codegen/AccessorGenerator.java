@@ -0,0 +1,407 @@
+/*
+ * Copyright (c) 2009-2012 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clarkparsia.empire.codegen;
+
+import javassist.ByteArrayClassPath;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtNewConstructor;
+import javassist.CtNewMethod;
+import javassist.LoaderClassPath;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import java.util.List;
+
+/**
+ * <p>Generate {@link PropertyAccessor} implementations for bean classes at runtime via bytecode manipulation.  The
+ * generated class lives in the package and class loader of the bean so that it can call public and package-visible
+ * fields and methods of the bean directly.  Any other properties are read and written via reflection.</p>
+ *
+ * @since 0.7.2
+ * @version 0.7.2
+ * @see PropertyAccessor
+ */
+public final class AccessorGenerator {
+	private static final Logger LOGGER = LogManager.getLogger(AccessorGenerator.class);
+
+	/**
+	 * Suffix appended to the name of a bean class to create the name of its accessor class
+	 */
+	private static final String SUFFIX = "$EmpireAccessor";
+
+	private static final String ACCESSOR = PropertyAccessor.class.getName();
+
+	/**
+	 * No instances
+	 */
+	private AccessorGenerator() {
+	}
+
+	/**
+	 * <p>Create a {@link PropertyAccessor} for the given properties of the class.  The index of a property in the accessor
+	 * is its position in the list.  Each property is a {@link Field} or, for readable properties, a getter, and for
+	 * writable properties, a setter.</p>
+	 *
+	 * <p>If an accessor class cannot be generated for the bean, a reflective accessor is returned instead.</p>
+	 * @param theClass the bean class
+	 * @param theReaders the readable properties
+	 * @param theWriters the writable properties
+	 * @return an accessor for the properties
+	 */
+	public synchronized static PropertyAccessor generateAccessor(final Class<?> theClass,
+																 final List<? extends AccessibleObject> theReaders,
+																 final List<? extends AccessibleObject> theWriters) {
+		AccessibleObject[] aReaders = theReaders.toArray(new AccessibleObject[theReaders.size()]);
+		AccessibleObject[] aWriters = theWriters.toArray(new AccessibleObject[theWriters.size()]);
+
+		if (theClass.getClassLoader() == null || theClass.isArray() || theClass.isPrimitive() || !isAccessible(theClass, theClass)) {
+			return PropertyAccessor.reflective(aReaders, aWriters);
+		}
+
+		try {
+			Class<?> aAccessorClass = accessorClass(theClass, aReaders, aWriters);
+
+			// the generated code handles everything that is not left as a reflective fallback
+			for (int i = 0; i < aReaders.length; i++) {
+				if (canRead(theClass, aReaders[i])) {
+					aReaders[i] = null;
+				}
+			}
+
+			for (int i = 0; i < aWriters.length; i++) {
+				if (canWrite(theClass, aWriters[i])) {
+					aWriters[i] = null;
+				}
+			}
+
+			return (PropertyAccessor) aAccessorClass.getConstructor(AccessibleObject[].class, AccessibleObject[].class).newInstance(aReaders, aWriters);
+		}
+		catch (Throwable e) {
+			LOGGER.warn("Could not generate a property accessor for " + theClass + ", reflection will be used instead", e);
+
+			return PropertyAccessor.reflective(theReaders.toArray(new AccessibleObject[theReaders.size()]),
+											   theWriters.toArray(new AccessibleObject[theWriters.size()]));
+		}
+	}
+
+	/**
+	 * Return the generated accessor class for the bean, generating it if it does not already exist
+	 * @param theClass the bean class
+	 * @param theReaders the readable properties
+	 * @param theWriters the writable properties
+	 * @return the accessor class
+	 * @throws Exception if there is an error while generating the class
+	 */
+	private static Class<?> accessorClass(final Class<?> theClass, final AccessibleObject[] theReaders, final AccessibleObject[] theWriters) throws Exception {
+		String aName = theClass.getName() + SUFFIX;
+
+		try {
+			return theClass.getClassLoader().loadClass(aName);
+		}
+		catch (ClassNotFoundException e) {
+			// not generated yet
+		}
+
+		// a child pool keeps the default one from accumulating class paths
+		ClassPool aPool = new ClassPool(ClassPool.getDefault());
+		aPool.appendClassPath(new LoaderClassPath(theClass.getClassLoader()));
+
+		// classes created by InstanceGenerator are not visible via their loader, or in the default pool
+		byte[] aBytecode = InstanceGenerator.bytecode(theClass.getName());
+
+		if (aBytecode != null) {
+			aPool.insertClassPath(new ByteArrayClassPath(theClass.getName(), aBytecode));
+		}
+
+		CtClass aClass = aPool.makeClass(aName, aPool.get(ACCESSOR));
+
+		try {
+			aClass.addConstructor(CtNewConstructor.make("public " + aClass.getSimpleName() + "(java.lang.reflect.AccessibleObject[] theReaders, java.lang.reflect.AccessibleObject[] theWriters) { super(theReaders, theWriters); }", aClass));
+
+			aClass.addMethod(CtNewMethod.make(getMethod(theClass, theReaders), aClass));
+			aClass.addMethod(CtNewMethod.make(setMethod(theClass, theWriters), aClass));
+
+			for (Class<?> aType : new Class<?>[] { boolean.class, byte.class, short.class, int.class, long.class, float.class, double.class }) {
+				String aMethod = primitiveSetMethod(theClass, theWriters, aType);
+
+				if (aMethod != null) {
+					aClass.addMethod(CtNewMethod.make(aMethod, aClass));
+				}
+			}
+
+			return aClass.toClass(theClass.getClassLoader(), theClass.getProtectionDomain());
+		}
+		finally {
+			aClass.detach();
+		}
+	}
+
+	/**
+	 * Create the source of the doGet method of the accessor
+	 * @param theClass the bean class
+	 * @param theReaders the readable properties
+	 * @return the method source
+	 */
+	private static String getMethod(final Class<?> theClass, final AccessibleObject[] theReaders) {
+		StringBuilder aSrc = new StringBuilder();
+
+		aSrc.append("protected Object doGet(Object theObj, int theIndex) throws Exception {\n");
+		aSrc.append("  switch (theIndex) {\n");
+
+		for (int i = 0; i < theReaders.length; i++) {
+			if (canRead(theClass, theReaders[i])) {
+				Class<?> aType;
+				String aExpr;
+
+				if (theReaders[i] instanceof Field) {
+					aType = ((Field) theReaders[i]).getType();
+					aExpr = cast(theClass) + "." + ((Field) theReaders[i]).getName();
+				}
+				else {
+					aType = ((Method) theReaders[i]).getReturnType();
+					aExpr = cast(theClass) + "." + ((Method) theReaders[i]).getName() + "()";
+				}
+
+				aSrc.append("    case ").append(i).append(": return ").append(box(aType, aExpr)).append(";\n");
+			}
+		}
+
+		aSrc.append("    default: return reflectGet(theObj, theIndex);\n");
+		aSrc.append("  }\n");
+		aSrc.append("}");
+
+		return aSrc.toString();
+	}
+
+	/**
+	 * Create the source of the doSet method of the accessor
+	 * @param theClass the bean class
+	 * @param theWriters the writable properties
+	 * @return the method source
+	 */
+	private static String setMethod(final Class<?> theClass, final AccessibleObject[] theWriters) {
+		StringBuilder aSrc = new StringBuilder();
+
+		aSrc.append("protected void doSet(Object theObj, int theIndex, Object theValue) throws Exception {\n");
+		aSrc.append("  switch (theIndex) {\n");
+
+		for (int i = 0; i < theWriters.length; i++) {
+			if (canWrite(theClass, theWriters[i])) {
+				Class<?> aType = writeType(theWriters[i]);
+				String aValue;
+
+				aSrc.append("    case ").append(i).append(":\n");
+
+				if (aType.isPrimitive()) {
+					aValue = ACCESSOR + ".as" + capitalize(aType.getName()) + "(" + i + ", theValue)";
+				}
+				else {
+					aSrc.append("      if (theValue != null && !(theValue instanceof ").append(javaName(aType)).append(")) { ")
+						.append(ACCESSOR).append(".mismatch(").append(i).append(", theValue); }\n");
+
+					aValue = "(" + javaName(aType) + ") theValue";
+				}
+
+				aSrc.append("      ").append(assign(theClass, theWriters[i], aValue)).append(";\n");
+				aSrc.append("      return;\n");
+			}
+		}
+
+		aSrc.append("    default: reflectSet(theObj, theIndex, theValue);\n");
+		aSrc.append("  }\n");
+		aSrc.append("}");
+
+		return aSrc.toString();
+	}
+
+	/**
+	 * Create the source of the primitive setter of the accessor for the given type, such as doSetInt
+	 * @param theClass the bean class
+	 * @param theWriters the writable properties
+	 * @param theType the primitive type
+	 * @return the method source, or null if no properties of the bean are of the primitive type
+	 */
+	private static String primitiveSetMethod(final Class<?> theClass, final AccessibleObject[] theWriters, final Class<?> theType) {
+		StringBuilder aSrc = new StringBuilder();
+		String aMethod = "doSet" + capitalize(theType.getName());
+
+		aSrc.append("protected void ").append(aMethod).append("(Object theObj, int theIndex, ").append(theType.getName()).append(" theValue) throws Exception {\n");
+		aSrc.append("  switch (theIndex) {\n");
+
+		boolean aHasProperty = false;
+
+		for (int i = 0; i < theWriters.length; i++) {
+			if (canWrite(theClass, theWriters[i]) && writeType(theWriters[i]).equals(theType)) {
+				aHasProperty = true;
+
+				aSrc.append("    case ").append(i).append(": ").append(assign(theClass, theWriters[i], "theValue")).append("; return;\n");
+			}
+		}
+
+		aSrc.append("  }\n");
+		aSrc.append("  super.").append(aMethod).append("(theObj, theIndex, theValue);\n");
+		aSrc.append("}");
+
+		return aHasProperty ? aSrc.toString() : null;
+	}
+
+	/**
+	 * Return the source of the statement which writes a value to the property
+	 * @param theClass the bean class
+	 * @param theWriter the property
+	 * @param theValue the source of the value expression
+	 * @return the assignment source
+	 */
+	private static String assign(final Class<?> theClass, final AccessibleObject theWriter, final String theValue) {
+		if (theWriter instanceof Field) {
+			return cast(theClass) + "." + ((Field) theWriter).getName() + " = " + theValue;
+		}
+		else {
+			return cast(theClass) + "." + ((Method) theWriter).getName() + "(" + theValue + ")";
+		}
+	}
+
+	private static String cast(final Class<?> theClass) {
+		return "((" + javaName(theClass) + ") theObj)";
+	}
+
+	private static String box(final Class<?> theType, final String theExpr) {
+		if (!theType.isPrimitive()) {
+			return theExpr;
+		}
+		else if (theType.equals(int.class)) {
+			return "Integer.valueOf(" + theExpr + ")";
+		}
+		else if (theType.equals(char.class)) {
+			return "Character.valueOf(" + theExpr + ")";
+		}
+		else {
+			return capitalize(theType.getName()) + ".valueOf(" + theExpr + ")";
+		}
+	}
+
+	private static String capitalize(final String theName) {
+		return Character.toUpperCase(theName.charAt(0)) + theName.substring(1);
+	}
+
+	/**
+	 * Return the name of the class as it is written in source for javassist, where nested classes use '$'
+	 * @param theClass the class
+	 * @return the source name of the class
+	 */
+	private static String javaName(final Class<?> theClass) {
+		return theClass.isArray() ? javaName(theClass.getComponentType()) + "[]" : theClass.getName();
+	}
+
+	private static Class<?> writeType(final AccessibleObject theWriter) {
+		return theWriter instanceof Field ? ((Field) theWriter).getType() : ((Method) theWriter).getParameterTypes()[0];
+	}
+
+	/**
+	 * Return whether or not the generated accessor for the class can read the property directly
+	 * @param theClass the bean class
+	 * @param theReader the property
+	 * @return true if the property can be read by generated code, false if it must use reflection
+	 */
+	private static boolean canRead(final Class<?> theClass, final AccessibleObject theReader) {
+		if (theReader instanceof Field) {
+			Field aField = (Field) theReader;
+
+			return !Modifier.isStatic(aField.getModifiers()) && isAccessible(theClass, aField) && isAccessible(theClass, aField.getType());
+		}
+		else if (theReader instanceof Method) {
+			Method aMethod = (Method) theReader;
+
+			return !Modifier.isStatic(aMethod.getModifiers()) && aMethod.getParameterTypes().length == 0
+				   && isAccessible(theClass, aMethod) && isAccessible(theClass, aMethod.getReturnType());
+		}
+		else {
+			return false;
+		}
+	}
+
+	/**
+	 * Return whether or not the generated accessor for the class can write the property directly
+	 * @param theClass the bean class
+	 * @param theWriter the property
+	 * @return true if the property can be written by generated code, false if it must use reflection
+	 */
+	private static boolean canWrite(final Class<?> theClass, final AccessibleObject theWriter) {
+		if (theWriter instanceof Field) {
+			Field aField = (Field) theWriter;
+
+			return !Modifier.isStatic(aField.getModifiers()) && !Modifier.isFinal(aField.getModifiers())
+				   && isAccessible(theClass, aField) && isAccessible(theClass, aField.getType());
+		}
+		else if (theWriter instanceof Method) {
+			Method aMethod = (Method) theWriter;
+
+			return !Modifier.isStatic(aMethod.getModifiers()) && aMethod.getParameterTypes().length == 1
+				   && isAccessible(theClass, aMethod) && isAccessible(theClass, aMethod.getParameterTypes()[0]);
+		}
+		else {
+			return false;
+		}
+	}
+
+	/**
+	 * Return whether or not a member can be used from the accessor generated for the given class
+	 * @param theClass the bean class
+	 * @param theMember the member
+	 * @return true if the member is accessible, false otherwise
+	 */
+	private static boolean isAccessible(final Class<?> theClass, final Member theMember) {
+		int aModifiers = theMember.getModifiers();
+
+		if (Modifier.isPrivate(aModifiers) || !isAccessible(theClass, theMember.getDeclaringClass())) {
+			return false;
+		}
+
+		return Modifier.isPublic(aModifiers) || isSamePackage(theClass, theMember.getDeclaringClass());
+	}
+
+	/**
+	 * Return whether or not a type can be used from the accessor generated for the given class
+	 * @param theClass the bean class
+	 * @param theType the type
+	 * @return true if the type is accessible, false otherwise
+	 */
+	private static boolean isAccessible(final Class<?> theClass, final Class<?> theType) {
+		if (theType.isArray()) {
+			return isAccessible(theClass, theType.getComponentType());
+		}
+
+		return theType.isPrimitive() || Modifier.isPublic(theType.getModifiers()) || isSamePackage(theClass, theType);
+	}
+
+	private static boolean isSamePackage(final Class<?> theClass, final Class<?> theOther) {
+		return theClass.getClassLoader() == theOther.getClassLoader() && packageName(theClass).equals(packageName(theOther));
+	}
+
+	private static String packageName(final Class<?> theClass) {
+		String aName = theClass.getName();
+
+		return aName.lastIndexOf('.') == -1 ? "" : aName.substring(0, aName.lastIndexOf('.'));
+	}
+}
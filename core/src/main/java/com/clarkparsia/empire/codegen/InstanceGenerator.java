@@ -35,8 +35,13 @@ import javassist.bytecode.annotation.Annotation;
 
 import java.util.Map;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Set;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
@@ -59,13 +64,33 @@ import sun.reflect.generics.reflectiveObjects.WildcardTypeImpl;
  *
  * @author Michael Grove
  * @since 0.5.1
- * @version 0.7
+ * @version 0.7.2
  */
 public final class InstanceGenerator {
 	private static final Logger LOGGER = LogManager.getLogger(BeanGenerator.class);
 
 	private static final Collection<Method> processedMethods = Sets.newHashSet();
 
+	/**
+	 * The generated classes, keyed by the class they were generated from.  A class is specific to the loader which
+	 * loaded it, so this is per class and class loader.  Once a class has been generated, getting it is a lookup in
+	 * this map which does not need the lock generation is done under.
+	 */
+	private static final ConcurrentMap<Class<?>, Class<?>> GENERATED = new ConcurrentHashMap<Class<?>, Class<?>>();
+
+	/**
+	 * The bytecode of the generated classes, keyed by class name.  The CtClass of a generated class is detached from the
+	 * default ClassPool once the class is loaded so the pool does not hold on to it, but the generated classes are not
+	 * visible via their loader, so this is how they are found when they are needed to compile other classes.
+	 * @see #bytecode
+	 */
+	private static final ConcurrentMap<String, byte[]> BYTECODE = new ConcurrentHashMap<String, byte[]>();
+
+	/**
+	 * The class loaders which have been added to the class path of the default ClassPool.  Only used while generating.
+	 */
+	private static final Set<ClassLoader> CLASS_PATHS = new HashSet<ClassLoader>();
+
 	/**
 	 * No instances
 	 */
@@ -84,14 +109,62 @@ public final class InstanceGenerator {
 	 * @return New dynamically generated bytecode of a class that implements the given interface.
 	 * @throws Exception if there is an error while generating the bytecode of the new class.
 	 */
-	public synchronized static <T> Class<T> generateInstanceClass(Class<T> theInterface) throws Exception {
+	@SuppressWarnings("unchecked")
+	public static <T> Class<T> generateInstanceClass(Class<T> theInterface) throws Exception {
+		Class<?> aClass = GENERATED.get(theInterface);
+
+		if (aClass == null) {
+			aClass = generate(theInterface);
+		}
+
+		return (Class<T>) aClass;
+	}
+
+	/**
+	 * Return the bytecode of a class created by this generator
+	 * @param theName the name of the generated class
+	 * @return the bytecode of the class, or null if the generator did not create a class with that name
+	 */
+	static byte[] bytecode(String theName) {
+		return BYTECODE.get(theName);
+	}
+
+	/**
+	 * Generate the class, or return it if it was generated while waiting to generate it, and add it to the cache of
+	 * generated classes
+	 * @param theInterface the interface to build an instance of
+	 * @param <T> the type of the interface
+	 * @return the generated class
+	 * @throws Exception if there is an error while generating the bytecode of the new class.
+	 * @see #generateInstanceClass
+	 */
+	@SuppressWarnings("unchecked")
+	private synchronized static <T> Class<T> generate(Class<T> theInterface) throws Exception {
+		Class<?> aGenerated = GENERATED.get(theInterface);
+
+		if (aGenerated != null) {
+			return (Class<T>) aGenerated;
+		}
+
+		Class<T> aResult = generateClass(theInterface);
+
+		GENERATED.put(theInterface, aResult);
+
+		return aResult;
+	}
+
+	private static <T> Class<T> generateClass(Class<T> theInterface) throws Exception {
 		processedMethods.clear();
 
 		// TODO: can we use some sort of template language for this?
 
 		ClassPool aPool = ClassPool.getDefault();
 
-		aPool.appendClassPath(new LoaderClassPath(theInterface.getClassLoader()));
+		// a class path is added for each loader once, rather than every time, so the class path of the pool, which is
+		// searched for each class it looks for, does not keep growing
+		if (theInterface.getClassLoader() != null && CLASS_PATHS.add(theInterface.getClassLoader())) {
+			aPool.appendClassPath(new LoaderClassPath(theInterface.getClassLoader()));
+		}
 
 		CtClass aInterface = aPool.get(theInterface.getName());
 		CtClass aSupportsRdfIdInterface = aPool.get(SupportsRdfId.class.getName());
@@ -107,7 +180,11 @@ public final class InstanceGenerator {
 		
 		try {
 			//  i had a good reason for doing this, but i dont remember what it is.  when i do, i'll explain it here =)
-			
+
+			if (BYTECODE.containsKey(aName)) {
+				return (Class<T>) BeanReflectUtil.loadClass(aName);
+			}
+
 			aClass = aPool.get(aName);
 			return (Class<T>) BeanReflectUtil.loadClass(aName);
 		}
@@ -135,11 +212,20 @@ public final class InstanceGenerator {
 		CtField aInterfaceField = new CtField(aPool.get(Class.class.getName()), "mInterfaceClass", aClass);
 		aClass.addField(aInterfaceField, CtField.Initializer.byExpr(theInterface.getName() + ".class;"));
 		
+		// the graphs are replaced when the instance is populated, until then it shares an empty one rather than
+		// allocating graphs which are thrown away
 		CtField aAllTriplesField = new CtField(aPool.get(Graph.class.getName()), "mAllTriples", aClass);
-		aClass.addField(aAllTriplesField, CtField.Initializer.byExpr("new com.clarkparsia.openrdf.ExtGraph();"));
+		aClass.addField(aAllTriplesField, CtField.Initializer.byExpr("com.clarkparsia.empire.util.SubjectGraph.EMPTY;"));
 		
 		CtField aInstanceTriplesField = new CtField(aPool.get(Graph.class.getName()), "mInstanceTriples", aClass);
-		aClass.addField(aInstanceTriplesField, CtField.Initializer.byExpr("new com.clarkparsia.openrdf.ExtGraph();"));
+		aClass.addField(aInstanceTriplesField, CtField.Initializer.byExpr("com.clarkparsia.empire.util.SubjectGraph.EMPTY;"));
+
+		// only implementations of interfaces track their changes, every write to them goes through a generated setter.
+		// null until the instance is populated, changes made while it is being created and populated are not tracked
+		if (theInterface.isInterface() && !hasField(aClass, "mDirtyProperties")) {
+			CtField aDirtyField = new CtField(aPool.get(boolean[].class.getName()), "mDirtyProperties", aClass);
+			aClass.addField(aDirtyField);
+		}
 		
 		aClass.addConstructor(CtNewConstructor.defaultConstructor(aClass));
 		
@@ -173,6 +259,18 @@ public final class InstanceGenerator {
 		if (!hasMethod(aClass, "setInstanceTriples")) {
 			aClass.addMethod(CtNewMethod.make("public void setInstanceTriples(org.openrdf.model.Graph theGraph) { mInstanceTriples = theGraph; } ", aClass));
 		}		
+
+		if (!hasMethod(aClass, "getDirtyProperties")) {
+			aClass.addMethod(CtNewMethod.make(hasField(aClass, "mDirtyProperties")
+											  ? "public boolean[] getDirtyProperties() { return mDirtyProperties; } "
+											  : "public boolean[] getDirtyProperties() { return null; } ", aClass));
+		}
+
+		if (!hasMethod(aClass, "clearDirtyProperties")) {
+			aClass.addMethod(CtNewMethod.make(hasField(aClass, "mDirtyProperties")
+											  ? "public void clearDirtyProperties() { mDirtyProperties = new boolean[com.clarkparsia.empire.util.EntityMetadata.of(getClass()).getReadablePropertyCount()]; } "
+											  : "public void clearDirtyProperties() { } ", aClass));
+		}
 		
 		String equalsMethodBody = 
 		  "public boolean equals(Object theObj) {\n" +
@@ -191,7 +289,19 @@ public final class InstanceGenerator {
 
 		aClass.freeze();
 
-		Class<T> aResult = (Class<T>) aClass.toClass();
+		Class<T> aResult;
+
+		try {
+			byte[] aBytecode = aClass.toBytecode();
+
+			aResult = (Class<T>) aClass.toClass();
+
+			BYTECODE.put(aName, aBytecode);
+		}
+		finally {
+			// the class has been loaded, or failed to load, either way the pool has no further use for it
+			aClass.detach();
+		}
 
 		try {
 			// make sure this is a valid class, that is, we can create instances of it!
@@ -276,10 +386,37 @@ public final class InstanceGenerator {
 				}
 
 				theClass.addMethod(aMethod);
+
+				if (hasField(theClass, "mDirtyProperties")) {
+					aMethod.insertAfter(trackChange(theClass, setterName(aProp)));
+				}
 			}
 		}
 	}
 
+	/**
+	 * Return the code which records that the property set by the given setter was changed.  Changes are recorded by
+	 * the index of the property in the {@link com.clarkparsia.empire.util.EntityMetadata metadata} of the class,
+	 * which is looked up once, when the class is initialized.
+	 * @param theClass the generated class
+	 * @param theSetter the name of the setter of the property
+	 * @return the code to add to the setter of the property
+	 * @throws CannotCompileException thrown if there is an error generating the index of the property
+	 */
+	private static String trackChange(final CtClass theClass, final String theSetter) throws CannotCompileException {
+		String aIndexField = "m" + theSetter.substring(3) + "Index";
+
+		if (!hasField(theClass, aIndexField)) {
+			CtField aField = new CtField(CtClass.intType, aIndexField, theClass);
+			aField.setModifiers(Modifier.PRIVATE | Modifier.STATIC | Modifier.FINAL);
+
+			theClass.addField(aField, CtField.Initializer.byExpr("com.clarkparsia.empire.util.EntityMetadata.of(" + theClass.getName() + ".class).getReadIndexOfSetter(\"" + theSetter + "\");"));
+		}
+
+		// setters of properties which are not mapped to rdf have no index, changes to them do not matter to a merge
+		return "if (mDirtyProperties != null && " + aIndexField + " != -1) { mDirtyProperties[" + aIndexField + "] = true; }";
+	}
+
 	private static boolean hasMethod(final CtClass theClass, final CtMethod theMethod) {
 		try {
 			return theClass.getMethod(theMethod.getName(), theMethod.getSignature()) != null;
@@ -0,0 +1,497 @@
+/*
+ * Copyright (c) 2009-2012 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clarkparsia.empire.codegen;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * <p>Reads and writes the mapped properties of instances of a single bean class by their index rather than through
+ * java.lang.reflect.  Implementations are generated at runtime by {@link AccessorGenerator} and call the fields and
+ * methods of the bean directly; properties the generated code cannot reach, such as private fields, fall back to
+ * reflection on a member which was made accessible once when the accessor was created.</p>
+ *
+ * <p>Readable and writable properties are indexed separately, by their position in the lists the accessor was
+ * created from.  The primitive setters avoid boxing values of primitive properties; using them with a property
+ * of a different type falls back to {@link #set}.</p>
+ *
+ * @since 0.7.2
+ * @version 0.7.2
+ * @see AccessorGenerator
+ */
+public abstract class PropertyAccessor {
+
+	/**
+	 * The reflective fallback for each readable property, null for properties which are read by the generated code
+	 */
+	private final AccessibleObject[] mReaders;
+
+	/**
+	 * The reflective fallback for each writable property, null for properties which are written by the generated code
+	 */
+	private final AccessibleObject[] mWriters;
+
+	/**
+	 * Create a new PropertyAccessor
+	 * @param theReaders the reflective fallbacks for the readable properties
+	 * @param theWriters the reflective fallbacks for the writable properties
+	 */
+	protected PropertyAccessor(final AccessibleObject[] theReaders, final AccessibleObject[] theWriters) {
+		mReaders = theReaders;
+		mWriters = theWriters;
+
+		for (AccessibleObject aAccessor : theReaders) {
+			if (aAccessor != null) {
+				aAccessor.setAccessible(true);
+			}
+		}
+
+		for (AccessibleObject aAccessor : theWriters) {
+			if (aAccessor != null) {
+				aAccessor.setAccessible(true);
+			}
+		}
+	}
+
+	/**
+	 * Return an accessor which uses reflection for all of the given properties.
+	 * @param theReaders the readable properties
+	 * @param theWriters the writable properties
+	 * @return a reflective accessor
+	 */
+	public static PropertyAccessor reflective(final AccessibleObject[] theReaders, final AccessibleObject[] theWriters) {
+		return new ReflectivePropertyAccessor(theReaders, theWriters);
+	}
+
+	/**
+	 * Return the value of a readable property
+	 * @param theObj the bean
+	 * @param theIndex the index of the readable property
+	 * @return the value of the property
+	 * @throws InvocationTargetException if there is an error while getting the value
+	 */
+	public final Object get(final Object theObj, final int theIndex) throws InvocationTargetException {
+		try {
+			return doGet(theObj, theIndex);
+		}
+		catch (InvocationTargetException e) {
+			throw e;
+		}
+		catch (Exception e) {
+			throw new InvocationTargetException(e);
+		}
+	}
+
+	/**
+	 * Set the value of a writable property
+	 * @param theObj the bean
+	 * @param theIndex the index of the writable property
+	 * @param theValue the new value
+	 * @throws InvocationTargetException if there is an error while setting the value
+	 * @throws IllegalArgumentException if the value is not of a type which can be assigned to the property
+	 */
+	public final void set(final Object theObj, final int theIndex, final Object theValue) throws InvocationTargetException {
+		try {
+			doSet(theObj, theIndex, theValue);
+		}
+		catch (Exception e) {
+			rethrow(e);
+		}
+	}
+
+	public final void setBoolean(final Object theObj, final int theIndex, final boolean theValue) throws InvocationTargetException {
+		try {
+			doSetBoolean(theObj, theIndex, theValue);
+		}
+		catch (Exception e) {
+			rethrow(e);
+		}
+	}
+
+	public final void setByte(final Object theObj, final int theIndex, final byte theValue) throws InvocationTargetException {
+		try {
+			doSetByte(theObj, theIndex, theValue);
+		}
+		catch (Exception e) {
+			rethrow(e);
+		}
+	}
+
+	public final void setShort(final Object theObj, final int theIndex, final short theValue) throws InvocationTargetException {
+		try {
+			doSetShort(theObj, theIndex, theValue);
+		}
+		catch (Exception e) {
+			rethrow(e);
+		}
+	}
+
+	public final void setInt(final Object theObj, final int theIndex, final int theValue) throws InvocationTargetException {
+		try {
+			doSetInt(theObj, theIndex, theValue);
+		}
+		catch (Exception e) {
+			rethrow(e);
+		}
+	}
+
+	public final void setLong(final Object theObj, final int theIndex, final long theValue) throws InvocationTargetException {
+		try {
+			doSetLong(theObj, theIndex, theValue);
+		}
+		catch (Exception e) {
+			rethrow(e);
+		}
+	}
+
+	public final void setFloat(final Object theObj, final int theIndex, final float theValue) throws InvocationTargetException {
+		try {
+			doSetFloat(theObj, theIndex, theValue);
+		}
+		catch (Exception e) {
+			rethrow(e);
+		}
+	}
+
+	public final void setDouble(final Object theObj, final int theIndex, final double theValue) throws InvocationTargetException {
+		try {
+			doSetDouble(theObj, theIndex, theValue);
+		}
+		catch (Exception e) {
+			rethrow(e);
+		}
+	}
+
+	/**
+	 * Translate an exception raised while setting a value into the exceptions thrown by {@link #set}
+	 * @param theException the exception
+	 * @throws InvocationTargetException the translated exception
+	 */
+	private static void rethrow(final Exception theException) throws InvocationTargetException {
+		if (theException instanceof TypeMismatchException) {
+			throw new IllegalArgumentException(theException.getMessage());
+		}
+		else if (theException instanceof InvocationTargetException) {
+			throw (InvocationTargetException) theException;
+		}
+		else {
+			throw new InvocationTargetException(theException);
+		}
+	}
+
+	protected abstract Object doGet(Object theObj, int theIndex) throws Exception;
+
+	protected abstract void doSet(Object theObj, int theIndex, Object theValue) throws Exception;
+
+	// generated accessors override the primitive setters for their properties of that primitive type.  otherwise,
+	// fields are set via the primitive setters of Field, and anything else is boxed and passed to doSet
+
+	protected void doSetBoolean(final Object theObj, final int theIndex, final boolean theValue) throws Exception {
+		Field aField = reflectField(theIndex);
+
+		if (aField != null) {
+			try {
+				aField.setBoolean(theObj, theValue);
+			}
+			catch (IllegalArgumentException e) {
+				throw new TypeMismatchException(e.getMessage());
+			}
+		}
+		else {
+			doSet(theObj, theIndex, Boolean.valueOf(theValue));
+		}
+	}
+
+	protected void doSetByte(final Object theObj, final int theIndex, final byte theValue) throws Exception {
+		Field aField = reflectField(theIndex);
+
+		if (aField != null) {
+			try {
+				aField.setByte(theObj, theValue);
+			}
+			catch (IllegalArgumentException e) {
+				throw new TypeMismatchException(e.getMessage());
+			}
+		}
+		else {
+			doSet(theObj, theIndex, Byte.valueOf(theValue));
+		}
+	}
+
+	protected void doSetShort(final Object theObj, final int theIndex, final short theValue) throws Exception {
+		Field aField = reflectField(theIndex);
+
+		if (aField != null) {
+			try {
+				aField.setShort(theObj, theValue);
+			}
+			catch (IllegalArgumentException e) {
+				throw new TypeMismatchException(e.getMessage());
+			}
+		}
+		else {
+			doSet(theObj, theIndex, Short.valueOf(theValue));
+		}
+	}
+
+	protected void doSetInt(final Object theObj, final int theIndex, final int theValue) throws Exception {
+		Field aField = reflectField(theIndex);
+
+		if (aField != null) {
+			try {
+				aField.setInt(theObj, theValue);
+			}
+			catch (IllegalArgumentException e) {
+				throw new TypeMismatchException(e.getMessage());
+			}
+		}
+		else {
+			doSet(theObj, theIndex, Integer.valueOf(theValue));
+		}
+	}
+
+	protected void doSetLong(final Object theObj, final int theIndex, final long theValue) throws Exception {
+		Field aField = reflectField(theIndex);
+
+		if (aField != null) {
+			try {
+				aField.setLong(theObj, theValue);
+			}
+			catch (IllegalArgumentException e) {
+				throw new TypeMismatchException(e.getMessage());
+			}
+		}
+		else {
+			doSet(theObj, theIndex, Long.valueOf(theValue));
+		}
+	}
+
+	protected void doSetFloat(final Object theObj, final int theIndex, final float theValue) throws Exception {
+		Field aField = reflectField(theIndex);
+
+		if (aField != null) {
+			try {
+				aField.setFloat(theObj, theValue);
+			}
+			catch (IllegalArgumentException e) {
+				throw new TypeMismatchException(e.getMessage());
+			}
+		}
+		else {
+			doSet(theObj, theIndex, Float.valueOf(theValue));
+		}
+	}
+
+	protected void doSetDouble(final Object theObj, final int theIndex, final double theValue) throws Exception {
+		Field aField = reflectField(theIndex);
+
+		if (aField != null) {
+			try {
+				aField.setDouble(theObj, theValue);
+			}
+			catch (IllegalArgumentException e) {
+				throw new TypeMismatchException(e.getMessage());
+			}
+		}
+		else {
+			doSet(theObj, theIndex, Double.valueOf(theValue));
+		}
+	}
+
+	/**
+	 * Return the reflective fallback for a writable property if it is a field
+	 * @param theIndex the index of the writable property
+	 * @return the field, or null if the property is written by the generated code or is a setter
+	 */
+	private Field reflectField(final int theIndex) {
+		return theIndex >= 0 && theIndex < mWriters.length && mWriters[theIndex] instanceof Field ? (Field) mWriters[theIndex] : null;
+	}
+
+	/**
+	 * Read a property via its reflective fallback
+	 * @param theObj the bean
+	 * @param theIndex the index of the readable property
+	 * @return the value of the property
+	 * @throws Exception if there is an error while getting the value
+	 */
+	protected final Object reflectGet(final Object theObj, final int theIndex) throws Exception {
+		AccessibleObject aAccessor = mReaders[theIndex];
+
+		if (aAccessor instanceof Field) {
+			return ((Field) aAccessor).get(theObj);
+		}
+		else if (aAccessor instanceof Method) {
+			return ((Method) aAccessor).invoke(theObj);
+		}
+		else {
+			throw new IndexOutOfBoundsException("No readable property at index " + theIndex);
+		}
+	}
+
+	/**
+	 * Write a property via its reflective fallback
+	 * @param theObj the bean
+	 * @param theIndex the index of the writable property
+	 * @param theValue the new value
+	 * @throws Exception if there is an error while setting the value
+	 */
+	protected final void reflectSet(final Object theObj, final int theIndex, final Object theValue) throws Exception {
+		AccessibleObject aAccessor = mWriters[theIndex];
+
+		try {
+			if (aAccessor instanceof Field) {
+				((Field) aAccessor).set(theObj, theValue);
+			}
+			else if (aAccessor instanceof Method) {
+				((Method) aAccessor).invoke(theObj, theValue);
+			}
+			else {
+				throw new IndexOutOfBoundsException("No writable property at index " + theIndex);
+			}
+		}
+		catch (IllegalArgumentException e) {
+			// exceptions from within a setter are wrapped in an InvocationTargetException, so this is always
+			// reflection complaining about the type of the value
+			throw new TypeMismatchException(e.getMessage());
+		}
+	}
+
+	/**
+	 * Signal that a value cannot be assigned to a property
+	 * @param theIndex the index of the writable property
+	 * @param theValue the value
+	 */
+	protected static void mismatch(final int theIndex, final Object theValue) {
+		throw new TypeMismatchException("Cannot assign " + theValue + " (" + (theValue == null ? null : theValue.getClass().getName())
+										+ ") to the property at index " + theIndex);
+	}
+
+	// unboxing conversions for primitive properties, these allow the same widening conversions as Field.set
+
+	protected static boolean asBoolean(final int theIndex, final Object theValue) {
+		if (theValue instanceof Boolean) {
+			return (Boolean) theValue;
+		}
+
+		mismatch(theIndex, theValue);
+		return false;
+	}
+
+	protected static byte asByte(final int theIndex, final Object theValue) {
+		if (theValue instanceof Byte) {
+			return (Byte) theValue;
+		}
+
+		mismatch(theIndex, theValue);
+		return 0;
+	}
+
+	protected static char asChar(final int theIndex, final Object theValue) {
+		if (theValue instanceof Character) {
+			return (Character) theValue;
+		}
+
+		mismatch(theIndex, theValue);
+		return 0;
+	}
+
+	protected static short asShort(final int theIndex, final Object theValue) {
+		if (theValue instanceof Short || theValue instanceof Byte) {
+			return ((Number) theValue).shortValue();
+		}
+
+		mismatch(theIndex, theValue);
+		return 0;
+	}
+
+	protected static int asInt(final int theIndex, final Object theValue) {
+		if (theValue instanceof Integer || theValue instanceof Short || theValue instanceof Byte) {
+			return ((Number) theValue).intValue();
+		}
+		else if (theValue instanceof Character) {
+			return (Character) theValue;
+		}
+
+		mismatch(theIndex, theValue);
+		return 0;
+	}
+
+	protected static long asLong(final int theIndex, final Object theValue) {
+		if (theValue instanceof Long) {
+			return (Long) theValue;
+		}
+		else {
+			return asInt(theIndex, theValue);
+		}
+	}
+
+	protected static float asFloat(final int theIndex, final Object theValue) {
+		if (theValue instanceof Float) {
+			return (Float) theValue;
+		}
+		else {
+			return asLong(theIndex, theValue);
+		}
+	}
+
+	protected static double asDouble(final int theIndex, final Object theValue) {
+		if (theValue instanceof Double) {
+			return (Double) theValue;
+		}
+		else {
+			return asFloat(theIndex, theValue);
+		}
+	}
+
+	/**
+	 * Thrown when a value is not of a type which can be assigned to a property.  This is kept distinct from an
+	 * IllegalArgumentException raised from within a setter so the two can be reported differently.
+	 */
+	private static final class TypeMismatchException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		private TypeMismatchException(final String theMessage) {
+			super(theMessage);
+		}
+	}
+
+	/**
+	 * Accessor used when an accessor class cannot be generated for a bean, it uses reflection for all properties.
+	 */
+	private static final class ReflectivePropertyAccessor extends PropertyAccessor {
+		private ReflectivePropertyAccessor(final AccessibleObject[] theReaders, final AccessibleObject[] theWriters) {
+			super(theReaders, theWriters);
+		}
+
+		/**
+		 * @inheritDoc
+		 */
+		@Override
+		protected Object doGet(final Object theObj, final int theIndex) throws Exception {
+			return reflectGet(theObj, theIndex);
+		}
+
+		/**
+		 * @inheritDoc
+		 */
+		@Override
+		protected void doSet(final Object theObj, final int theIndex, final Object theValue) throws Exception {
+			reflectSet(theObj, theIndex, theValue);
+		}
+	}
+}
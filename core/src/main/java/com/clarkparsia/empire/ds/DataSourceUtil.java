@@ -18,7 +18,9 @@ package com.clarkparsia.empire.ds;
 import com.clarkparsia.empire.ds.impl.TripleSourceAdapter;
 import com.clarkparsia.empire.Dialect;
 import com.clarkparsia.empire.Empire;
+import com.clarkparsia.empire.EmpireOptions;
 import com.clarkparsia.empire.util.EmpireUtil;
+import com.clarkparsia.empire.util.IndexedGraph;
 import com.clarkparsia.empire.impl.serql.SerqlDialect;
 import com.clarkparsia.empire.impl.sparql.ARQSPARQLDialect;
 import com.clarkparsia.openrdf.ExtGraph;
@@ -30,6 +32,8 @@ import org.openrdf.model.Resource;
 import org.openrdf.model.Graph;
 import org.openrdf.model.Value;
 import org.openrdf.model.BNode;
+import org.openrdf.model.Statement;
+import org.openrdf.model.impl.ValueFactoryImpl;
 import org.openrdf.model.vocabulary.RDF;
 
 import org.openrdf.query.BindingSet;
@@ -37,6 +41,13 @@ import org.apache.log4j.Logger;
 import org.apache.log4j.LogManager;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * <p>Collection of utility methods for working with Empire DataSources</p>
@@ -46,7 +57,7 @@ import java.util.Collection;
  * @see TripleSource
  *
  * @since 0.7
- * @version 0.7.1
+ * @version 0.7.2
  */
 public final class DataSourceUtil {
 	/**
@@ -81,6 +92,46 @@ public final class DataSourceUtil {
 		}
 	}
 
+	/**
+	 * Returns the given {@link DataSource} as a {@link TripleSource} if it natively supports the interface, in which
+	 * case triple level calls map straight onto lookups in the indexes of the database, rather than queries which have
+	 * to be parsed and planned.
+	 * @param theSource the source
+	 * @return the DataSource as a TripleSource, or null if it is not natively a TripleSource
+	 */
+	private static TripleSource asNativeTripleSource(DataSource theSource) {
+		if (theSource instanceof TripleSource && !(theSource instanceof TripleSourceAdapter)) {
+			return (TripleSource) theSource;
+		}
+		else {
+			return null;
+		}
+	}
+
+	/**
+	 * Return the statements in the TripleSource which match the given pattern.  The results of a TripleSource can be
+	 * lazy, holding resources open until they are exhausted, so they are always read in full.
+	 * @param theSource the source
+	 * @param theSubject the subject, or null for any subject
+	 * @param thePredicate the predicate, or null for any predicate
+	 * @param theNamedGraph the named graph to look in, or null to look in the graph in general
+	 * @return the matching statements
+	 * @throws DataSourceException if there is an error while getting the statements
+	 */
+	private static ExtGraph getStatements(TripleSource theSource, Resource theSubject, org.openrdf.model.URI thePredicate, String theNamedGraph) throws DataSourceException {
+		Iterable<Statement> aStatements = theNamedGraph == null
+										  ? theSource.getStatements(theSubject, thePredicate, null)
+										  : theSource.getStatements(theSubject, thePredicate, null, ValueFactoryImpl.getInstance().createURI(theNamedGraph));
+
+		ExtGraph aGraph = new ExtGraph(new IndexedGraph());
+
+		for (Statement aStmt : aStatements) {
+			aGraph.add(aStmt);
+		}
+
+		return aGraph;
+	}
+
 	/**
 	 * Do a poor-man's describe on the given resource, querying its context if that is supported, or otherwise
 	 * querying the graph in general.
@@ -104,10 +155,21 @@ public final class DataSourceUtil {
 			}
 		}
 
-		Dialect aDialect = theSource.getQueryFactory().getDialect();
-
 		Resource aResource = EmpireUtil.asResource(EmpireUtil.asSupportsRdfId(theObj));
 
+		TripleSource aTripleSource = asNativeTripleSource(theSource);
+
+		if (aTripleSource != null) {
+			try {
+				return getStatements(aTripleSource, aResource, null, aNG);
+			}
+			catch (DataSourceException e) {
+				throw new QueryException(e);
+			}
+		}
+
+		Dialect aDialect = theSource.getQueryFactory().getDialect();
+
 		// bnode instabilty in queries will just yield either a parse error or incorrect query results because the bnode
 		// will get treated as a variable, and it will just grab the entire database, which is not what we want
 		if (aResource instanceof BNode && !(aDialect instanceof ARQSPARQLDialect)) {
@@ -116,14 +178,32 @@ public final class DataSourceUtil {
 
 		// TODO: if source supports describe queries, use that.
 
-		String aSPARQL = "construct {?s ?p ?o}\n" +
-						 (aNG == null ? "" : "from <" + aNG + ">\n") +
-						 "where {?s ?p ?o. filter(?s = " + aDialect.asQueryString(aResource) + ") }";
+		String aSPARQL;
+		String aSeRQL;
 
+		if (aResource instanceof org.openrdf.model.URI) {
+			// bind the subject in the pattern so the lookup can use the subject index, rather than matching every
+			// statement in the database and then filtering them
+			String aSubj = aDialect.asQueryString(aResource);
 
-		String aSeRQL = "construct {s} p {o}\n" +
-						 (aNG == null ? "from\n" : "from context <" + aNG + ">\n") +
-						 "{s} p {o} where s = " + aDialect.asQueryString(aResource) + "";
+			aSPARQL = "construct {" + aSubj + " ?p ?o}\n" +
+					  (aNG == null ? "" : "from <" + aNG + ">\n") +
+					  "where {" + aSubj + " ?p ?o}";
+
+			aSeRQL = "construct {" + aSubj + "} p {o}\n" +
+					 (aNG == null ? "from\n" : "from context <" + aNG + ">\n") +
+					 "{" + aSubj + "} p {o}";
+		}
+		else {
+			// bnodes with stable ids can only be matched with a filter
+			aSPARQL = "construct {?s ?p ?o}\n" +
+					  (aNG == null ? "" : "from <" + aNG + ">\n") +
+					  "where {?s ?p ?o. filter(?s = " + aDialect.asQueryString(aResource) + ") }";
+
+			aSeRQL = "construct {s} p {o}\n" +
+					 (aNG == null ? "from\n" : "from context <" + aNG + ">\n") +
+					 "{s} p {o} where s = " + aDialect.asQueryString(aResource) + "";
+		}
 
 		Graph aGraph;
 
@@ -135,7 +215,252 @@ public final class DataSourceUtil {
 			aGraph = theSource.graphQuery(aSPARQL);
 		}
 
-		return new ExtGraph(aGraph);
+		return new ExtGraph(new IndexedGraph(aGraph));
+	}
+
+	/**
+	 * Do a poor-man's describe on all of the given resources with a single query, querying the specified named graph,
+	 * or the graph in general when the named graph is null or not supported by the source.  Only URI subjects are
+	 * described, bnodes cannot be used in the query reliably.
+	 * @param theSource the {@link com.clarkparsia.empire.ds.DataSource} to query
+	 * @param theSubjects the subjects to do the "describe" operation on
+	 * @param theNamedGraph the named graph to query, or null to query the graph in general
+	 * @return all the statements about the given subjects
+	 * @throws QueryException if there is an error while querying for the graph
+	 */
+	public static ExtGraph describe(DataSource theSource, Collection<? extends Resource> theSubjects, java.net.URI theNamedGraph) throws QueryException {
+		String aNG = theSource instanceof SupportsNamedGraphs && theNamedGraph != null ? theNamedGraph.toString() : null;
+
+		TripleSource aTripleSource = asNativeTripleSource(theSource);
+
+		if (aTripleSource != null) {
+			ExtGraph aGraph = new ExtGraph(new IndexedGraph());
+
+			try {
+				for (Resource aSubject : theSubjects) {
+					if (aSubject instanceof org.openrdf.model.URI) {
+						aGraph.addAll(getStatements(aTripleSource, aSubject, null, aNG));
+					}
+				}
+			}
+			catch (DataSourceException e) {
+				throw new QueryException(e);
+			}
+
+			return aGraph;
+		}
+
+		Dialect aDialect = theSource.getQueryFactory().getDialect();
+
+		StringBuilder aTemplate = new StringBuilder();
+		StringBuilder aPattern = new StringBuilder();
+		StringBuilder aSeRQL = new StringBuilder();
+
+		int aCount = 0;
+		for (Resource aSubject : theSubjects) {
+			if (!(aSubject instanceof org.openrdf.model.URI)) {
+				continue;
+			}
+
+			String aSubj = aDialect.asQueryString(aSubject);
+
+			// each subject is bound directly in its own branch of the union, with its own variables
+			aTemplate.append(aSubj).append(" ?p").append(aCount).append(" ?o").append(aCount).append(" .\n");
+
+			if (aCount > 0) {
+				aPattern.append(" union ");
+				aSeRQL.append("\nunion\n");
+			}
+
+			aPattern.append("{").append(aSubj).append(" ?p").append(aCount).append(" ?o").append(aCount).append("}");
+
+			aSeRQL.append("construct {").append(aSubj).append("} p {o}\n")
+				  .append(aNG == null ? "from\n" : "from context <" + aNG + ">\n")
+				  .append("{").append(aSubj).append("} p {o}");
+
+			aCount++;
+		}
+
+		if (aCount == 0) {
+			return new ExtGraph();
+		}
+
+		String aSPARQL = "construct {\n" + aTemplate + "}\n" +
+						 (aNG == null ? "" : "from <" + aNG + ">\n") +
+						 "where {" + aPattern + "}";
+
+		Graph aGraph;
+
+		if (aDialect instanceof SerqlDialect) {
+			aGraph = theSource.graphQuery(aSeRQL.toString());
+		}
+		else {
+			// fall back on sparql
+			aGraph = theSource.graphQuery(aSPARQL);
+		}
+
+		return new ExtGraph(new IndexedGraph(aGraph));
+	}
+
+	/**
+	 * Retrieve the concise bounded description of the given resource, querying its context if that is supported, or
+	 * otherwise querying the graph in general.  The description is the statements about the resource, plus the
+	 * statements about the bnodes in the objects of those statements, and the bnodes in the objects of <em>those</em>
+	 * statements, and so on.  Bnodes which cannot be described reliably with a query are described as
+	 * {@link #describe(DataSource, Object)} describes them.
+	 * @param theSource the {@link com.clarkparsia.empire.ds.DataSource} to query
+	 * @param theObj the object to describe
+	 * @return the concise bounded description of the object
+	 * @throws QueryException if there is an error while querying for the graph
+	 * @see #describeConcise(DataSource, Collection, java.net.URI)
+	 */
+	public static ExtGraph describeConcise(DataSource theSource, Object theObj) throws QueryException {
+		if (EmpireUtil.asSupportsRdfId(theObj).getRdfId() == null) {
+			return new ExtGraph();
+		}
+
+		Resource aResource = EmpireUtil.asResource(EmpireUtil.asSupportsRdfId(theObj));
+
+		if (aResource instanceof BNode && asNativeTripleSource(theSource) == null) {
+			return describe(theSource, theObj);
+		}
+
+		java.net.URI aNG = theSource instanceof SupportsNamedGraphs && EmpireUtil.hasNamedGraphSpecified(theObj)
+						   ? EmpireUtil.getNamedGraph(theObj)
+						   : null;
+
+		return describeConcise(theSource, Collections.singletonList(aResource), aNG);
+	}
+
+	/**
+	 * Retrieve the concise bounded descriptions of all of the given resources with a single query, querying the
+	 * specified named graph, or the graph in general when the named graph is null or not supported by the source.
+	 * When the source is natively a {@link TripleSource}, the bnodes are followed until there are no more of them,
+	 * otherwise the query follows bnodes {@link EmpireOptions#CONCISE_BOUNDED_DESCRIPTION_DEPTH} levels deep since
+	 * there is no transitive closure in SPARQL 1.0 or SeRQL.  When querying, only URI subjects are described, bnodes
+	 * cannot be used in the query reliably.
+	 * @param theSource the {@link com.clarkparsia.empire.ds.DataSource} to query
+	 * @param theSubjects the subjects to describe
+	 * @param theNamedGraph the named graph to query, or null to query the graph in general
+	 * @return the concise bounded descriptions of the given subjects
+	 * @throws QueryException if there is an error while querying for the graph
+	 */
+	public static ExtGraph describeConcise(DataSource theSource, Collection<? extends Resource> theSubjects, java.net.URI theNamedGraph) throws QueryException {
+		String aNG = theSource instanceof SupportsNamedGraphs && theNamedGraph != null ? theNamedGraph.toString() : null;
+
+		TripleSource aTripleSource = asNativeTripleSource(theSource);
+
+		if (aTripleSource != null) {
+			ExtGraph aGraph = new ExtGraph(new IndexedGraph());
+
+			List<Resource> aQueue = new ArrayList<Resource>(theSubjects);
+			Set<Resource> aSeen = new HashSet<Resource>(theSubjects);
+
+			try {
+				for (int i = 0; i < aQueue.size(); i++) {
+					for (Statement aStmt : getStatements(aTripleSource, aQueue.get(i), null, aNG)) {
+						aGraph.add(aStmt);
+
+						if (aStmt.getObject() instanceof BNode && aSeen.add((BNode) aStmt.getObject())) {
+							aQueue.add((BNode) aStmt.getObject());
+						}
+					}
+				}
+			}
+			catch (DataSourceException e) {
+				throw new QueryException(e);
+			}
+
+			return aGraph;
+		}
+
+		Dialect aDialect = theSource.getQueryFactory().getDialect();
+
+		int aDepth = Math.max(0, EmpireOptions.CONCISE_BOUNDED_DESCRIPTION_DEPTH);
+
+		StringBuilder aTemplate = new StringBuilder();
+		StringBuilder aPattern = new StringBuilder();
+		StringBuilder aSeRQL = new StringBuilder();
+
+		// each subject gets a branch of the union for the statements about it, and one for each level of bnodes below
+		// it.  the branch for level n follows a path of n bnodes from the subject and returns the statements about the
+		// last one.  every branch has its own variables.
+		int aCount = 0;
+		for (Resource aSubject : theSubjects) {
+			if (!(aSubject instanceof org.openrdf.model.URI)) {
+				continue;
+			}
+
+			String aSubj = aDialect.asQueryString(aSubject);
+
+			for (int aLevel = 0; aLevel <= aDepth; aLevel++, aCount++) {
+				String aVar = "c" + aCount;
+
+				// the resource whose statements the branch returns, and its form in each language
+				String aLastSPARQL = aLevel == 0 ? aSubj : "?" + aVar + "b" + aLevel;
+				String aLastSeRQL = aLevel == 0 ? aSubj : aVar + "b" + aLevel;
+
+				aTemplate.append(aLastSPARQL).append(" ?").append(aVar).append("p ?").append(aVar).append("o .\n");
+
+				if (aCount > 0) {
+					aPattern.append(" union ");
+					aSeRQL.append("\nunion\n");
+				}
+
+				aPattern.append("{");
+
+				aSeRQL.append("construct {").append(aLastSeRQL).append("} ").append(aVar).append("p {").append(aVar).append("o}\n")
+					  .append(aNG == null ? "from\n" : "from context <" + aNG + ">\n");
+
+				StringBuilder aFilter = new StringBuilder();
+				StringBuilder aWhere = new StringBuilder();
+
+				for (int i = 1; i <= aLevel; i++) {
+					String aPrev = aVar + "b" + (i - 1);
+					String aNext = aVar + "b" + i;
+
+					aPattern.append(i == 1 ? aSubj : "?" + aPrev).append(" ?").append(aVar).append("a").append(i)
+							.append(" ?").append(aNext).append(" . ");
+
+					aSeRQL.append("{").append(i == 1 ? aSubj : aPrev).append("} ").append(aVar).append("a").append(i)
+						  .append(" {").append(aNext).append("}, ");
+
+					aFilter.append(i == 1 ? "" : " && ").append("isBlank(?").append(aNext).append(")");
+					aWhere.append(i == 1 ? "" : " and ").append("isBNode(").append(aNext).append(")");
+				}
+
+				aPattern.append(aLastSPARQL).append(" ?").append(aVar).append("p ?").append(aVar).append("o");
+
+				aSeRQL.append("{").append(aLastSeRQL).append("} ").append(aVar).append("p {").append(aVar).append("o}");
+
+				if (aLevel > 0) {
+					aPattern.append(" . filter(").append(aFilter).append(")");
+					aSeRQL.append("\nwhere ").append(aWhere);
+				}
+
+				aPattern.append("}");
+			}
+		}
+
+		if (aCount == 0) {
+			return new ExtGraph();
+		}
+
+		String aSPARQL = "construct {\n" + aTemplate + "}\n" +
+						 (aNG == null ? "" : "from <" + aNG + ">\n") +
+						 "where {" + aPattern + "}";
+
+		Graph aGraph;
+
+		if (aDialect instanceof SerqlDialect) {
+			aGraph = theSource.graphQuery(aSeRQL.toString());
+		}
+		else {
+			// fall back on sparql
+			aGraph = theSource.graphQuery(aSPARQL);
+		}
+
+		return new ExtGraph(new IndexedGraph(aGraph));
 	}
 
 	/**
@@ -161,15 +486,46 @@ public final class DataSourceUtil {
 			}
 		}
 
+		Resource aResource = EmpireUtil.asResource(EmpireUtil.asSupportsRdfId(theObj));
+
+		TripleSource aTripleSource = asNativeTripleSource(theSource);
+
+		if (aTripleSource != null) {
+			try {
+				return !getStatements(aTripleSource, aResource, null, aNG).isEmpty();
+			}
+			catch (DataSourceException e) {
+				throw new QueryException(e);
+			}
+		}
+
 		Dialect aDialect = theSource.getQueryFactory().getDialect();
 
-		String aSPARQL = "select distinct ?s\n" +
-						 (aNG == null ? "" : "from <" + aNG + ">\n") +
-						 "where {?s ?p ?o. filter(?s = " + aDialect.asQueryString(EmpireUtil.asResource(EmpireUtil.asSupportsRdfId(theObj))) + ") } limit 1";
+		String aSPARQL;
+		String aSeRQL;
+
+		if (aResource instanceof org.openrdf.model.URI) {
+			// bind the subject in the pattern so the lookup can use the subject index
+			String aSubj = aDialect.asQueryString(aResource);
+
+			aSPARQL = "select ?p\n" +
+					  (aNG == null ? "" : "from <" + aNG + ">\n") +
+					  "where {" + aSubj + " ?p ?o} limit 1";
 
-		String aSeRQL = "select distinct s\n" +
-						 (aNG == null ? "from\n" : "from context <" + aNG + ">\n") +
-						 "{s} p {o} where s = " + aDialect.asQueryString(EmpireUtil.asResource(EmpireUtil.asSupportsRdfId(theObj))) + " limit 1";
+			aSeRQL = "select p\n" +
+					 (aNG == null ? "from\n" : "from context <" + aNG + ">\n") +
+					 "{" + aSubj + "} p {o} limit 1";
+		}
+		else {
+			// bnodes with stable ids can only be matched with a filter
+			aSPARQL = "select distinct ?s\n" +
+					  (aNG == null ? "" : "from <" + aNG + ">\n") +
+					  "where {?s ?p ?o. filter(?s = " + aDialect.asQueryString(aResource) + ") } limit 1";
+
+			aSeRQL = "select distinct s\n" +
+					 (aNG == null ? "from\n" : "from context <" + aNG + ">\n") +
+					 "{s} p {o} where s = " + aDialect.asQueryString(aResource) + " limit 1";
+		}
 
 		ResultSet aResults;
 
@@ -189,6 +545,115 @@ public final class DataSourceUtil {
 		}
 	}
 
+	/**
+	 * Do a poor-man's ask on all of the given resources with a single query to see which of them are used as the
+	 * subject of any triples.  Each resource is looked for in the named graph it is mapped to, or in the graph in general
+	 * when it is mapped to null or named graphs are not supported by the source.  Only URI subjects are checked, bnodes
+	 * cannot be used in the query reliably.
+	 * @param theSource the {@link com.clarkparsia.empire.ds.DataSource} to query
+	 * @param theSubjects the subjects to do the "ask" operation on, and the named graph to look for each of them in
+	 * @return the subjects which there are statements about
+	 * @throws QueryException if there is an error while querying for the subjects
+	 */
+	public static Set<Resource> exists(DataSource theSource, Map<? extends Resource, java.net.URI> theSubjects) throws QueryException {
+		TripleSource aTripleSource = asNativeTripleSource(theSource);
+
+		if (aTripleSource != null) {
+			Set<Resource> aExisting = Sets.newHashSet();
+
+			try {
+				for (Map.Entry<? extends Resource, java.net.URI> aEntry : theSubjects.entrySet()) {
+					String aNG = theSource instanceof SupportsNamedGraphs && aEntry.getValue() != null ? aEntry.getValue().toString() : null;
+
+					if (aEntry.getKey() instanceof org.openrdf.model.URI && !getStatements(aTripleSource, aEntry.getKey(), null, aNG).isEmpty()) {
+						aExisting.add(aEntry.getKey());
+					}
+				}
+			}
+			catch (DataSourceException e) {
+				throw new QueryException(e);
+			}
+
+			return aExisting;
+		}
+
+		Dialect aDialect = theSource.getQueryFactory().getDialect();
+
+		// each subject is bound directly in its own branch of the union, and has its own variable for the predicate,
+		// so which subjects exist can be told from which of the variables are bound in the results
+		List<Resource> aSubjects = new ArrayList<Resource>();
+
+		StringBuilder aProjection = new StringBuilder();
+		StringBuilder aPattern = new StringBuilder();
+		StringBuilder aSeRQL = new StringBuilder();
+
+		for (Map.Entry<? extends Resource, java.net.URI> aEntry : theSubjects.entrySet()) {
+			if (!(aEntry.getKey() instanceof org.openrdf.model.URI)) {
+				continue;
+			}
+
+			String aSubj = aDialect.asQueryString(aEntry.getKey());
+			String aNG = theSource instanceof SupportsNamedGraphs && aEntry.getValue() != null ? aEntry.getValue().toString() : null;
+			String aVar = "p" + aSubjects.size();
+
+			if (!aSubjects.isEmpty()) {
+				aPattern.append(" union ");
+				aSeRQL.append("\nunion\n");
+			}
+
+			aProjection.append(" ?").append(aVar);
+
+			if (aNG == null) {
+				aPattern.append("{").append(aSubj).append(" ?").append(aVar).append(" ?o}");
+			}
+			else {
+				aPattern.append("{graph <").append(aNG).append("> {").append(aSubj).append(" ?").append(aVar).append(" ?o}}");
+			}
+
+			aSeRQL.append("select distinct ").append(aVar).append("\n")
+				  .append(aNG == null ? "from\n" : "from context <" + aNG + ">\n")
+				  .append("{").append(aSubj).append("} ").append(aVar).append(" {o}");
+
+			aSubjects.add(aEntry.getKey());
+		}
+
+		Set<Resource> aExisting = Sets.newHashSet();
+
+		if (aSubjects.isEmpty()) {
+			return aExisting;
+		}
+
+		String aSPARQL = "select distinct" + aProjection + "\n" +
+						 "where {" + aPattern + "}";
+
+		ResultSet aResults;
+
+		if (aDialect instanceof SerqlDialect) {
+			aResults = theSource.selectQuery(aSeRQL.toString());
+		}
+		else {
+			// fall back on sparql
+			aResults = theSource.selectQuery(aSPARQL);
+		}
+
+		try {
+			while (aResults.hasNext()) {
+				BindingSet aBinding = aResults.next();
+
+				for (String aName : aBinding.getBindingNames()) {
+					if (aBinding.getValue(aName) != null) {
+						aExisting.add(aSubjects.get(Integer.parseInt(aName.substring(1))));
+					}
+				}
+			}
+		}
+		finally {
+			aResults.close();
+		}
+
+		return aExisting;
+	}
+
 	/**
 	 * Return the type of the resource in the data source.
 	 * @param theSource the data source
@@ -225,6 +690,18 @@ public final class DataSourceUtil {
 	 * @throws com.clarkparsia.empire.ds.DataSourceException if there is an error while querying the data source.
 	 */
 	public static Collection<Value> getValues(final DataSource theSource, final Resource theSubject, final org.openrdf.model.URI thePredicate) throws DataSourceException {
+		TripleSource aTripleSource = asNativeTripleSource(theSource);
+
+		if (aTripleSource != null) {
+			Set<Value> aValues = Sets.newHashSet();
+
+			for (Statement aStmt : getStatements(aTripleSource, theSubject, thePredicate, null)) {
+				aValues.add(aStmt.getObject());
+			}
+
+			return aValues;
+		}
+
 		final String aSPARQLQuery = "select ?obj\n" +
 									"where {\n" +
 									theSource.getQueryFactory().getDialect().asQueryString(theSubject) + " <" + thePredicate.stringValue() + "> ?obj.  }";
@@ -276,4 +753,97 @@ public final class DataSourceUtil {
 			return aValues.iterator().next();
 		}
 	}
+
+	/**
+	 * Return the elements of an rdf:List, in order.  When the dialect of the data source supports
+	 * {@link Dialect#supportsPropertyPaths property paths}, all of the nodes of the list are retrieved with a single
+	 * query and put back in order in memory.  Otherwise, or when the nodes can be looked up directly in the indexes of
+	 * the source, the list is walked one node at a time.
+	 * @param theSource the data source to get the list from
+	 * @param theHead the head of the list
+	 * @return the elements of the list
+	 * @throws DataSourceException if there is an error while querying the data source
+	 */
+	public static List<Value> getList(final DataSource theSource, final Resource theHead) throws DataSourceException {
+		Map<Resource, Value> aFirsts = new HashMap<Resource, Value>();
+		Map<Resource, Value> aRests = new HashMap<Resource, Value>();
+
+		Dialect aDialect = theSource.getQueryFactory().getDialect();
+
+		if (asNativeTripleSource(theSource) == null && aDialect.supportsPropertyPaths()) {
+			String aQuery = "select ?node ?first ?rest\n" +
+							"where {\n" +
+							aDialect.asQueryString(theHead) + " <" + RDF.REST + ">* ?node .\n" +
+							"optional { ?node <" + RDF.FIRST + "> ?first } .\n" +
+							"optional { ?node <" + RDF.REST + "> ?rest } }";
+
+			ResultSet aResults = null;
+
+			try {
+				aResults = theSource.selectQuery(aQuery);
+
+				while (aResults.hasNext()) {
+					BindingSet aBinding = aResults.next();
+
+					if (!(aBinding.getValue("node") instanceof Resource)) {
+						continue;
+					}
+
+					Resource aNode = (Resource) aBinding.getValue("node");
+
+					if (aBinding.getValue("first") != null) {
+						aFirsts.put(aNode, aBinding.getValue("first"));
+					}
+
+					if (aBinding.getValue("rest") != null) {
+						aRests.put(aNode, aBinding.getValue("rest"));
+					}
+				}
+			}
+			catch (QueryException e) {
+				throw new DataSourceException(e);
+			}
+			finally {
+				if (aResults != null) {
+					aResults.close();
+				}
+			}
+		}
+		else {
+			Resource aNode = theHead;
+
+			while (aNode != null && !aFirsts.containsKey(aNode) && !aRests.containsKey(aNode)) {
+				Value aFirst = getValue(theSource, aNode, RDF.FIRST);
+				Value aRest = getValue(theSource, aNode, RDF.REST);
+
+				if (aFirst != null) {
+					aFirsts.put(aNode, aFirst);
+				}
+
+				if (aRest != null) {
+					aRests.put(aNode, aRest);
+				}
+
+				aNode = aRest instanceof Resource && !aRest.equals(RDF.NIL) ? (Resource) aRest : null;
+			}
+		}
+
+		List<Value> aList = new ArrayList<Value>();
+		Set<Resource> aVisited = new HashSet<Resource>();
+
+		Resource aNode = theHead;
+
+		// the visited check guards against malformed lists with a cycle in them
+		while (aNode != null && aVisited.add(aNode)) {
+			if (aFirsts.containsKey(aNode)) {
+				aList.add(aFirsts.get(aNode));
+			}
+
+			Value aRest = aRests.get(aNode);
+
+			aNode = aRest instanceof Resource && !aRest.equals(RDF.NIL) ? (Resource) aRest : null;
+		}
+
+		return aList;
+	}
 }
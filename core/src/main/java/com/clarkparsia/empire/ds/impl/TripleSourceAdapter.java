@@ -32,7 +32,7 @@ import javax.persistence.Query;
  * @author Pedro Oliveira
  * @author Michael Grove
  * @since 0.7
- * @version 0.7
+ * @version 0.7.2
  */
 public class TripleSourceAdapter extends DelegatingDataSource implements TripleSource {
 	private static final String SUBJECT_FILTER = "FILTER (?s = ??ss)";
@@ -49,22 +49,10 @@ public class TripleSourceAdapter extends DelegatingDataSource implements TripleS
 	 * @inheritDoc
 	 */
 	public Iterable<Statement> getStatements(Resource theSubject, URI thePredicate, Value theObject) throws DataSourceException {
-		// Subject and object restrictions are implemented as filters, because some implementations can have problems
-		// dealing with bnodes
+		String aPattern = pattern(theSubject);
+		String aFilter = filter(theSubject, theObject);
 
-		String aFilter = "";
-		
-		if (theSubject != null && theObject != null) {
-			aFilter = SUBJECT_OBJECT_FILTER;
-		}
-		else if (theSubject != null) {
-			aFilter = SUBJECT_FILTER;
-		}
-		else if (theObject != null) {
-			aFilter = OBJECT_FILTER;
-		}
-
-		Query aQuery = getQueryFactory().createQuery("construct {?s ??p ?o} where { ?s ??p ?o . " + aFilter + " }");
+		Query aQuery = getQueryFactory().createQuery("construct {" + aPattern + "} where { " + aPattern + " . " + aFilter + " }");
 
 		if (theSubject != null) {
 			aQuery.setParameter("ss", theSubject);
@@ -89,23 +77,11 @@ public class TripleSourceAdapter extends DelegatingDataSource implements TripleS
 			// if context is null, this means any context should match -- we can forward request to getStatements() without context
 			return getStatements(theSubject, thePredicate, theObject);
 		}
-		// Subject and object restrictions are implemented as filters, because some implementations can have problems
-		// dealing with bnodes
-
-		String aFilter = "";
-		
-		if (theSubject != null && theObject != null) {
-			aFilter = SUBJECT_OBJECT_FILTER;
-		}
-		else if (theSubject != null) {
-			aFilter = SUBJECT_FILTER;
-		}
-		else if (theObject != null) {
-			aFilter = OBJECT_FILTER;
-		}
+		String aPattern = pattern(theSubject);
+		String aFilter = filter(theSubject, theObject);
 
 		// query will work only if the context is set
-		Query aQuery = getQueryFactory().createQuery("construct {?s ??p ?o} where { graph ??g { ?s ??p ?o . " + aFilter + "} }");
+		Query aQuery = getQueryFactory().createQuery("construct {" + aPattern + "} where { graph ??g { " + aPattern + " . " + aFilter + "} }");
 
 		if (theSubject != null) {
 			aQuery.setParameter("ss", theSubject);
@@ -124,4 +100,39 @@ public class TripleSourceAdapter extends DelegatingDataSource implements TripleS
 		return (Graph) aQuery.getSingleResult();
 	}
 
+	/**
+	 * Return the triple pattern matching the statements about the subject.  A URI subject is bound directly in the
+	 * pattern so the lookup can use the subject index of the database, rather than matching every statement and then
+	 * filtering them.
+	 * @param theSubject the subject, or null for any subject
+	 * @return the triple pattern
+	 */
+	private String pattern(final Resource theSubject) {
+		return (theSubject instanceof URI ? "??ss" : "?s") + " ??p ?o";
+	}
+
+	/**
+	 * Return the filter for the subject and object restrictions which are not bound in the {@link #pattern}.  BNode
+	 * subjects, and objects, are restricted with filters, because some implementations can have problems dealing
+	 * with bnodes.
+	 * @param theSubject the subject, or null for any subject
+	 * @param theObject the object, or null for any object
+	 * @return the filter, or the empty string if there are no restrictions to filter on
+	 */
+	private String filter(final Resource theSubject, final Value theObject) {
+		boolean aFilterSubject = theSubject != null && !(theSubject instanceof URI);
+
+		if (aFilterSubject && theObject != null) {
+			return SUBJECT_OBJECT_FILTER;
+		}
+		else if (aFilterSubject) {
+			return SUBJECT_FILTER;
+		}
+		else if (theObject != null) {
+			return OBJECT_FILTER;
+		}
+		else {
+			return "";
+		}
+	}
 }
@@ -18,6 +18,7 @@ package com.clarkparsia.empire.impl;
 import com.clarkparsia.empire.ds.DataSourceException;
 import com.clarkparsia.empire.ds.SupportsTransactions;
 
+import javax.persistence.EntityManager;
 import javax.persistence.EntityTransaction;
 import javax.persistence.PersistenceException;
 import javax.persistence.RollbackException;
@@ -27,7 +28,7 @@ import javax.persistence.RollbackException;
  *
  * @author Michael Grove
  * @since 0.1
- * @version 0.1
+ * @version 0.7.2
  * @see EntityManagerImpl
  */
 public final class DataSourceEntityTransaction implements EntityTransaction {
@@ -46,12 +47,28 @@ public final class DataSourceEntityTransaction implements EntityTransaction {
 	 */
 	private SupportsTransactions mDataSource;
 
+	/**
+	 * The EntityManager whose changes are made in the transaction, or null
+	 */
+	private EntityManager mEntityManager;
+
 	/**
 	 * Create (but not open) a transaction for the specified data source
 	 * @param theDataSource the data source that will have the transaction 
 	 */
 	public DataSourceEntityTransaction(final SupportsTransactions theDataSource) {
+		this(theDataSource, null);
+	}
+
+	/**
+	 * Create (but not open) a transaction for the specified data source.  The changes of the EntityManager which have
+	 * not been flushed yet are flushed when the transaction is committed, and discarded when it is rolled back.
+	 * @param theDataSource the data source that will have the transaction
+	 * @param theEntityManager the EntityManager whose changes are made in the transaction
+	 */
+	public DataSourceEntityTransaction(final SupportsTransactions theDataSource, final EntityManager theEntityManager) {
 		mDataSource = theDataSource;
+		mEntityManager = theEntityManager;
 	}
 
 	/**
@@ -81,9 +98,32 @@ public final class DataSourceEntityTransaction implements EntityTransaction {
 		}
 
 		try {
+			if (mEntityManager != null && mEntityManager.isOpen()) {
+				mEntityManager.flush();
+			}
+
 			mDataSource.commit();
 			mIsActive = false;
 		}
+		catch (PersistenceException e) {
+			// the changes could not be flushed, so the transaction is rolled back rather than being left open with
+			// only some of them made in the data source
+			try {
+				mDataSource.rollback();
+			}
+			catch (DataSourceException aRollbackError) {
+				// the flush failure is the one reported
+			}
+			finally {
+				if (mEntityManager != null && mEntityManager.isOpen()) {
+					mEntityManager.clear();
+				}
+
+				mIsActive = false;
+			}
+
+			throw new RollbackException(e);
+		}
 		catch (DataSourceException e) {
 			throw new RollbackException(e);
 		}
@@ -96,6 +136,11 @@ public final class DataSourceEntityTransaction implements EntityTransaction {
 		assertActive();
 
 		try {
+			if (mEntityManager != null && mEntityManager.isOpen()) {
+				// the pending changes are discarded, and what was managed may not reflect the data source any longer
+				mEntityManager.clear();
+			}
+
 			mDataSource.rollback();
 		}
 		catch (DataSourceException e) {
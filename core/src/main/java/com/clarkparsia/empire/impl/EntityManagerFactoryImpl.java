@@ -21,6 +21,8 @@ import com.clarkparsia.empire.ds.DataSourceFactory;
 import com.clarkparsia.empire.ds.DataSourceException;
 import com.clarkparsia.empire.ds.SupportsTransactions;
 import com.clarkparsia.empire.ds.impl.TransactionalDataSource;
+import com.clarkparsia.empire.util.BeanReflectUtil;
+import com.clarkparsia.empire.util.EntityCache;
 
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.EntityManager;
@@ -38,11 +40,47 @@ import java.net.ConnectException;
  *
  * @author Michael Grove
  * @since 0.1
- * @version 0.7
+ * @version 0.7.2
  */
 public final class EntityManagerFactoryImpl implements EntityManagerFactory {
 
 	public static final String USE_EMPIRE_TRANSACTIONS = "use.empire.transactions";
+
+	/**
+	 * The maximum number of individuals whose data is kept in the {@link EntityCache} shared by the EntityManagers of
+	 * the factory.  The cache is only used when this is specified and positive.
+	 */
+	public static final String ENTITY_CACHE_SIZE = "entity.cache.size";
+
+	/**
+	 * How long, in milliseconds, the data of an individual is kept in the entity cache.  By default it does not expire.
+	 */
+	public static final String ENTITY_CACHE_TTL = "entity.cache.ttl";
+
+	/**
+	 * The eviction policy of the entity cache, either LRU (the default) or LFU
+	 */
+	public static final String ENTITY_CACHE_EVICTION = "entity.cache.eviction";
+
+	/**
+	 * A comma separated list of the names of the classes whose data is kept in the entity cache, in addition to the
+	 * classes with the {@link com.clarkparsia.empire.annotation.Cacheable} annotation.
+	 */
+	public static final String ENTITY_CACHE_CLASSES = "entity.cache.classes";
+
+	/**
+	 * Whether or not the EntityManagers check that their writes were actually made to the data source, which costs
+	 * additional queries after each write.  Verification is off by default.
+	 * @see EntityManagerImpl#setVerifyWrites
+	 */
+	public static final String VERIFY_WRITES = "verify.writes";
+
+	/**
+	 * Whether or not the EntityManagers load beans read-only, as detached beans which are not tracked.  This is off by
+	 * default.
+	 * @see EntityManagerImpl#setReadOnly
+	 */
+	public static final String READ_ONLY = "read.only";
 	
 	/**
 	 * Factory for creating the DataSources backed by EntityManagers from this factory.
@@ -64,6 +102,11 @@ public final class EntityManagerFactoryImpl implements EntityManagerFactory {
 	 */
 	private Map<String, ?> mConfig;
 
+	/**
+	 * The cache shared by the EntityManagers of this factory, or null if caching is not enabled
+	 */
+	private EntityCache mCache;
+
 	/**
 	 * Create a new AbstractEntityManagerFactory
      * @param theProvider the DataSourceFactory to use with this
@@ -82,6 +125,62 @@ public final class EntityManagerFactoryImpl implements EntityManagerFactory {
         mDataSourceFactoryProvider = theProvider;
 		
 		mConfig = theConfig;
+
+		mCache = createEntityCache();
+	}
+
+	/**
+	 * Create the entity cache as specified by the configuration of this factory
+	 * @return the cache, or null if caching is not enabled
+	 * @throws IllegalArgumentException thrown if the cache configuration is not valid
+	 */
+	private EntityCache createEntityCache() {
+		if (!mConfig.containsKey(ENTITY_CACHE_SIZE)) {
+			return null;
+		}
+
+		try {
+			int aSize = Integer.parseInt(mConfig.get(ENTITY_CACHE_SIZE).toString().trim());
+
+			if (aSize <= 0) {
+				return null;
+			}
+
+			long aTimeToLive = mConfig.containsKey(ENTITY_CACHE_TTL)
+							   ? Long.parseLong(mConfig.get(ENTITY_CACHE_TTL).toString().trim())
+							   : 0;
+
+			EntityCache.Eviction aEviction = mConfig.containsKey(ENTITY_CACHE_EVICTION)
+											 ? EntityCache.Eviction.valueOf(mConfig.get(ENTITY_CACHE_EVICTION).toString().trim().toUpperCase())
+											 : EntityCache.Eviction.LRU;
+
+			Collection<Class<?>> aClasses = new HashSet<Class<?>>();
+
+			if (mConfig.containsKey(ENTITY_CACHE_CLASSES)) {
+				for (String aName : mConfig.get(ENTITY_CACHE_CLASSES).toString().split(",")) {
+					if (aName.trim().length() > 0) {
+						aClasses.add(BeanReflectUtil.loadClass(aName.trim()));
+					}
+				}
+			}
+
+			return new EntityCache(aSize, aTimeToLive, aEviction, aClasses);
+		}
+		catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid entity cache configuration", e);
+		}
+		catch (ClassNotFoundException e) {
+			throw new IllegalArgumentException("Invalid entity cache configuration, class not found", e);
+		}
+	}
+
+	/**
+	 * Return the cache of the data of individuals shared by the EntityManagers of this factory, which also reports the
+	 * cache statistics.
+	 * @return the cache, or null if caching is not enabled
+	 */
+	public EntityCache getEntityCache() {
+		return mCache;
 	}
 
 	/**
@@ -109,7 +208,12 @@ public final class EntityManagerFactoryImpl implements EntityManagerFactory {
 			
 			aSource.connect();
 
-			return new EntityManagerImpl( (MutableDataSource) aSource);
+			EntityManagerImpl aManager = new EntityManagerImpl( (MutableDataSource) aSource, mCache);
+
+			aManager.setVerifyWrites(aConfig.containsKey(VERIFY_WRITES) && Boolean.parseBoolean(aConfig.get(VERIFY_WRITES).toString()));
+			aManager.setReadOnly(aConfig.containsKey(READ_ONLY) && Boolean.parseBoolean(aConfig.get(READ_ONLY).toString()));
+
+			return aManager;
 		}
 		catch (ConnectException e) {
 			throw new IllegalStateException("Could not connect to the data source", e);
@@ -150,6 +254,10 @@ public final class EntityManagerFactoryImpl implements EntityManagerFactory {
 		mIsOpen = false;
 
 		cleanup();
+
+		if (mCache != null) {
+			mCache.clear();
+		}
 	}
 
 	/**
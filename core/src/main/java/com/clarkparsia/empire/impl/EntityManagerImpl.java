@@ -33,8 +33,13 @@ import com.clarkparsia.empire.annotation.RdfGenerator;
 import com.clarkparsia.empire.annotation.RdfsClass;
 import com.clarkparsia.empire.annotation.AnnotationChecker;
 
+import org.openrdf.model.BNode;
 import org.openrdf.model.Graph;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
 import org.openrdf.model.impl.GraphImpl;
+import org.openrdf.model.impl.StatementImpl;
+import org.openrdf.model.vocabulary.RDF;
 
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
@@ -62,11 +67,13 @@ import java.lang.annotation.Annotation;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.lang.reflect.AccessibleObject;
 
 import java.util.Map;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.LinkedHashSet;
 import java.util.Collections;
 import java.util.WeakHashMap;
 import java.util.HashMap;
@@ -74,16 +81,15 @@ import java.util.Set;
 
 import java.net.URI;
 
-import static com.clarkparsia.empire.util.BeanReflectUtil.getAnnotatedFields;
-import static com.clarkparsia.empire.util.BeanReflectUtil.getAnnotatedGetters;
-import static com.clarkparsia.empire.util.BeanReflectUtil.asSetter;
-import static com.clarkparsia.empire.util.BeanReflectUtil.safeGet;
 import static com.clarkparsia.empire.util.BeanReflectUtil.safeSet;
 import static com.clarkparsia.empire.util.BeanReflectUtil.hasAnnotation;
-import static com.clarkparsia.empire.util.BeanReflectUtil.getAnnotatedMethods;
 
 import com.clarkparsia.empire.util.EmpireUtil;
 import com.clarkparsia.empire.util.BeanReflectUtil;
+import com.clarkparsia.empire.util.EntityCache;
+import com.clarkparsia.empire.util.EntityMetadata;
+import com.clarkparsia.empire.util.EntityMetadata.PropertyMetadata;
+import com.clarkparsia.empire.util.SubjectGraph;
 
 import com.clarkparsia.openrdf.ExtGraph;
 import com.google.common.base.Predicate;
@@ -94,7 +100,7 @@ import com.google.common.base.Predicate;
  *
  * @author Michael Grove
  * @since 0.1
- * @version 0.7
+ * @version 0.7.2
  * @see EntityManager
  * @see com.clarkparsia.empire.ds.DataSource
  */
@@ -124,12 +130,52 @@ public final class EntityManagerImpl implements EntityManager {
 	 */
 	private Map<Object, Collection<Object>> mManagedEntityListeners = new WeakHashMap<Object, Collection<Object>>();
 
+	/**
+	 * The persistence context, the instances managed by this EntityManager keyed by their rdf id.  Finds, query results
+	 * and lazily loaded proxies resolve to these instances rather than loading the same individual again.
+	 */
+	private Map<Object, Object> mPersistenceContext = RdfGenerator.managedContext();
+
+	/**
+	 * The rdf ids of the managed instances which are known to exist in the data source, either because they were
+	 * written through this EntityManager, or because a previous call to {@link #contains} found them.  An instance
+	 * loaded by a find is not necessarily in here, it may have been found outside of its named graph.
+	 */
+	private Set<Object> mContained = new HashSet<Object>();
+
+	/**
+	 * The cache of descriptions of individuals shared with the other EntityManagers of the factory which created this
+	 * one, or null if there is none.
+	 */
+	private EntityCache mCache;
+
 	/**
 	 * The current collapsed view of a DataSourceOperation which is a merged set of adds & removes to the DataSource.
 	 * Used during the canonical EntityManager operations such as merge, persist, remove
 	 */
 	private DataSourceOperation mOp;
 
+	/**
+	 * Whether or not the objects written by an operation are checked to make sure the write actually happened
+	 */
+	private boolean mVerifyWrites = false;
+
+	/**
+	 * Whether or not finds and queries load beans read-only
+	 */
+	private boolean mReadOnly = false;
+
+	/**
+	 * The flush mode of this EntityManager
+	 */
+	private FlushModeType mFlushMode = FlushModeType.AUTO;
+
+	/**
+	 * When the flush mode is {@link FlushModeType#COMMIT}, the changes made by the completed operations which have not
+	 * yet been flushed to the data source, or null if there are none.
+	 */
+	private DataSourceOperation mPendingOp;
+
 	/**
 	 * The list of things which are ready to be cascaded.  They are tracked in this list to help prevent infinite loops
 	 */
@@ -140,6 +186,15 @@ public final class EntityManagerImpl implements EntityManager {
 	 * @param theSource the underlying RDF datasource used for persistence operations
 	 */
 	public EntityManagerImpl(MutableDataSource theSource) {
+		this(theSource, null);
+	}
+
+	/**
+	 * Create a new EntityManagerImpl
+	 * @param theSource the underlying RDF datasource used for persistence operations
+	 * @param theCache the cache of descriptions of individuals to load cacheable entities from, or null to not use one
+	 */
+	public EntityManagerImpl(MutableDataSource theSource, EntityCache theCache) {
 
 		// TODO: sparql for everything, just convert serql into sparql
 		// TODO: work like JPA/hibernate -- if something does not have a @Transient on it, convert it.  we'll just need to coin a URI in those cases
@@ -149,6 +204,8 @@ public final class EntityManagerImpl implements EntityManager {
 		mIsOpen = true;
 
 		mDataSource = theSource;
+
+		mCache = theCache;
 	}
 
 	/**
@@ -156,9 +213,62 @@ public final class EntityManagerImpl implements EntityManager {
 	 */
 	public void flush() {
 		assertOpen();
-		
-		// we'll do nothing here since our default implementation doesn't queue up changes, they're made
-		// as soon as remove/persist are called
+
+		// in auto mode changes are made as soon as persist/merge/remove are called, so there is only something to do
+		// here when they've been queued up in commit mode
+		if (mPendingOp != null) {
+			DataSourceOperation aOp = mPendingOp;
+
+			mPendingOp = null;
+
+			try {
+				aOp.execute();
+			}
+			catch (DataSourceException e) {
+				throw new PersistenceException(e);
+			}
+		}
+	}
+
+	/**
+	 * Set whether or not, after the changes are written to the data source, the data source is queried to make sure
+	 * that the objects which were persisted, merged or removed were actually added or removed.  This costs a query per
+	 * {@link EmpireOptions#BATCH_LOAD_SIZE} objects written by each operation, so verification is off by default; it
+	 * is only worth it when the data source may not apply writes synchronously.
+	 * @param theVerifyWrites true to verify writes, false otherwise
+	 */
+	public void setVerifyWrites(final boolean theVerifyWrites) {
+		mVerifyWrites = theVerifyWrites;
+	}
+
+	/**
+	 * Return whether or not the writes made by this EntityManager are verified
+	 * @return true if writes are verified, false otherwise
+	 * @see #setVerifyWrites
+	 */
+	public boolean isVerifyWrites() {
+		return mVerifyWrites;
+	}
+
+	/**
+	 * Set whether or not the beans returned by finds and queries are loaded read-only.  Read-only beans are detached:
+	 * they are not added to the persistence context, the statements about them are not kept, changes to them are not
+	 * tracked, and their lifecycle callbacks are not invoked, which makes loading large numbers of beans which are only
+	 * read cheaper.  They cannot be {@link #merge merged} unless they are first {@link #refresh refreshed}.  Queries
+	 * can also be made read-only individually with the {@link RdfQuery#HINT_READ_ONLY read-only hint}.
+	 * @param theReadOnly true to load beans read-only, false otherwise
+	 */
+	public void setReadOnly(final boolean theReadOnly) {
+		mReadOnly = theReadOnly;
+	}
+
+	/**
+	 * Return whether or not the beans loaded by this EntityManager are read-only
+	 * @return true if beans are loaded read-only, false otherwise
+	 * @see #setReadOnly
+	 */
+	public boolean isReadOnly() {
+		return mReadOnly;
 	}
 
 	/**
@@ -167,8 +277,15 @@ public final class EntityManagerImpl implements EntityManager {
 	public void setFlushMode(final FlushModeType theFlushModeType) {
 		assertOpen();
 
-		if (theFlushModeType != FlushModeType.AUTO) {
-			throw new IllegalArgumentException("Commit style flush mode not supported");
+		if (theFlushModeType == null) {
+			throw new IllegalArgumentException("Flush mode cannot be null");
+		}
+
+		mFlushMode = theFlushModeType;
+
+		if (mFlushMode == FlushModeType.AUTO) {
+			// anything queued up while we were in commit mode is written now
+			flush();
 		}
 	}
 
@@ -178,7 +295,7 @@ public final class EntityManagerImpl implements EntityManager {
 	public FlushModeType getFlushMode() {
 		assertOpen();
 		
-		return FlushModeType.AUTO;
+		return mFlushMode;
 	}
 
 	/**
@@ -196,30 +313,51 @@ public final class EntityManagerImpl implements EntityManager {
 
 		assertContains(theObj);
 
-		Object aDbObj = find(theObj.getClass(), EmpireUtil.asSupportsRdfId(theObj).getRdfId());
+		Object aDbObj;
 
-        Collection<AccessibleObject> aAccessors = new HashSet<AccessibleObject>();
-
-        aAccessors.addAll(getAnnotatedFields(aDbObj.getClass()));
-        aAccessors.addAll(getAnnotatedGetters(aDbObj.getClass(), true));
+		try {
+			// the managed instance is most likely the one being refreshed, so this has to go to the database
+			aDbObj = RdfGenerator.fromRdf(theObj.getClass(), EmpireUtil.asSupportsRdfId(theObj).getRdfId(), getDataSource());
+		}
+		catch (InvalidRdfException e) {
+			throw new IllegalArgumentException("Type is not valid, or object with key is not a valid Rdf Entity.", e);
+		}
+		catch (DataSourceException e) {
+			throw new PersistenceException(e);
+		}
 
 		if (theObj instanceof EmpireGenerated) {
 			((EmpireGenerated)theObj).setAllTriples(((EmpireGenerated)aDbObj).getAllTriples());
 			((EmpireGenerated)theObj).setInstanceTriples(((EmpireGenerated)aDbObj).getInstanceTriples());
 		}
 
+        // when both are of the same class, the accessors of the class can be used to copy the values
+        boolean aSameClass = theObj.getClass().equals(aDbObj.getClass());
+
         try {
-            for (AccessibleObject aAccess : aAccessors) {
-                Object aValue = safeGet(aAccess, aDbObj);
-                
-                AccessibleObject aSetter = asSetter(aDbObj.getClass(), aAccess);
-                
-                safeSet(aSetter, theObj, aValue);
+            for (PropertyMetadata aProperty : EntityMetadata.of(aDbObj.getClass()).getReadableProperties()) {
+                Object aValue = aProperty.get(aDbObj);
+
+                if (aSameClass && aProperty.getSetterProperty() != null) {
+                    aProperty.getSetterProperty().set(theObj, aValue);
+                }
+                else {
+                    safeSet(aProperty.getSetter(), theObj, aValue);
+                }
             }
         }
         catch (InvocationTargetException e) {
             throw new PersistenceException(e);
         }
+
+		if (theObj instanceof EmpireGenerated) {
+			// copying the values over went through the setters, but the instance now matches the database
+			((EmpireGenerated) theObj).clearDirtyProperties();
+		}
+
+		manage(theObj, false);
+
+		postLoad(theObj);
     }
 
 	/**
@@ -237,8 +375,20 @@ public final class EntityManagerImpl implements EntityManager {
 	public boolean contains(final Object theObj) {
 		assertStateOk(theObj);
 
+		SupportsRdfId.RdfKey aKey = EmpireUtil.asSupportsRdfId(theObj).getRdfId();
+
+		if (aKey != null && mContained.contains(aKey)) {
+			return true;
+		}
+
 		try {
-			return DataSourceUtil.exists(getDataSource(), theObj);
+			boolean aExists = DataSourceUtil.exists(getDataSource(), theObj);
+
+			if (aExists && aKey != null) {
+				mContained.add(aKey);
+			}
+
+			return aExists;
 		}
 		catch (DataSourceException e) {
 			throw new PersistenceException(e);
@@ -249,35 +399,83 @@ public final class EntityManagerImpl implements EntityManager {
 	 * @inheritDoc
 	 */
 	public Query createQuery(final String theQueryString) {
-		return getDataSource().getQueryFactory().createQuery(theQueryString);
+		return joinPersistenceContext(getDataSource().getQueryFactory().createQuery(theQueryString));
 	}
 
 	/**
 	 * @inheritDoc
 	 */
 	public Query createNamedQuery(final String theName) {
-		return getDataSource().getQueryFactory().createNamedQuery(theName);
+		return joinPersistenceContext(getDataSource().getQueryFactory().createNamedQuery(theName));
 	}
 
 	/**
 	 * @inheritDoc
 	 */
 	public Query createNativeQuery(final String theQueryString) {
-		return getDataSource().getQueryFactory().createNativeQuery(theQueryString);
+		return joinPersistenceContext(getDataSource().getQueryFactory().createNativeQuery(theQueryString));
 	}
 
 	/**
 	 * @inheritDoc
 	 */
 	public Query createNativeQuery(final String theQueryString, final Class theResultClass) {
-		return getDataSource().getQueryFactory().createNativeQuery(theQueryString, theResultClass);
+		return joinPersistenceContext(getDataSource().getQueryFactory().createNativeQuery(theQueryString, theResultClass));
 	}
 
 	/**
 	 * @inheritDoc
 	 */
 	public Query createNativeQuery(final String theQueryString, final String theResultSetMapping) {
-		return getDataSource().getQueryFactory().createNativeQuery(theQueryString, theResultSetMapping);
+		return joinPersistenceContext(getDataSource().getQueryFactory().createNativeQuery(theQueryString, theResultSetMapping));
+	}
+
+	/**
+	 * Associate the query with the persistence context of this EntityManager so that its results are the managed
+	 * instances
+	 * @param theQuery the query
+	 * @return the query
+	 */
+	private Query joinPersistenceContext(final Query theQuery) {
+		if (theQuery instanceof RdfQuery) {
+			((RdfQuery) theQuery).setPersistenceContext(mPersistenceContext);
+			((RdfQuery) theQuery).setEntityCache(mCache);
+
+			// a named query can say for itself whether or not it's read-only
+			if (mReadOnly && !((RdfQuery) theQuery).getHints().containsKey(RdfQuery.HINT_READ_ONLY)) {
+				theQuery.setHint(RdfQuery.HINT_READ_ONLY, Boolean.TRUE);
+			}
+		}
+
+		return theQuery;
+	}
+
+	/**
+	 * Add the object to the persistence context, replacing any instance previously managed with the same rdf id
+	 * @param theObj the object to manage
+	 * @param theIsContained whether or not the object is known to exist in the data source
+	 */
+	private void manage(final Object theObj, final boolean theIsContained) {
+		SupportsRdfId.RdfKey aKey = EmpireUtil.asSupportsRdfId(theObj).getRdfId();
+
+		if (aKey != null) {
+			mPersistenceContext.put(aKey, theObj);
+
+			if (theIsContained) {
+				mContained.add(aKey);
+			}
+		}
+	}
+
+	/**
+	 * Remove the object from the persistence context
+	 * @param theObj the object to remove
+	 */
+	private void unmanage(final Object theObj) {
+		SupportsRdfId.RdfKey aKey = EmpireUtil.asSupportsRdfId(theObj).getRdfId();
+
+		mPersistenceContext.remove(aKey);
+		mContained.remove(aKey);
 	}
 
 	/**
@@ -317,7 +515,10 @@ public final class EntityManagerImpl implements EntityManager {
 	 * Clean up the current state of the EntityManager, release attached entities and the like.
 	 */
 	private void cleanState() {
+		mPendingOp = null;
 		mManagedEntityListeners.clear();
+		mPersistenceContext.clear();
+		mContained.clear();
 	}
 
 	/**
@@ -332,7 +533,7 @@ public final class EntityManagerImpl implements EntityManager {
 	 */
 	public EntityTransaction getTransaction() {
 		if (mTransaction == null) {
-			mTransaction = new DataSourceEntityTransaction(asSupportsTransactions());
+			mTransaction = new DataSourceEntityTransaction(asSupportsTransactions(), this);
 		}
 
 		return mTransaction;
@@ -367,12 +568,16 @@ public final class EntityManagerImpl implements EntityManager {
 				aOp.add(aData);
 			}
 
+			aOp.verifyAdd(theObj);
+
 			joinCurrentDataSourceOperation(aOp);
 
 			cascadeOperation(theObj, new IsPersistCascade(), new MergeCascade());
 
 			finishCurrentDataSourceOperation(isTopOperation);
 
+			manage(theObj, true);
+
 			postPersist(theObj);
 		}
 		catch (InvalidRdfException ex) {
@@ -383,15 +588,86 @@ public final class EntityManagerImpl implements EntityManager {
 		}
 	}
 
+	/**
+	 * Persist all of the objects.  This has the same effect as calling {@link #persist} for each of them, but rather
+	 * than checking whether or not each object already exists with its own query, that is checked with a query per
+	 * {@link EmpireOptions#BATCH_LOAD_SIZE} objects, and the data of all of the objects is written to the data source
+	 * with a single add per named graph.  If any of the objects already exist, none of them are persisted.
+	 * @param theObjs the objects to persist
+	 * @throws EntityExistsException if any of the objects already exist
+	 * @throws IllegalArgumentException if any of the objects is not a valid Rdf Entity
+	 * @throws IllegalStateException if the EntityManager is closed
+	 */
+	public void persistAll(final Collection<?> theObjs) {
+		assertOpen();
+
+		for (Object aObj : theObjs) {
+			assertSupported(aObj);
+		}
+
+		assertNoneContained(theObjs);
+
+		try {
+			boolean isTopOperation = (mOp == null);
+
+			joinCurrentDataSourceOperation(new DataSourceOperation());
+
+			for (Object aObj : theObjs) {
+				prePersist(aObj);
+
+				Graph aData = RdfGenerator.asRdf(aObj);
+
+				if (doesSupportNamedGraphs() && EmpireUtil.hasNamedGraphSpecified(aObj)) {
+					mOp.add(EmpireUtil.getNamedGraph(aObj), aData);
+				}
+				else {
+					mOp.add(aData);
+				}
+
+				mOp.verifyAdd(aObj);
+
+				cascadeOperation(aObj, new IsPersistCascade(), new MergeCascade());
+			}
+
+			finishCurrentDataSourceOperation(isTopOperation);
+
+			for (Object aObj : theObjs) {
+				manage(aObj, true);
+
+				postPersist(aObj);
+			}
+		}
+		catch (InvalidRdfException ex) {
+			throw new IllegalStateException(ex);
+		}
+		catch (DataSourceException ex) {
+			throw new PersistenceException(ex);
+		}
+	}
+
 	private MutableDataSource getDataSource() {
 		return (MutableDataSource) getDelegate();
 	}
 
 	private void finishCurrentDataSourceOperation(boolean theIsTop) throws DataSourceException {
 		if (theIsTop) {
+			DataSourceOperation aOp = mOp;
+
 			mCascadePending.clear();
-			mOp.execute();
 			mOp = null;
+
+			if (mFlushMode == FlushModeType.COMMIT) {
+				// queue it up until the next flush, in the meantime it can cancel out changes made by earlier operations
+				if (mPendingOp == null) {
+					mPendingOp = aOp;
+				}
+				else {
+					mPendingOp.merge(aOp);
+				}
+			}
+			else {
+				aOp.execute();
+			}
 		}
 	}
 
@@ -402,13 +678,23 @@ public final class EntityManagerImpl implements EntityManager {
 	public <T> T merge(final T theT) {
 		assertStateOk(theT);
 
+		if (RdfGenerator.isUntracked(theT)) {
+			throw new IllegalArgumentException("Cannot merge an instance which was loaded read-only, it must be refreshed before it can be merged.");
+		}
+
 		Graph aExistingData = null;
+		boolean[] aDirty = null;
 		
 		if (theT instanceof EmpireGenerated) {
 			aExistingData = ((EmpireGenerated) theT).getInstanceTriples();
+			aDirty = ((EmpireGenerated) theT).getDirtyProperties();
 		}
 
-		if (aExistingData == null || aExistingData.isEmpty()) {
+		// when the instance has the statements it was populated from, a merge is compared against those, and they have
+		// to be kept up to date with what is written
+		boolean hasInstanceTriples = aExistingData != null && !aExistingData.isEmpty();
+
+		if (!hasInstanceTriples) {
 			try {
 				aExistingData = assertContainsAndDescribe(theT);
 			}
@@ -423,6 +709,30 @@ public final class EntityManagerImpl implements EntityManager {
 
 			Graph aData = RdfGenerator.asRdf(theT);
 
+			if (aDirty != null) {
+				// we know which properties were changed since the instance was loaded, so only the values of those
+				// properties have to be replaced.  instances whose changes are not tracked, such as subclasses of
+				// bean classes which can write their fields directly, are compared in full instead
+				Resource aSubject = EmpireUtil.asResource(EmpireUtil.asSupportsRdfId(theT));
+				Set<org.openrdf.model.URI> aChanged = changedProperties(theT, aSubject, aDirty);
+
+				aExistingData = restrict(aExistingData, aSubject, aChanged);
+				aData = restrict(aData, aSubject, aChanged);
+			}
+			else if (hasInstanceTriples) {
+				// the rdf:type is not one of the statements the instance was populated from, but it is in the database
+				// already, so it must not be compared against them or it would be added again on every merge
+				Resource aSubject = EmpireUtil.asResource(EmpireUtil.asSupportsRdfId(theT));
+
+				aData.remove(new StatementImpl(aSubject, RDF.TYPE, EntityMetadata.of(theT.getClass()).getRdfsClass()));
+			}
+
+			// statements which are in both the old and the new data are left alone rather than deleted and re-inserted
+			Graph aRemoved = new ExtGraph();
+			Graph aAdded = new ExtGraph();
+
+			diff(aExistingData, aData, aRemoved, aAdded);
+
 			boolean isTopOperation = (mOp == null);
 
 			DataSourceOperation aOp = new DataSourceOperation();
@@ -430,14 +740,16 @@ public final class EntityManagerImpl implements EntityManager {
 			if (doesSupportNamedGraphs() && EmpireUtil.hasNamedGraphSpecified(theT)) {
 				java.net.URI aGraphURI = EmpireUtil.getNamedGraph(theT);
 
-				aOp.remove(aGraphURI, aExistingData);
-				aOp.add(aGraphURI, aData);
+				aOp.remove(aGraphURI, aRemoved);
+				aOp.add(aGraphURI, aAdded);
 			}
 			else {
-				aOp.remove(aExistingData);
-				aOp.add(aData);
+				aOp.remove(aRemoved);
+				aOp.add(aAdded);
 			}
 
+			aOp.verifyAdd(theT);
+
 			joinCurrentDataSourceOperation(aOp);
 
 			// cascade the merge
@@ -445,6 +757,29 @@ public final class EntityManagerImpl implements EntityManager {
 
 			finishCurrentDataSourceOperation(isTopOperation);
 
+			if (hasInstanceTriples) {
+				EmpireGenerated aGenerated = (EmpireGenerated) theT;
+
+				Collection<Statement> aInstanceTriples = new LinkedHashSet<Statement>(aGenerated.getInstanceTriples());
+
+				aInstanceTriples.removeAll(aRemoved);
+
+				for (Statement aStmt : aAdded) {
+					// as when the instance is populated, the rdf:type is not one of its instance triples
+					if (!RDF.TYPE.equals(aStmt.getPredicate())) {
+						aInstanceTriples.add(aStmt);
+					}
+				}
+
+				aGenerated.setInstanceTriples(SubjectGraph.of(EmpireUtil.asResource(EmpireUtil.asSupportsRdfId(theT)), aInstanceTriples));
+			}
+
+			if (aDirty != null) {
+				((EmpireGenerated) theT).clearDirtyProperties();
+			}
+
+			manage(theT, true);
+
 			postUpdate(theT);
 
             return theT;
@@ -457,6 +792,122 @@ public final class EntityManagerImpl implements EntityManager {
 		}
 	}
 
+	/**
+	 * Compute the statements which have to be removed from, and added to, the database to change the old description
+	 * of an individual into the new one.  Statements which do not mention a bnode are compared by value, so those in
+	 * both graphs are neither removed nor added.  Statements which mention a bnode are always removed and added: the
+	 * bnodes in the new description are new nodes, they are never equal to the ones in the database.  Only the
+	 * subject, predicate and object are compared; the statements in the new description can carry a context which
+	 * those read from the database do not.
+	 * @param theOld the description in the database
+	 * @param theNew the new description
+	 * @param theRemoved the graph to add the statements to remove to
+	 * @param theAdded the graph to add the statements to add to
+	 */
+	private static void diff(final Graph theOld, final Graph theNew, final Graph theRemoved, final Graph theAdded) {
+		Map<Statement, Statement> aOld = new HashMap<Statement, Statement>(theOld.size());
+
+		for (Statement aStmt : theOld) {
+			if (hasBNode(aStmt)) {
+				theRemoved.add(aStmt);
+			}
+			else {
+				aOld.put(triple(aStmt), aStmt);
+			}
+		}
+
+		for (Statement aStmt : theNew) {
+			if (hasBNode(aStmt) || aOld.remove(triple(aStmt)) == null) {
+				theAdded.add(aStmt);
+			}
+		}
+
+		// whatever was not matched by a statement in the new description is no longer true
+		theRemoved.addAll(aOld.values());
+	}
+
+	private static Statement triple(final Statement theStmt) {
+		return new StatementImpl(theStmt.getSubject(), theStmt.getPredicate(), theStmt.getObject());
+	}
+
+	private static boolean hasBNode(final Statement theStmt) {
+		return theStmt.getSubject() instanceof BNode || theStmt.getObject() instanceof BNode;
+	}
+
+	/**
+	 * Return the RDF properties of the object which may have changed since changes to it started being tracked.  These
+	 * are the properties whose setters were called, and the properties whose changes cannot be tracked: those without
+	 * a setter, and collections, which can be modified in place.
+	 * @param theObj the object
+	 * @param theSubject the rdf:ID of the object
+	 * @param theDirty the indexes of the readable properties set since changes started being tracked
+	 * @return the properties which may have changed
+	 */
+	private static Set<org.openrdf.model.URI> changedProperties(final Object theObj, final Resource theSubject, final boolean[] theDirty) {
+		Set<org.openrdf.model.URI> aChanged = new HashSet<org.openrdf.model.URI>();
+
+		for (PropertyMetadata aProperty : EntityMetadata.of(theObj.getClass()).getReadableProperties()) {
+			boolean isMutable = Collection.class.isAssignableFrom(aProperty.getType())
+								|| Map.class.isAssignableFrom(aProperty.getType())
+								|| aProperty.getType().isArray();
+
+			if (isMutable || aProperty.getSetter() == null || theDirty[aProperty.getReadIndex()]) {
+				org.openrdf.model.URI aProp = aProperty.getProperty(theSubject);
+
+				if (aProp != null) {
+					aChanged.add(aProp);
+				}
+			}
+		}
+
+		return aChanged;
+	}
+
+	/**
+	 * Return the statements of the graph about the subject using one of the given properties, along with the
+	 * descriptions of the bnodes they reference, such as the nodes of an rdf:List
+	 * @param theGraph the graph
+	 * @param theSubject the subject
+	 * @param theProperties the properties
+	 * @return the statements for the properties
+	 */
+	private static Graph restrict(final Graph theGraph, final Resource theSubject, final Set<org.openrdf.model.URI> theProperties) {
+		ExtGraph aGraph = new ExtGraph(theGraph);
+		ExtGraph aResult = new ExtGraph();
+
+		Set<Resource> aSeen = new HashSet<Resource>();
+		LinkedList<Resource> aQueue = new LinkedList<Resource>();
+
+		Iterator<Statement> aIter = aGraph.match(theSubject, null, null);
+		while (aIter.hasNext()) {
+			Statement aStmt = aIter.next();
+
+			if (theProperties.contains(aStmt.getPredicate())) {
+				aResult.add(aStmt);
+
+				if (aStmt.getObject() instanceof BNode && aSeen.add((BNode) aStmt.getObject())) {
+					aQueue.add((BNode) aStmt.getObject());
+				}
+			}
+		}
+
+		while (!aQueue.isEmpty()) {
+			aIter = aGraph.match(aQueue.removeFirst(), null, null);
+
+			while (aIter.hasNext()) {
+				Statement aStmt = aIter.next();
+
+				aResult.add(aStmt);
+
+				if (aStmt.getObject() instanceof BNode && aSeen.add((BNode) aStmt.getObject())) {
+					aQueue.add((BNode) aStmt.getObject());
+				}
+			}
+		}
+
+		return aResult;
+	}
+
 	private void joinCurrentDataSourceOperation(final DataSourceOperation theOp) {
 		if (mOp == null) {
 			mOp = theOp;
@@ -475,15 +926,10 @@ public final class EntityManagerImpl implements EntityManager {
 			mCascadePending.add(theT);
 		}
 
-		Collection<AccessibleObject> aAccessors = new HashSet<AccessibleObject>();
-		
-		aAccessors.addAll(getAnnotatedFields(theT.getClass()));
-		aAccessors.addAll(getAnnotatedGetters(theT.getClass(), true));
-
-		for (AccessibleObject aObj : aAccessors) {
-			if (theCascadeTest.apply(aObj)) {
+		for (PropertyMetadata aProperty : EntityMetadata.of(theT.getClass()).getReadableProperties()) {
+			if (theCascadeTest.apply(aProperty)) {
 				try {
-					Object aAccessorValue = BeanReflectUtil.safeGet(aObj, theT);
+					Object aAccessorValue = aProperty.get(theT);
 
 					if (aAccessorValue == null) {
 						continue;
@@ -525,24 +971,24 @@ public final class EntityManagerImpl implements EntityManager {
 	}
 
 	private class IsMergeCascade extends CascadeTest {
-		public boolean apply(final AccessibleObject theValue) {
-			return BeanReflectUtil.isMergeCascade(theValue);
+		public boolean apply(final PropertyMetadata theValue) {
+			return theValue.isMergeCascade();
 		}
 	}
 
 	private class IsRemoveCascade extends CascadeTest {
-		public boolean apply(final AccessibleObject theValue) {
-			return BeanReflectUtil.isRemoveCascade(theValue);
+		public boolean apply(final PropertyMetadata theValue) {
+			return theValue.isRemoveCascade();
 		}
 	}
 
 	private class IsPersistCascade extends CascadeTest {
-		public boolean apply(final AccessibleObject theValue) {
-			return BeanReflectUtil.isPersistCascade(theValue);
+		public boolean apply(final PropertyMetadata theValue) {
+			return theValue.isPersistCascade();
 		}
 	}
 
-	private abstract class CascadeTest implements Predicate<AccessibleObject> {
+	private abstract class CascadeTest implements Predicate<PropertyMetadata> {
 	}
 
 	private abstract class CascadeAction implements Predicate<Object> {
@@ -595,12 +1041,16 @@ public final class EntityManagerImpl implements EntityManager {
 				aOp.remove(aData);
 			}
 
+			aOp.verifyRemove(theObj);
+
 			joinCurrentDataSourceOperation(aOp);
 
 			cascadeOperation(theObj, new IsRemoveCascade(), new RemoveCascade());
 
 			finishCurrentDataSourceOperation(isTopOperation);
 
+			unmanage(theObj);
+
 			postRemove(theObj);
 		}
 		catch (DataSourceException ex) {
@@ -621,17 +1071,36 @@ public final class EntityManagerImpl implements EntityManager {
 			throw new IllegalArgumentException(e);
 		}
 
+		SupportsRdfId.RdfKey aKey = EmpireUtil.asPrimaryKey(theObj);
+
+		if (mReadOnly) {
+			try {
+				// a detached bean, neither resolved against nor added to the persistence context
+				return RdfGenerator.fromRdfIfExists(theClass, aKey, getDataSource(), RdfGenerator.untrackedContext(), mCache);
+			}
+			catch (InvalidRdfException e) {
+				throw new IllegalArgumentException("Type is not valid, or object with key is not a valid Rdf Entity.", e);
+			}
+			catch (DataSourceException e) {
+				throw new PersistenceException(e);
+			}
+		}
+
+		Object aManaged = mPersistenceContext.get(aKey);
+
+		if (theClass.isInstance(aManaged)) {
+			return theClass.cast(aManaged);
+		}
+
 		try {
-			if (DataSourceUtil.exists(getDataSource(), EmpireUtil.asPrimaryKey(theObj))) {
-				T aT = RdfGenerator.fromRdf(theClass, EmpireUtil.asPrimaryKey(theObj), getDataSource());
+			// a single describe tells us if it exists, what type it is, and what its values are
+			T aT = RdfGenerator.fromRdfIfExists(theClass, aKey, getDataSource(), mPersistenceContext, mCache);
 
+			if (aT != null) {
 				postLoad(aT);
-
-				return aT;
-			}
-			else {
-				return null;
 			}
+
+			return aT;
 		}
 		catch (InvalidRdfException e) {
 			throw new IllegalArgumentException("Type is not valid, or object with key is not a valid Rdf Entity.", e);
@@ -681,6 +1150,11 @@ public final class EntityManagerImpl implements EntityManager {
 		try {
 			ExtGraph aGraph = DataSourceUtil.describe(getDataSource(), theObj);
 
+			if (mPendingOp != null) {
+				// the data source does not reflect the changes which have not been flushed yet
+				mPendingOp.applyTo(EmpireUtil.asResource(EmpireUtil.asSupportsRdfId(theObj)), aGraph);
+			}
+
 			if (aGraph.isEmpty()) {
 				throw new IllegalArgumentException("Entity does not exist: " + theObj);
 			}
@@ -703,6 +1177,78 @@ public final class EntityManagerImpl implements EntityManager {
 		}
 	}
 
+	/**
+	 * Enforce that none of the objects exist in the database
+	 * @param theObjs the objects that should not exist
+	 * @throws EntityExistsException thrown if any of the objects already exist in the database
+	 */
+	private void assertNoneContained(final Collection<?> theObjs) {
+		for (Object aObj : theObjs) {
+			SupportsRdfId.RdfKey aKey = EmpireUtil.asSupportsRdfId(aObj).getRdfId();
+
+			if (aKey != null && mContained.contains(aKey)) {
+				throw new EntityExistsException("Entity already exists: " + aObj);
+			}
+		}
+
+		try {
+			Set<Resource> aExisting = existing(theObjs);
+
+			if (!aExisting.isEmpty()) {
+				throw new EntityExistsException("Entity already exists: " + aExisting.iterator().next());
+			}
+		}
+		catch (QueryException e) {
+			throw new PersistenceException(e);
+		}
+	}
+
+	/**
+	 * Return which of the objects exist in the database.  Rather than a query per object, the objects are checked in
+	 * batches of {@link EmpireOptions#BATCH_LOAD_SIZE} with a single query per batch; only objects identified by a bnode
+	 * are checked one at a time.
+	 * @param theObjs the objects to check
+	 * @return the resources identifying the objects which exist
+	 * @throws QueryException if there is an error while querying the data source
+	 */
+	private Set<Resource> existing(final Collection<?> theObjs) throws QueryException {
+		Set<Resource> aExisting = new HashSet<Resource>();
+
+		// the named graph each object is in, HashMap because of the objects which are not in one
+		HashMap<Resource, URI> aBatch = new HashMap<Resource, URI>();
+
+		for (Object aObj : theObjs) {
+			if (EmpireUtil.asSupportsRdfId(aObj).getRdfId() == null) {
+				// it will get a new id when it's converted to rdf, so it cannot exist yet
+				continue;
+			}
+
+			Resource aSubject = EmpireUtil.asResource(EmpireUtil.asSupportsRdfId(aObj));
+
+			if (!(aSubject instanceof org.openrdf.model.URI)) {
+				// bnodes cannot be batched
+				if (DataSourceUtil.exists(getDataSource(), aObj)) {
+					aExisting.add(aSubject);
+				}
+
+				continue;
+			}
+
+			aBatch.put(aSubject, doesSupportNamedGraphs() && EmpireUtil.hasNamedGraphSpecified(aObj) ? EmpireUtil.getNamedGraph(aObj) : null);
+
+			if (aBatch.size() >= EmpireOptions.BATCH_LOAD_SIZE) {
+				aExisting.addAll(DataSourceUtil.exists(getDataSource(), aBatch));
+				aBatch.clear();
+			}
+		}
+
+		if (!aBatch.isEmpty()) {
+			aExisting.addAll(DataSourceUtil.exists(getDataSource(), aBatch));
+		}
+
+		return aExisting;
+	}
+
 	/**
 	 * Assert that the state of the EntityManager is ok; that it is open, and the specified object is a valid Rdf entity.
 	 * @param theObj the object to check
@@ -883,7 +1429,7 @@ public final class EntityManagerImpl implements EntityManager {
 			return;
 		}
 
-		Collection<Method> aMethods = getAnnotatedMethods(theObj.getClass(), theLifecycleAnnotation);
+		Collection<Method> aMethods = EntityMetadata.of(theObj.getClass()).getLifecycleMethods(theLifecycleAnnotation);
 
 		// Entity methods take no arguments...
 		try {
@@ -897,7 +1443,7 @@ public final class EntityManagerImpl implements EntityManager {
 		}
 
 		for (Object aListener : getEntityListeners(theObj)) {
-			Collection<Method> aListenerMethods = getAnnotatedMethods(aListener.getClass(), theLifecycleAnnotation);
+			Collection<Method> aListenerMethods = EntityMetadata.of(aListener.getClass()).getLifecycleMethods(theLifecycleAnnotation);
 
 			// EntityListeners methods take a single arguement, the entity
 			try {
@@ -948,18 +1494,20 @@ public final class EntityManagerImpl implements EntityManager {
 
 	/**
 	 * Class which encapsulates a set of adds & removes to a DataSource.  Used to process a set of changes in a single
-	 * operation, well, two operations.  Remove and then Add.  Also will verify that all objects that should have been
-	 * added/removed from the KB have been added or removed.
+	 * operation, well, two operations.  Remove and then Add, with a single call per named graph.  An add and a remove
+	 * of the same statement cancel out, only the later of the two is kept.  Also will verify that all objects that
+	 * should have been added/removed from the KB have been added or removed.
 	 * @author Michael Grove
 	 * @since 0.7
-	 * @version 0.7
+	 * @version 0.7.2
 	 */
 	protected class DataSourceOperation {
 		// HashMap's used here rather than the more generic Map interface because we allow null keys (no specified
 		// named graph) which HashMap allows, while generically Map makes no guarantees about this, so we're explicit here.
+		// the statements are kept in sets rather than Graphs, which are lists, so that cancelling out changes is cheap
 
-		private final Map<java.net.URI, Graph> mAdd;
-		private final Map<java.net.URI, Graph> mRemove;
+		private final HashMap<java.net.URI, Set<Statement>> mAdd;
+		private final HashMap<java.net.URI, Set<Statement>> mRemove;
 
 		private final Set<Object> mVerifyAdd = new HashSet<Object>();
 		private final Set<Object> mVerifyRemove = new HashSet<Object>();
@@ -968,8 +1516,8 @@ public final class EntityManagerImpl implements EntityManager {
 		 * Create a new DataSourceOperation
 		 */
 		DataSourceOperation() {
-			mAdd = new HashMap<java.net.URI, Graph>();
-			mRemove = new HashMap<java.net.URI, Graph>();
+			mAdd = new HashMap<java.net.URI, Set<Statement>>();
+			mRemove = new HashMap<java.net.URI, Set<Statement>>();
 		}
 
 		/**
@@ -981,61 +1529,135 @@ public final class EntityManagerImpl implements EntityManager {
 		public void execute() throws DataSourceException {
 			// TODO: should this be in its own transaction?  or join the current one?
 
-			for (URI aGraphURI : mRemove.keySet()) {
-				if (doesSupportNamedGraphs() && aGraphURI != null) {
-					asSupportsNamedGraphs().remove(aGraphURI, mRemove.get(aGraphURI));
+			Map<URI, Graph> aRemove = asGraphs(mRemove);
+			Map<URI, Graph> aAdd = asGraphs(mAdd);
+
+			try {
+				for (URI aGraphURI : aRemove.keySet()) {
+					if (doesSupportNamedGraphs() && aGraphURI != null) {
+						asSupportsNamedGraphs().remove(aGraphURI, aRemove.get(aGraphURI));
+					}
+					else {
+						getDataSource().remove(aRemove.get(aGraphURI));
+					}
 				}
-				else {
-					getDataSource().remove(mRemove.get(aGraphURI));
+
+				for (URI aGraphURI : aAdd.keySet()) {
+					if (doesSupportNamedGraphs() && aGraphURI != null) {
+						asSupportsNamedGraphs().add(aGraphURI, aAdd.get(aGraphURI));
+					}
+					else {
+						getDataSource().add(aAdd.get(aGraphURI));
+					}
 				}
 			}
+			finally {
+				// the cache is shared, so whatever was changed, even partially, has to be dropped from it for all
+				// the EntityManagers of the factory
+				if (mCache != null) {
+					for (Graph aGraph : aRemove.values()) {
+						mCache.invalidate(aGraph);
+					}
 
-			for (URI aGraphURI : mAdd.keySet()) {
-				if (doesSupportNamedGraphs() && aGraphURI != null) {
-					asSupportsNamedGraphs().add(aGraphURI, mAdd.get(aGraphURI));
+					for (Graph aGraph : aAdd.values()) {
+						mCache.invalidate(aGraph);
+					}
 				}
-				else {
-					getDataSource().add(mAdd.get(aGraphURI));
+			}
+
+			if (mVerifyWrites) {
+				verify();
+			}
+		}
+
+		/**
+		 * Return the non-empty sets of statements as graphs
+		 * @param theStatements the statements, keyed by named graph
+		 * @return the graphs, keyed by named graph
+		 */
+		private Map<URI, Graph> asGraphs(final Map<URI, Set<Statement>> theStatements) {
+			Map<URI, Graph> aGraphs = new HashMap<URI, Graph>();
+
+			for (Map.Entry<URI, Set<Statement>> aEntry : theStatements.entrySet()) {
+				if (!aEntry.getValue().isEmpty()) {
+					aGraphs.put(aEntry.getKey(), new GraphImpl(aEntry.getValue()));
+				}
+			}
+
+			return aGraphs;
+		}
+
+		/**
+		 * Apply the changes this operation makes to the given subject to a graph which describes the subject
+		 * @param theSubject the subject
+		 * @param theGraph the description of the subject
+		 */
+		public void applyTo(final Resource theSubject, final Graph theGraph) {
+			for (Set<Statement> aStatements : mRemove.values()) {
+				for (Statement aStmt : aStatements) {
+					if (aStmt.getSubject().equals(theSubject)) {
+						theGraph.remove(aStmt);
+					}
 				}
 			}
 
-			verify();
+			for (Set<Statement> aStatements : mAdd.values()) {
+				for (Statement aStmt : aStatements) {
+					if (aStmt.getSubject().equals(theSubject) && !theGraph.contains(aStmt)) {
+						theGraph.add(aStmt);
+					}
+				}
+			}
 		}
 
 		/**
 		 * Add the specified object to the list of objects that should be removed from the database when this operation
-		 * is executed.
+		 * is executed.  As with the statements, this replaces an earlier add of the object.
 		 * @param theObj the object that should be revmoed from the database when the operation is executed
 		 */
 		public void verifyRemove(Object theObj) {
+			mVerifyAdd.remove(theObj);
 			mVerifyRemove.add(theObj);
 		}
 
 		/**
 		 * Add the specified object to the list of objects that should be added to the database when this operation
-		 * is executed.
+		 * is executed.  As with the statements, this replaces an earlier remove of the object.
 		 * @param theObj the object that should be added to the database when the operation is executed
 		 */
 		public void verifyAdd(Object theObj) {
+			mVerifyRemove.remove(theObj);
 			mVerifyAdd.add(theObj);
 		}
 
 		/**
-		 * Verify that all the objects to be added/removed were completed successfully.
+		 * Verify that all the objects to be added/removed were completed successfully.  The objects are checked in
+		 * batches rather than with a query per object.
 		 * @throws PersistenceException if an add or remove failed for any reason
 		 */
 		private void verify() {
-			for (Object aObj : mVerifyRemove) {
-				if (contains(aObj)) {
-					throw new PersistenceException("Remove failed for object: " + aObj.getClass() + " -> " + EmpireUtil.asSupportsRdfId(aObj).getRdfId());
+			try {
+				Set<Resource> aExisting = existing(mVerifyRemove);
+
+				for (Object aObj : mVerifyRemove) {
+					if (EmpireUtil.asSupportsRdfId(aObj).getRdfId() != null
+						&& aExisting.contains(EmpireUtil.asResource(EmpireUtil.asSupportsRdfId(aObj)))) {
+						throw new PersistenceException("Remove failed for object: " + aObj.getClass() + " -> " + EmpireUtil.asSupportsRdfId(aObj).getRdfId());
+					}
 				}
-			}
 
-			for (Object aObj : mVerifyAdd) {
-				if (!contains(aObj)) {
-					throw new PersistenceException("Addition failed for object: " + aObj.getClass() + " -> " + EmpireUtil.asSupportsRdfId(aObj).getRdfId());
+				aExisting = existing(mVerifyAdd);
+
+				for (Object aObj : mVerifyAdd) {
+					if (EmpireUtil.asSupportsRdfId(aObj).getRdfId() == null
+						|| !aExisting.contains(EmpireUtil.asResource(EmpireUtil.asSupportsRdfId(aObj)))) {
+						throw new PersistenceException("Addition failed for object: " + aObj.getClass() + " -> " + EmpireUtil.asSupportsRdfId(aObj).getRdfId());
+					}
 				}
 			}
+			catch (QueryException e) {
+				throw new PersistenceException(e);
+			}
 		}
 
 		/**
@@ -1051,16 +1673,8 @@ public final class EntityManagerImpl implements EntityManager {
 		 * @param theGraphURI the named graph the data should be added to
 		 * @param theGraph the data to add
 		 */
-		public void add(java.net.URI theGraphURI, Graph theGraph) {
-			Graph aGraph = mAdd.get(theGraphURI);
-
-			if (aGraph == null) {
-				aGraph = new ExtGraph();
-			}
-
-			aGraph.addAll(theGraph);
-
-			mAdd.put(theGraphURI, aGraph);
+		public void add(java.net.URI theGraphURI, Collection<Statement> theGraph) {
+			change(theGraphURI, theGraph, mAdd, mRemove);
 		}
 		
 		/**
@@ -1076,16 +1690,35 @@ public final class EntityManagerImpl implements EntityManager {
 		 * @param theGraphURI the named graph the data should be removed from
 		 * @param theGraph the data to remove
 		 */
-		public void remove(java.net.URI theGraphURI, Graph theGraph) {
-			Graph aGraph = mRemove.get(theGraphURI);
+		public void remove(java.net.URI theGraphURI, Collection<Statement> theGraph) {
+			change(theGraphURI, theGraph, mRemove, mAdd);
+		}
 
-			if (aGraph == null) {
-				aGraph = new ExtGraph();
+		/**
+		 * Record a change to the named graph, cancelling out the opposite change to the same statements
+		 * @param theGraphURI the named graph
+		 * @param theGraph the statements which are changed
+		 * @param theChanges the changes of the same kind, adds or removes
+		 * @param theOpposites the changes of the opposite kind
+		 */
+		private void change(final java.net.URI theGraphURI, final Collection<Statement> theGraph,
+							final Map<URI, Set<Statement>> theChanges, final Map<URI, Set<Statement>> theOpposites) {
+			Set<Statement> aChanges = theChanges.get(theGraphURI);
+
+			if (aChanges == null) {
+				aChanges = new LinkedHashSet<Statement>();
+				theChanges.put(theGraphURI, aChanges);
 			}
 
-			aGraph.addAll(theGraph);
+			Set<Statement> aOpposites = theOpposites.get(theGraphURI);
+
+			for (Statement aStmt : theGraph) {
+				if (aOpposites != null) {
+					aOpposites.remove(aStmt);
+				}
 
-			mRemove.put(theGraphURI, aGraph);
+				aChanges.add(aStmt);
+			}
 		}
 
 		/**
@@ -1093,16 +1726,21 @@ public final class EntityManagerImpl implements EntityManager {
 		 * @param theOp the operation to merge
 		 */
 		public void merge(final DataSourceOperation theOp) {
-			for (Map.Entry<URI, Graph> aEntry : theOp.mRemove.entrySet()) {
+			for (Map.Entry<URI, Set<Statement>> aEntry : theOp.mRemove.entrySet()) {
 				remove(aEntry.getKey(), aEntry.getValue());
 			}
 
-			for (Map.Entry<URI, Graph> aEntry : theOp.mAdd.entrySet()) {
+			for (Map.Entry<URI, Set<Statement>> aEntry : theOp.mAdd.entrySet()) {
 				add(aEntry.getKey(), aEntry.getValue());
 			}
 
-			mVerifyAdd.addAll(theOp.mVerifyAdd);
-			mVerifyRemove.addAll(theOp.mVerifyRemove);
+			for (Object aObj : theOp.mVerifyRemove) {
+				verifyRemove(aObj);
+			}
+
+			for (Object aObj : theOp.mVerifyAdd) {
+				verifyAdd(aObj);
+			}
 		}
 	}
 }
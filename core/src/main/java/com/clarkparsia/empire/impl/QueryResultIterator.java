@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2009-2012 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clarkparsia.empire.impl;
+
+import com.clarkparsia.empire.EmpireOptions;
+import com.clarkparsia.empire.SupportsRdfId;
+import com.clarkparsia.empire.annotation.runtime.Proxy;
+import com.clarkparsia.empire.ds.ResultSet;
+
+import org.openrdf.model.Value;
+import org.openrdf.query.BindingSet;
+
+import javax.persistence.PersistenceException;
+
+import java.io.Closeable;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import static com.clarkparsia.empire.util.EmpireUtil.asPrimaryKey;
+
+/**
+ * <p>Iterator over the results of an {@link RdfQuery} which reads the results from the underlying {@link ResultSet}
+ * as they are needed rather than all at once.  When the query returns beans, they are created, and populated, a
+ * window of {@link EmpireOptions#BATCH_LOAD_SIZE} results at a time, so no more than a window of beans is held by
+ * the iterator no matter how many results the query has.</p>
+ * <p>Beans already in the persistence context of the query are returned as-is, but the beans the iterator loads are
+ * not added to it, otherwise the context would grow to hold every result.  When query results are proxied, each bean
+ * is loaded when the iterator reaches it.  When the query is {@link RdfQuery#HINT_READ_ONLY read-only}, the beans
+ * are always loaded, read-only, rather than taken from the context.  The iterator must be closed if it is not
+ * read to the end.</p>
+ *
+ * @since 0.7.2
+ * @version 0.7.2
+ * @see RdfQuery#iterate
+ */
+public final class QueryResultIterator implements Iterator<Object>, Closeable {
+
+	/**
+	 * The query the results are from
+	 */
+	private final RdfQuery mQuery;
+
+	/**
+	 * The results of the query, null once they have all been read, or the iterator has been closed
+	 */
+	private ResultSet mResults;
+
+	/**
+	 * The current window of results
+	 */
+	private final List<Object> mWindow = new ArrayList<Object>();
+
+	/**
+	 * The position in the window of the next result
+	 */
+	private int mPosition = 0;
+
+	/**
+	 * Create a new iterator over the results of a select query
+	 * @param theQuery the query
+	 * @param theResults the results of the query
+	 */
+	QueryResultIterator(final RdfQuery theQuery, final ResultSet theResults) {
+		mQuery = theQuery;
+		mResults = theResults;
+	}
+
+	/**
+	 * Create a new iterator over a single result, which is how the result of a construct query is returned
+	 * @param theQuery the query
+	 * @param theResult the result
+	 */
+	QueryResultIterator(final RdfQuery theQuery, final Object theResult) {
+		mQuery = theQuery;
+		mWindow.add(theResult);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public boolean hasNext() {
+		if (mPosition >= mWindow.size()) {
+			nextWindow();
+		}
+
+		return mPosition < mWindow.size();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public Object next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+
+		Object aResult = mWindow.get(mPosition);
+
+		// let go of the result so it can be collected while the rest of the window is read
+		mWindow.set(mPosition++, null);
+
+		if (aResult instanceof Proxy) {
+			aResult = ((Proxy) aResult).value();
+		}
+
+		return aResult;
+	}
+
+	/**
+	 * Unsupported operation, results cannot be removed.
+	 * @throws UnsupportedOperationException always
+	 */
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Close the underlying results and release any resources they hold.  The iterator is closed automatically once
+	 * all of the results have been read.
+	 */
+	public void close() {
+		if (mResults != null) {
+			mResults.close();
+			mResults = null;
+		}
+
+		mWindow.clear();
+		mPosition = 0;
+	}
+
+	/**
+	 * Read the next window of results
+	 */
+	private void nextWindow() {
+		mWindow.clear();
+		mPosition = 0;
+
+		if (mResults == null) {
+			return;
+		}
+
+		try {
+			List<SupportsRdfId.RdfKey> aKeys = new ArrayList<SupportsRdfId.RdfKey>();
+			List<Integer> aPositions = new ArrayList<Integer>();
+
+			Class aBeanClass = mQuery.getBeanClass();
+			// read-only results are never the managed instances
+			Map<Object, Object> aContext = mQuery.isReadOnly() ? null : mQuery.getPersistenceContext();
+
+			while (mWindow.size() < Math.max(1, EmpireOptions.BATCH_LOAD_SIZE) && mResults.hasNext()) {
+				BindingSet aBinding = mResults.next();
+
+				if (aBeanClass == null) {
+					mWindow.add(aBinding);
+					continue;
+				}
+
+				Value aValue = aBinding.getValue(mQuery.getProjectionVarName());
+
+				if (mQuery.isBatchLoaded(aValue)) {
+					SupportsRdfId.RdfKey aKey = asPrimaryKey(aValue);
+					Object aExisting = aContext == null ? null : aContext.get(aKey);
+
+					if (aBeanClass.isInstance(aExisting)) {
+						mWindow.add(aExisting);
+					}
+					else {
+						aKeys.add(aKey);
+						aPositions.add(mWindow.size());
+						mWindow.add(null);
+					}
+				}
+				else {
+					mWindow.add(mQuery.asBean(aValue, mQuery.newLoadContext()));
+				}
+			}
+
+			if (!aKeys.isEmpty()) {
+				List aBeans = mQuery.load(aKeys, mQuery.newLoadContext());
+
+				for (int i = 0; i < aBeans.size(); i++) {
+					mWindow.set(aPositions.get(i), aBeans.get(i));
+				}
+			}
+
+			if (!mResults.hasNext()) {
+				mResults.close();
+				mResults = null;
+			}
+		}
+		catch (PersistenceException e) {
+			close();
+			throw e;
+		}
+		catch (Exception e) {
+			close();
+			throw new PersistenceException(e);
+		}
+	}
+}
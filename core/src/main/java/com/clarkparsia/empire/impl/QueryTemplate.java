@@ -0,0 +1,308 @@
+/*
+ * Copyright (c) 2009-2012 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clarkparsia.empire.impl;
+
+import com.clarkparsia.empire.Dialect;
+
+import org.openrdf.model.Value;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <p>A query string parsed into the fragments of the query around its parameters, along with everything else about
+ * the query which does not change from one execution to the next: the limit and offset written in the query, whether
+ * or not it already has its select/construct clause, and the namespace prefixes it uses.  A template is validated and
+ * parsed once, after which executing a query created from it only has to substitute the bound parameter values.</p>
+ * <p>Templates are immutable, and can be shared by any number of {@link RdfQuery queries}.</p>
+ *
+ * @since 0.7.2
+ * @version 0.7.2
+ */
+final class QueryTemplate {
+
+	/**
+	 * Matches a named parameter, "??foo", capturing the name, or an unnamed parameter, "??" followed by a '.', '}',
+	 * ')' or whitespace, which is not consumed.
+	 */
+	private static final Pattern PARAMETER = Pattern.compile(RdfQuery.VT_RE + "(?:([a-zA-Z0-9_\\-]+)|(?=[\\.\\s})]))");
+
+	private static final Pattern LIMIT = Pattern.compile("limit\\s*([0-9]+)");
+
+	private static final Pattern OFFSET = Pattern.compile("offset\\s*([0-9]+)");
+
+	/**
+	 * Matches what could be a prefixed name, "foaf:", capturing the prefix.  This also finds things which are not
+	 * prefixes, such as the scheme of a full URI, but only prefixes with a global namespace are declared, so that is
+	 * harmless.
+	 */
+	private static final Pattern PREFIX = Pattern.compile("([a-zA-Z0-9_\\-\\.]+):");
+
+	/**
+	 * The query string the template was created from
+	 */
+	private final String mQuery;
+
+	/**
+	 * The fragments of the query around the parameters, there is one more fragment than there are parameters
+	 */
+	private final String[] mFragments;
+
+	/**
+	 * The parameters, in the order they appear in the query.  The name of a named parameter, or the (1-based) index
+	 * of an unnamed parameter.
+	 */
+	private final Object[] mParameters;
+
+	private final Set<String> mParameterNames;
+
+	private final int mParameterCount;
+
+	/**
+	 * The limit written in the query, or -1 if it does not have one
+	 */
+	private final int mLimit;
+
+	/**
+	 * The offset written in the query, or -1 if it does not have one
+	 */
+	private final int mOffset;
+
+	private final boolean mStartsWithKeyword;
+
+	private final boolean mNeedsPatternKeyword;
+
+	private final boolean mConstruct;
+
+	/**
+	 * The namespace prefixes which might be used in the query
+	 */
+	private final Set<String> mPrefixes;
+
+	/**
+	 * Validate and parse the query
+	 * @param theDialect the dialect of the query
+	 * @param theQuery the query string
+	 * @throws IllegalArgumentException if the query is not valid
+	 */
+	QueryTemplate(final Dialect theDialect, final String theQuery) {
+		theDialect.validateQueryFormat(theQuery, RdfQuery.MAGIC_PROJECTION_VAR);
+
+		mQuery = theQuery;
+
+		String aLower = theQuery.toLowerCase().trim();
+
+		mStartsWithKeyword = startsWithKeyword(aLower);
+
+		// trying to guess if this is a construct query or not.  this is not foolproof, but since the only way of
+		// definitely specifying this right now is to cast a query object as an RdfQuery and use setConstruct, that
+		// is not ideal.  so we'll take a crack guessing it here.
+		mConstruct = aLower.startsWith("construct");
+
+		// limits and offsets specified in the query string are removed and stored, they get postfixed to the query
+		// when it's executed
+		String aQuery = theQuery;
+
+		Matcher aMatcher = LIMIT.matcher(aQuery);
+		if (aMatcher.find()) {
+			mLimit = Integer.parseInt(aMatcher.group(1));
+			aQuery = aMatcher.replaceAll("");
+		}
+		else {
+			mLimit = -1;
+		}
+
+		aMatcher = OFFSET.matcher(aQuery);
+		if (aMatcher.find()) {
+			mOffset = Integer.parseInt(aMatcher.group(1));
+			aQuery = aMatcher.replaceAll("");
+		}
+		else {
+			mOffset = -1;
+		}
+
+		aQuery = aQuery.trim();
+
+		String aLowerQuery = aQuery.toLowerCase();
+		mNeedsPatternKeyword = !aLowerQuery.startsWith(theDialect.patternKeyword()) && !startsWithKeyword(aLowerQuery);
+
+		List<String> aFragments = new ArrayList<String>();
+		List<Object> aParameters = new ArrayList<Object>();
+		Set<String> aNames = new LinkedHashSet<String>();
+
+		// i'm pretty sure the JPA stuff is 1-indexed rather than the normal 0-indexed
+		int aIndex = 1;
+		int aStart = 0;
+
+		aMatcher = PARAMETER.matcher(aQuery);
+		while (aMatcher.find()) {
+			aFragments.add(aQuery.substring(aStart, aMatcher.start()));
+
+			if (aMatcher.group(1) != null) {
+				aParameters.add(aMatcher.group(1));
+				aNames.add(aMatcher.group(1));
+			}
+			else {
+				aParameters.add(aIndex++);
+			}
+
+			aStart = aMatcher.end();
+		}
+
+		aFragments.add(aQuery.substring(aStart));
+
+		mFragments = aFragments.toArray(new String[aFragments.size()]);
+		mParameters = aParameters.toArray();
+		mParameterNames = Collections.unmodifiableSet(aNames);
+		mParameterCount = aIndex - 1;
+
+		Set<String> aPrefixes = new LinkedHashSet<String>();
+
+		aMatcher = PREFIX.matcher(aQuery);
+		while (aMatcher.find()) {
+			String aPrefix = aMatcher.group(1);
+
+			aPrefixes.add(aPrefix);
+
+			// prefixes can contain a '.', but the '.' might instead be the end of the previous triple pattern, eg
+			// "foaf:Person.dc:title", so the prefix after the last '.' is a candidate too
+			int aDot = aPrefix.indexOf('.');
+			while (aDot != -1) {
+				aPrefixes.add(aPrefix.substring(aDot + 1));
+				aDot = aPrefix.indexOf('.', aDot + 1);
+			}
+		}
+
+		mPrefixes = Collections.unmodifiableSet(aPrefixes);
+	}
+
+	private static boolean startsWithKeyword(final String theQuery) {
+		return theQuery.startsWith("select") || theQuery.startsWith("construct") || theQuery.startsWith("ask") || theQuery.startsWith("describe");
+	}
+
+	/**
+	 * Return the query string this template was created from
+	 * @return the query string
+	 */
+	public String getQuery() {
+		return mQuery;
+	}
+
+	/**
+	 * Return the names of the named parameters of the query
+	 * @return the parameter names
+	 */
+	public Set<String> getParameterNames() {
+		return mParameterNames;
+	}
+
+	/**
+	 * Return the number of unnamed parameters in the query
+	 * @return the number of unnamed parameters
+	 */
+	public int getParameterCount() {
+		return mParameterCount;
+	}
+
+	/**
+	 * Return the limit written in the query
+	 * @return the limit, or -1 if the query does not specify one
+	 */
+	public int getLimit() {
+		return mLimit;
+	}
+
+	/**
+	 * Return the offset written in the query
+	 * @return the offset, or -1 if the query does not specify one
+	 */
+	public int getOffset() {
+		return mOffset;
+	}
+
+	/**
+	 * Return whether or not the query starts with its select, construct, ask or describe clause
+	 * @return true if the query has its clause, false if it is only the patterns of the query
+	 */
+	public boolean startsWithKeyword() {
+		return mStartsWithKeyword;
+	}
+
+	/**
+	 * Return whether or not the {@link Dialect#patternKeyword pattern keyword} has to be inserted before the query
+	 * @return true if the keyword is missing, false otherwise
+	 */
+	public boolean needsPatternKeyword() {
+		return mNeedsPatternKeyword;
+	}
+
+	/**
+	 * Return whether or not the query appears to be a construct query
+	 * @return true if the query starts with construct, false otherwise
+	 */
+	public boolean isConstruct() {
+		return mConstruct;
+	}
+
+	/**
+	 * Return the namespace prefixes which might be used in the query.  This can include things which are not prefixes.
+	 * @return the prefixes
+	 */
+	public Set<String> getPrefixes() {
+		return mPrefixes;
+	}
+
+	/**
+	 * Append the query, with the limit and offset removed, to the buffer, replacing the parameters with their values.
+	 * Named parameters which are not bound are turned into normal variables, e.g. "??foo" becomes "?foo", and
+	 * unnamed parameters which are not bound are turned into anonymous variables.
+	 * @param theBuffer the buffer to append the query to
+	 * @param theDialect the dialect of the query
+	 * @param theNamedParameters the values of the named parameters
+	 * @param theIndexedParameters the values of the unnamed parameters
+	 */
+	public void render(final StringBuffer theBuffer, final Dialect theDialect,
+					   final Map<String, Value> theNamedParameters, final Map<Integer, Value> theIndexedParameters) {
+		for (int i = 0; i < mParameters.length; i++) {
+			theBuffer.append(mFragments[i]);
+
+			Object aParameter = mParameters[i];
+
+			Value aValue = aParameter instanceof String
+						   ? theNamedParameters.get(aParameter)
+						   : theIndexedParameters.get(aParameter);
+
+			if (aValue != null) {
+				theBuffer.append(theDialect.asQueryString(aValue));
+			}
+			else if (aParameter instanceof String) {
+				theBuffer.append(theDialect.asVar((String) aParameter));
+			}
+			else {
+				theBuffer.append(theDialect.asVar(null)).append(" ");
+			}
+		}
+
+		theBuffer.append(mFragments[mFragments.length - 1]);
+	}
+}
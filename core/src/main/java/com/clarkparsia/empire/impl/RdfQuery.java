@@ -29,15 +29,16 @@ import com.clarkparsia.empire.ds.ResultSet;
 import com.clarkparsia.empire.ds.QueryException;
 import com.clarkparsia.empire.Dialect;
 import com.clarkparsia.empire.EmpireOptions;
+import com.clarkparsia.empire.SupportsRdfId;
 
 import static com.clarkparsia.empire.util.EmpireUtil.asPrimaryKey;
 
 import com.clarkparsia.empire.util.BeanReflectUtil;
+import com.clarkparsia.empire.util.EntityCache;
 import com.clarkparsia.empire.annotation.RdfGenerator;
 import com.clarkparsia.empire.annotation.AnnotationChecker;
 import com.clarkparsia.empire.annotation.runtime.Proxy;
 import com.clarkparsia.empire.annotation.runtime.ProxyAwareList;
-import com.clarkparsia.openrdf.ExtBindingSet;
 import com.clarkparsia.common.base.Dates;
 import com.google.common.collect.Lists;
 
@@ -48,21 +49,19 @@ import javax.persistence.PersistenceException;
 import javax.persistence.Query;
 import javax.persistence.TemporalType;
 
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 /**
  * <p>Implementation of the JPA {@link Query} interface for RDF based query languages.</p>
  *
  * @author Michael Grove
  * @since 0.1
- * @version 0.7
+ * @version 0.7.2
  */
 public final class RdfQuery implements Query {
 	/**
@@ -97,15 +96,23 @@ public final class RdfQuery implements Query {
      */
     public static final String HINT_ENTITY_CLASS = "entity-class";
 
+    /**
+     * Key of the {@link javax.persistence.QueryHint} to load the bean results read-only.  When true, the beans are
+     * detached: they are not added to, or resolved against, the persistence context of the query, and the statements
+     * about them are not kept.  They cannot be merged unless they are refreshed first.
+     * @see RdfGenerator#untrackedContext
+     */
+    public static final String HINT_READ_ONLY = "read-only";
+
 	/**
 	 * The DataSource the query will be executed against
 	 */
 	private DataSource mSource;
 
 	/**
-	 * The raw query string
+	 * The parsed query string
 	 */
-	private String mQuery;
+	private final QueryTemplate mTemplate;
 
 	/**
 	 * The bean class, this is the type of objects returned by this query
@@ -149,13 +156,20 @@ public final class RdfQuery implements Query {
 	private Map<String, Object> mHints = new HashMap<String, Object>();
 
 	/**
-	 * The dialect of the query represented by this query object.
+	 * The instances already loaded by the EntityManager that created this query, which are returned as results rather
+	 * than loading them again.  Null when the query is not associated with a persistence context.
 	 */
-	private Dialect mQueryDialect;
+	private Map<Object, Object> mPersistenceContext;
 
-	private static String UNAMED_VAR_REGEX = VT_RE + "[\\.\\s})]";
+	/**
+	 * The cache of descriptions of individuals shared by the EntityManagers which created this query, or null
+	 */
+	private EntityCache mEntityCache;
 
-	private static String NAMED_VAR_REGEX = VT_RE + "[a-zA-Z0-9_\\-]+";
+	/**
+	 * The dialect of the query represented by this query object.
+	 */
+	private Dialect mQueryDialect;
 
 	/**
 	 * Create a new RdfQuery
@@ -163,22 +177,33 @@ public final class RdfQuery implements Query {
 	 * @param theQueryString the query string
 	 */
 	public RdfQuery(final DataSource theSource, String theQueryString) {
+		this(theSource, new QueryTemplate(theSource.getQueryFactory().getDialect(), theQueryString));
+	}
+
+	/**
+	 * Create a new RdfQuery from an already parsed query string
+	 * @param theSource the data source the query is run against
+	 * @param theTemplate the parsed query string
+	 */
+	RdfQuery(final DataSource theSource, final QueryTemplate theTemplate) {
 		mSource = theSource;
 
-		mQuery = theQueryString;
+		mTemplate = theTemplate;
 
 		mQueryDialect = theSource.getQueryFactory().getDialect();
 
-		mQueryDialect.validateQueryFormat(getQueryString(), getProjectionVarName());
+		setConstruct(theTemplate.isConstruct());
+
+		mLimit = theTemplate.getLimit();
+		mOffset = theTemplate.getOffset();
 
-		// trying to guess if this is a construct query or not.  this is not foolproof, but since the only way of
-		// definitely specifying this right now is to cast a query object as an RdfQuery and use setConstruct, that
-		// is not ideal.  so we'll take a crack guessing it here.
-		if (getQueryString().trim().toLowerCase().startsWith("construct")) {
-			setConstruct(true);
+		for (String aName : theTemplate.getParameterNames()) {
+			mNamedParameters.put(aName, null);
 		}
 
-		parseParameters();
+		for (int aIndex = 1; aIndex <= theTemplate.getParameterCount(); aIndex++) {
+			mIndexedParameters.put(aIndex, null);
+		}
 	}
 
 	/**
@@ -246,13 +271,30 @@ public final class RdfQuery implements Query {
 		mSource = theSource;
 	}
 
+	/**
+	 * Set the persistence context bean results are resolved against.  Beans already in the context are returned as-is
+	 * and newly loaded beans are added to it.
+	 * @param theContext the persistence context, or null for none
+	 */
+	void setPersistenceContext(final Map<Object, Object> theContext) {
+		mPersistenceContext = theContext;
+	}
+
+	/**
+	 * Set the cache bean results of cacheable classes are loaded from.
+	 * @param theCache the cache, or null for none
+	 */
+	void setEntityCache(final EntityCache theCache) {
+		mEntityCache = theCache;
+	}
+
 	/**
 	 * Return the raw query string as provided by the user.  This will contain un-escaped variables and is likely
 	 * to be missing its type (select | construct).
 	 * @return the un-modified query string
 	 */
 	protected String getQueryString() {
-		return mQuery;
+		return mTemplate.getQuery();
 	}
 
 	/**
@@ -364,46 +406,25 @@ public final class RdfQuery implements Query {
 			else {
 				ResultSet aResults = getSource().selectQuery(query());
 
+				// when results are not proxied, the beans are loaded together once all the results have been read, these
+				// are their keys and the positions in the result list they go in
+				List<SupportsRdfId.RdfKey> aKeys = new ArrayList<SupportsRdfId.RdfKey>();
+				List<Integer> aPositions = new ArrayList<Integer>();
+
+				Map<Object, Object> aContext = mPersistenceContext != null && !isReadOnly() ? mPersistenceContext : newLoadContext();
+
                 try {
                     if (getBeanClass() != null) {
-                        // for now, by convention, for this to work like the JPQL stuff where you do something like
-                        // "from Product pr join pr.poc as p where p.id = ?" and expect to get a list of Product instances
-                        // back as the result set, you *MUST* have a var in the projection called 'result' which is
-                        // the URI of the things you want to get back; when you don't do this, we prefix your partial query
-                        // with this string
                         while (aResults.hasNext()) {
-							BindingSet aBS = aResults.next();
-
-                            ExtBindingSet aBinding = new ExtBindingSet(aBS);
-
-                            Object aObj;
-
-                            String aVarName = getProjectionVarName();
-
-                            if (aBinding.getValue(aVarName) instanceof URI && AnnotationChecker.isValid(getBeanClass())) {
-                                if (EmpireOptions.ENABLE_QUERY_RESULT_PROXY) {
-                                    aObj = new Proxy(getBeanClass(), asPrimaryKey(aBinding.getValue(aVarName)), getSource());
-                                }
-                                else {
-                                    aObj = RdfGenerator.fromRdf(getBeanClass(),
-                                                                asPrimaryKey(aBinding.getValue(aVarName)),
-                                                                getSource());
-                                }
-                            }
-                            else {
-                                aObj = new RdfGenerator.ValueToObject(getSource(), null,
-                                                                      getBeanClass(), null).apply(aBinding.getValue(aVarName));
-                            }
+                            Value aValue = aResults.next().getValue(getProjectionVarName());
 
-                            // if the object could not be created, or it was and its not the bean class type, or not a proxy
-                            // for something of the bean class type, then we could not bind the value in the result set
-                            // which is an error.
-                            if (aObj == null
-                                || !(getBeanClass().isInstance(aObj) || (aObj instanceof Proxy && getBeanClass().isAssignableFrom(((Proxy)aObj).getProxyClass())))) {
-                                throw new PersistenceException("Cannot bind query result to bean: " + getBeanClass());
+                            if (isBatchLoaded(aValue)) {
+                                aKeys.add(asPrimaryKey(aValue));
+                                aPositions.add(aList.size());
+                                aList.add(null);
                             }
                             else {
-                                aList.add(aObj);
+                                aList.add(asBean(aValue, aContext));
                             }
                         }
                     }
@@ -414,6 +435,14 @@ public final class RdfQuery implements Query {
                 finally {
                     aResults.close();
                 }
+
+				if (!aKeys.isEmpty()) {
+					List aObjs = load(aKeys, aContext);
+
+					for (int i = 0; i < aObjs.size(); i++) {
+						aList.set(aPositions.get(i), aObjs.get(i));
+					}
+				}
 			}
 		}
 		catch (Exception e) {
@@ -423,6 +452,110 @@ public final class RdfQuery implements Query {
 		return aList;
 	}
 
+	/**
+	 * Execute the query, returning an iterator which reads the results of the query as they are needed, rather than
+	 * reading them all into memory as {@link #getResultList} does.  This is intended for queries with too many results
+	 * to hold at once; the results are the same as those of getResultList, except that beans loaded by the iterator
+	 * are not added to the persistence context of the query.  The iterator must be
+	 * {@link QueryResultIterator#close closed} if it is not read to the end.
+	 * @return an iterator over the results of the query
+	 * @throws PersistenceException if there is an error while querying
+	 */
+	public QueryResultIterator iterate() {
+		try {
+			if (isConstruct()) {
+				return new QueryResultIterator(this, getSource().graphQuery(query()));
+			}
+			else {
+				return new QueryResultIterator(this, getSource().selectQuery(query()));
+			}
+		}
+		catch (QueryException e) {
+			throw new PersistenceException(e);
+		}
+	}
+
+	/**
+	 * Return whether or not the bean for a query result with the given value should be loaded along with the other
+	 * results, rather than being created as the result is read.
+	 * @param theValue the value of the projection variable in the result
+	 * @return true if the bean is loaded later, false if it can be created with {@link #asBean}
+	 */
+	boolean isBatchLoaded(final Value theValue) {
+		return theValue instanceof URI && AnnotationChecker.isValid(getBeanClass()) && !EmpireOptions.ENABLE_QUERY_RESULT_PROXY;
+	}
+
+	/**
+	 * Create the bean for a query result.  This is either a proxy for the bean, when query results are proxied, or the
+	 * value converted to the bean class.
+	 * @param theValue the value of the projection variable in the result
+	 * @param theContext the instances already loaded
+	 * @return the bean
+	 * @throws PersistenceException if the value cannot be bound to the bean class
+	 */
+	Object asBean(final Value theValue, final Map<Object, Object> theContext) {
+		// for now, by convention, for this to work like the JPQL stuff where you do something like
+		// "from Product pr join pr.poc as p where p.id = ?" and expect to get a list of Product instances
+		// back as the result set, you *MUST* have a var in the projection called 'result' which is
+		// the URI of the things you want to get back; when you don't do this, we prefix your partial query
+		// with this string
+		Object aObj;
+
+		if (theValue instanceof URI && AnnotationChecker.isValid(getBeanClass())) {
+			aObj = new Proxy(getBeanClass(), asPrimaryKey(theValue), getSource(), RdfGenerator.proxyContext(theContext));
+		}
+		else {
+			aObj = new RdfGenerator.ValueToObject(getSource(), null, getBeanClass(), null).apply(theValue);
+		}
+
+		// if the object could not be created, or it was and its not the bean class type, or not a proxy
+		// for something of the bean class type, then we could not bind the value in the result set
+		// which is an error.
+		if (aObj == null
+			|| !(getBeanClass().isInstance(aObj) || (aObj instanceof Proxy && getBeanClass().isAssignableFrom(((Proxy)aObj).getProxyClass())))) {
+			throw new PersistenceException("Cannot bind query result to bean: " + getBeanClass());
+		}
+
+		return aObj;
+	}
+
+	/**
+	 * Load the beans with the given keys
+	 * @param theKeys the keys of the beans
+	 * @param theContext the instances already loaded
+	 * @return the beans, in the same order as the keys
+	 * @throws Exception if there is an error while loading the beans
+	 */
+	List load(final List<SupportsRdfId.RdfKey> theKeys, final Map<Object, Object> theContext) throws Exception {
+		return RdfGenerator.fromRdf(getBeanClass(), theKeys, getSource(), theContext, mEntityCache);
+	}
+
+	/**
+	 * Return whether or not the bean results of this query are loaded read-only
+	 * @return true if the {@link #HINT_READ_ONLY read-only hint} is set, false otherwise
+	 */
+	boolean isReadOnly() {
+		Object aValue = getHints().get(HINT_READ_ONLY);
+
+		return aValue != null && Boolean.parseBoolean(aValue.toString());
+	}
+
+	/**
+	 * Return a new context for loading bean results which are not resolved against the persistence context
+	 * @return a new context, which is an untracked one when the query is read-only
+	 */
+	Map<Object, Object> newLoadContext() {
+		return isReadOnly() ? RdfGenerator.untrackedContext() : new HashMap<Object, Object>();
+	}
+
+	/**
+	 * Return the persistence context of this query
+	 * @return the context, or null if the query is not associated with one
+	 */
+	Map<Object, Object> getPersistenceContext() {
+		return mPersistenceContext;
+	}
+
 	/**
 	 * Returns the name of the projection variable that is to represent the return value of the query.  By default
 	 * this is {@link #MAGIC_PROJECTION_VAR} but you can override this by setting the {@link #HINT_PROJECTION_VAR}
@@ -637,149 +770,33 @@ public final class RdfQuery implements Query {
 		}
 	}
 
-	/**
-	 * Given the query string fragment, replace all variable parameter tokens with the values specified by the user
-	 * through the various setParameter methods.
-	 * @param theQuery the query fragment
-	 * @return the query string with all parameter variables replaced
-	 * @see #setParameter
-	 */
-	private String insertVariables(String theQuery) {
-		String aBuffer = theQuery;
-
-		for (String aName : mNamedParameters.keySet()) {
-			boolean containsParam = Pattern.compile(VT_RE+aName).matcher(aBuffer).find();
-			if (mNamedParameters.get(aName) != null && containsParam) {
-				aBuffer = replaceVariable(aBuffer, aName, mNamedParameters.get(aName));
-			}
-		}
-
-		int aIndex = 1;
-		while (aBuffer.indexOf(VARIABLE_TOKEN) != -1) {
-			boolean containsParam = Pattern.compile(VT_RE).matcher(aBuffer).find();
-			if (mIndexedParameters.get(aIndex) != null && containsParam) {
-				aBuffer = aBuffer.replaceFirst(VT_RE, mQueryDialect.asQueryString(mIndexedParameters.get(aIndex++)));
-			}
-			else {
-				break;
-			}
-		}
-
-		return aBuffer;
-	}
-
-	private String replaceVariable(String theQuery, String theVariable, Value theValue) {
-		// using this instead of replaceAll -- which keeps giving group does not exist errors.  I think my regex must
-		// be subtly (is that a word?) wrong and I'm just not seeing it.  This works, for now.
-
-		StringBuffer aQueryBuffer = new StringBuffer();
-
-		Matcher m = Pattern.compile(VT_RE+theVariable).matcher(theQuery);
-
-		int start = 0;
-		while (m.find()) {
-			aQueryBuffer.append(theQuery.substring(start, m.start()));
-			aQueryBuffer.append(mQueryDialect.asQueryString(theValue));
-
-			start = m.start() + m.group(0).length();
-		}
-
-		aQueryBuffer.append(theQuery.substring(start));
-
-		return aQueryBuffer.toString();
-	}
-
-	/**
-	 * Given a query fragment from {@link #getQueryString} pull out all the variable parameters
-	 */
-	private void parseParameters() {
-		mNamedParameters.clear();
-		mIndexedParameters.clear();
-
-		Matcher aMatcher = Pattern.compile(UNAMED_VAR_REGEX).matcher(getQueryString());
-
-		// i'm pretty sure the JPA stuff is 1-indexed rather than the normal 0-indexed
-		int aIndex = 1;
-		while (aMatcher.find()) {
-			mIndexedParameters.put(aIndex++, null);
-		}
-
-		aMatcher = Pattern.compile(NAMED_VAR_REGEX).matcher(getQueryString());
-
-		while (aMatcher.find()) {
-			mNamedParameters.put(getQueryString().substring(aMatcher.start() + VARIABLE_TOKEN.length(), aMatcher.end()), null);
-		}
-	}
-
-	protected boolean startsWithKeyword(String theQuery) {
-		String q = theQuery.toLowerCase().trim();
-		return q.startsWith("select") || q.startsWith("construct") || q.startsWith("ask") || q.startsWith("describe");
-	}
-
 	/**
 	 * Return a valid, executable query instance from the specified query fragment, and user specified settings such
 	 * as parameter values, limit, offset, etc.
 	 * @return a valid query that can be run against a DataSource
 	 */
 	protected String query() {
-		// use some regexs to look for and remove limits and offsets specified in the query string and store them locally
-		// these will get postfixed to the query later on.
-		boolean containsLimit = Pattern.compile("limit(\\s)*[0-9]+[^}]*").matcher(getQueryString()).find();
-		boolean containsOffset = Pattern.compile("offset(\\s)*[0-9]+[^}]*").matcher(getQueryString()).find();
-
-		if (containsLimit) {
-			String aLimitGrabRegex = "limit(\\s)*[0-9]+";
-			Matcher m = Pattern.compile(aLimitGrabRegex).matcher(getQueryString());
-			m.find();
-
-			if (getMaxResults() == -1) {
-				setMaxResults(Integer.parseInt(m.group(0).split(" ")[1]));
-			}
-
-			mQuery = mQuery.replaceAll(aLimitGrabRegex, "");
-		}
-
-		if (containsOffset) {
-			String aOffsetGrabRegex = "offset(\\s)*[0-9]+";
-			Matcher m = Pattern.compile(aOffsetGrabRegex).matcher(getQueryString());
-			m.find();
-
-			if (getFirstResult() == -1) {
-				setFirstResult(Integer.parseInt(m.group(0).split(" ")[1]));
-			}
-			
-			mQuery = mQuery.replaceAll(aOffsetGrabRegex, "");
-		}
-
-		String queryStr = insertVariables(getQueryString()).trim();
-
-		queryStr = replaceUnusedVariableTokens(queryStr);
-
-//		validateVariables();
-
 		// TODO: should we get the values for the keywords used here (select, distinct, construct, limit, offset) from
 		// the subclass rather than hard coding them?  or will these be the same for all rdf based query languages?
 
-		StringBuffer aQuery = new StringBuffer(queryStr);
+		StringBuffer aQuery = new StringBuffer();
 
-        if (!aQuery.toString().toLowerCase().startsWith(mQueryDialect.patternKeyword())
-			&& !startsWithKeyword(aQuery.toString())) {
-            aQuery.insert(0, mQueryDialect.patternKeyword());
-        }
+		if (!mTemplate.startsWithKeyword()) {
+			aQuery.append(isConstruct() ? "construct " : "select ").append(isDistinct() ? " distinct " : "").append(" ");
 
-        StringBuffer aStart = new StringBuffer();
-		if (!startsWithKeyword(getQueryString())) {
-			aStart.insert(0, isConstruct() ? "construct " : "select ").append(isDistinct() ? " distinct " : "").append(" ");
-			
 			if (isConstruct()) {
-				aStart.append(" * ");
+				aQuery.append(" * ");
 			}
 			else {
-				aStart.append(mQueryDialect.asProjectionVar(getProjectionVarName())).append(" ");
+				aQuery.append(mQueryDialect.asProjectionVar(getProjectionVarName())).append(" ");
 			}
 		}
 
-        aQuery.insert(0, aStart.toString());
+		if (mTemplate.needsPatternKeyword()) {
+			aQuery.append(mQueryDialect.patternKeyword());
+		}
+
+		mTemplate.render(aQuery, mQueryDialect, mNamedParameters, mIndexedParameters);
 
 		if (getMaxResults() != -1) {
 			aQuery.append(" limit ").append(getMaxResults());
@@ -789,33 +806,8 @@ public final class RdfQuery implements Query {
 			aQuery.append(" offset ").append(getFirstResult());
 		}
 
-		mQueryDialect.insertNamespaces(aQuery);
+		mQueryDialect.insertNamespaces(aQuery, mTemplate.getPrefixes());
 
 		return aQuery.toString();
 	}
-
-	/**
-	 * Replaces all unused variable place holders with syntactically correct replacements.  Unnamed variable tokens "??"
-	 * in the query string get replaced with "[]" and named variable tokens "??foo" get turned into normal variables,
-	 * e.g. "?foo"
-	 * @param theQuery the query
-	 * @return the query w/ unused variables replaced w/ the appropriate equivalents.
-	 */
-	private String replaceUnusedVariableTokens(String theQuery) {
-		StringBuffer aQueryBuffer = new StringBuffer();
-
-		Matcher m = Pattern.compile(NAMED_VAR_REGEX).matcher(theQuery);
-
-		int start = 0;
-		while (m.find()) {
-			aQueryBuffer.append(theQuery.substring(start, m.start()));
-			aQueryBuffer.append(mQueryDialect.asVar(m.group(0).replaceAll(VT_RE, "")));
-
-			start = m.start() + m.group(0).length();
-		}
-
-		aQueryBuffer.append(theQuery.substring(start));
-
-		return aQueryBuffer.toString().replaceAll(UNAMED_VAR_REGEX, mQueryDialect.asVar(null) + " ");
-	}
 }
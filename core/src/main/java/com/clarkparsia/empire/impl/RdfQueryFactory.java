@@ -28,6 +28,7 @@ import javax.persistence.NamedNativeQuery;
 import javax.persistence.NamedNativeQueries;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Collection;
 import java.util.Arrays;
@@ -38,9 +39,15 @@ import java.util.Arrays;
  *
  * @author Michael Grove
  * @since 0.1
- * @version 0.6.5
+ * @version 0.7.2
  */
 public class RdfQueryFactory implements QueryFactory {
+	/**
+	 * The maximum number of query strings whose parsed form is kept by the factory.  Once the cache is full, the least
+	 * recently used query string is dropped to make room for a new one.
+	 */
+	private static final int MAX_CACHED_QUERIES = 1000;
+
 	/**
 	 * the data source the queries will be executed against
 	 */
@@ -57,6 +64,19 @@ public class RdfQueryFactory implements QueryFactory {
 	 */
 	private Map<String, NamedQueryInfo> mNamedQueries = new HashMap<String, NamedQueryInfo>();
 
+	/**
+	 * The parsed query strings of the queries created by this factory, keyed by the query string, from the least to the
+	 * most recently used.  Guarded by itself.
+	 */
+	private final Map<String, QueryTemplate> mTemplates = new LinkedHashMap<String, QueryTemplate>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(final Map.Entry<String, QueryTemplate> theEldest) {
+			return size() > MAX_CACHED_QUERIES;
+		}
+	};
+
 	/**
 	 * Create a new AbstractQueryFactory
 	 * @param theSource the data source the queries will be executed against
@@ -100,7 +120,32 @@ public class RdfQueryFactory implements QueryFactory {
 	 * @return a new query
 	 */
 	protected RdfQuery newQuery(String theQuery) {
-		return new RdfQuery(mSource, theQuery);
+		return new RdfQuery(mSource, template(theQuery));
+	}
+
+	/**
+	 * Return the parsed form of the query string, parsing it only if it has not been seen by this factory before
+	 * @param theQuery the query string
+	 * @return the parsed query
+	 */
+	private QueryTemplate template(final String theQuery) {
+		synchronized (mTemplates) {
+			QueryTemplate aTemplate = mTemplates.get(theQuery);
+
+			if (aTemplate != null) {
+				return aTemplate;
+			}
+		}
+
+		// parse without holding the lock, if another thread parses the same query string at the same time, whichever
+		// template is cached last is used from then on
+		QueryTemplate aTemplate = new QueryTemplate(mDialect, theQuery);
+
+		synchronized (mTemplates) {
+			mTemplates.put(theQuery, aTemplate);
+		}
+
+		return aTemplate;
 	}
 
 	/**
@@ -140,7 +185,7 @@ public class RdfQueryFactory implements QueryFactory {
 		if (mNamedQueries.containsKey(theName)) {
 			NamedQueryInfo aNamedQuery = mNamedQueries.get(theName);
 
-			RdfQuery aQuery = newQuery(aNamedQuery.getQuery());
+			RdfQuery aQuery = new RdfQuery(getSource(), aNamedQuery.getTemplate());
 			for (QueryHint aHint : aNamedQuery.getHints()) {
 				aQuery.setHint(aHint.name(), aHint.value());
 			}
@@ -186,6 +231,11 @@ public class RdfQueryFactory implements QueryFactory {
 		private Collection<QueryHint> mHints;
 		private String mResultMapping;
 
+		/**
+		 * The parsed query string, created the first time the query is used
+		 */
+		private volatile QueryTemplate mTemplate;
+
 		private NamedQueryInfo(final String theName, final String theQuery) {
 			mName = theName;
 			mQuery = theQuery;
@@ -219,6 +269,18 @@ public class RdfQueryFactory implements QueryFactory {
 
 		public void setQuery(final String theQuery) {
 			mQuery = theQuery;
+			mTemplate = null;
+		}
+
+		public QueryTemplate getTemplate() {
+			QueryTemplate aTemplate = mTemplate;
+
+			if (aTemplate == null) {
+				aTemplate = new QueryTemplate(mDialect, mQuery);
+				mTemplate = aTemplate;
+			}
+
+			return aTemplate;
 		}
 
 		public Class getResultClass() {
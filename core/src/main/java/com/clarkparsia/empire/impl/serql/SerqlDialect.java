@@ -25,12 +25,14 @@ import org.openrdf.model.Value;
 import org.openrdf.query.parser.serql.SeRQLParserFactory;
 import org.openrdf.query.MalformedQueryException;
 
+import java.util.Collection;
+
 /**
  * <p>Represents the SERQL query language</p>
  *
  * @author Michael Grove
  * @since 0.1
- * @version 0.7.1
+ * @version 0.7.2
  */
 public final class SerqlDialect implements Dialect {
 	/**
@@ -63,6 +65,13 @@ public final class SerqlDialect implements Dialect {
 		return false;
 	}
 
+	/**
+	 * @inheritDoc
+	 */
+	public boolean supportsPropertyPaths() {
+		return false;
+	}
+
 	/**
 	 * @inheritDoc
 	 */
@@ -120,10 +129,17 @@ public final class SerqlDialect implements Dialect {
 	 * @inheritDoc
 	 */
 	public void insertNamespaces(final StringBuffer theBuffer) {
+		insertNamespaces(theBuffer, PrefixMapping.GLOBAL.getPrefixes());
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void insertNamespaces(final StringBuffer theBuffer, final Collection<String> thePrefixes) {
 		StringBuffer aNS = new StringBuffer();
 		boolean aFirst = true;
-		for (String aPrefix : PrefixMapping.GLOBAL.getPrefixes()) {
-			if (aPrefix.trim().equals("")) {
+		for (String aPrefix : thePrefixes) {
+			if (aPrefix.trim().equals("") || PrefixMapping.GLOBAL.getNamespace(aPrefix) == null) {
 				continue;
 			}
 
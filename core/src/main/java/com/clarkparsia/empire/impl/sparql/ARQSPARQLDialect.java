@@ -27,7 +27,7 @@ import org.openrdf.model.BNode;
  *
  * @author Michael Grove
  * @since 0.6.3
- * @version 0.7.1
+ * @version 0.7.2
  */
 public final class ARQSPARQLDialect extends SPARQLDialect {
 	/**
@@ -75,4 +75,12 @@ public final class ARQSPARQLDialect extends SPARQLDialect {
 	public boolean supportsStableBnodeIds() {
 		return true;
 	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean supportsPropertyPaths() {
+		return true;
+	}
 }
@@ -28,13 +28,15 @@ import org.openrdf.query.parser.sparql.SPARQLParserFactory;
 
 import org.openrdf.model.Value;
 
+import java.util.Collection;
+
 /**
  * <p>Represents the SPARQL query language.</p>
  *
  * @author Michael Grove
  *
  * @since 0.1
- * @version 0.7.1
+ * @version 0.7.2
  */
 public class SPARQLDialect implements Dialect {
 	/**
@@ -67,6 +69,14 @@ public class SPARQLDialect implements Dialect {
 		return false;
 	}
 
+	/**
+	 * @inheritDoc
+	 */
+	public boolean supportsPropertyPaths() {
+		// property paths are new in SPARQL 1.1, the SPARQL 1.0 databases we support don't have them
+		return false;
+	}
+
 	/**
 	 * @inheritDoc
 	 */
@@ -130,10 +140,17 @@ public class SPARQLDialect implements Dialect {
 	 * @inheritDoc
 	 */
 	public void insertNamespaces(final StringBuffer theBuffer) {
+		insertNamespaces(theBuffer, PrefixMapping.GLOBAL.getPrefixes());
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void insertNamespaces(final StringBuffer theBuffer, final Collection<String> thePrefixes) {
 		StringBuffer aNS = new StringBuffer();
 
-		for (String aPrefix : PrefixMapping.GLOBAL.getPrefixes()) {
-			if (aPrefix.trim().equals("")) {
+		for (String aPrefix : thePrefixes) {
+			if (aPrefix.trim().equals("") || PrefixMapping.GLOBAL.getNamespace(aPrefix) == null) {
 				continue;
 			}
 
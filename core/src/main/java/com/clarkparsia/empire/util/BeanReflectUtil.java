@@ -56,6 +56,9 @@ import java.util.Date;
 import java.util.Arrays;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * <p>Some utility methods which use the Java reflect stuff to do a lot of the runtime accessing of fields and methods
@@ -68,9 +71,10 @@ import java.util.HashMap;
 public final class BeanReflectUtil {
 
 	/**
-	 * Small cache so we don't have to recalcuation information via java.lang.reflect every time, which can be expensive
+	 * Small cache so we don't have to recalcuation information via java.lang.reflect every time, which can be expensive.
+	 * This is read and written concurrently by threads converting beans, so it must be a concurrent map.
 	 */
-	private final static Map<Class<?>, BeanReflectCacheEntry> cache = new HashMap<Class<?>, BeanReflectCacheEntry>();
+	private final static ConcurrentMap<Class<?>, BeanReflectCacheEntry> cache = new ConcurrentHashMap<Class<?>, BeanReflectCacheEntry>();
 
 	/**
 	 * Cannot create instances of this class
@@ -127,6 +131,27 @@ public final class BeanReflectUtil {
 		return aIdField;
 	}
 
+	/**
+	 * Return the cache entry for the class, creating it if one does not exist.
+	 * @param theClass the class
+	 * @return the cache entry
+	 */
+	private static BeanReflectCacheEntry cacheEntry(Class<?> theClass) {
+		BeanReflectCacheEntry entry = cache.get(theClass);
+
+		if (entry == null) {
+			entry = new BeanReflectCacheEntry();
+
+			BeanReflectCacheEntry aExisting = cache.putIfAbsent(theClass, entry);
+
+			if (aExisting != null) {
+				entry = aExisting;
+			}
+		}
+
+		return entry;
+	}
+
 	/**
 	 * Return the given annotation from the class.  If the class does not have the annotation, it's parent class and any
 	 * interfaces will also be checked.
@@ -135,11 +160,7 @@ public final class BeanReflectUtil {
 	 * @return the class's annotation, or it's "inherited" annotation, or null if the annotation cannot be found.
 	 */
 	public static <T extends Annotation> T getAnnotation(Class<?> theClass, Class<T> theAnnotation) {
-		BeanReflectCacheEntry entry = cache.get(theClass);
-		if (entry == null) {
-			entry = new BeanReflectCacheEntry();
-			cache.put(theClass, entry);
-		}
+		BeanReflectCacheEntry entry = cacheEntry(theClass);
 		if (entry.mAnnotations.containsKey(theAnnotation)) {
 			return (T) entry.mAnnotations.get(theAnnotation);
 		}
@@ -292,12 +313,7 @@ public final class BeanReflectUtil {
 	 * @return the list of annotated setter methods
 	 */
 	public static Collection<Method> getAnnotatedSetters(Class theClass, boolean theInfer) {
-		BeanReflectCacheEntry entry = cache.get(theClass);
-		
-		if (entry == null) {
-			entry = new BeanReflectCacheEntry();
-			cache.put(theClass, entry);
-		}
+		BeanReflectCacheEntry entry = cacheEntry(theClass);
 
 		if (theInfer && entry.mInferredSetters != null) {
 			return entry.mInferredSetters;
@@ -387,12 +403,7 @@ public final class BeanReflectUtil {
 	 * @return the list of annotated get methods
 	 */
 	public static Collection<Method> getAnnotatedGetters(Class theClass, boolean theInfer) {
-		BeanReflectCacheEntry entry = cache.get(theClass);
-
-		if (entry == null) {
-			entry = new BeanReflectCacheEntry();
-			cache.put(theClass, entry);
-		}
+		BeanReflectCacheEntry entry = cacheEntry(theClass);
 
 		if (theInfer && entry.mInferredGetters != null) {
 			return entry.mInferredGetters;
@@ -489,12 +500,7 @@ public final class BeanReflectUtil {
 	 * @return the list of annotated fields on the class
 	 */
 	public static Collection<Field> getAnnotatedFields(Class theClass) {
-		BeanReflectCacheEntry entry = cache.get(theClass);
-
-		if (entry == null) {
-			entry = new BeanReflectCacheEntry();
-			cache.put(theClass, entry);
-		}
+		BeanReflectCacheEntry entry = cacheEntry(theClass);
 
 		if (entry.mFields != null) {
 			return entry.mFields;
@@ -1007,16 +1013,21 @@ public final class BeanReflectUtil {
 		return type1.equals(type2);
 	}
 
+	/**
+	 * The cached reflect information for a class.  Values are computed on demand, possibly more than once if two
+	 * threads race, but they are the same each time and are published safely via the volatile fields.
+	 */
 	private static class BeanReflectCacheEntry {
-		public Field mIdField;
+		public volatile Field mIdField;
 
-		public Collection<Field> mFields;
-		public Collection<Method> mSetters;
-		public Collection<Method> mGetters;
+		public volatile Collection<Field> mFields;
+		public volatile Collection<Method> mSetters;
+		public volatile Collection<Method> mGetters;
 
-		public Collection<Method> mInferredSetters;
-		public Collection<Method> mInferredGetters;
+		public volatile Collection<Method> mInferredSetters;
+		public volatile Collection<Method> mInferredGetters;
 
-		public Map<Class<? extends Annotation>, Annotation> mAnnotations = Maps.newHashMap();
+		// annotations which are not present are cached as null values, which ConcurrentHashMap does not allow
+		public final Map<Class<? extends Annotation>, Annotation> mAnnotations = Collections.synchronizedMap(Maps.<Class<? extends Annotation>, Annotation>newHashMap());
 	}
 }
@@ -24,7 +24,10 @@ import com.clarkparsia.empire.EmpireGenerated;
 import com.clarkparsia.empire.SupportsRdfId;
 import com.clarkparsia.empire.ds.DataSource;
 import com.clarkparsia.empire.Empire;
+import com.clarkparsia.empire.Dialect;
 
+import com.clarkparsia.empire.impl.EntityManagerImpl;
+import com.clarkparsia.empire.impl.RdfQuery;
 import com.clarkparsia.empire.impl.serql.SerqlDialect;
 import com.clarkparsia.empire.impl.sparql.SPARQLDialect;
 
@@ -38,8 +41,12 @@ import com.clarkparsia.openrdf.query.serql.SeRQLQueryRenderer;
 import com.clarkparsia.common.util.PrefixMapping;
 import com.clarkparsia.common.net.NetUtils;
 
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
+
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceException;
+import javax.persistence.Query;
 
 import org.openrdf.model.Resource;
 import org.openrdf.model.BNode;
@@ -57,6 +64,9 @@ import java.net.URI;
 import java.net.URL;
 import java.net.URISyntaxException;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.ArrayList;
 
@@ -210,21 +220,12 @@ public final class EmpireUtil {
 	public static <T> List<T> all(EntityManager theManager, Class<T> theClass) {
 		List<T> aList = new ArrayList<T>();
 
-		LOGGER.debug("Starting read all");
-		long start = System.currentTimeMillis();
-		
 		if (!AnnotationChecker.isValid(theClass) || !(theManager.getDelegate() instanceof DataSource)) {
 			return aList;
 		}
 
-		LOGGER.debug("Class valid check : " + (System.currentTimeMillis() - start));
-		start = System.currentTimeMillis();
-		
 		RdfsClass aClass = theClass.getAnnotation(RdfsClass.class);
 
-		LOGGER.debug("Got annotation : " + (System.currentTimeMillis() - start));
-		start = System.currentTimeMillis();
-		
 		// this init should be handled by the static block in RdfGenerator, but if there is no annotation index,
 		// or RdfGenerator has not been referenced, the namespace stuff will not have been initialized.  so we'll
 		// call this here as a backup.
@@ -232,54 +233,183 @@ public final class EmpireUtil {
 
 		QueryBuilder<ParsedTupleQuery> aQuery = QueryBuilderFactory.select("result").distinct()
 				.group().atom("result", RDF.TYPE, ValueFactoryImpl.getInstance().createURI(PrefixMapping.GLOBAL.uri(aClass.value()))).closeGroup();
-		
-		LOGGER.debug("Created query : " + (System.currentTimeMillis() - start));
-		start = System.currentTimeMillis();
-		
+
 		String aQueryStr = null;
 
 		try {
 			DataSource aSource = (DataSource) theManager.getDelegate();
 
-			LOGGER.debug("Got source : " + (System.currentTimeMillis() - start));
-			start = System.currentTimeMillis();
-			
 			if (aSource.getQueryFactory().getDialect() instanceof SPARQLDialect) {
 				aQueryStr = new SPARQLQueryRenderer().render(aQuery.query());
 			}
 			else if (aSource.getQueryFactory().getDialect() instanceof SerqlDialect) {
 				aQueryStr = new SeRQLQueryRenderer().render(aQuery.query());
 			}
-
-			LOGGER.debug("Got query string : " + (System.currentTimeMillis() - start));
-			start = System.currentTimeMillis();
 		}
 		catch (Exception e) {
 			throw new PersistenceException(e);
 		}
-		
-		if (LOGGER.isDebugEnabled()) LOGGER.debug("EntityManager open : " + theManager.isOpen());
-		
+
 		List aResults = theManager.createNativeQuery(aQueryStr, theClass).getResultList();
 
-		LOGGER.debug("Created native query : " + (System.currentTimeMillis() - start));
-		start = System.currentTimeMillis();
-		
 		for (Object aObj : aResults) {
 			try {
-				aList.add( theClass.cast(aObj));
+				aList.add(theClass.cast(aObj));
 			}
 			catch (ClassCastException e) {
 				throw new PersistenceException(e);
 			}
-
-			LOGGER.debug("Added result item : " + (System.currentTimeMillis() - start));
-			start = System.currentTimeMillis();
 		}
 
 		return aList;
 	}
 
+	/**
+	 * <p>Return all instances of the specified class in the EntityManager, reading them a page at a time.  The
+	 * instances are read in order of their URIs, and each page is read with a query for the instances after the last
+	 * instance of the previous page, rather than with a growing offset, so reading a page costs the same no matter how
+	 * far into the instances it is.  Only one page of instances is held at a time, and the instances of a page are
+	 * loaded in batches, as with {@link com.clarkparsia.empire.impl.RdfQuery#iterate}, without being added to the
+	 * persistence context of the EntityManager.</p>
+	 * <p>Unlike {@link #all(EntityManager, Class)}, only instances identified by a URI are returned.</p>
+	 * @param theManager the manager to query
+	 * @param theClass the type of objects to query for
+	 * @param thePageSize the number of instances read with each query
+	 * @param <T> the type of objects returned
+	 * @return the objects of the given type in the EntityManager
+	 */
+	public static <T> Iterable<T> all(final EntityManager theManager, final Class<T> theClass, final int thePageSize) {
+		if (thePageSize <= 0) {
+			throw new IllegalArgumentException("Page size must be positive: " + thePageSize);
+		}
+
+		if (!AnnotationChecker.isValid(theClass) || !(theManager.getDelegate() instanceof DataSource)) {
+			return Collections.emptyList();
+		}
+
+		RdfGenerator.addNamespaces(theClass);
+
+		final Dialect aDialect = ((DataSource) theManager.getDelegate()).getQueryFactory().getDialect();
+
+		if (!(aDialect instanceof SPARQLDialect) && !(aDialect instanceof SerqlDialect)) {
+			throw new PersistenceException("Unsupported query dialect: " + aDialect);
+		}
+
+		final String aType = PrefixMapping.GLOBAL.uri(theClass.getAnnotation(RdfsClass.class).value());
+
+		return new Iterable<T>() {
+			public Iterator<T> iterator() {
+				return new AbstractIterator<T>() {
+					private Iterator<T> mPage = Iterators.emptyIterator();
+
+					private String mLast = null;
+
+					private boolean mHasMore = true;
+
+					@Override
+					protected T computeNext() {
+						if (!mPage.hasNext() && mHasMore) {
+							List<T> aPage = page(theManager, theClass, aDialect, aType, mLast, thePageSize);
+
+							mHasMore = aPage.size() == thePageSize;
+
+							if (!aPage.isEmpty()) {
+								mLast = asSupportsRdfId(aPage.get(aPage.size() - 1)).getRdfId().value().toString();
+							}
+
+							mPage = aPage.iterator();
+						}
+
+						return mPage.hasNext() ? mPage.next() : endOfData();
+					}
+				};
+			}
+		};
+	}
+
+	/**
+	 * Read a page of the instances of a class.
+	 * @param theManager the manager to query
+	 * @param theClass the type of objects to query for
+	 * @param theDialect the query dialect of the manager's data source
+	 * @param theType the URI of the rdf:type of the instances
+	 * @param theLast the URI of the last instance of the previous page, or null to read the first page
+	 * @param thePageSize the number of instances in a page
+	 * @param <T> the type of objects returned
+	 * @return the instances in the page
+	 */
+	private static <T> List<T> page(final EntityManager theManager, final Class<T> theClass, final Dialect theDialect,
+									final String theType, final String theLast, final int thePageSize) {
+		// the last instance is a parameter so the query string is the same for every page and is only parsed once
+		StringBuffer aQuery = new StringBuffer();
+
+		if (theDialect instanceof SerqlDialect) {
+			aQuery.append("select distinct result from {result} <").append(RDF.TYPE).append("> {<").append(theType).append(">} where isURI(result)");
+
+			if (theLast != null) {
+				aQuery.append(" and str(result) > ??last");
+			}
+		}
+		else {
+			aQuery.append("select distinct ?result where { ?result <").append(RDF.TYPE).append("> <").append(theType).append("> . filter(isIRI(?result)");
+
+			if (theLast != null) {
+				aQuery.append(" && str(?result) > ??last");
+			}
+
+			aQuery.append(") }");
+		}
+
+		aQuery.append(" order by ").append(theDialect.asProjectionVar("result")).append(" limit ").append(thePageSize);
+
+		Query aPageQuery = theManager.createNativeQuery(aQuery.toString(), theClass);
+
+		if (theLast != null) {
+			aPageQuery.setParameter("last", ValueFactoryImpl.getInstance().createLiteral(theLast));
+		}
+
+		List<T> aPage = new ArrayList<T>(thePageSize);
+
+		try {
+			if (aPageQuery instanceof RdfQuery) {
+				Iterator aIter = ((RdfQuery) aPageQuery).iterate();
+
+				while (aIter.hasNext()) {
+					aPage.add(theClass.cast(aIter.next()));
+				}
+			}
+			else {
+				for (Object aObj : aPageQuery.getResultList()) {
+					aPage.add(theClass.cast(aObj));
+				}
+			}
+		}
+		catch (ClassCastException e) {
+			throw new PersistenceException(e);
+		}
+
+		return aPage;
+	}
+
+	/**
+	 * Persist all of the objects in the EntityManager.  When the EntityManager is an Empire EntityManager, this checks
+	 * whether or not the objects already exist, and writes their data, in bulk rather than once per object, which is
+	 * much faster for large imports.  Otherwise the objects are persisted one at a time.
+	 * @param theManager the manager to persist the objects in
+	 * @param theObjs the objects to persist
+	 * @see EntityManagerImpl#persistAll
+	 */
+	public static void persistAll(EntityManager theManager, Collection<?> theObjs) {
+		if (theManager instanceof EntityManagerImpl) {
+			((EntityManagerImpl) theManager).persistAll(theObjs);
+		}
+		else {
+			for (Object aObj : theObjs) {
+				theManager.persist(aObj);
+			}
+		}
+	}
+
 	/**
 	 * Returns the object as a primary key value.  Generally, for an rdf database, the identifying key for a resource
 	 * will be it's rdf:ID or rdf:nodeID.  So the value must be a URI, for named resources, or a non-uri string, for
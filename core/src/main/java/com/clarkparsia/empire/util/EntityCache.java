@@ -0,0 +1,378 @@
+/*
+ * Copyright (c) 2009-2012 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clarkparsia.empire.util;
+
+import com.clarkparsia.empire.SupportsRdfId;
+import com.clarkparsia.empire.annotation.Cacheable;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+
+import org.openrdf.model.Graph;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+
+import com.clarkparsia.openrdf.ExtGraph;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>A bounded cache of the data of individuals, shared by the EntityManagers created by an EntityManagerFactory.  The
+ * cache is keyed by the rdf id of the individual and the named graph it was described in, and holds the statements
+ * instances of the individual are populated from rather than the instances themselves, so each load still gets its
+ * own instance.</p>
+ * <p>Only the data of classes which opt in, either with the {@link Cacheable} annotation, or by being (a subclass of)
+ * one of the classes the cache is configured with, is kept in the cache.  Entries expire after the configured time to
+ * live, and once the cache is full, the least recently, or least frequently, used entries are evicted.</p>
+ * <p>The entries are kept in the order they were last used, under a lock which is only held to look up, add or remove
+ * an entry.  With LRU eviction the entry evicted is the least recently used one, with LFU it is the least frequently
+ * used of a small sample of the least recently used entries, so neither has to look at the whole cache.</p>
+ *
+ * @since 0.7.2
+ * @version 0.7.2
+ */
+public final class EntityCache {
+
+	/**
+	 * The policies for choosing which entry is evicted when the cache is full
+	 */
+	public enum Eviction {
+
+		/**
+		 * Evict the least recently used entry
+		 */
+		LRU,
+
+		/**
+		 * Evict the least frequently used entry
+		 */
+		LFU
+	}
+
+	/**
+	 * The number of the least recently used entries which are looked at to find the least frequently used one
+	 */
+	private static final int LFU_SAMPLE_SIZE = 8;
+
+	/**
+	 * The cached entries, from the least to the most recently used.  Guarded by itself.
+	 */
+	private final LinkedHashMap<SupportsRdfId.RdfKey, Entry> mEntries = new LinkedHashMap<SupportsRdfId.RdfKey, Entry>(16, 0.75f, true);
+
+	/**
+	 * The maximum number of entries in the cache
+	 */
+	private final int mMaxSize;
+
+	/**
+	 * How long, in milliseconds, an entry is valid after being put in the cache, 0 if entries do not expire
+	 */
+	private final long mTimeToLive;
+
+	/**
+	 * The eviction policy
+	 */
+	private final Eviction mEviction;
+
+	/**
+	 * The classes, other than those with the {@link Cacheable} annotation, whose data is cached
+	 */
+	private final Set<Class<?>> mClasses;
+
+	/**
+	 * Whether or not the data of a class is cached, computed once per class
+	 */
+	private final ConcurrentMap<Class<?>, Boolean> mCacheable = new ConcurrentHashMap<Class<?>, Boolean>();
+
+	/**
+	 * Incremented on every invalidation so that data read before an invalidation is not put in the cache after it
+	 */
+	private final AtomicLong mGeneration = new AtomicLong();
+
+	private final AtomicLong mHits = new AtomicLong();
+	private final AtomicLong mMisses = new AtomicLong();
+	private final AtomicLong mEvictions = new AtomicLong();
+
+	/**
+	 * Create a new EntityCache
+	 * @param theMaxSize the maximum number of entries in the cache
+	 * @param theTimeToLive how long, in milliseconds, an entry is valid, or 0 if entries do not expire
+	 * @param theEviction the eviction policy
+	 * @param theClasses the classes whose data should be cached in addition to those with the {@link Cacheable} annotation
+	 */
+	public EntityCache(final int theMaxSize, final long theTimeToLive, final Eviction theEviction, final Collection<Class<?>> theClasses) {
+		if (theMaxSize <= 0) {
+			throw new IllegalArgumentException("Cache size must be positive: " + theMaxSize);
+		}
+
+		mMaxSize = theMaxSize;
+		mTimeToLive = theTimeToLive;
+		mEviction = theEviction;
+		mClasses = new HashSet<Class<?>>(theClasses);
+	}
+
+	/**
+	 * Return whether or not the data of instances of the class is kept in this cache
+	 * @param theClass the class
+	 * @return true if the class is cacheable, false otherwise
+	 */
+	public boolean isCacheable(final Class<?> theClass) {
+		Boolean aCacheable = mCacheable.get(theClass);
+
+		if (aCacheable == null) {
+			aCacheable = BeanReflectUtil.hasAnnotation(theClass, Cacheable.class);
+
+			for (Class<?> aClass : mClasses) {
+				aCacheable |= aClass.isAssignableFrom(theClass);
+			}
+
+			mCacheable.put(theClass, aCacheable);
+		}
+
+		return aCacheable;
+	}
+
+	/**
+	 * Return the cached statements about the individual
+	 * @param theKey the rdf id of the individual
+	 * @param theNamedGraph the named graph the individual is described in, or null if it is not described in a named graph
+	 * @return a copy of the cached statements, or null if they are not in the cache
+	 */
+	public ExtGraph get(final SupportsRdfId.RdfKey theKey, final java.net.URI theNamedGraph) {
+		Entry aEntry;
+
+		synchronized (mEntries) {
+			aEntry = mEntries.get(theKey);
+
+			if (aEntry != null && isExpired(aEntry)) {
+				mEntries.remove(theKey);
+				mEvictions.incrementAndGet();
+
+				aEntry = null;
+			}
+
+			if (aEntry != null && Objects.equal(theNamedGraph, aEntry.mNamedGraph)) {
+				aEntry.mAccessCount++;
+			}
+			else {
+				aEntry = null;
+			}
+		}
+
+		if (aEntry == null) {
+			mMisses.incrementAndGet();
+			return null;
+		}
+
+		mHits.incrementAndGet();
+
+		// the statements are immutable, so they can be copied without holding the lock
+		ExtGraph aGraph = new ExtGraph();
+		aGraph.addAll(aEntry.mStatements);
+
+		return aGraph;
+	}
+
+	/**
+	 * Return the current generation of the cache, which should be obtained before reading the data that is to be put in
+	 * the cache.
+	 * @return the generation
+	 * @see #put
+	 */
+	public long generation() {
+		return mGeneration.get();
+	}
+
+	/**
+	 * Cache the statements about the individual, replacing whatever was cached for it previously.  Nothing is cached
+	 * if anything was invalidated since the statements were read, as they might be out of date.
+	 * @param theKey the rdf id of the individual
+	 * @param theNamedGraph the named graph the individual was described in, or null if it was not described in a named graph
+	 * @param theGraph the statements about the individual
+	 * @param theGeneration the {@link #generation} of the cache from before the statements were read
+	 */
+	public void put(final SupportsRdfId.RdfKey theKey, final java.net.URI theNamedGraph, final Graph theGraph, final long theGeneration) {
+		if (theGeneration != mGeneration.get()) {
+			return;
+		}
+
+		Entry aEntry = new Entry(theNamedGraph, ImmutableList.copyOf(theGraph));
+
+		synchronized (mEntries) {
+			// invalidations increment the generation before taking the lock, so one which raced the read of the
+			// statements is always seen here
+			if (theGeneration != mGeneration.get()) {
+				return;
+			}
+
+			mEntries.put(theKey, aEntry);
+
+			if (mEntries.size() > mMaxSize) {
+				evict(aEntry);
+			}
+		}
+	}
+
+	/**
+	 * Remove anything cached about the individual
+	 * @param theKey the rdf id of the individual
+	 */
+	public void invalidate(final SupportsRdfId.RdfKey theKey) {
+		mGeneration.incrementAndGet();
+
+		synchronized (mEntries) {
+			mEntries.remove(theKey);
+		}
+	}
+
+	/**
+	 * Remove anything cached about the subjects of the statements
+	 * @param theGraph the statements
+	 */
+	public void invalidate(final Graph theGraph) {
+		Set<Resource> aSubjects = new HashSet<Resource>();
+
+		for (Statement aStmt : theGraph) {
+			aSubjects.add(aStmt.getSubject());
+		}
+
+		for (Resource aSubject : aSubjects) {
+			invalidate(EmpireUtil.asPrimaryKey(aSubject));
+		}
+	}
+
+	/**
+	 * Remove everything from the cache
+	 */
+	public void clear() {
+		mGeneration.incrementAndGet();
+
+		synchronized (mEntries) {
+			mEntries.clear();
+		}
+	}
+
+	/**
+	 * Return the number of entries in the cache
+	 * @return the size of the cache
+	 */
+	public int size() {
+		synchronized (mEntries) {
+			return mEntries.size();
+		}
+	}
+
+	/**
+	 * Return the number of lookups which were answered from the cache
+	 * @return the number of hits
+	 */
+	public long getHitCount() {
+		return mHits.get();
+	}
+
+	/**
+	 * Return the number of lookups for things which were not in the cache, or had expired
+	 * @return the number of misses
+	 */
+	public long getMissCount() {
+		return mMisses.get();
+	}
+
+	/**
+	 * Return the number of entries which were removed from the cache because it was full, or they had expired
+	 * @return the number of evictions
+	 */
+	public long getEvictionCount() {
+		return mEvictions.get();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public String toString() {
+		return "EntityCache [size=" + size() + ", hits=" + getHitCount() + ", misses=" + getMissCount() + ", evictions=" + getEvictionCount() + "]";
+	}
+
+	private boolean isExpired(final Entry theEntry) {
+		return mTimeToLive > 0 && System.currentTimeMillis() - theEntry.mCreated > mTimeToLive;
+	}
+
+	/**
+	 * Evict entries until the cache is no longer over its maximum size.  Must be called while holding the lock on the
+	 * entries.
+	 * @param theAdded the entry just added, which is not evicted as it has not had the chance to be used yet
+	 */
+	private void evict(final Entry theAdded) {
+		while (mEntries.size() > mMaxSize) {
+			Map.Entry<SupportsRdfId.RdfKey, Entry> aVictim = null;
+
+			// the entries are iterated over from the least recently used, so for LRU the first one is the victim, for
+			// LFU it is the least frequently used of the first few, unless one of them has expired anyway
+			Iterator<Map.Entry<SupportsRdfId.RdfKey, Entry>> aIter = mEntries.entrySet().iterator();
+			for (int aSampled = 0; aIter.hasNext() && aSampled < LFU_SAMPLE_SIZE; aSampled++) {
+				Map.Entry<SupportsRdfId.RdfKey, Entry> aCandidate = aIter.next();
+
+				if (aCandidate.getValue() == theAdded) {
+					continue;
+				}
+
+				if (mEviction == Eviction.LRU || isExpired(aCandidate.getValue())) {
+					aVictim = aCandidate;
+					break;
+				}
+
+				if (aVictim == null || aCandidate.getValue().mAccessCount < aVictim.getValue().mAccessCount) {
+					aVictim = aCandidate;
+				}
+			}
+
+			if (aVictim == null) {
+				return;
+			}
+
+			mEntries.remove(aVictim.getKey());
+			mEvictions.incrementAndGet();
+		}
+	}
+
+	/**
+	 * The cached statements about an individual along with the bookkeeping for expiration and eviction
+	 */
+	private static final class Entry {
+		private final java.net.URI mNamedGraph;
+		private final Collection<Statement> mStatements;
+		private final long mCreated = System.currentTimeMillis();
+
+		/**
+		 * The number of times the entry was used, guarded by the lock on the entries
+		 */
+		private long mAccessCount = 0;
+
+		private Entry(final java.net.URI theNamedGraph, final Collection<Statement> theStatements) {
+			mNamedGraph = theNamedGraph;
+			mStatements = theStatements;
+		}
+	}
+}
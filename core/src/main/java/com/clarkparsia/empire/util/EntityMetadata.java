@@ -0,0 +1,701 @@
+/*
+ * Copyright (c) 2009-2012 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clarkparsia.empire.util;
+
+import com.clarkparsia.common.util.PrefixMapping;
+import com.clarkparsia.empire.annotation.RdfGenerator;
+import com.clarkparsia.empire.annotation.RdfProperty;
+import com.clarkparsia.empire.annotation.RdfsClass;
+import com.clarkparsia.empire.codegen.AccessorGenerator;
+import com.clarkparsia.empire.codegen.PropertyAccessor;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import org.openrdf.model.Resource;
+import org.openrdf.model.URI;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import javax.persistence.PrePersist;
+import javax.persistence.PreRemove;
+import javax.persistence.PreUpdate;
+import javax.persistence.Transient;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>The RDF mapping information for a Java bean: the properties it maps, the accessors used to read and write them,
+ * and the flags from their JPA annotations.  This is computed once per class and cached so that converting beans
+ * to and from RDF does not have to inspect the class via java.lang.reflect on each call.  Property values are read
+ * and written through a {@link PropertyAccessor} generated for the class the first time one is needed.  Instances
+ * are safe to share between threads.</p>
+ *
+ * @since 0.7.2
+ * @version 0.7.2
+ */
+public final class EntityMetadata {
+
+	/**
+	 * The base URI used for properties of fields that do not have an {@link RdfProperty} annotation when the subject is
+	 * not a URI
+	 */
+	private static final String DEFAULT_BASE = "urn:empire:clark-parsia:";
+
+	/**
+	 * The JPA lifecycle callback annotations
+	 */
+	private static final List<Class<? extends Annotation>> LIFECYCLE_ANNOTATIONS = Arrays.asList(PrePersist.class, PostPersist.class,
+																								  PreRemove.class, PostRemove.class,
+																								  PreUpdate.class, PostUpdate.class,
+																								  PostLoad.class);
+
+	private static final ValueFactory FACTORY = new ValueFactoryImpl();
+
+	/**
+	 * The metadata for each class which has been inspected
+	 */
+	private static final ConcurrentMap<Class<?>, EntityMetadata> CACHE = new ConcurrentHashMap<Class<?>, EntityMetadata>();
+
+	/**
+	 * The class described by this metadata
+	 */
+	private final Class<?> mClass;
+
+	/**
+	 * The rdf:type of the class from its {@link RdfsClass} annotation, or null if it does not have one
+	 */
+	private final URI mRdfsClass;
+
+	/**
+	 * The properties which can be read from an instance, annotated fields and getters
+	 */
+	private final List<PropertyMetadata> mReadable;
+
+	/**
+	 * The properties which can be written to an instance, annotated fields and setters
+	 */
+	private final List<PropertyMetadata> mWritable;
+
+	/**
+	 * The writable properties with an explicit property URI, keyed by that URI
+	 */
+	private final Map<URI, PropertyMetadata> mWritableByURI;
+
+	/**
+	 * Fields without an {@link RdfProperty} annotation keyed by their name.  The property URI for these depends on
+	 * the subject, so it cannot be computed ahead of time.
+	 */
+	private final Map<String, PropertyMetadata> mWritableByName;
+
+	/**
+	 * The lifecycle callback methods of the class keyed by the lifecycle annotation
+	 */
+	private final Map<Class<? extends Annotation>, Collection<Method>> mLifecycleMethods;
+
+	/**
+	 * The accessor for the readable and writable properties, lazily generated as metadata is also used for classes,
+	 * such as entity listeners, whose properties are never accessed.
+	 */
+	private volatile PropertyAccessor mPropertyAccessor;
+
+	/**
+	 * Create the metadata for the given class
+	 * @param theClass the class
+	 */
+	private EntityMetadata(final Class<?> theClass) {
+		mClass = theClass;
+
+		// make sure any namespaces the class declares are available before we expand the qnames of its properties
+		RdfGenerator.addNamespaces(theClass);
+
+		RdfsClass aRdfsClass = BeanReflectUtil.getAnnotation(theClass, RdfsClass.class);
+		mRdfsClass = aRdfsClass == null ? null : FACTORY.createURI(PrefixMapping.GLOBAL.uri(aRdfsClass.value()));
+
+		Collection<Field> aFields = BeanReflectUtil.getAnnotatedFields(theClass);
+
+		ImmutableList.Builder<PropertyMetadata> aReadable = ImmutableList.builder();
+		ImmutableList.Builder<PropertyMetadata> aWritable = ImmutableList.builder();
+
+		Map<URI, PropertyMetadata> aWritableByURI = new HashMap<URI, PropertyMetadata>();
+		Map<String, PropertyMetadata> aWritableByName = new HashMap<String, PropertyMetadata>();
+
+		for (Field aField : aFields) {
+			PropertyMetadata aProp = new PropertyMetadata(this, theClass, aField, aField.getType());
+
+			aReadable.add(aProp);
+			aWritable.add(aProp);
+
+			if (aProp.mProperty != null) {
+				aWritableByURI.put(aProp.mProperty, aProp);
+			}
+			else {
+				aWritableByName.put(aProp.mName, aProp);
+			}
+		}
+
+		for (Method aGetter : BeanReflectUtil.getAnnotatedGetters(theClass, true)) {
+			aReadable.add(new PropertyMetadata(this, theClass, aGetter, aGetter.getReturnType()));
+		}
+
+		// setters are added after the fields, so when both are mapped to the same property, the setter is used
+		for (Method aSetter : BeanReflectUtil.getAnnotatedSetters(theClass, true)) {
+			PropertyMetadata aProp = new PropertyMetadata(this, theClass, aSetter, aSetter.getParameterTypes()[0]);
+
+			if (aProp.mProperty != null) {
+				aWritable.add(aProp);
+				aWritableByURI.put(aProp.mProperty, aProp);
+			}
+		}
+
+		mReadable = aReadable.build();
+		mWritable = aWritable.build();
+		mWritableByURI = ImmutableMap.copyOf(aWritableByURI);
+		mWritableByName = ImmutableMap.copyOf(aWritableByName);
+
+		for (int i = 0; i < mReadable.size(); i++) {
+			mReadable.get(i).mReadIndex = i;
+		}
+
+		for (int i = 0; i < mWritable.size(); i++) {
+			mWritable.get(i).mWriteIndex = i;
+		}
+
+		// refresh copies values read from one instance to another via the setter paired with each readable property,
+		// use the accessor for that when it is also one of our writable properties
+		for (PropertyMetadata aProp : mReadable) {
+			for (PropertyMetadata aWritableProp : mWritable) {
+				if (aWritableProp.mAccessor.equals(aProp.mSetter)) {
+					aProp.mSetterProperty = aWritableProp;
+					break;
+				}
+			}
+		}
+
+		Map<Class<? extends Annotation>, Collection<Method>> aLifecycle = new LinkedHashMap<Class<? extends Annotation>, Collection<Method>>();
+		for (Class<? extends Annotation> aAnnotation : LIFECYCLE_ANNOTATIONS) {
+			aLifecycle.put(aAnnotation, ImmutableList.copyOf(BeanReflectUtil.getAnnotatedMethods(theClass, aAnnotation)));
+		}
+
+		mLifecycleMethods = ImmutableMap.copyOf(aLifecycle);
+	}
+
+	/**
+	 * Return the metadata for the given class, computing it if it has not been used before.
+	 * @param theClass the class
+	 * @return the metadata for the class
+	 */
+	public static EntityMetadata of(final Class<?> theClass) {
+		EntityMetadata aMetadata = CACHE.get(theClass);
+
+		if (aMetadata == null) {
+			aMetadata = new EntityMetadata(theClass);
+
+			EntityMetadata aExisting = CACHE.putIfAbsent(theClass, aMetadata);
+
+			if (aExisting != null) {
+				aMetadata = aExisting;
+			}
+		}
+
+		return aMetadata;
+	}
+
+	/**
+	 * Return the class this metadata describes
+	 * @return the class
+	 */
+	public Class<?> getType() {
+		return mClass;
+	}
+
+	/**
+	 * Return the rdf:type of the class as specified by its {@link RdfsClass} annotation
+	 * @return the rdf:type, or null if the class does not have the annotation
+	 */
+	public URI getRdfsClass() {
+		return mRdfsClass;
+	}
+
+	/**
+	 * Return the properties whose values can be read from an instance of the class, the annotated fields and getters.
+	 * This includes transient properties.
+	 * @return the readable properties
+	 */
+	public List<PropertyMetadata> getReadableProperties() {
+		return mReadable;
+	}
+
+	/**
+	 * Return the properties whose values can be set on an instance of the class, the annotated fields and setters.
+	 * @return the writable properties
+	 */
+	public List<PropertyMetadata> getWritableProperties() {
+		return mWritable;
+	}
+
+	/**
+	 * Return the number of {@link #getReadableProperties readable properties} of the class
+	 * @return the number of readable properties
+	 */
+	public int getReadablePropertyCount() {
+		return mReadable.size();
+	}
+
+	/**
+	 * Return the {@link PropertyMetadata#getReadIndex index} of the readable property which is set with the given
+	 * setter
+	 * @param theSetter the name of the setter
+	 * @return the index of the property, or -1 if the setter does not set one of the readable properties
+	 */
+	public int getReadIndexOfSetter(final String theSetter) {
+		for (PropertyMetadata aProp : mReadable) {
+			if (aProp.mSetter instanceof Method && ((Method) aProp.mSetter).getName().equals(theSetter)) {
+				return aProp.mReadIndex;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Return the writable property which is mapped to the given RDF property
+	 * @param theSubject the subject the property is being read from, used for properties of fields which lack an
+	 * {@link RdfProperty} annotation
+	 * @param theProperty the RDF property
+	 * @return the mapped property, or null if the RDF property is not mapped by this class
+	 */
+	public PropertyMetadata getWritableProperty(final Resource theSubject, final URI theProperty) {
+		PropertyMetadata aProp = mWritableByURI.get(theProperty);
+
+		if (aProp == null && !mWritableByName.isEmpty() && base(theSubject).equals(theProperty.getNamespace())) {
+			aProp = mWritableByName.get(theProperty.getLocalName());
+		}
+
+		return aProp;
+	}
+
+	/**
+	 * Return the methods of the class annotated with the given lifecycle annotation, such as {@link PrePersist}
+	 * @param theAnnotation the lifecycle annotation
+	 * @return the annotated methods
+	 */
+	public Collection<Method> getLifecycleMethods(final Class<? extends Annotation> theAnnotation) {
+		Collection<Method> aMethods = mLifecycleMethods.get(theAnnotation);
+
+		if (aMethods == null) {
+			aMethods = BeanReflectUtil.getAnnotatedMethods(mClass, theAnnotation);
+		}
+
+		return aMethods;
+	}
+
+	/**
+	 * Return the accessor used to read and write the properties of instances of the class, generating it if needed
+	 * @return the property accessor
+	 */
+	private PropertyAccessor getPropertyAccessor() {
+		PropertyAccessor aAccessor = mPropertyAccessor;
+
+		if (aAccessor == null) {
+			synchronized (this) {
+				aAccessor = mPropertyAccessor;
+
+				if (aAccessor == null) {
+					List<AccessibleObject> aReaders = new ArrayList<AccessibleObject>();
+					for (PropertyMetadata aProp : mReadable) {
+						aReaders.add(aProp.mAccessor);
+					}
+
+					List<AccessibleObject> aWriters = new ArrayList<AccessibleObject>();
+					for (PropertyMetadata aProp : mWritable) {
+						aWriters.add(aProp.mAccessor);
+					}
+
+					aAccessor = AccessorGenerator.generateAccessor(mClass, aReaders, aWriters);
+					mPropertyAccessor = aAccessor;
+				}
+			}
+		}
+
+		return aAccessor;
+	}
+
+	/**
+	 * Return the base URI used for the properties of fields without an {@link RdfProperty} annotation
+	 * @param theSubject the subject
+	 * @return the base URI
+	 */
+	private static String base(final Resource theSubject) {
+		return theSubject instanceof URI ? ((URI) theSubject).getNamespace() : DEFAULT_BASE;
+	}
+
+	/**
+	 * Return the type of the values of the given accessor.  For a collection, this is the type of its elements as
+	 * determined by its generic type arguments or the targetEntity of its JPA annotation.  Otherwise, it's the declared
+	 * type of the accessor.
+	 * @param theAccessor the accessor
+	 * @param theClass the declared type of the accessor
+	 * @return the type of values of the accessor
+	 */
+	public static Class elementType(final Object theAccessor, final Class theClass) {
+		Class aClass = theClass;
+
+		if (Collection.class.isAssignableFrom(aClass)) {
+			// if the field we're assigning from is a collection, try and figure out the type of the thing
+			// we're creating from the collection
+
+			Type[] aTypes = null;
+
+			if (theAccessor instanceof Field && ((Field)theAccessor).getGenericType() instanceof ParameterizedType) {
+				aTypes = ((ParameterizedType) ((Field)theAccessor).getGenericType()).getActualTypeArguments();
+			}
+			else if (theAccessor instanceof Method) {
+				aTypes = ((Method) theAccessor).getGenericParameterTypes();
+			}
+
+			if (aTypes != null && aTypes.length >= 1) {
+				// first type argument to a collection is usually the one we care most about
+				if (aTypes[0] instanceof ParameterizedType && ((ParameterizedType)aTypes[0]).getActualTypeArguments().length > 0) {
+					Type aType = ((ParameterizedType)aTypes[0]).getActualTypeArguments()[0];
+
+					if (aType instanceof Class) {
+						aClass = (Class) aType;
+					}
+					else if (aType instanceof WildcardType) {
+						WildcardType aWildcard = (WildcardType) aType;
+							// trying to suss out super v extends w/o resorting to string munging.
+							if (aWildcard.getLowerBounds().length == 0 && aWildcard.getUpperBounds().length > 0) {
+								// no lower bounds afaik indicates ? extends Foo
+								aClass = ((Class)aWildcard.getUpperBounds()[0]);
+							}
+							else if (aWildcard.getLowerBounds().length > 0) {
+								// lower & upper bounds I believe indicates something of the form Foo super Bar
+								aClass = ((Class)aWildcard.getLowerBounds()[0]);
+							}
+							else {
+								// shoot, we'll try the string hack that Adrian posted on the mailing list.
+								try {
+									aClass = Class.forName(aType.toString().split(" ")[2].substring(0, aTypes[0].toString().split(" ")[2].length()-1));
+								}
+								catch (Exception e) {
+									// everything has failed, let aClass be the default (theClass) and hope for the best
+								}
+							}
+					}
+					else {
+						// punt? wtf else could it be?
+						try {
+							aClass = Class.forName(aType.toString());
+						}
+						catch (ClassNotFoundException e) {
+							// oh well, we did the best we can
+						}
+					}
+				}
+				else if (aTypes[0] instanceof Class) {
+					aClass = (Class) aTypes[0];
+				}
+			}
+			else {
+				// could not figure out the type from the generics assertions on the Collection, they are either
+				// not present, or my algorithm is not bullet proof.  So lets try checking on the annotations
+				// for a type hint.
+
+				Class aTarget = BeanReflectUtil.getTargetEntity(theAccessor);
+				if (aTarget != null) {
+					aClass = aTarget;
+				}
+			}
+		}
+
+		return aClass;
+	}
+
+	/**
+	 * <p>The mapping information for a single property of a bean.</p>
+	 *
+	 * @since 0.7.2
+	 * @version 0.7.2
+	 */
+	public static final class PropertyMetadata {
+
+		/**
+		 * The field or method used to access the property
+		 */
+		private final AccessibleObject mAccessor;
+
+		/**
+		 * The name of the field or method
+		 */
+		private final String mName;
+
+		/**
+		 * The {@link RdfProperty} annotation on the accessor, or its paired getter/setter
+		 */
+		private final RdfProperty mAnnotation;
+
+		/**
+		 * The expanded URI of the RDF property, or null if the accessor is a field without an {@link RdfProperty} annotation
+		 */
+		private final URI mProperty;
+
+		/**
+		 * The declared type of the property
+		 */
+		private final Class mType;
+
+		/**
+		 * The type of the values of the property, for a collection, the type of its elements
+		 */
+		private final Class mElementType;
+
+		/**
+		 * The accessor used to set the value read from this property on another instance, used by refresh
+		 */
+		private final AccessibleObject mSetter;
+
+		private final boolean mTransient;
+		private final boolean mFetchLazy;
+		private final boolean mPersistCascade;
+		private final boolean mMergeCascade;
+		private final boolean mRemoveCascade;
+		private final boolean mRefreshCascade;
+
+		/**
+		 * The metadata of the class this property belongs to
+		 */
+		private final EntityMetadata mOwner;
+
+		/**
+		 * The index of this property in the readable properties of the class, or -1 if it is not readable
+		 */
+		private int mReadIndex = -1;
+
+		/**
+		 * The index of this property in the writable properties of the class, or -1 if it is not writable
+		 */
+		private int mWriteIndex = -1;
+
+		/**
+		 * The writable property of the class which is accessed via {@link #mSetter}, or null if there is not one
+		 */
+		private PropertyMetadata mSetterProperty;
+
+		private PropertyMetadata(final EntityMetadata theOwner, final Class<?> theClass, final AccessibleObject theAccessor, final Class theType) {
+			mOwner = theOwner;
+			mAccessor = theAccessor;
+			mName = theAccessor instanceof Field ? ((Field) theAccessor).getName() : ((Method) theAccessor).getName();
+			mAnnotation = BeanReflectUtil.getAnnotation(theAccessor, RdfProperty.class);
+			mProperty = mAnnotation == null ? null : FACTORY.createURI(PrefixMapping.GLOBAL.uri(mAnnotation.value()));
+			mType = theType;
+			mElementType = elementType(theAccessor, theType);
+			mSetter = BeanReflectUtil.asSetter(theClass, theAccessor);
+
+			mTransient = theAccessor.isAnnotationPresent(Transient.class)
+						 || (theAccessor instanceof Field && Modifier.isTransient(((Field) theAccessor).getModifiers()));
+
+			mFetchLazy = BeanReflectUtil.isFetchTypeLazy(theAccessor);
+			mPersistCascade = BeanReflectUtil.isPersistCascade(theAccessor);
+			mMergeCascade = BeanReflectUtil.isMergeCascade(theAccessor);
+			mRemoveCascade = BeanReflectUtil.isRemoveCascade(theAccessor);
+			mRefreshCascade = BeanReflectUtil.isRefreshCascade(theAccessor);
+		}
+
+		public AccessibleObject getAccessor() {
+			return mAccessor;
+		}
+
+		public String getName() {
+			return mName;
+		}
+
+		public RdfProperty getAnnotation() {
+			return mAnnotation;
+		}
+
+		/**
+		 * Return the RDF property this is mapped to.
+		 * @param theSubject the subject the property is used with, which determines the property for fields without
+		 * an {@link RdfProperty} annotation
+		 * @return the RDF property, or null if it cannot be determined
+		 */
+		public URI getProperty(final Resource theSubject) {
+			if (mProperty != null) {
+				return mProperty;
+			}
+			else if (mAccessor instanceof Field) {
+				return FACTORY.createURI(base(theSubject) + mName);
+			}
+			else {
+				return null;
+			}
+		}
+
+		public Class getType() {
+			return mType;
+		}
+
+		public Class getElementType() {
+			return mElementType;
+		}
+
+		public AccessibleObject getSetter() {
+			return mSetter;
+		}
+
+		/**
+		 * Return the writable property of the same class which is accessed via the {@link #getSetter setter} of this
+		 * property
+		 * @return the property, or null if the setter is not one of the writable properties of the class
+		 */
+		public PropertyMetadata getSetterProperty() {
+			return mSetterProperty;
+		}
+
+		/**
+		 * Return the position of this property in the {@link EntityMetadata#getReadableProperties readable properties}
+		 * of its class
+		 * @return the index, or -1 if this property is not readable
+		 */
+		public int getReadIndex() {
+			return mReadIndex;
+		}
+
+		/**
+		 * Return the value of this property
+		 * @param theObj the instance to read the value from, which must be of the class this property belongs to
+		 * @return the value of the property
+		 * @throws InvocationTargetException if there is an error while getting the value
+		 * @throws IllegalStateException if this property is not readable
+		 */
+		public Object get(final Object theObj) throws InvocationTargetException {
+			if (mReadIndex == -1) {
+				throw new IllegalStateException(this + " is not readable");
+			}
+
+			return mOwner.getPropertyAccessor().get(theObj, mReadIndex);
+		}
+
+		/**
+		 * Set the value of this property
+		 * @param theObj the instance to set the value on, which must be of the class this property belongs to
+		 * @param theValue the new value
+		 * @throws InvocationTargetException if there is an error while setting the value
+		 * @throws IllegalArgumentException if the value is not of a type that can be assigned to the property
+		 * @throws IllegalStateException if this property is not writable
+		 */
+		public void set(final Object theObj, final Object theValue) throws InvocationTargetException {
+			mOwner.getPropertyAccessor().set(theObj, writeIndex(), theValue);
+		}
+
+		// primitive versions of set which do not box the value
+
+		public void setBoolean(final Object theObj, final boolean theValue) throws InvocationTargetException {
+			mOwner.getPropertyAccessor().setBoolean(theObj, writeIndex(), theValue);
+		}
+
+		public void setByte(final Object theObj, final byte theValue) throws InvocationTargetException {
+			mOwner.getPropertyAccessor().setByte(theObj, writeIndex(), theValue);
+		}
+
+		public void setShort(final Object theObj, final short theValue) throws InvocationTargetException {
+			mOwner.getPropertyAccessor().setShort(theObj, writeIndex(), theValue);
+		}
+
+		public void setInt(final Object theObj, final int theValue) throws InvocationTargetException {
+			mOwner.getPropertyAccessor().setInt(theObj, writeIndex(), theValue);
+		}
+
+		public void setLong(final Object theObj, final long theValue) throws InvocationTargetException {
+			mOwner.getPropertyAccessor().setLong(theObj, writeIndex(), theValue);
+		}
+
+		public void setFloat(final Object theObj, final float theValue) throws InvocationTargetException {
+			mOwner.getPropertyAccessor().setFloat(theObj, writeIndex(), theValue);
+		}
+
+		public void setDouble(final Object theObj, final double theValue) throws InvocationTargetException {
+			mOwner.getPropertyAccessor().setDouble(theObj, writeIndex(), theValue);
+		}
+
+		private int writeIndex() {
+			if (mWriteIndex == -1) {
+				throw new IllegalStateException(this + " is not writable");
+			}
+
+			return mWriteIndex;
+		}
+
+		public boolean isTransient() {
+			return mTransient;
+		}
+
+		public boolean isList() {
+			return mAnnotation != null && mAnnotation.isList();
+		}
+
+		public boolean isFetchTypeLazy() {
+			return mFetchLazy;
+		}
+
+		public boolean isPersistCascade() {
+			return mPersistCascade;
+		}
+
+		public boolean isMergeCascade() {
+			return mMergeCascade;
+		}
+
+		public boolean isRemoveCascade() {
+			return mRemoveCascade;
+		}
+
+		public boolean isRefreshCascade() {
+			return mRefreshCascade;
+		}
+
+		/**
+		 * @inheritDoc
+		 */
+		@Override
+		public String toString() {
+			return mAccessor.toString();
+		}
+	}
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2009-2012 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clarkparsia.empire.util;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.SetMultimap;
+
+import org.openrdf.model.Graph;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ContextStatementImpl;
+import org.openrdf.model.impl.StatementImpl;
+import org.openrdf.model.impl.ValueFactoryImpl;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>A graph whose statements are indexed by their subject, and then by their predicate, so that matching the
+ * statements about a subject, or the values of one of its properties, only looks at those statements rather than
+ * scanning the whole graph.  This is what the descriptions of individuals are loaded into, populating a bean looks up
+ * the values of each of its properties, which against a list of statements is a scan of the description per
+ * property.</p>
+ * <p>Like a set, the graph does not hold duplicate statements.  Statements are iterated over in the order their
+ * subjects, and then their predicates, were first added.</p>
+ *
+ * @since 0.7.2
+ * @version 0.7.2
+ */
+public final class IndexedGraph extends AbstractCollection<Statement> implements Graph {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The statements, keyed by their subject and then their predicate
+	 */
+	private final Map<Resource, SetMultimap<URI, Statement>> mIndex = new LinkedHashMap<Resource, SetMultimap<URI, Statement>>();
+
+	/**
+	 * The number of statements in the graph
+	 */
+	private int mSize = 0;
+
+	/**
+	 * Create a new, empty, IndexedGraph
+	 */
+	public IndexedGraph() {
+	}
+
+	/**
+	 * Create a new IndexedGraph with the given statements
+	 * @param theStatements the statements
+	 */
+	public IndexedGraph(final Collection<Statement> theStatements) {
+		addAll(theStatements);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public int size() {
+		return mSize;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean add(final Statement theStmt) {
+		SetMultimap<URI, Statement> aBySubject = mIndex.get(theStmt.getSubject());
+
+		if (aBySubject == null) {
+			aBySubject = LinkedHashMultimap.create();
+			mIndex.put(theStmt.getSubject(), aBySubject);
+		}
+
+		if (aBySubject.put(theStmt.getPredicate(), theStmt)) {
+			mSize++;
+
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public boolean add(final Resource theSubject, final URI thePredicate, final Value theObject, final Resource... theContexts) {
+		if (theContexts == null || theContexts.length == 0) {
+			return add(new StatementImpl(theSubject, thePredicate, theObject));
+		}
+
+		boolean aChanged = false;
+
+		for (Resource aContext : theContexts) {
+			aChanged |= add(aContext == null
+							? new StatementImpl(theSubject, thePredicate, theObject)
+							: new ContextStatementImpl(theSubject, thePredicate, theObject, aContext));
+		}
+
+		return aChanged;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean contains(final Object theObj) {
+		if (!(theObj instanceof Statement)) {
+			return false;
+		}
+
+		Statement aStmt = (Statement) theObj;
+		SetMultimap<URI, Statement> aBySubject = mIndex.get(aStmt.getSubject());
+
+		return aBySubject != null && aBySubject.containsEntry(aStmt.getPredicate(), aStmt);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean remove(final Object theObj) {
+		if (!(theObj instanceof Statement)) {
+			return false;
+		}
+
+		Statement aStmt = (Statement) theObj;
+		SetMultimap<URI, Statement> aBySubject = mIndex.get(aStmt.getSubject());
+
+		if (aBySubject != null && aBySubject.remove(aStmt.getPredicate(), aStmt)) {
+			mSize--;
+
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public void clear() {
+		mIndex.clear();
+		mSize = 0;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Iterator<Statement> iterator() {
+		final Iterator<SetMultimap<URI, Statement>> aSubjects = mIndex.values().iterator();
+
+		return new Iterator<Statement>() {
+			private Iterator<Statement> mCurrent = Collections.<Statement>emptyList().iterator();
+
+			/**
+			 * The iterator the last statement returned came from, hasNext can move on to the next subject
+			 */
+			private Iterator<Statement> mLast;
+
+			public boolean hasNext() {
+				while (!mCurrent.hasNext() && aSubjects.hasNext()) {
+					mCurrent = aSubjects.next().values().iterator();
+				}
+
+				return mCurrent.hasNext();
+			}
+
+			public Statement next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+
+				mLast = mCurrent;
+
+				return mCurrent.next();
+			}
+
+			public void remove() {
+				if (mLast == null) {
+					throw new IllegalStateException();
+				}
+
+				mLast.remove();
+				mLast = null;
+				mSize--;
+			}
+		};
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public ValueFactory getValueFactory() {
+		return ValueFactoryImpl.getInstance();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public Iterator<Statement> match(final Resource theSubject, final URI thePredicate, final Value theObject, final Resource... theContexts) {
+		Iterator<Statement> aCandidates;
+
+		if (theSubject == null) {
+			aCandidates = iterator();
+		}
+		else {
+			SetMultimap<URI, Statement> aBySubject = mIndex.get(theSubject);
+
+			if (aBySubject == null) {
+				return Collections.<Statement>emptyList().iterator();
+			}
+
+			aCandidates = Collections.unmodifiableCollection(thePredicate == null
+															 ? aBySubject.values()
+															 : aBySubject.get(thePredicate)).iterator();
+		}
+
+		final boolean aMatchPredicate = theSubject == null && thePredicate != null;
+		final List<Resource> aContexts = theContexts == null || theContexts.length == 0 ? null : Arrays.asList(theContexts);
+
+		if (!aMatchPredicate && theObject == null && aContexts == null) {
+			return aCandidates;
+		}
+
+		return Iterators.filter(aCandidates, new Predicate<Statement>() {
+			public boolean apply(final Statement theStmt) {
+				return (!aMatchPredicate || thePredicate.equals(theStmt.getPredicate()))
+					   && (theObject == null || theObject.equals(theStmt.getObject()))
+					   && (aContexts == null || aContexts.contains(theStmt.getContext()));
+			}
+		});
+	}
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2009-2012 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clarkparsia.empire.util;
+
+import org.openrdf.model.Graph;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.StatementImpl;
+import org.openrdf.model.impl.ValueFactoryImpl;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>A read-only graph of statements which all have the same subject, and no context.  Rather than a list of
+ * statement objects, the graph is the subject and two arrays, one with the predicate, the other with the object, of
+ * each statement, and the statements are created as the graph is iterated over.  This is how the statements about a
+ * loaded bean are kept in its {@link com.clarkparsia.empire.EmpireGenerated bookkeeping}, for which a list of
+ * statements, plus the list itself, is several times the size of the bean.</p>
+ * <p>Graphs can share arrays, a graph is the first <code>size</code> statements in its arrays.  A bean's instance
+ * triples are a prefix of all of its triples, so the two are kept in the same arrays.</p>
+ *
+ * @since 0.7.2
+ * @version 0.7.2
+ */
+public final class SubjectGraph extends AbstractCollection<Statement> implements Graph {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * A graph without any statements
+	 */
+	public static final SubjectGraph EMPTY = new SubjectGraph(null, new URI[0], new Value[0], 0);
+
+	/**
+	 * The graph of all the statements of a bean loaded read-only, whose statements are not kept.  It is empty, like
+	 * {@link #EMPTY}, but is a different instance so such beans can be told apart from new ones.
+	 */
+	public static final SubjectGraph UNTRACKED = new SubjectGraph(null, new URI[0], new Value[0], 0);
+
+	/**
+	 * The subject of all the statements
+	 */
+	private final Resource mSubject;
+
+	/**
+	 * The predicates of the statements
+	 */
+	private final URI[] mPredicates;
+
+	/**
+	 * The objects of the statements, the object of a statement is at the same index as its predicate
+	 */
+	private final Value[] mObjects;
+
+	/**
+	 * The number of statements in this graph, which can be fewer than the length of the arrays
+	 */
+	private final int mSize;
+
+	/**
+	 * Create a new SubjectGraph.  The arrays are not copied, they should not be changed once the graph is created.
+	 * @param theSubject the subject of the statements
+	 * @param thePredicates the predicates of the statements
+	 * @param theObjects the objects of the statements
+	 * @param theSize the number of statements, the graph is the first <code>theSize</code> entries of the arrays
+	 */
+	public SubjectGraph(final Resource theSubject, final URI[] thePredicates, final Value[] theObjects, final int theSize) {
+		if (thePredicates.length != theObjects.length || theSize > thePredicates.length) {
+			throw new IllegalArgumentException("Predicates and objects do not match the size of the graph");
+		}
+
+		mSubject = theSubject;
+		mPredicates = thePredicates;
+		mObjects = theObjects;
+		mSize = theSize;
+	}
+
+	/**
+	 * Create a graph of the statements about the subject.
+	 * @param theSubject the subject
+	 * @param theStatements the statements, those which are not about the subject are ignored
+	 * @return the graph
+	 */
+	public static SubjectGraph of(final Resource theSubject, final Collection<Statement> theStatements) {
+		List<URI> aPredicates = new ArrayList<URI>(theStatements.size());
+		List<Value> aObjects = new ArrayList<Value>(theStatements.size());
+
+		for (Statement aStmt : theStatements) {
+			if (aStmt.getSubject().equals(theSubject)) {
+				aPredicates.add(aStmt.getPredicate());
+				aObjects.add(aStmt.getObject());
+			}
+		}
+
+		return new SubjectGraph(theSubject, aPredicates.toArray(new URI[aPredicates.size()]),
+								aObjects.toArray(new Value[aObjects.size()]), aPredicates.size());
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public int size() {
+		return mSize;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Iterator<Statement> iterator() {
+		return match(null, null, null);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public ValueFactory getValueFactory() {
+		return ValueFactoryImpl.getInstance();
+	}
+
+	/**
+	 * Unsupported, the graph is read-only
+	 * @throws UnsupportedOperationException always
+	 */
+	public boolean add(final Resource theSubject, final URI thePredicate, final Value theObject, final Resource... theContexts) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public Iterator<Statement> match(final Resource theSubject, final URI thePredicate, final Value theObject, final Resource... theContexts) {
+		// the statements do not have a context, so when contexts are specified, the null context has to be one of them
+		if ((theSubject != null && !theSubject.equals(mSubject))
+			|| (theContexts != null && theContexts.length > 0 && !Arrays.asList(theContexts).contains(null))) {
+			return Collections.<Statement>emptyList().iterator();
+		}
+
+		return new Iterator<Statement>() {
+			private int mIndex = advance(0);
+
+			private int advance(int theIndex) {
+				while (theIndex < mSize
+					   && ((thePredicate != null && !thePredicate.equals(mPredicates[theIndex]))
+						   || (theObject != null && !theObject.equals(mObjects[theIndex])))) {
+					theIndex++;
+				}
+
+				return theIndex;
+			}
+
+			public boolean hasNext() {
+				return mIndex < mSize;
+			}
+
+			public Statement next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+
+				Statement aStmt = new StatementImpl(mSubject, mPredicates[mIndex], mObjects[mIndex]);
+
+				mIndex = advance(mIndex + 1);
+
+				return aStmt;
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+}
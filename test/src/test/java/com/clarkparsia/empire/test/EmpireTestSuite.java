@@ -18,6 +18,7 @@ package com.clarkparsia.empire.test;
 import com.clarkparsia.empire.jena.JenaEntityManagerTestSuite;
 import com.clarkparsia.empire.sesametwo.SesameEntityManagerTestSuite;
 import com.clarkparsia.empire.test.codegen.CodegenTests;
+import com.clarkparsia.empire.test.codegen.TestPropertyAccessor;
 
 import org.junit.runners.Suite;
 
@@ -34,7 +35,7 @@ import org.junit.BeforeClass;
  */
 @RunWith(Suite.class)
 @Suite.SuiteClasses({TestRdfConvert.class, TestMisc.class,
-					 TestConfig.class, TestDS.class, CodegenTests.class,
+					 TestConfig.class, TestDS.class, CodegenTests.class, TestPropertyAccessor.class, TestConcurrentHydration.class, TestEntityCache.class, TestBulkPersist.class, TestDescribeScaling.class, TestProxyClasses.class, TestTrackedTriples.class, TestIndexedGraph.class,
 					 SesameEntityManagerTestSuite.class, JenaEntityManagerTestSuite.class})
 public class EmpireTestSuite {
 
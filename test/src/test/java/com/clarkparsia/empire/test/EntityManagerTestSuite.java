@@ -18,6 +18,8 @@ package com.clarkparsia.empire.test;
 import java.io.File;
 import java.io.IOException;
 
+import java.lang.reflect.Field;
+
 import java.net.URI;
 
 import java.util.ArrayList;
@@ -39,6 +41,7 @@ import javax.persistence.NoResultException;
 import javax.persistence.NonUniqueResultException;
 import javax.persistence.OneToMany;
 import javax.persistence.OneToOne;
+import javax.persistence.PersistenceException;
 import javax.persistence.Query;
 
 import com.clarkparsia.empire.Empire;
@@ -53,16 +56,24 @@ import com.clarkparsia.empire.codegen.InstanceGenerator;
 import com.clarkparsia.empire.ds.DataSource;
 import com.clarkparsia.empire.ds.DataSourceException;
 import com.clarkparsia.empire.ds.DataSourceFactory;
+import com.clarkparsia.empire.ds.DataSourceUtil;
 import com.clarkparsia.empire.ds.MutableDataSource;
+import com.clarkparsia.empire.ds.QueryException;
+import com.clarkparsia.empire.ds.ResultSet;
 import com.clarkparsia.empire.ds.SupportsTransactions;
 import com.clarkparsia.empire.ds.TripleSource;
+import com.clarkparsia.empire.ds.impl.DelegatingDataSource;
 
 import com.clarkparsia.empire.impl.EntityManagerFactoryImpl;
+import com.clarkparsia.empire.impl.EntityManagerImpl;
+import com.clarkparsia.empire.impl.QueryResultIterator;
+import com.clarkparsia.empire.impl.RdfQuery;
 import com.clarkparsia.empire.jena.JenaEmpireModule;
 import com.clarkparsia.empire.sesametwo.OpenRdfEmpireModule;
 import com.clarkparsia.empire.test.api.BaseTestClass;
 
 import com.clarkparsia.empire.test.api.TestEntityListener;
+import com.clarkparsia.empire.test.api.TestPerson;
 import com.clarkparsia.empire.test.api.nasa.FoafPerson;
 import com.clarkparsia.empire.test.api.nasa.Launch;
 import com.clarkparsia.empire.test.api.nasa.LaunchSite;
@@ -74,12 +85,15 @@ import com.clarkparsia.empire.test.typing.AnotherB;
 import com.clarkparsia.empire.test.typing.B;
 import com.clarkparsia.empire.test.util.TestModule;
 import com.clarkparsia.empire.util.DefaultEmpireModule;
+import com.clarkparsia.empire.util.EmpireUtil;
+import com.clarkparsia.empire.util.EntityCache;
 import com.clarkparsia.openrdf.ExtGraph;
 
 import com.clarkparsia.openrdf.Graphs;
 import com.clarkparsia.openrdf.OpenRdfIO;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 
 import org.junit.After;
 import org.junit.AfterClass;
@@ -89,9 +103,13 @@ import org.junit.BeforeClass;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import org.openrdf.model.Graph;
+import org.openrdf.model.Resource;
 import org.openrdf.model.Statement;
+import org.openrdf.model.Value;
 import org.openrdf.model.impl.ValueFactoryImpl;
 import org.openrdf.model.vocabulary.RDF;
+import org.openrdf.model.vocabulary.RDFS;
 
 import org.openrdf.rio.RDFParseException;
 import org.openrdf.rio.RDFParserRegistry;
@@ -99,6 +117,8 @@ import org.openrdf.rio.RDFParserRegistry;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.junit.Assume.assumeTrue;
@@ -272,6 +292,216 @@ public abstract class EntityManagerTestSuite {
 		assertEquals(c, one.list);
 	}
 
+	@Test
+	public void testListInOneQuery() throws Exception {
+		EntityManager aManager = createEntityManager();
+
+		assumeTrue(aManager.getDelegate() instanceof MutableDataSource);
+
+		// the list nodes are bnodes, which can only be looked up when their ids are stable
+		assumeTrue(((DataSource) aManager.getDelegate()).getQueryFactory().getDialect().supportsStableBnodeIds());
+
+		OneWithList aOne = new OneWithList();
+
+		for (int i = 0; i < 20; i++) {
+			aOne.list.add(new Elem("elem" + i));
+		}
+
+		aManager.persist(aOne);
+
+		QueryCountingDataSource aSource = new QueryCountingDataSource((MutableDataSource) aManager.getDelegate());
+
+		Resource aHead = (Resource) DataSourceUtil.getValue(aSource, EmpireUtil.asResource(aOne), ValueFactoryImpl.getInstance().createURI("http://empire.clarkparsia.com/list"));
+
+		aSource.reset();
+
+		List<Value> aList = DataSourceUtil.getList(aSource, aHead);
+
+		List<Value> aExpected = new ArrayList<Value>();
+		for (Elem aElem : aOne.list) {
+			aExpected.add(EmpireUtil.asResource(aElem));
+		}
+
+		assertEquals(aExpected, aList);
+
+		if (aSource.getQueryFactory().getDialect().supportsPropertyPaths()) {
+			assertEquals(1, aSource.getQueryCount());
+		}
+		else {
+			// two lookups per node when the list has to be walked
+			assertEquals(2 * aExpected.size(), aSource.getQueryCount());
+		}
+	}
+
+	@Test
+	public void testConciseBoundedDescription() throws Exception {
+		EntityManager aManager = createEntityManager();
+
+		assumeTrue(aManager.getDelegate() instanceof MutableDataSource);
+
+		ValueFactoryImpl aFactory = ValueFactoryImpl.getInstance();
+
+		org.openrdf.model.URI aOne = aFactory.createURI("urn:concise:bounded:description");
+		org.openrdf.model.URI aList = aFactory.createURI("http://empire.clarkparsia.com/list");
+		org.openrdf.model.URI aElem = aFactory.createURI("http://empire.clarkparsia.com/Elem");
+
+		// a list whose nodes and elements are all bnodes
+		ExtGraph aGraph = new ExtGraph();
+		aGraph.add(aOne, RDF.TYPE, aFactory.createURI("http://empire.clarkparsia.com/OneWithList"));
+
+		Resource aNode = aFactory.createBNode();
+		aGraph.add(aOne, aList, aNode);
+
+		for (int i = 0; i < 2; i++) {
+			Resource aValue = aFactory.createBNode();
+			aGraph.add(aValue, RDF.TYPE, aElem);
+			aGraph.add(aValue, RDFS.LABEL, aFactory.createLiteral("elem" + i));
+
+			Resource aNext = i == 1 ? RDF.NIL : aFactory.createBNode();
+			aGraph.add(aNode, RDF.FIRST, aValue);
+			aGraph.add(aNode, RDF.REST, aNext);
+
+			aNode = aNext;
+		}
+
+		((MutableDataSource) aManager.getDelegate()).add(aGraph);
+
+		QueryCountingDataSource aSource = new QueryCountingDataSource((MutableDataSource) aManager.getDelegate());
+
+		boolean aOrigCBD = EmpireOptions.CONCISE_BOUNDED_DESCRIPTION;
+		EmpireOptions.CONCISE_BOUNDED_DESCRIPTION = true;
+
+		try {
+			OneWithList aFound = new EntityManagerImpl(aSource).find(OneWithList.class, URI.create(aOne.toString()));
+
+			assertNotNull(aFound);
+			assertEquals(Arrays.asList(new Elem("elem0"), new Elem("elem1")), new ArrayList<Elem>(aFound.list));
+
+			// the list and its elements come from the description, they are not looked up in the database
+			assertEquals(1, aSource.getQueryCount());
+		}
+		finally {
+			EmpireOptions.CONCISE_BOUNDED_DESCRIPTION = aOrigCBD;
+		}
+	}
+
+	@Test
+	public void testMergeOnlyChangedProperties() throws Exception {
+		EntityManager aManager = createEntityManager();
+
+		assumeTrue(aManager.getDelegate() instanceof MutableDataSource);
+
+		QueryCountingDataSource aSource = new QueryCountingDataSource((MutableDataSource) aManager.getDelegate());
+
+		// an implementation generated for an interface
+		EntityTest aEntity = InstanceGenerator.generateInstanceClass(EntityTest.class).newInstance();
+		aEntity.setRdfId(new SupportsRdfId.URIKey(URI.create("urn:merge:changed:properties")));
+		aEntity.setId("changed");
+		aEntity.setLabel("before");
+
+		aManager.persist(aEntity);
+
+		EntityManager aCountingManager = new EntityManagerImpl(aSource);
+		EntityTest aFound = aCountingManager.find(EntityTest.class, aEntity.getRdfId());
+
+		aFound.setLabel("after");
+
+		aSource.reset();
+		aCountingManager.merge(aFound);
+
+		// the old label is removed and the new one added, nothing else is written
+		assertEquals(2, aSource.getStatementCount());
+
+		EntityTest aMerged = new EntityManagerImpl(aSource).find(EntityTest.class, aEntity.getRdfId());
+
+		assertEquals("after", aMerged.getLabel());
+		assertEquals("changed", aMerged.getId());
+
+		// a subclass generated for a concrete bean does not track its changes, it is compared with what was loaded
+		TestPerson aPerson = new TestPerson();
+		aPerson.setMBox("merge.changed@example.org");
+		aPerson.setFirstName("Jane");
+		aPerson.setTitle("Dr");
+
+		aManager.persist(aPerson);
+
+		TestPerson aFoundPerson = aCountingManager.find(TestPerson.class, aPerson.getRdfId());
+
+		aFoundPerson.setTitle("Prof");
+
+		aSource.reset();
+		aCountingManager.merge(aFoundPerson);
+
+		// only the old title is removed and the new one added
+		assertEquals(2, aSource.getStatementCount());
+
+		// a bean can write its fields without going through its setters, those changes are not lost either
+		Field aTitleField = TestPerson.class.getDeclaredField("title");
+		aTitleField.setAccessible(true);
+		aTitleField.set(aFoundPerson, "Sir");
+
+		aCountingManager.merge(aFoundPerson);
+
+		assertEquals("Sir", new EntityManagerImpl(aSource).find(TestPerson.class, aPerson.getRdfId()).getTitle());
+
+		aFoundPerson.setTitle("Prof");
+		aFoundPerson.setLastName("Doe");
+		aCountingManager.merge(aFoundPerson);
+
+		aFoundPerson.setFirstName("Janet");
+		aCountingManager.merge(aFoundPerson);
+
+		TestPerson aMergedPerson = new EntityManagerImpl(aSource).find(TestPerson.class, aPerson.getRdfId());
+
+		assertEquals("Prof", aMergedPerson.getTitle());
+		assertEquals("Janet", aMergedPerson.getFirstName());
+		assertEquals("Doe", aMergedPerson.getLastName());
+
+		ExtGraph aTriples = new ExtGraph(((EmpireGenerated) aMergedPerson).getAllTriples());
+		Resource aSubject = EmpireUtil.asResource(aMergedPerson);
+
+		assertEquals(1, aTriples.getValues(aSubject, ValueFactoryImpl.getInstance().createURI("http://xmlns.com/foaf/0.1/firstName")).size());
+		assertEquals(1, aTriples.getValues(aSubject, RDFS.LABEL).size());
+	}
+
+	@Test
+	public void testMergeDetachedSendsOnlyDifferences() throws Exception {
+		EntityManager aManager = createEntityManager();
+
+		assumeTrue(aManager.getDelegate() instanceof MutableDataSource);
+
+		QueryCountingDataSource aSource = new QueryCountingDataSource((MutableDataSource) aManager.getDelegate());
+
+		// a plain instance of the bean class, so nothing tracks what is changed
+		TestPerson aPerson = new TestPerson();
+		aPerson.setMBox("merge.detached@example.org");
+		aPerson.setFirstName("John");
+		aPerson.setLastName("Smith");
+		aPerson.setTitle("Mr");
+
+		aManager.persist(aPerson);
+
+		aPerson.setTitle("Dr");
+
+		aSource.reset();
+		new EntityManagerImpl(aSource).merge(aPerson);
+
+		// the old title is removed and the new one added, the other values, including the label, are left alone
+		assertEquals(2, aSource.getStatementCount());
+
+		TestPerson aMerged = new EntityManagerImpl(aSource).find(TestPerson.class, aPerson.getRdfId());
+
+		assertEquals("Dr", aMerged.getTitle());
+		assertEquals("John", aMerged.getFirstName());
+		assertEquals("Smith, John", aMerged.getLabel());
+
+		// nothing changed, nothing is written
+		aSource.reset();
+		new EntityManagerImpl(aSource).merge(aPerson);
+
+		assertEquals(0, aSource.getStatementCount());
+	}
+
 	/**
 	 * Test case for using generated instances and avoiding duplicates.  If you use a generated classes and persist it originally to an EM, then make changes on
 	 * the *same* object and merge those changes, EmpireGenerated is not correctly populated, so nothing is deleted and you end up with duplicated values.  So
@@ -434,6 +664,44 @@ public abstract class EntityManagerTestSuite {
 		Assert.assertEquals( aProxySupportingLaunch.getLaunchSite(), aNewSite );
 	}
 
+	@Test
+	public void testProxyResolvesAgainstPersistenceContext() throws Exception {
+		EntityManager aManager = createEntityManager();
+
+		assumeTrue(aManager.getDelegate() instanceof MutableDataSource);
+
+		insertData((MutableDataSource) aManager.getDelegate(), new File(DATA_FILE));
+
+		QueryCountingDataSource aSource = new QueryCountingDataSource((MutableDataSource) aManager.getDelegate());
+		EntityManager aCountingManager = new EntityManagerImpl(aSource);
+
+		String aLaunchURI = "http://nasa.dataincubator.org/launch/SATURNSA1";
+
+		// the launch site is loaded when the proxy is first used, into the persistence context of the manager
+		SupportsRdfId.RdfKey aSiteKey = aCountingManager.find(LaunchUsingProxy.class, aLaunchURI).getLaunchSite().getRdfId();
+
+		aSource.reset();
+
+		assertNotNull(aCountingManager.find(LaunchSite.class, aSiteKey));
+		assertEquals(0, aSource.getQueryCount());
+
+		// a proxy created before the context was cleared does not add to it when it is resolved
+		aCountingManager.clear();
+
+		LaunchSite aSite = aCountingManager.find(LaunchUsingProxy.class, aLaunchURI).getLaunchSite();
+
+		aCountingManager.clear();
+
+		assertEquals(aSiteKey, aSite.getRdfId());
+
+		aSource.reset();
+
+		// it's not in the context, so the manager has to look for it
+		aCountingManager.find(LaunchSite.class, aSiteKey);
+
+		assertTrue(aSource.getQueryCount() > 0);
+	}
+
 	/**
 	 * Test for typing of proxied objects
 	 * 
@@ -1051,6 +1319,338 @@ public abstract class EntityManagerTestSuite {
 		Assert.assertEquals( aCopy, aCraft );
 	}
 
+	@Test
+	public void testFindIsASingleQuery() throws Exception {
+		EntityManager aManager = createEntityManager();
+
+		assumeTrue(aManager.getDelegate() instanceof MutableDataSource);
+
+		EntityTest aEntity = InstanceGenerator.generateInstanceClass(EntityTest.class).newInstance();
+		aEntity.setRdfId(new SupportsRdfId.URIKey(URI.create("urn:find:single:query")));
+		aEntity.setId("single");
+		aEntity.setLabel("single query");
+
+		aManager.persist(aEntity);
+
+		QueryCountingDataSource aSource = new QueryCountingDataSource((MutableDataSource) aManager.getDelegate());
+		EntityManager aCountingManager = new EntityManagerImpl(aSource);
+
+		EntityTest aFound = aCountingManager.find(EntityTest.class, aEntity.getRdfId());
+
+		assertNotNull(aFound);
+		assertEquals("single query", aFound.getLabel());
+		assertEquals(1, aSource.getQueryCount());
+
+		aSource.reset();
+
+		assertTrue(null == aCountingManager.find(EntityTest.class, URI.create("urn:find:single:query:missing")));
+		assertEquals(1, aSource.getQueryCount());
+	}
+
+	@Test
+	public void testPersistenceContext() throws Exception {
+		EntityManager aManager = createEntityManager();
+
+		assumeTrue(aManager.getDelegate() instanceof MutableDataSource);
+
+		QueryCountingDataSource aSource = new QueryCountingDataSource((MutableDataSource) aManager.getDelegate());
+		EntityManager aCountingManager = new EntityManagerImpl(aSource);
+
+		EntityTest aEntity = InstanceGenerator.generateInstanceClass(EntityTest.class).newInstance();
+		aEntity.setRdfId(new SupportsRdfId.URIKey(URI.create("urn:persistence:context")));
+		aEntity.setId("context");
+		aEntity.setLabel("persistence context");
+
+		aCountingManager.persist(aEntity);
+
+		aSource.reset();
+
+		// the persisted instance is managed, so neither of these go to the database
+		assertSame(aEntity, aCountingManager.find(EntityTest.class, aEntity.getRdfId()));
+		assertTrue(aCountingManager.contains(aEntity));
+		assertEquals(0, aSource.getQueryCount());
+
+		aCountingManager.clear();
+
+		EntityTest aFound = aCountingManager.find(EntityTest.class, aEntity.getRdfId());
+
+		assertNotSame(aEntity, aFound);
+		assertEquals("persistence context", aFound.getLabel());
+		assertEquals(1, aSource.getQueryCount());
+
+		assertSame(aFound, aCountingManager.find(EntityTest.class, aEntity.getRdfId()));
+		assertEquals(1, aSource.getQueryCount());
+
+		aCountingManager.remove(aFound);
+
+		assertFalse(aCountingManager.contains(aFound));
+		assertTrue(null == aCountingManager.find(EntityTest.class, aEntity.getRdfId()));
+	}
+
+	@Test
+	public void testEntityCache() throws Exception {
+		EntityManager aManager = createEntityManager();
+
+		assumeTrue(aManager.getDelegate() instanceof MutableDataSource);
+
+		EntityCache aCache = new EntityCache(10, 0, EntityCache.Eviction.LRU, Collections.<Class<?>>singleton(EntityTest.class));
+
+		QueryCountingDataSource aSource = new QueryCountingDataSource((MutableDataSource) aManager.getDelegate());
+		EntityManager aCountingManager = new EntityManagerImpl(aSource, aCache);
+
+		EntityTest aEntity = InstanceGenerator.generateInstanceClass(EntityTest.class).newInstance();
+		aEntity.setRdfId(new SupportsRdfId.URIKey(URI.create("urn:entity:cache")));
+		aEntity.setId("cache");
+		aEntity.setLabel("entity cache");
+
+		aCountingManager.persist(aEntity);
+		aCountingManager.clear();
+
+		aSource.reset();
+
+		EntityTest aFound = aCountingManager.find(EntityTest.class, aEntity.getRdfId());
+
+		assertEquals("entity cache", aFound.getLabel());
+		assertEquals(1, aSource.getQueryCount());
+		assertEquals(1, aCache.size());
+
+		// once the persistence context is cleared, the data comes from the cache rather than the database
+		aCountingManager.clear();
+
+		EntityTest aCached = aCountingManager.find(EntityTest.class, aEntity.getRdfId());
+
+		assertNotSame(aFound, aCached);
+		assertEquals("entity cache", aCached.getLabel());
+		assertEquals(1, aSource.getQueryCount());
+		assertEquals(1, aCache.getHitCount());
+
+		// writes invalidate what is in the cache
+		aCached.setLabel("updated entity cache");
+		aCountingManager.merge(aCached);
+
+		assertEquals(0, aCache.size());
+
+		aCountingManager.clear();
+
+		assertEquals("updated entity cache", aCountingManager.find(EntityTest.class, aEntity.getRdfId()).getLabel());
+	}
+
+	@Test
+	public void testCommitFlushMode() throws Exception {
+		EntityManager aManager = createEntityManager();
+
+		assumeTrue(aManager.getDelegate() instanceof MutableDataSource);
+
+		QueryCountingDataSource aSource = new QueryCountingDataSource((MutableDataSource) aManager.getDelegate());
+		EntityManager aCountingManager = new EntityManagerImpl(aSource);
+
+		aCountingManager.setFlushMode(FlushModeType.COMMIT);
+
+		assertEquals(FlushModeType.COMMIT, aCountingManager.getFlushMode());
+
+		List<EntityTest> aEntities = new ArrayList<EntityTest>();
+
+		for (int i = 0; i < 10; i++) {
+			EntityTest aEntity = InstanceGenerator.generateInstanceClass(EntityTest.class).newInstance();
+			aEntity.setRdfId(new SupportsRdfId.URIKey(URI.create("urn:commit:flush:" + i)));
+			aEntity.setId("flush" + i);
+			aEntity.setLabel("commit flush " + i);
+
+			aCountingManager.persist(aEntity);
+
+			aEntities.add(aEntity);
+		}
+
+		aEntities.get(0).setLabel("merged before the flush");
+		aCountingManager.merge(aEntities.get(0));
+
+		aCountingManager.remove(aEntities.get(1));
+
+		// nothing is written until the flush
+		assertEquals(0, aSource.getWriteCount());
+		assertFalse(aManager.contains(aEntities.get(2)));
+
+		aCountingManager.flush();
+
+		// one remove and one add for all of the changes
+		assertEquals(2, aSource.getWriteCount());
+
+		assertEquals("merged before the flush", aManager.find(EntityTest.class, aEntities.get(0).getRdfId()).getLabel());
+		assertTrue(null == aManager.find(EntityTest.class, aEntities.get(1).getRdfId()));
+
+		for (EntityTest aEntity : aEntities.subList(2, aEntities.size())) {
+			assertEquals(aEntity.getLabel(), aManager.find(EntityTest.class, aEntity.getRdfId()).getLabel());
+		}
+
+		// a persist and a remove of the same thing cancel out
+		EntityTest aTransient = InstanceGenerator.generateInstanceClass(EntityTest.class).newInstance();
+		aTransient.setRdfId(new SupportsRdfId.URIKey(URI.create("urn:commit:flush:transient")));
+		aTransient.setLabel("transient");
+
+		aSource.reset();
+
+		aCountingManager.persist(aTransient);
+		aCountingManager.remove(aTransient);
+		aCountingManager.flush();
+
+		assertFalse(aManager.contains(aTransient));
+		assertTrue(aSource.getWriteCount() <= 1);
+	}
+
+	@Test
+	public void testPersistAll() throws Exception {
+		EntityManager aManager = createEntityManager();
+
+		assumeTrue(aManager.getDelegate() instanceof MutableDataSource);
+
+		QueryCountingDataSource aSource = new QueryCountingDataSource((MutableDataSource) aManager.getDelegate());
+		EntityManager aCountingManager = new EntityManagerImpl(aSource);
+
+		int aBatchSize = EmpireOptions.BATCH_LOAD_SIZE;
+
+		try {
+			EmpireOptions.BATCH_LOAD_SIZE = 10;
+
+			List<EntityTest> aEntities = new ArrayList<EntityTest>();
+
+			for (int i = 0; i < 25; i++) {
+				EntityTest aEntity = InstanceGenerator.generateInstanceClass(EntityTest.class).newInstance();
+				aEntity.setRdfId(new SupportsRdfId.URIKey(URI.create("urn:persist:all:" + i)));
+				aEntity.setId("all" + i);
+				aEntity.setLabel("persist all " + i);
+
+				aEntities.add(aEntity);
+			}
+
+			EmpireUtil.persistAll(aCountingManager, aEntities);
+
+			// one existence check per batch, and a single write for all of them
+			assertEquals(3, aSource.getQueryCount());
+			assertEquals(1, aSource.getWriteCount());
+
+			for (EntityTest aEntity : aEntities) {
+				assertTrue(aCountingManager.contains(aEntity));
+				assertEquals(aEntity.getLabel(), aManager.find(EntityTest.class, aEntity.getRdfId()).getLabel());
+			}
+
+			// if any of them already exist, none of them are persisted
+			EntityTest aNew = InstanceGenerator.generateInstanceClass(EntityTest.class).newInstance();
+			aNew.setRdfId(new SupportsRdfId.URIKey(URI.create("urn:persist:all:new")));
+			aNew.setLabel("new");
+
+			aSource.reset();
+
+			try {
+				EmpireUtil.persistAll(new EntityManagerImpl(aSource), Arrays.asList(aNew, aEntities.get(5)));
+				fail("EntityExistsException expected");
+			}
+			catch (EntityExistsException e) {
+				// expected
+			}
+
+			assertEquals(0, aSource.getWriteCount());
+			assertFalse(aManager.contains(aNew));
+		}
+		finally {
+			EmpireOptions.BATCH_LOAD_SIZE = aBatchSize;
+		}
+	}
+
+	@Test
+	public void testVerifyWrites() throws Exception {
+		EntityManagerFactory aFactory = createEntityManagerFactory();
+
+		EntityManager aManager = aFactory.createEntityManager();
+		EntityManager aVerified = aFactory.createEntityManager(Collections.singletonMap(EntityManagerFactoryImpl.VERIFY_WRITES, "true"));
+
+		try {
+			assumeTrue(aManager instanceof EntityManagerImpl && aManager.getDelegate() instanceof MutableDataSource);
+
+			assertFalse(((EntityManagerImpl) aManager).isVerifyWrites());
+			assertTrue(((EntityManagerImpl) aVerified).isVerifyWrites());
+
+			QueryCountingDataSource aSource = new QueryCountingDataSource((MutableDataSource) aManager.getDelegate());
+			EntityManagerImpl aCountingManager = new EntityManagerImpl(aSource);
+
+			int[] aUnverifiedCounts = verifiedWriteQueries(aCountingManager, aSource, false);
+			int[] aVerifiedCounts = verifiedWriteQueries(aCountingManager, aSource, true);
+
+			// the object written by each operation is checked with one more query
+			for (int i = 0; i < aUnverifiedCounts.length; i++) {
+				assertEquals(aUnverifiedCounts[i] + 1, aVerifiedCounts[i]);
+			}
+
+			// writes which did not happen are reported
+			QueryCountingDataSource aDroppingSource = new QueryCountingDataSource((MutableDataSource) aManager.getDelegate()) {
+				@Override
+				public void add(final Graph theGraph) throws DataSourceException {
+					// the write is acknowledged, but never made
+				}
+			};
+
+			EntityManagerImpl aDroppingManager = new EntityManagerImpl(aDroppingSource);
+
+			EntityTest aEntity = InstanceGenerator.generateInstanceClass(EntityTest.class).newInstance();
+			aEntity.setRdfId(new SupportsRdfId.URIKey(URI.create("urn:verify:writes:dropped")));
+			aEntity.setLabel("dropped");
+
+			aDroppingManager.persist(aEntity);
+
+			aDroppingManager.setVerifyWrites(true);
+
+			aEntity = InstanceGenerator.generateInstanceClass(EntityTest.class).newInstance();
+			aEntity.setRdfId(new SupportsRdfId.URIKey(URI.create("urn:verify:writes:dropped:verified")));
+			aEntity.setLabel("dropped");
+
+			try {
+				aDroppingManager.persist(aEntity);
+				fail("PersistenceException expected");
+			}
+			catch (PersistenceException e) {
+				// expected
+			}
+		}
+		finally {
+			aManager.close();
+			aVerified.close();
+			aFactory.close();
+		}
+	}
+
+	/**
+	 * Persist, merge and remove an entity, and return the number of queries each of them took
+	 * @param theManager the manager to write with
+	 * @param theSource the data source of the manager
+	 * @param theVerify whether or not the writes are verified
+	 * @return the query counts of the persist, the merge and the remove
+	 * @throws Exception if there is an error
+	 */
+	private static int[] verifiedWriteQueries(final EntityManagerImpl theManager, final QueryCountingDataSource theSource, final boolean theVerify) throws Exception {
+		theManager.setVerifyWrites(theVerify);
+
+		EntityTest aEntity = InstanceGenerator.generateInstanceClass(EntityTest.class).newInstance();
+		aEntity.setRdfId(new SupportsRdfId.URIKey(URI.create("urn:verify:writes:" + theVerify)));
+		aEntity.setLabel("verify writes");
+
+		int[] aCounts = new int[3];
+
+		theSource.reset();
+		theManager.persist(aEntity);
+		aCounts[0] = theSource.getQueryCount();
+
+		aEntity.setLabel("verify writes merged");
+
+		theSource.reset();
+		theManager.merge(aEntity);
+		aCounts[1] = theSource.getQueryCount();
+
+		theSource.reset();
+		theManager.remove(aEntity);
+		aCounts[2] = theSource.getQueryCount();
+
+		return aCounts;
+	}
+
 	@Test
 	public void testQuerying() throws Exception {
 		EntityManager aManager = createEntityManager();
@@ -1137,6 +1737,238 @@ public abstract class EntityManagerTestSuite {
 		Assert.assertEquals( aCraft.getAlternateName(), Collections.singletonList( "00001" ) );
 	}
 
+	@Test
+	public void testBatchLoading() throws Exception {
+		EntityManager aManager = createEntityManager();
+
+		assumeTrue(aManager.getDelegate() instanceof MutableDataSource);
+
+		insertData((MutableDataSource) aManager.getDelegate(), new File(DATA_FILE));
+
+		boolean aProxy = EmpireOptions.ENABLE_QUERY_RESULT_PROXY;
+		int aBatchSize = EmpireOptions.BATCH_LOAD_SIZE;
+
+		try {
+			EmpireOptions.ENABLE_QUERY_RESULT_PROXY = false;
+
+			// small enough that the results are loaded in more than one batch
+			EmpireOptions.BATCH_LOAD_SIZE = 4;
+
+			List<Spacecraft> aCraft = EmpireUtil.all(aManager, Spacecraft.class);
+
+			assertFalse(aCraft.isEmpty());
+
+			for (Spacecraft aBatchLoaded : aCraft) {
+				Spacecraft aLoaded = RdfGenerator.fromRdf(Spacecraft.class, aBatchLoaded.getRdfId(), (DataSource) aManager.getDelegate());
+
+				assertEquals(aLoaded.getName(), aBatchLoaded.getName());
+				assertEquals(aLoaded.getAgency(), aBatchLoaded.getAgency());
+				assertEquals(aLoaded.getAlternateName(), aBatchLoaded.getAlternateName());
+				assertEquals(aLoaded.getHomepage(), aBatchLoaded.getHomepage());
+				assertEquals(aLoaded.getLaunch() == null ? null : aLoaded.getLaunch().getRdfId(),
+							 aBatchLoaded.getLaunch() == null ? null : aBatchLoaded.getLaunch().getRdfId());
+				assertEquals(Sets.newHashSet(((EmpireGenerated) aLoaded).getAllTriples()),
+							 Sets.newHashSet(((EmpireGenerated) aBatchLoaded).getAllTriples()));
+			}
+		}
+		finally {
+			EmpireOptions.ENABLE_QUERY_RESULT_PROXY = aProxy;
+			EmpireOptions.BATCH_LOAD_SIZE = aBatchSize;
+		}
+	}
+
+	@Test
+	public void testIterate() throws Exception {
+		EntityManager aManager = createEntityManager();
+
+		assumeTrue(aManager.getDelegate() instanceof MutableDataSource);
+
+		insertData((MutableDataSource) aManager.getDelegate(), new File(DATA_FILE));
+
+		boolean aProxy = EmpireOptions.ENABLE_QUERY_RESULT_PROXY;
+		int aBatchSize = EmpireOptions.BATCH_LOAD_SIZE;
+
+		try {
+			EmpireOptions.ENABLE_QUERY_RESULT_PROXY = false;
+
+			// small enough that the results are read in more than one window
+			EmpireOptions.BATCH_LOAD_SIZE = 4;
+
+			RdfQuery aQuery = (RdfQuery) aManager.createNativeQuery("where { ?result <" + RDF.TYPE + "> <" + SpaceVocab.ontology().Spacecraft + "> }", Spacecraft.class);
+
+			List aExpected = aQuery.getResultList();
+
+			assertTrue(aExpected.size() > EmpireOptions.BATCH_LOAD_SIZE);
+
+			List<Object> aStreamed = new ArrayList<Object>();
+
+			QueryResultIterator aIter = aQuery.iterate();
+			while (aIter.hasNext()) {
+				aStreamed.add(aIter.next());
+			}
+
+			assertFalse(aIter.hasNext());
+
+			// the results returned by getResultList were added to the persistence context, so are the same instances
+			assertEquals(aExpected, aStreamed);
+
+			// with the persistence context cleared, the iterator loads the beans itself
+			aManager.clear();
+
+			aQuery = (RdfQuery) aManager.createNativeQuery("where { ?result <" + RDF.TYPE + "> <" + SpaceVocab.ontology().Spacecraft + "> }", Spacecraft.class);
+
+			aIter = aQuery.iterate();
+
+			for (Object aBean : aExpected) {
+				Spacecraft aExpectedCraft = (Spacecraft) aBean;
+				Spacecraft aCraft = (Spacecraft) aIter.next();
+
+				assertNotSame(aExpectedCraft, aCraft);
+				assertEquals(aExpectedCraft.getRdfId(), aCraft.getRdfId());
+				assertEquals(aExpectedCraft.getName(), aCraft.getName());
+			}
+
+			assertFalse(aIter.hasNext());
+
+			// closing the iterator before the end discards the rest of the results
+			aIter = aQuery.iterate();
+			aIter.next();
+			aIter.close();
+
+			assertFalse(aIter.hasNext());
+		}
+		finally {
+			EmpireOptions.ENABLE_QUERY_RESULT_PROXY = aProxy;
+			EmpireOptions.BATCH_LOAD_SIZE = aBatchSize;
+		}
+	}
+
+	@Test
+	public void testReadOnly() throws Exception {
+		EntityManager aManager = createEntityManager();
+
+		assumeTrue(aManager.getDelegate() instanceof MutableDataSource);
+
+		insertData((MutableDataSource) aManager.getDelegate(), new File(DATA_FILE));
+
+		URI aCraftURI = URI.create("http://nasa.dataincubator.org/spacecraft/1989-033B");
+
+		EntityManagerImpl aReadOnly = new EntityManagerImpl((MutableDataSource) aManager.getDelegate());
+		aReadOnly.setReadOnly(true);
+
+		TestEntityListener.clearState();
+
+		Spacecraft aCraft = aReadOnly.find(Spacecraft.class, aCraftURI);
+
+		assertNotNull(aCraft.getName());
+		assertTrue(RdfGenerator.isUntracked(aCraft));
+		assertTrue(((EmpireGenerated) aCraft).getInstanceTriples().isEmpty());
+
+		// no callbacks, and the bean is not managed, so it's loaded again by the next find
+		assertFalse(aCraft.postLoadCalled);
+		assertFalse(TestEntityListener.postLoadCalled);
+		assertNotSame(aCraft, aReadOnly.find(Spacecraft.class, aCraftURI));
+
+		aCraft.setDescription("read only description");
+
+		try {
+			aManager.merge(aCraft);
+			fail("an instance loaded read-only should not be merged");
+		}
+		catch (IllegalArgumentException e) {
+			// expected
+		}
+
+		// refreshing the bean reattaches it
+		aManager.refresh(aCraft);
+
+		assertFalse(RdfGenerator.isUntracked(aCraft));
+
+		aCraft.setDescription("reattached description");
+		aManager.merge(aCraft);
+
+		assertEquals("reattached description", aReadOnly.find(Spacecraft.class, aCraftURI).getDescription());
+
+		// queries are read-only with the hint, or when their EntityManager is
+		boolean aProxy = EmpireOptions.ENABLE_QUERY_RESULT_PROXY;
+
+		try {
+			EmpireOptions.ENABLE_QUERY_RESULT_PROXY = false;
+
+			String aQueryString = "where { ?result <" + RDF.TYPE + "> <" + SpaceVocab.ontology().Spacecraft + "> }";
+
+			Query aQuery = aManager.createNativeQuery(aQueryString, Spacecraft.class);
+			aQuery.setHint(RdfQuery.HINT_READ_ONLY, "true");
+
+			List aResults = aQuery.getResultList();
+
+			assertFalse(aResults.isEmpty());
+
+			// the managed, reattached, instance is not returned by the read-only query
+			for (Object aResult : aResults) {
+				assertTrue(RdfGenerator.isUntracked(aResult));
+				assertNotSame(aCraft, aResult);
+			}
+
+			for (Object aResult : aReadOnly.createNativeQuery(aQueryString, Spacecraft.class).getResultList()) {
+				assertTrue(RdfGenerator.isUntracked(aResult));
+			}
+
+			List aManaged = aManager.createNativeQuery(aQueryString, Spacecraft.class).getResultList();
+
+			assertTrue(aManaged.contains(aCraft));
+
+			for (Object aResult : aManaged) {
+				assertFalse(RdfGenerator.isUntracked(aResult));
+			}
+		}
+		finally {
+			EmpireOptions.ENABLE_QUERY_RESULT_PROXY = aProxy;
+		}
+
+		EntityManager aReadOnlyFromFactory = createEntityManagerFactory().createEntityManager(Collections.singletonMap(EntityManagerFactoryImpl.READ_ONLY, "true"));
+
+		assertTrue(((EntityManagerImpl) aReadOnlyFromFactory).isReadOnly());
+		assertFalse(((EntityManagerImpl) aManager).isReadOnly());
+	}
+
+	@Test
+	public void testPagedAll() throws Exception {
+		EntityManager aManager = createEntityManager();
+
+		assumeTrue(aManager.getDelegate() instanceof MutableDataSource);
+
+		insertData((MutableDataSource) aManager.getDelegate(), new File(DATA_FILE));
+
+		List<String> aExpected = new ArrayList<String>();
+		for (Spacecraft aCraft : EmpireUtil.all(aManager, Spacecraft.class)) {
+			aExpected.add(aCraft.getRdfId().value().toString());
+		}
+
+		Collections.sort(aExpected);
+
+		aManager.clear();
+
+		List<String> aPaged = new ArrayList<String>();
+		for (Spacecraft aCraft : EmpireUtil.all(aManager, Spacecraft.class, 3)) {
+			assertNotNull(aCraft.getName());
+
+			aPaged.add(aCraft.getRdfId().value().toString());
+		}
+
+		// every instance is read once, in order
+		assertTrue(aExpected.size() > 3);
+		assertEquals(aExpected, aPaged);
+
+		// the page size evenly dividing the number of instances does not lose or repeat the last page
+		aPaged.clear();
+		for (Spacecraft aCraft : EmpireUtil.all(aManager, Spacecraft.class, aExpected.size())) {
+			aPaged.add(aCraft.getRdfId().value().toString());
+		}
+
+		assertEquals(aExpected, aPaged);
+	}
+
 	@Test
 	public void testUpdate() throws Exception {
 		EntityManager aManager = createEntityManager();
@@ -1270,15 +2102,12 @@ public abstract class EntityManagerTestSuite {
 
 		assertTrue(aManager.isOpen());
 
-		// we support this...
-		aManager.setFlushMode(FlushModeType.AUTO);
+		// we support both flush modes
+		aManager.setFlushMode(FlushModeType.COMMIT);
 
-		// ... but not this
-		try {
-			aManager.setFlushMode(FlushModeType.COMMIT);
-			fail("IllegalArgumentException expected");
-		}
-		catch (IllegalArgumentException e) { /* expected */ }
+		assertEquals(aManager.getFlushMode(), FlushModeType.COMMIT);
+
+		aManager.setFlushMode(FlushModeType.AUTO);
 
 		assertEquals(aManager.getFlushMode(), FlushModeType.AUTO);
 
@@ -1497,6 +2326,77 @@ public abstract class EntityManagerTestSuite {
 		}
 	}
 
+	/**
+	 * DataSource which counts the number of queries which are sent to the underlying source
+	 */
+	private static class QueryCountingDataSource extends DelegatingDataSource implements MutableDataSource {
+		private int mQueryCount = 0;
+		private int mWriteCount = 0;
+		private int mStatementCount = 0;
+
+		private QueryCountingDataSource(final MutableDataSource theDelegate) {
+			super(theDelegate);
+		}
+
+		public int getQueryCount() {
+			return mQueryCount;
+		}
+
+		public int getWriteCount() {
+			return mWriteCount;
+		}
+
+		/**
+		 * Return the number of statements added or removed
+		 * @return the number of statements written
+		 */
+		public int getStatementCount() {
+			return mStatementCount;
+		}
+
+		public void reset() {
+			mQueryCount = 0;
+			mWriteCount = 0;
+			mStatementCount = 0;
+		}
+
+		@Override
+		public ResultSet selectQuery(final String theQuery) throws QueryException {
+			mQueryCount++;
+			return super.selectQuery(theQuery);
+		}
+
+		@Override
+		public Graph graphQuery(final String theQuery) throws QueryException {
+			mQueryCount++;
+			return super.graphQuery(theQuery);
+		}
+
+		@Override
+		public boolean ask(final String theQuery) throws QueryException {
+			mQueryCount++;
+			return super.ask(theQuery);
+		}
+
+		@Override
+		public Graph describe(final String theQuery) throws QueryException {
+			mQueryCount++;
+			return super.describe(theQuery);
+		}
+
+		public void add(final Graph theGraph) throws DataSourceException {
+			mWriteCount++;
+			mStatementCount += theGraph.size();
+			((MutableDataSource) getDelegate()).add(theGraph);
+		}
+
+		public void remove(final Graph theGraph) throws DataSourceException {
+			mWriteCount++;
+			mStatementCount += theGraph.size();
+			((MutableDataSource) getDelegate()).remove(theGraph);
+		}
+	}
+
 	@Entity
 	@RdfsClass("urn:EntityTest")
 	public interface EntityTest extends SupportsRdfId {
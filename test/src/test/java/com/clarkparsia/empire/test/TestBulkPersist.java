@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2009-2012 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clarkparsia.empire.test;
+
+import com.clarkparsia.empire.Empire;
+import com.clarkparsia.empire.ds.MutableDataSource;
+import com.clarkparsia.empire.impl.EntityManagerImpl;
+import com.clarkparsia.empire.jena.JenaEmpireModule;
+import com.clarkparsia.empire.sesametwo.OpenRdfEmpireModule;
+import com.clarkparsia.empire.sesametwo.RepositoryFactoryKeys;
+import com.clarkparsia.empire.test.api.TestPerson;
+import com.clarkparsia.empire.test.util.TestModule;
+import com.clarkparsia.empire.util.DefaultEmpireModule;
+import com.clarkparsia.empire.util.EmpireUtil;
+
+import com.google.common.collect.Iterables;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.persistence.EntityExistsException;
+import javax.persistence.EntityManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * <p>Imports a batch of entities with a persist per entity, and with a single {@link EmpireUtil#persistAll bulk
+ * persist}, which has to have the same result, including when one of the entities already exists.</p>
+ *
+ * @since 0.7.2
+ * @version 0.7.2
+ */
+public class TestBulkPersist {
+
+	/**
+	 * The number of entities imported
+	 */
+	private static final int SIZE = 1000;
+
+	@BeforeClass
+	public static void beforeClass() throws Exception {
+		String configPath = TestBulkPersist.class.getResource("/test.empire.config.properties").getPath();
+		System.setProperty("empire.configuration.file", configPath);
+
+		Empire.init(new DefaultEmpireModule(), new OpenRdfEmpireModule(),
+					new JenaEmpireModule(), new TestModule());
+	}
+
+	@Test
+	public void testSPARQLImport() throws Exception {
+		compareImports("sparql");
+	}
+
+	@Test
+	public void testSeRQLImport() throws Exception {
+		compareImports(RepositoryFactoryKeys.LANG_SERQL);
+	}
+
+	private void compareImports(final String theQueryLang) throws Exception {
+		EntityManager aManager = createEntityManager(theQueryLang);
+
+		List<TestPerson> aPeople = people("single");
+
+		for (TestPerson aPerson : aPeople) {
+			aManager.persist(aPerson);
+		}
+
+		assertImported(aManager, aPeople);
+
+		aManager = createEntityManager(theQueryLang);
+
+		aPeople = people("bulk");
+
+		EmpireUtil.persistAll(aManager, aPeople);
+
+		assertImported(aManager, aPeople);
+
+		// one of the entities of a second import is already in the database, in the last of its batches, so none of
+		// the others are persisted either
+		List<TestPerson> aMore = people("more");
+		aMore.set(SIZE - 1, aPeople.get(SIZE / 2));
+
+		try {
+			EmpireUtil.persistAll(aManager, aMore);
+
+			fail("an entity which already exists should not have been persisted again");
+		}
+		catch (EntityExistsException e) {
+			// expected
+		}
+
+		assertEquals(SIZE, EmpireUtil.all(aManager, TestPerson.class).size());
+
+		for (TestPerson aPerson : aMore.subList(0, SIZE - 1)) {
+			assertFalse(aManager.contains(aPerson));
+			assertFalse(aPerson.postPersistCalled);
+		}
+	}
+
+	private static void assertImported(final EntityManager theManager, final List<TestPerson> thePeople) {
+		assertEquals(SIZE, EmpireUtil.all(theManager, TestPerson.class).size());
+		assertEquals(SIZE, Iterables.size(EmpireUtil.all(theManager, TestPerson.class, 100)));
+
+		for (TestPerson aPerson : thePeople) {
+			assertTrue(aPerson.postPersistCalled);
+		}
+	}
+
+	private static EntityManager createEntityManager(final String theQueryLang) throws Exception {
+		Map<String, Object> aMap = new HashMap<String, Object>();
+		aMap.put("factory", "sesame");
+		aMap.put(RepositoryFactoryKeys.QUERY_LANG, theQueryLang);
+
+		MutableDataSource aSource = (MutableDataSource) Empire.get().persistenceProvider().createDataSource("test-bulk-persist", aMap);
+		aSource.connect();
+
+		return new EntityManagerImpl(aSource);
+	}
+
+	private static List<TestPerson> people(final String thePrefix) {
+		List<TestPerson> aPeople = new ArrayList<TestPerson>();
+
+		for (int i = 0; i < SIZE; i++) {
+			TestPerson aPerson = new TestPerson();
+			aPerson.setMBox("mailto:" + thePrefix + i + "@example.org");
+			aPerson.setFirstName("First" + i);
+			aPerson.setLastName("Last" + i);
+			aPerson.setWeight(100f + i);
+
+			aPeople.add(aPerson);
+		}
+
+		return aPeople;
+	}
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2009-2012 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clarkparsia.empire.test;
+
+import com.clarkparsia.empire.Empire;
+import com.clarkparsia.empire.EmpireOptions;
+import com.clarkparsia.empire.annotation.RdfGenerator;
+import com.clarkparsia.empire.ds.DataSource;
+import com.clarkparsia.empire.ds.QueryException;
+import com.clarkparsia.empire.ds.ResultSet;
+import com.clarkparsia.empire.ds.impl.DelegatingDataSource;
+import com.clarkparsia.empire.jena.JenaEmpireModule;
+import com.clarkparsia.empire.sesametwo.OpenRdfEmpireModule;
+import com.clarkparsia.empire.test.api.nasa.Spacecraft;
+import com.clarkparsia.empire.test.util.TestModule;
+import com.clarkparsia.empire.util.DefaultEmpireModule;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.openrdf.model.Graph;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p>Tests for loading beans from a {@link DataSource} from multiple threads at once.</p>
+ *
+ * @since 0.7.2
+ * @version 0.7.2
+ */
+public class TestConcurrentHydration {
+
+	/**
+	 * The number of times each thread will load each of the spacecraft in the test data
+	 */
+	private static final int ROUNDS = 20;
+
+	private static DataSource mSource;
+
+	private static List<URI> mCraft;
+
+	@BeforeClass
+	public static void beforeClass() throws Exception {
+		String configPath = TestConcurrentHydration.class.getResource("/test.empire.config.properties").getPath();
+		System.setProperty("empire.configuration.file", configPath);
+
+		Empire.init(new DefaultEmpireModule(), new OpenRdfEmpireModule(),
+					new JenaEmpireModule(), new TestModule());
+
+		// our test data set doesn't type any literals, so we have to set to weak (no) typing
+		EmpireOptions.STRONG_TYPING = false;
+
+		Map<String, Object> aMap = new HashMap<String, Object>();
+		aMap.put("factory", "sesame");
+		aMap.put("files", TestConcurrentHydration.class.getResource("/data/lite.nasa.nt").getPath());
+
+		mSource = Empire.get().persistenceProvider().createDataSource("test-concurrent-hydration", aMap);
+		mSource.connect();
+
+		mCraft = new ArrayList<URI>();
+
+		ResultSet aResults = mSource.selectQuery("select distinct ?s where { ?s a <http://purl.org/net/schemas/space/Spacecraft> }");
+
+		try {
+			while (aResults.hasNext()) {
+				mCraft.add(URI.create(aResults.next().getValue("s").stringValue()));
+			}
+		}
+		finally {
+			aResults.close();
+		}
+
+		Collections.sort(mCraft);
+	}
+
+	@Test
+	public void testConcurrentLoadsMatchSerialLoads() throws Exception {
+		assertFalse(mCraft.isEmpty());
+
+		List<String> aExpected = load(mSource);
+
+		for (int aThreads = 1; aThreads <= 8; aThreads *= 2) {
+			ExecutorService aExecutor = Executors.newFixedThreadPool(aThreads);
+
+			try {
+				List<Future<List<String>>> aFutures = new ArrayList<Future<List<String>>>();
+
+				for (int i = 0; i < aThreads; i++) {
+					aFutures.add(aExecutor.submit(new Callable<List<String>>() {
+						public List<String> call() throws Exception {
+							List<String> aResult = null;
+
+							for (int aRound = 0; aRound < ROUNDS; aRound++) {
+								aResult = load(mSource);
+							}
+
+							return aResult;
+						}
+					}));
+				}
+
+				for (Future<List<String>> aFuture : aFutures) {
+					assertEquals(aExpected, aFuture.get());
+				}
+			}
+			finally {
+				aExecutor.shutdown();
+			}
+		}
+	}
+
+	@Test
+	public void testLoadsOverlap() throws Exception {
+		final int aThreads = 4;
+
+		// every load waits in its first query until all of them are in one, which never happens if loads are
+		// serialized, then they would each give up waiting instead
+		final GatedDataSource aSource = new GatedDataSource(mSource, aThreads);
+
+		ExecutorService aExecutor = Executors.newFixedThreadPool(aThreads);
+
+		try {
+			List<Future<List<String>>> aFutures = new ArrayList<Future<List<String>>>();
+
+			for (int i = 0; i < aThreads; i++) {
+				aFutures.add(aExecutor.submit(new Callable<List<String>>() {
+					public List<String> call() throws Exception {
+						return load(aSource);
+					}
+				}));
+			}
+
+			List<String> aExpected = load(mSource);
+
+			for (Future<List<String>> aFuture : aFutures) {
+				assertEquals(aExpected, aFuture.get());
+			}
+
+			assertTrue("loads did not run at the same time", aSource.isOpened());
+		}
+		finally {
+			aExecutor.shutdown();
+		}
+	}
+
+	/**
+	 * Load each spacecraft in the test data and return a brief summary of each of them so the results of different
+	 * loads can be compared.
+	 * @param theSource the source to load the spacecraft from
+	 * @return a summary of the loaded spacecraft
+	 * @throws Exception if there is an error while loading
+	 */
+	private static List<String> load(final DataSource theSource) throws Exception {
+		List<String> aSummary = new ArrayList<String>();
+
+		for (URI aURI : mCraft) {
+			Spacecraft aCraft = RdfGenerator.fromRdf(Spacecraft.class, aURI, theSource);
+
+			aSummary.add(aCraft.getRdfId() + " " + aCraft.getAgency() + " " + aCraft.getName() + " " + (aCraft.getLaunch() == null ? null : aCraft.getLaunch().getLaunched()));
+		}
+
+		return aSummary;
+	}
+
+	/**
+	 * DataSource which holds the first query of each thread until the given number of threads are in one, or a
+	 * timeout passes.  It hides that the underlying source is a TripleSource, so that loads go through its queries.
+	 */
+	private static class GatedDataSource extends DelegatingDataSource {
+		private final CountDownLatch mGate;
+
+		private final ThreadLocal<Boolean> mWaited = new ThreadLocal<Boolean>();
+
+		private volatile boolean mTimedOut = false;
+
+		private GatedDataSource(final DataSource theDelegate, final int theThreads) {
+			super(theDelegate);
+
+			mGate = new CountDownLatch(theThreads);
+		}
+
+		/**
+		 * Return whether or not all of the threads were in a query at the same time
+		 * @return true if no thread gave up waiting for the others, false otherwise
+		 */
+		public boolean isOpened() {
+			return mGate.getCount() == 0 && !mTimedOut;
+		}
+
+		private void gate() throws QueryException {
+			if (mWaited.get() != null) {
+				return;
+			}
+
+			mWaited.set(Boolean.TRUE);
+			mGate.countDown();
+
+			try {
+				if (!mGate.await(5, TimeUnit.SECONDS)) {
+					mTimedOut = true;
+				}
+			}
+			catch (InterruptedException e) {
+				throw new QueryException(e);
+			}
+		}
+
+		@Override
+		public ResultSet selectQuery(final String theQuery) throws QueryException {
+			gate();
+			return super.selectQuery(theQuery);
+		}
+
+		@Override
+		public Graph graphQuery(final String theQuery) throws QueryException {
+			gate();
+			return super.graphQuery(theQuery);
+		}
+
+		@Override
+		public boolean ask(final String theQuery) throws QueryException {
+			gate();
+			return super.ask(theQuery);
+		}
+
+		@Override
+		public Graph describe(final String theQuery) throws QueryException {
+			gate();
+			return super.describe(theQuery);
+		}
+	}
+}
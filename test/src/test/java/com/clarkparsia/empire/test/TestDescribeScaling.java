@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) 2009-2012 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clarkparsia.empire.test;
+
+import com.clarkparsia.empire.Empire;
+import com.clarkparsia.empire.annotation.SupportsRdfIdImpl;
+import com.clarkparsia.empire.ds.DataSource;
+import com.clarkparsia.empire.ds.DataSourceUtil;
+import com.clarkparsia.empire.ds.MutableDataSource;
+import com.clarkparsia.empire.ds.QueryException;
+import com.clarkparsia.empire.ds.ResultSet;
+import com.clarkparsia.empire.ds.impl.DelegatingDataSource;
+import com.clarkparsia.empire.jena.JenaEmpireModule;
+import com.clarkparsia.empire.sesametwo.OpenRdfEmpireModule;
+import com.clarkparsia.empire.sesametwo.RepositoryFactoryKeys;
+import com.clarkparsia.empire.test.util.TestModule;
+import com.clarkparsia.empire.util.DefaultEmpireModule;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.openrdf.model.Graph;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.GraphImpl;
+import org.openrdf.model.impl.ValueFactoryImpl;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p>Describes, and checks the existence of, single individuals as the database grows, both directly against
+ * sources which are natively a {@link com.clarkparsia.empire.ds.TripleSource}, and through a
+ * {@link DelegatingDataSource}, which hides that, so the queries with the subject bound are used instead.  The
+ * database grows to 100k triples by default, set the <code>empire.test.scaling.max</code> system property to go
+ * further, e.g. to 10M triples.</p>
+ *
+ * @since 0.7.2
+ * @version 0.7.2
+ */
+public class TestDescribeScaling {
+
+	/**
+	 * The number of triples about each individual
+	 */
+	private static final int TRIPLES_PER_SUBJECT = 10;
+
+	/**
+	 * The number of individuals described at each size of the database
+	 */
+	private static final int LOOKUPS = 200;
+
+	/**
+	 * The largest the database grows to
+	 */
+	private static final long MAX_SIZE = Long.getLong("empire.test.scaling.max", 100000);
+
+	@BeforeClass
+	public static void beforeClass() throws Exception {
+		String configPath = TestDescribeScaling.class.getResource("/test.empire.config.properties").getPath();
+		System.setProperty("empire.configuration.file", configPath);
+
+		Empire.init(new DefaultEmpireModule(), new OpenRdfEmpireModule(),
+					new JenaEmpireModule(), new TestModule());
+	}
+
+	@Test
+	public void testSesameSPARQL() throws Exception {
+		Map<String, Object> aMap = new HashMap<String, Object>();
+		aMap.put("factory", "sesame");
+
+		measure("sesame sparql", aMap);
+	}
+
+	@Test
+	public void testSesameSeRQL() throws Exception {
+		Map<String, Object> aMap = new HashMap<String, Object>();
+		aMap.put("factory", "sesame");
+		aMap.put(RepositoryFactoryKeys.QUERY_LANG, RepositoryFactoryKeys.LANG_SERQL);
+
+		measure("sesame serql", aMap);
+	}
+
+	@Test
+	public void testJena() throws Exception {
+		Map<String, Object> aMap = new HashMap<String, Object>();
+		aMap.put("factory", "jena");
+
+		measure("jena", aMap);
+	}
+
+	private void measure(final String theName, final Map<String, Object> theConfig) throws Exception {
+		MutableDataSource aSource = (MutableDataSource) Empire.get().persistenceProvider().createDataSource("test-describe-scaling-" + theName, theConfig);
+		aSource.connect();
+
+		QueryCountingDataSource aQueried = new QueryCountingDataSource(aSource);
+
+		Random aRandom = new Random(0);
+		int aSubjects = 0;
+
+		try {
+			for (long aSize = 10000; aSize <= MAX_SIZE; aSize *= 10) {
+				aSubjects = grow(aSource, aSubjects, (int) (aSize / TRIPLES_PER_SUBJECT));
+
+				for (int i = 0; i < LOOKUPS; i++) {
+					SupportsRdfIdImpl aIndividual = new SupportsRdfIdImpl(subject(aRandom.nextInt(aSubjects)));
+
+					assertEquals(TRIPLES_PER_SUBJECT, DataSourceUtil.describe(aSource, aIndividual).size());
+					assertTrue(DataSourceUtil.exists(aSource, aIndividual));
+
+					assertEquals(TRIPLES_PER_SUBJECT, DataSourceUtil.describe(aQueried, aIndividual).size());
+					assertTrue(DataSourceUtil.exists(aQueried, aIndividual));
+				}
+
+				SupportsRdfIdImpl aMissing = new SupportsRdfIdImpl(subject(aSubjects));
+
+				assertEquals(0, DataSourceUtil.describe(aSource, aMissing).size());
+				assertFalse(DataSourceUtil.exists(aSource, aMissing));
+
+				assertEquals(0, DataSourceUtil.describe(aQueried, aMissing).size());
+				assertFalse(DataSourceUtil.exists(aQueried, aMissing));
+			}
+
+			// one query per describe and per existence check, each with the subject bound in it rather than looked up
+			// in the results of a broader query
+			assertEquals(2 * (LOOKUPS + 1) * sizes(), aQueried.getQueryCount());
+			assertEquals(0, aQueried.getUnboundCount());
+		}
+		finally {
+			aSource.disconnect();
+		}
+	}
+
+	/**
+	 * Return the number of sizes the database is grown to
+	 * @return the number of sizes
+	 */
+	private static int sizes() {
+		int aCount = 0;
+
+		for (long aSize = 10000; aSize <= MAX_SIZE; aSize *= 10) {
+			aCount++;
+		}
+
+		return aCount;
+	}
+
+	/**
+	 * Add individuals to the database until there are the given number of them
+	 * @param theSource the database
+	 * @param theCurrent the number of individuals in the database
+	 * @param theTarget the number of individuals the database should have
+	 * @return the number of individuals in the database
+	 * @throws Exception if there is an error adding the individuals
+	 */
+	private static int grow(final MutableDataSource theSource, final int theCurrent, final int theTarget) throws Exception {
+		ValueFactory aFactory = ValueFactoryImpl.getInstance();
+
+		Graph aGraph = new GraphImpl();
+
+		for (int i = theCurrent; i < theTarget; i++) {
+			for (int j = 0; j < TRIPLES_PER_SUBJECT; j++) {
+				aGraph.add(aFactory.createURI(subject(i).toString()), aFactory.createURI("urn:test:p" + j), aFactory.createLiteral(i * j));
+			}
+
+			if (aGraph.size() >= 10000) {
+				theSource.add(aGraph);
+				aGraph = new GraphImpl();
+			}
+		}
+
+		if (!aGraph.isEmpty()) {
+			theSource.add(aGraph);
+		}
+
+		return theTarget;
+	}
+
+	private static URI subject(final int theIndex) {
+		return URI.create("urn:test:scaling:" + theIndex);
+	}
+
+	/**
+	 * DataSource which hides that the underlying source is a TripleSource, and counts the queries sent to it, and
+	 * those which do not mention one of the individuals
+	 */
+	private static class QueryCountingDataSource extends DelegatingDataSource {
+		private int mQueryCount = 0;
+		private int mUnboundCount = 0;
+
+		private QueryCountingDataSource(final DataSource theDelegate) {
+			super(theDelegate);
+		}
+
+		public int getQueryCount() {
+			return mQueryCount;
+		}
+
+		public int getUnboundCount() {
+			return mUnboundCount;
+		}
+
+		private void count(final String theQuery) {
+			mQueryCount++;
+
+			if (!theQuery.contains("urn:test:scaling:")) {
+				mUnboundCount++;
+			}
+		}
+
+		@Override
+		public ResultSet selectQuery(final String theQuery) throws QueryException {
+			count(theQuery);
+			return super.selectQuery(theQuery);
+		}
+
+		@Override
+		public Graph graphQuery(final String theQuery) throws QueryException {
+			count(theQuery);
+			return super.graphQuery(theQuery);
+		}
+
+		@Override
+		public boolean ask(final String theQuery) throws QueryException {
+			count(theQuery);
+			return super.ask(theQuery);
+		}
+
+		@Override
+		public Graph describe(final String theQuery) throws QueryException {
+			count(theQuery);
+			return super.describe(theQuery);
+		}
+	}
+}
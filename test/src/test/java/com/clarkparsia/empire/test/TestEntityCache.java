@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2009-2012 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clarkparsia.empire.test;
+
+import com.clarkparsia.empire.SupportsRdfId;
+import com.clarkparsia.empire.annotation.Cacheable;
+import com.clarkparsia.empire.test.api.TestPerson;
+import com.clarkparsia.empire.test.api.nasa.Spacecraft;
+import com.clarkparsia.empire.util.EntityCache;
+
+import com.clarkparsia.openrdf.ExtGraph;
+
+import org.junit.Test;
+
+import org.openrdf.model.Graph;
+import org.openrdf.model.impl.GraphImpl;
+import org.openrdf.model.impl.ValueFactoryImpl;
+
+import java.net.URI;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p>Tests for the {@link EntityCache}</p>
+ *
+ * @since 0.7.2
+ * @version 0.7.2
+ */
+public class TestEntityCache {
+
+	@Test
+	public void testCacheable() {
+		EntityCache aCache = new EntityCache(10, 0, EntityCache.Eviction.LRU, Collections.<Class<?>>singleton(Spacecraft.class));
+
+		assertTrue(aCache.isCacheable(CacheableEntity.class));
+		assertTrue(aCache.isCacheable(Spacecraft.class));
+		assertFalse(aCache.isCacheable(TestPerson.class));
+	}
+
+	@Test
+	public void testGetAndInvalidate() {
+		EntityCache aCache = new EntityCache(10, 0, EntityCache.Eviction.LRU, Collections.<Class<?>>emptySet());
+
+		SupportsRdfId.RdfKey aKey = key("urn:a");
+		Graph aGraph = describe("urn:a");
+
+		assertTrue(aCache.get(aKey, null) == null);
+
+		aCache.put(aKey, null, aGraph, aCache.generation());
+
+		ExtGraph aCached = aCache.get(aKey, null);
+
+		assertNotNull(aCached);
+		assertEquals(aGraph.size(), aCached.size());
+
+		// the key includes the named graph
+		assertTrue(aCache.get(aKey, URI.create("urn:graph")) == null);
+
+		aCache.invalidate(aGraph);
+
+		assertTrue(aCache.get(aKey, null) == null);
+		assertEquals(1, aCache.getHitCount());
+		assertEquals(3, aCache.getMissCount());
+	}
+
+	@Test
+	public void testStaleDataIsNotCached() {
+		EntityCache aCache = new EntityCache(10, 0, EntityCache.Eviction.LRU, Collections.<Class<?>>emptySet());
+
+		long aGeneration = aCache.generation();
+
+		// the individual is changed after its data was read, but before the data is cached
+		aCache.invalidate(key("urn:a"));
+
+		aCache.put(key("urn:a"), null, describe("urn:a"), aGeneration);
+
+		assertEquals(0, aCache.size());
+	}
+
+	@Test
+	public void testLRUEviction() {
+		EntityCache aCache = new EntityCache(2, 0, EntityCache.Eviction.LRU, Collections.<Class<?>>emptySet());
+
+		aCache.put(key("urn:a"), null, describe("urn:a"), aCache.generation());
+		aCache.put(key("urn:b"), null, describe("urn:b"), aCache.generation());
+
+		// a was used more recently than b
+		aCache.get(key("urn:a"), null);
+
+		aCache.put(key("urn:c"), null, describe("urn:c"), aCache.generation());
+
+		assertEquals(2, aCache.size());
+		assertEquals(1, aCache.getEvictionCount());
+		assertNotNull(aCache.get(key("urn:a"), null));
+		assertTrue(aCache.get(key("urn:b"), null) == null);
+		assertNotNull(aCache.get(key("urn:c"), null));
+	}
+
+	@Test
+	public void testLFUEviction() {
+		EntityCache aCache = new EntityCache(2, 0, EntityCache.Eviction.LFU, Collections.<Class<?>>emptySet());
+
+		aCache.put(key("urn:a"), null, describe("urn:a"), aCache.generation());
+		aCache.put(key("urn:b"), null, describe("urn:b"), aCache.generation());
+
+		// a is used more often, but b is used more recently
+		aCache.get(key("urn:a"), null);
+		aCache.get(key("urn:a"), null);
+		aCache.get(key("urn:b"), null);
+
+		aCache.put(key("urn:c"), null, describe("urn:c"), aCache.generation());
+
+		assertEquals(2, aCache.size());
+		assertNotNull(aCache.get(key("urn:a"), null));
+		assertTrue(aCache.get(key("urn:b"), null) == null);
+	}
+
+	@Test
+	public void testExpiration() throws Exception {
+		EntityCache aCache = new EntityCache(10, 1, EntityCache.Eviction.LRU, Collections.<Class<?>>emptySet());
+
+		aCache.put(key("urn:a"), null, describe("urn:a"), aCache.generation());
+
+		Thread.sleep(20);
+
+		assertTrue(aCache.get(key("urn:a"), null) == null);
+		assertEquals(0, aCache.size());
+		assertEquals(1, aCache.getEvictionCount());
+	}
+
+	private static SupportsRdfId.RdfKey key(String theURI) {
+		return new SupportsRdfId.URIKey(URI.create(theURI));
+	}
+
+	private static Graph describe(String theURI) {
+		ValueFactoryImpl aFactory = ValueFactoryImpl.getInstance();
+
+		Graph aGraph = new GraphImpl();
+		aGraph.add(aFactory.createURI(theURI), aFactory.createURI("urn:label"), aFactory.createLiteral(theURI));
+		aGraph.add(aFactory.createURI(theURI), aFactory.createURI("urn:p"), aFactory.createURI("urn:o"));
+
+		return aGraph;
+	}
+
+	@Cacheable
+	private static class CacheableEntity {
+	}
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2009-2012 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clarkparsia.empire.test;
+
+import com.clarkparsia.empire.util.IndexedGraph;
+import com.clarkparsia.openrdf.ExtGraph;
+import com.clarkparsia.openrdf.OpenRdfIO;
+
+import com.google.common.collect.Sets;
+
+import org.junit.Test;
+
+import org.openrdf.model.Graph;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.GraphImpl;
+import org.openrdf.model.impl.ValueFactoryImpl;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p>Tests for {@link IndexedGraph}, which has to match statements the same way as a graph which scans its
+ * statements, including when looking up the values of the properties of a wide individual.</p>
+ *
+ * @since 0.7.2
+ * @version 0.7.2
+ */
+public class TestIndexedGraph {
+
+	/**
+	 * The number of properties of the wide individual
+	 */
+	private static final int PROPERTIES = 500;
+
+	/**
+	 * The number of values of each property of the wide individual
+	 */
+	private static final int VALUES = 4;
+
+	@Test
+	public void testMatch() throws Exception {
+		ExtGraph aData = new ExtGraph(OpenRdfIO.readGraph(new File(EntityManagerTestSuite.DATA_FILE)));
+		IndexedGraph aIndexed = new IndexedGraph(aData);
+
+		assertEquals(aData.size(), aIndexed.size());
+		assertEquals(Sets.newHashSet(aData), Sets.newHashSet(aIndexed));
+
+		// every 7th statement is enough to cover the subjects and predicates of the data
+		List<Statement> aSample = new ArrayList<Statement>();
+		int i = 0;
+		for (Statement aStmt : aData) {
+			if (i++ % 7 == 0) {
+				aSample.add(aStmt);
+			}
+		}
+
+		for (Statement aStmt : aSample) {
+			assertTrue(aIndexed.contains(aStmt));
+
+			assertSameMatches(aData, aIndexed, aStmt.getSubject(), null, null);
+			assertSameMatches(aData, aIndexed, aStmt.getSubject(), aStmt.getPredicate(), null);
+			assertSameMatches(aData, aIndexed, aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject());
+			assertSameMatches(aData, aIndexed, aStmt.getSubject(), null, aStmt.getObject());
+			assertSameMatches(aData, aIndexed, null, aStmt.getPredicate(), null);
+			assertSameMatches(aData, aIndexed, null, null, aStmt.getObject());
+		}
+
+		assertSameMatches(aData, aIndexed, null, null, null);
+
+		// adding a statement that is already there does not change the graph
+		assertFalse(aIndexed.add(aSample.get(0)));
+		assertEquals(aData.size(), aIndexed.size());
+
+		assertTrue(aIndexed.remove(aSample.get(0)));
+		assertFalse(aIndexed.contains(aSample.get(0)));
+		assertEquals(aData.size() - 1, aIndexed.size());
+
+		Iterator<Statement> aIter = aIndexed.iterator();
+		aIter.next();
+		aIter.remove();
+
+		assertEquals(aData.size() - 2, aIndexed.size());
+		assertEquals(aIndexed.size(), Sets.newHashSet(aIndexed).size());
+	}
+
+	@Test
+	public void testMatchContexts() {
+		ValueFactory aFactory = ValueFactoryImpl.getInstance();
+
+		Resource aSubject = aFactory.createURI("urn:indexed:subject");
+		URI aPredicate = aFactory.createURI("urn:indexed:predicate");
+		URI aContext = aFactory.createURI("urn:indexed:context");
+
+		IndexedGraph aIndexed = new IndexedGraph();
+
+		aIndexed.add(aSubject, aPredicate, aFactory.createLiteral("no context"));
+		aIndexed.add(aSubject, aPredicate, aFactory.createLiteral("in context"), aContext);
+
+		assertEquals(2, aIndexed.size());
+		assertEquals(2, count(aIndexed.match(aSubject, aPredicate, null)));
+		assertEquals(1, count(aIndexed.match(aSubject, aPredicate, null, aContext)));
+		assertEquals(1, count(aIndexed.match(aSubject, null, null, (Resource) null)));
+		assertEquals(2, count(aIndexed.match(null, null, null, aContext, null)));
+	}
+
+	@Test
+	public void testWideIndividual() {
+		ValueFactory aFactory = ValueFactoryImpl.getInstance();
+
+		Resource aSubject = aFactory.createURI("urn:wide:individual");
+		List<URI> aProperties = new ArrayList<URI>();
+
+		Graph aStatements = new GraphImpl();
+
+		for (int i = 0; i < PROPERTIES; i++) {
+			URI aProperty = aFactory.createURI("urn:wide:property" + i);
+			aProperties.add(aProperty);
+
+			for (int j = 0; j < VALUES; j++) {
+				aStatements.add(aSubject, aProperty, aFactory.createLiteral(i * VALUES + j));
+			}
+		}
+
+		ExtGraph aScanned = new ExtGraph(aStatements);
+		ExtGraph aIndexed = new ExtGraph(new IndexedGraph(aStatements));
+
+		int aScannedValues = lookup(aScanned, aSubject, aProperties);
+		int aIndexedValues = lookup(aIndexed, aSubject, aProperties);
+
+		assertEquals(PROPERTIES * VALUES, aScannedValues);
+		assertEquals(aScannedValues, aIndexedValues);
+
+		for (URI aProperty : aProperties) {
+			assertEquals(Sets.newHashSet(aScanned.getValues(aSubject, aProperty)), Sets.newHashSet(aIndexed.getValues(aSubject, aProperty)));
+		}
+	}
+
+	/**
+	 * Look up the values of each of the properties of the individual, as populating a bean does
+	 * @param theGraph the description of the individual
+	 * @param theSubject the individual
+	 * @param theProperties the properties
+	 * @return the number of values found
+	 */
+	private static int lookup(final ExtGraph theGraph, final Resource theSubject, final List<URI> theProperties) {
+		int aCount = 0;
+
+		for (URI aProperty : theProperties) {
+			Collection<Value> aValues = theGraph.getValues(theSubject, aProperty);
+
+			aCount += aValues.size();
+		}
+
+		return aCount;
+	}
+
+	private static void assertSameMatches(final Graph theExpected, final Graph theActual, final Resource theSubject, final URI thePredicate, final Value theObject) {
+		Set<Statement> aExpected = Sets.newHashSet(theExpected.match(theSubject, thePredicate, theObject));
+
+		assertEquals(aExpected, Sets.newHashSet(theActual.match(theSubject, thePredicate, theObject)));
+	}
+
+	private static int count(final Iterator<Statement> theIter) {
+		int aCount = 0;
+
+		while (theIter.hasNext()) {
+			theIter.next();
+			aCount++;
+		}
+
+		return aCount;
+	}
+}
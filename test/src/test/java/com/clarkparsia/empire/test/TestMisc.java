@@ -16,16 +16,24 @@
 package com.clarkparsia.empire.test;
 
 import com.clarkparsia.empire.EmpireOptions;
+import com.clarkparsia.empire.ds.DataSource;
 import com.clarkparsia.empire.impl.EntityManagerFactoryImpl;
+import com.clarkparsia.empire.impl.RdfQuery;
 import com.clarkparsia.empire.jena.JenaEmpireModule;
 import com.clarkparsia.empire.sesametwo.OpenRdfEmpireModule;
 import com.clarkparsia.empire.test.api.TestDataSourceFactory;
 import com.clarkparsia.empire.test.util.TestModule;
 import com.clarkparsia.empire.util.DefaultEmpireModule;
+import com.clarkparsia.empire.util.EmpireAnnotationProvider;
+import com.clarkparsia.empire.util.EmpireModule;
+import com.clarkparsia.empire.codegen.InstanceGenerator;
+import com.google.inject.AbstractModule;
+import com.google.inject.Provider;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import org.openrdf.model.Resource;
@@ -35,6 +43,7 @@ import org.openrdf.model.impl.ValueFactoryImpl;
 import com.clarkparsia.empire.test.api.BaseTestClass;
 import com.clarkparsia.empire.SupportsRdfId;
 import com.clarkparsia.empire.Empire;
+import com.clarkparsia.empire.test.api.TestPerson;
 import com.clarkparsia.empire.util.EmpireUtil;
 import com.clarkparsia.empire.annotation.SupportsRdfIdImpl;
 import com.clarkparsia.empire.annotation.RdfsClass;
@@ -47,10 +56,13 @@ import com.clarkparsia.common.util.PrefixMapping;
 import javax.persistence.Persistence;
 import javax.persistence.Entity;
 import javax.persistence.MappedSuperclass;
+import javax.persistence.Query;
 
 import java.net.URL;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * <p>Various miscellaneous tests for non-JPA parts of the Empire API.</p>
@@ -132,6 +144,99 @@ public class TestMisc {
 		assertEquals(1, new ExtGraph(g).getValues(EmpireUtil.asResource(obj), ValueFactoryImpl.getInstance().createURI(PrefixMapping.GLOBAL.uri("test:foo"))).size());
 	}
 
+	@Test
+	public void testIsBound() {
+		// only classes bound by a module are created with guice, entities are created with their constructor
+		assertTrue(Empire.get().isBound(EmpireAnnotationProvider.class));
+		assertFalse(Empire.get().isBound(TestPerson.class));
+	}
+
+	@Test
+	public void testInstantiatorsFollowInit() throws Exception {
+		Map<String, Object> aMap = new HashMap<String, Object>();
+		aMap.put("factory", "sesame");
+
+		DataSource aSource = Empire.get().persistenceProvider().createDataSource("test-instantiators", aMap);
+		aSource.connect();
+
+		java.net.URI aURI = java.net.URI.create("urn:test:instantiators");
+
+		// beans are created as the class generated for them, so that's the class whose binding matters
+		Class<TestPerson> aGenerated = InstanceGenerator.generateInstanceClass(TestPerson.class);
+
+		try {
+			BoundPersonModule.PROVIDED.set(0);
+
+			assertEquals(aGenerated, RdfGenerator.fromRdf(TestPerson.class, aURI, aSource).getClass());
+			assertEquals(0, BoundPersonModule.PROVIDED.get());
+
+			// once a module binds the class, it's created with guice
+			Empire.init(new DefaultEmpireModule(), new OpenRdfEmpireModule(), new JenaEmpireModule(), new TestModule(), new BoundPersonModule());
+
+			assertEquals(aGenerated, RdfGenerator.fromRdf(TestPerson.class, aURI, aSource).getClass());
+			assertTrue(BoundPersonModule.PROVIDED.get() > 0);
+
+			// and once it's no longer bound, it isn't
+			Empire.init(new DefaultEmpireModule(), new OpenRdfEmpireModule(), new JenaEmpireModule(), new TestModule());
+
+			BoundPersonModule.PROVIDED.set(0);
+
+			assertEquals(aGenerated, RdfGenerator.fromRdf(TestPerson.class, aURI, aSource).getClass());
+			assertEquals(0, BoundPersonModule.PROVIDED.get());
+		}
+		finally {
+			Empire.init(new DefaultEmpireModule(), new OpenRdfEmpireModule(), new JenaEmpireModule(), new TestModule());
+
+			aSource.disconnect();
+		}
+	}
+
+	@Test
+	public void testQueryTemplate() throws Exception {
+		Map<String, Object> aMap = new HashMap<String, Object>();
+		aMap.put("factory", "sesame");
+
+		DataSource aSource = Empire.get().persistenceProvider().createDataSource("test-query-template", aMap);
+		aSource.connect();
+
+		try {
+			String aQueryString = "where { ?result rdf:type ??type . ?result rdfs:label ?? . } limit 5";
+
+			Query aQuery = aSource.getQueryFactory().createQuery(aQueryString);
+
+			// the limit in the query string is known before the query is executed
+			assertEquals(5, ((RdfQuery) aQuery).getMaxResults());
+
+			aQuery.setParameter("type", ValueFactoryImpl.getInstance().createURI("urn:type"));
+			aQuery.setParameter(1, ValueFactoryImpl.getInstance().createLiteral("label"));
+
+			String aBound = aQuery.toString();
+
+			assertTrue(aBound.contains("<urn:type>"));
+			assertTrue(aBound.contains("\"label\""));
+			assertEquals(aBound.indexOf("limit 5"), aBound.lastIndexOf("limit 5"));
+
+			// only the namespaces used by the query are declared
+			assertTrue(aBound.contains("PREFIX rdf:"));
+			assertTrue(aBound.contains("PREFIX rdfs:"));
+			assertFalse(aBound.contains("PREFIX owl:"));
+
+			// executing the query again does not change it
+			assertEquals(aBound, aQuery.toString());
+			assertTrue(aQuery.getResultList().isEmpty());
+
+			// a new query for the same query string does not get the values bound in the first
+			String aUnbound = aSource.getQueryFactory().createQuery(aQueryString).toString();
+
+			assertFalse(aUnbound.contains("<urn:type>"));
+			assertTrue(aUnbound.contains("?type"));
+			assertTrue(aUnbound.contains("limit 5"));
+		}
+		finally {
+			aSource.disconnect();
+		}
+	}
+
 	@MappedSuperclass
 	public interface TestDouble extends SupportsRdfId {
 		@RdfProperty("test:foo")
@@ -146,4 +251,37 @@ public class TestMisc {
 			return "foo";
 		}
 	}
+
+	/**
+	 * Binds the class generated for {@link TestPerson} to a provider which counts the instances it provides
+	 */
+	public static class BoundPersonModule extends AbstractModule implements EmpireModule {
+		public static final AtomicInteger PROVIDED = new AtomicInteger();
+
+		@Override
+		protected void configure() {
+			final Class<TestPerson> aClass;
+
+			try {
+				aClass = InstanceGenerator.generateInstanceClass(TestPerson.class);
+			}
+			catch (Exception e) {
+				addError(e);
+				return;
+			}
+
+			bind(aClass).toProvider(new Provider<TestPerson>() {
+				public TestPerson get() {
+					PROVIDED.incrementAndGet();
+
+					try {
+						return aClass.newInstance();
+					}
+					catch (Exception e) {
+						throw new RuntimeException(e);
+					}
+				}
+			});
+		}
+	}
 }
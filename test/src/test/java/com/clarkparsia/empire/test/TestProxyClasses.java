@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2009-2012 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clarkparsia.empire.test;
+
+import com.clarkparsia.empire.Empire;
+import com.clarkparsia.empire.SupportsRdfId;
+import com.clarkparsia.empire.annotation.RdfGenerator;
+import com.clarkparsia.empire.ds.MutableDataSource;
+import com.clarkparsia.empire.jena.JenaEmpireModule;
+import com.clarkparsia.empire.sesametwo.OpenRdfEmpireModule;
+import com.clarkparsia.empire.test.api.nasa.LaunchSite;
+import com.clarkparsia.empire.test.api.nasa.LaunchUsingProxy;
+import com.clarkparsia.empire.test.api.nasa.SpaceVocab;
+import com.clarkparsia.empire.test.util.TestModule;
+import com.clarkparsia.empire.util.DefaultEmpireModule;
+import com.clarkparsia.openrdf.ExtGraph;
+import com.clarkparsia.openrdf.OpenRdfIO;
+
+import javassist.util.proxy.MethodFilter;
+import javassist.util.proxy.ProxyFactory;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.openrdf.model.Resource;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p>Checks that lazily fetched references are proxied with a proxy class shared by all the references to the same
+ * type of bean, and what that saves over setting up a proxy factory for each reference.  A factory per reference did
+ * not load a class per reference, javassist caches the classes it generates, but each factory scans the methods of
+ * the bean to find its cached class, so every reference paid for the scan.</p>
+ *
+ * @since 0.7.2
+ * @version 0.7.2
+ */
+public class TestProxyClasses {
+
+	/**
+	 * The number of references proxied with a factory of their own
+	 */
+	private static final int FACTORY_REFERENCES = 200;
+
+	@BeforeClass
+	public static void beforeClass() throws Exception {
+		String configPath = TestProxyClasses.class.getResource("/test.empire.config.properties").getPath();
+		System.setProperty("empire.configuration.file", configPath);
+
+		Empire.init(new DefaultEmpireModule(), new OpenRdfEmpireModule(),
+					new JenaEmpireModule(), new TestModule());
+	}
+
+	@Test
+	public void testProxyClassesAreShared() throws Exception {
+		Map<String, Object> aMap = new HashMap<String, Object>();
+		aMap.put("factory", "sesame");
+
+		MutableDataSource aSource = (MutableDataSource) Empire.get().persistenceProvider().createDataSource("test-proxy-classes", aMap);
+		aSource.connect();
+
+		try {
+			ExtGraph aData = new ExtGraph(OpenRdfIO.readGraph(new File(EntityManagerTestSuite.DATA_FILE)));
+
+			aSource.add(aData);
+
+			List<Resource> aLaunches = new ArrayList<Resource>(aData.instancesOf(SpaceVocab.ontology().Launch));
+
+			Set<Class> aProxyClasses = new HashSet<Class>();
+			int aReferences = 0;
+
+			// the second load uses the classes of the first, rather than setting up anything for its references
+			for (int aPass = 0; aPass < 2; aPass++) {
+				for (LaunchUsingProxy aLaunch : load(aSource, aLaunches)) {
+					LaunchSite aSite = aLaunch.getLaunchSite();
+
+					if (aSite != null) {
+						aProxyClasses.add(aSite.getClass());
+						aReferences++;
+					}
+				}
+			}
+
+			assertTrue(aReferences > 0);
+
+			// every launch site is proxied with the same class
+			assertEquals(1, aProxyClasses.size());
+		}
+		finally {
+			aSource.disconnect();
+		}
+	}
+
+	@Test
+	public void testFactoryPerReference() throws Exception {
+		// this is how each reference used to be proxied: a new factory and filter, with javassist's cache left on
+		final int[] aScanned = new int[1];
+
+		Class aFirst = null;
+		int aScannedByFirst = 0;
+
+		for (int i = 0; i < FACTORY_REFERENCES; i++) {
+			ProxyFactory aFactory = new ProxyFactory();
+			aFactory.setSuperclass(LaunchSite.class);
+			aFactory.setFilter(new MethodFilter() {
+				public boolean isHandled(final Method theMethod) {
+					aScanned[0]++;
+					return !theMethod.getName().equals("finalize");
+				}
+			});
+
+			Class aClass = aFactory.createClass();
+
+			if (aFirst == null) {
+				aFirst = aClass;
+				aScannedByFirst = aScanned[0];
+			}
+
+			// the cached class is found, no class is generated for the reference
+			assertSame(aFirst, aClass);
+		}
+
+		// but finding it scans all the methods of the bean again for every reference
+		assertTrue(aScannedByFirst > 0);
+		assertEquals(aScannedByFirst * FACTORY_REFERENCES, aScanned[0]);
+	}
+
+	private static List<LaunchUsingProxy> load(final MutableDataSource theSource, final List<Resource> theLaunches) throws Exception {
+		List<LaunchUsingProxy> aLoaded = new ArrayList<LaunchUsingProxy>();
+
+		for (Resource aLaunch : theLaunches) {
+			aLoaded.add(RdfGenerator.fromRdf(LaunchUsingProxy.class, new SupportsRdfId.URIKey(URI.create(aLaunch.stringValue())), theSource));
+		}
+
+		return aLoaded;
+	}
+}
@@ -33,8 +33,11 @@ import org.openrdf.model.impl.GraphImpl;
 import org.openrdf.model.impl.ValueFactoryImpl;
 
 import org.openrdf.model.Graph;
+import org.openrdf.model.ValueFactory;
 
+import org.openrdf.model.vocabulary.RDF;
 import org.openrdf.model.vocabulary.RDFS;
+import org.openrdf.model.vocabulary.XMLSchema;
 
 import com.clarkparsia.empire.EmpireOptions;
 
@@ -347,6 +350,31 @@ public class TestRdfConvert {
 		}
 	}
 
+	@Test
+	public void testPrimitiveLiterals() throws InvalidRdfException, DataSourceException {
+		assertEquals(42, RdfGenerator.fromRdf(PrimitiveTest.class, URI.create("urn:test:primitive"), new TestDataSource(primitiveGraph("42"))).count);
+
+		try {
+			// a literal which is not valid for its datatype is an error, not a type mismatch to ignore
+			RdfGenerator.fromRdf(PrimitiveTest.class, URI.create("urn:test:primitive"), new TestDataSource(primitiveGraph("forty-two")));
+
+			fail("invalid int literal should not have been converted");
+		}
+		catch (InvalidRdfException e) {
+			// expected
+		}
+	}
+
+	private static Graph primitiveGraph(final String theCount) {
+		ValueFactory aFactory = ValueFactoryImpl.getInstance();
+
+		Graph aGraph = new GraphImpl();
+		aGraph.add(aFactory.createURI("urn:test:primitive"), RDF.TYPE, aFactory.createURI("urn:PrimitiveTest"));
+		aGraph.add(aFactory.createURI("urn:test:primitive"), aFactory.createURI("urn:count"), aFactory.createLiteral(theCount, XMLSchema.INT));
+
+		return aGraph;
+	}
+
 	@RdfsClass("urn:TestClass")
 	@Entity
 	private static class NoDefaultConstructor extends BaseTestClass {
@@ -410,4 +438,11 @@ public class TestRdfConvert {
 		@RdfProperty("urn:baz")
 		private String baz;
 	}
+
+	@RdfsClass("urn:PrimitiveTest")
+	@Entity
+	public static class PrimitiveTest extends BaseTestClass {
+		@RdfProperty("urn:count")
+		private int count;
+	}
 }
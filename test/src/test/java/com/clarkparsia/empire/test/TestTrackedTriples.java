@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2009-2012 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clarkparsia.empire.test;
+
+import com.clarkparsia.empire.Empire;
+import com.clarkparsia.empire.EmpireGenerated;
+import com.clarkparsia.empire.SupportsRdfId;
+import com.clarkparsia.empire.annotation.RdfGenerator;
+import com.clarkparsia.empire.ds.MutableDataSource;
+import com.clarkparsia.empire.jena.JenaEmpireModule;
+import com.clarkparsia.empire.sesametwo.OpenRdfEmpireModule;
+import com.clarkparsia.empire.test.api.nasa.SpaceVocab;
+import com.clarkparsia.empire.test.api.nasa.Spacecraft;
+import com.clarkparsia.empire.test.util.TestModule;
+import com.clarkparsia.empire.util.DefaultEmpireModule;
+import com.clarkparsia.empire.util.EntityMetadata;
+import com.clarkparsia.empire.util.EntityMetadata.PropertyMetadata;
+import com.clarkparsia.empire.util.SubjectGraph;
+import com.clarkparsia.openrdf.ExtGraph;
+import com.clarkparsia.openrdf.OpenRdfIO;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.impl.StatementImpl;
+
+import java.io.File;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p>Compares the heap used by loaded beans when the statements about them are kept as {@link SubjectGraph SubjectGraphs}
+ * and when they are kept as graphs of statement objects, one for all the statements and one for the instance
+ * statements, as they were before.</p>
+ *
+ * @since 0.7.2
+ * @version 0.7.2
+ */
+public class TestTrackedTriples {
+
+	/**
+	 * The number of times each spacecraft is loaded
+	 */
+	private static final int LOADS = 300;
+
+	@BeforeClass
+	public static void beforeClass() throws Exception {
+		String configPath = TestTrackedTriples.class.getResource("/test.empire.config.properties").getPath();
+		System.setProperty("empire.configuration.file", configPath);
+
+		Empire.init(new DefaultEmpireModule(), new OpenRdfEmpireModule(),
+					new JenaEmpireModule(), new TestModule());
+	}
+
+	@Test
+	public void testTrackedTriplesFootprint() throws Exception {
+		Map<String, Object> aMap = new HashMap<String, Object>();
+		aMap.put("factory", "sesame");
+
+		MutableDataSource aSource = (MutableDataSource) Empire.get().persistenceProvider().createDataSource("test-tracked-triples", aMap);
+		aSource.connect();
+
+		try {
+			ExtGraph aData = new ExtGraph(OpenRdfIO.readGraph(new File(EntityManagerTestSuite.DATA_FILE)));
+
+			aSource.add(aData);
+
+			List<Resource> aSpacecraft = new ArrayList<Resource>(aData.instancesOf(SpaceVocab.ontology().Spacecraft));
+
+			long aBaseline = usedHeap();
+
+			List<Spacecraft> aLoaded = new ArrayList<Spacecraft>();
+
+			for (int i = 0; i < LOADS; i++) {
+				for (Resource aCraft : aSpacecraft) {
+					aLoaded.add(RdfGenerator.fromRdf(Spacecraft.class, new SupportsRdfId.URIKey(URI.create(aCraft.stringValue())), aSource));
+				}
+			}
+
+			// the spacecraft and everything loaded along with them
+			Set<Object> aEntities = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+
+			for (Spacecraft aCraft : aLoaded) {
+				collect(aCraft, aEntities);
+			}
+
+			for (Object aEntity : aEntities) {
+				assertTrue(((EmpireGenerated) aEntity).getAllTriples() instanceof SubjectGraph);
+			}
+
+			long aCompact = usedHeap() - aBaseline;
+
+			// switch every entity over to how the statements were kept before: the statements, which the instance
+			// triples share with all the triples, in two graphs
+			for (Object aEntity : aEntities) {
+				EmpireGenerated aGenerated = (EmpireGenerated) aEntity;
+
+				Set<Statement> aInstance = new HashSet<Statement>(aGenerated.getInstanceTriples());
+
+				ExtGraph aAllTriples = new ExtGraph();
+				ExtGraph aInstanceTriples = new ExtGraph();
+
+				for (Statement aStmt : aGenerated.getAllTriples()) {
+					Statement aCopy = new StatementImpl(aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject());
+
+					aAllTriples.add(aCopy);
+
+					if (aInstance.contains(aStmt)) {
+						aInstanceTriples.add(aCopy);
+					}
+				}
+
+				assertEquals(aGenerated.getInstanceTriples().size(), aInstanceTriples.size());
+
+				aGenerated.setAllTriples(aAllTriples);
+				aGenerated.setInstanceTriples(aInstanceTriples);
+			}
+
+			long aGraphs = usedHeap() - aBaseline;
+
+			assertTrue(aCompact < aGraphs);
+
+			// keep the beans reachable until both measurements are done
+			assertEquals(LOADS * aSpacecraft.size(), aLoaded.size());
+		}
+		finally {
+			aSource.disconnect();
+		}
+	}
+
+	/**
+	 * Add the bean, and the beans it references, to the set of entities
+	 * @param theObj the bean
+	 * @param theEntities the entities found so far
+	 * @throws Exception if there is an error reading the properties of the bean
+	 */
+	private static void collect(final Object theObj, final Set<Object> theEntities) throws Exception {
+		if (!(theObj instanceof EmpireGenerated) || !theEntities.add(theObj)) {
+			return;
+		}
+
+		for (PropertyMetadata aProperty : EntityMetadata.of(theObj.getClass()).getReadableProperties()) {
+			Object aValue = aProperty.get(theObj);
+
+			if (aValue instanceof Collection) {
+				for (Object aElem : (Collection<?>) aValue) {
+					collect(aElem, theEntities);
+				}
+			}
+			else {
+				collect(aValue, theEntities);
+			}
+		}
+	}
+
+	/**
+	 * Return the heap in use once the garbage has been collected
+	 * @return the used heap, in bytes
+	 * @throws InterruptedException if interrupted while waiting for the collection
+	 */
+	private static long usedHeap() throws InterruptedException {
+		Runtime aRuntime = Runtime.getRuntime();
+		long aUsed = Long.MAX_VALUE;
+
+		for (int i = 0; i < 5; i++) {
+			System.gc();
+			Thread.sleep(50);
+
+			aUsed = Math.min(aUsed, aRuntime.totalMemory() - aRuntime.freeMemory());
+		}
+
+		return aUsed;
+	}
+}
@@ -42,4 +42,6 @@ public class SpaceVocab extends Vocabulary {
     public final URI mass = term("mass");
     public final URI agency = term("agency");
     public final URI alternateName = term("alternateName");
+    public final URI Spacecraft = term("Spacecraft");
+    public final URI Launch = term("Launch");
 }
@@ -33,10 +33,14 @@ import com.clarkparsia.empire.test.EmpireTestSuite;
 import com.clarkparsia.empire.test.api.TestInterface;
 import com.clarkparsia.empire.test.util.TestModule;
 import com.clarkparsia.empire.util.DefaultEmpireModule;
+import javassist.ClassPool;
+
 import org.junit.BeforeClass;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -44,7 +48,7 @@ import static org.junit.Assert.fail;
  * <p>Code generation unit tests</p>
  *
  * @author Michael Grove
- * @version 0.7
+ * @version 0.7.2
  * @since 0.7
  */
 public class CodegenTests {
@@ -121,6 +125,16 @@ public class CodegenTests {
 		assertEquals(aKey.toString(), aInt.toString());
 	}
 
+	@Test
+	public void testGeneratedClassIsCached() throws Exception {
+		Class<TestInterface> aClass = InstanceGenerator.generateInstanceClass(TestInterface.class);
+
+		assertSame(aClass, InstanceGenerator.generateInstanceClass(TestInterface.class));
+
+		// the generated class is not kept around by the default class pool once it's loaded
+		assertNull(ClassPool.getDefault().getOrNull(aClass.getName()));
+	}
+
 	@Test(expected=IllegalArgumentException.class)
 	public void testBadInstGen() throws Exception {
 		InstanceGenerator.generateInstanceClass(BadTestInterface.class);
@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2009-2012 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clarkparsia.empire.test.codegen;
+
+import com.clarkparsia.empire.codegen.AccessorGenerator;
+import com.clarkparsia.empire.codegen.PropertyAccessor;
+
+import org.junit.Test;
+
+import java.lang.reflect.AccessibleObject;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * <p>Tests for the {@link PropertyAccessor PropertyAccessors} created by {@link AccessorGenerator}, both the generated
+ * code and the reflection it falls back to for the properties it cannot access directly.</p>
+ *
+ * @since 0.7.2
+ * @version 0.7.2
+ */
+public class TestPropertyAccessor {
+
+	/**
+	 * The names of the primitive fields of {@link PrimitiveBean} and {@link PrivateBean}, in the order of their indexes
+	 */
+	private static final String[] PRIMITIVES = { "aBoolean", "aByte", "aShort", "aInt", "aLong", "aFloat", "aDouble" };
+
+	@Test
+	public void testGeneratedAccessor() throws Exception {
+		PropertyAccessor aAccessor = accessor(PrimitiveBean.class, "aString");
+
+		assertTrue(isGenerated(aAccessor));
+
+		PrimitiveBean aBean = new PrimitiveBean();
+
+		setPrimitives(aAccessor, aBean);
+
+		assertEquals(true, aBean.aBoolean);
+		assertEquals((byte) 1, aBean.aByte);
+		assertEquals((short) 2, aBean.aShort);
+		assertEquals(3, aBean.aInt);
+		assertEquals(4L, aBean.aLong);
+		assertEquals(5.5f, aBean.aFloat, 0f);
+		assertEquals(6.5d, aBean.aDouble, 0d);
+
+		assertGetPrimitives(aAccessor, aBean);
+
+		aAccessor.set(aBean, PRIMITIVES.length, "value");
+
+		assertEquals("value", aBean.aString);
+		assertEquals("value", aAccessor.get(aBean, PRIMITIVES.length));
+
+		// boxed values go through the generic setter
+		aAccessor.set(aBean, 3, Integer.valueOf(7));
+
+		assertEquals(7, aBean.aInt);
+	}
+
+	@Test
+	public void testGeneratedSetter() throws Exception {
+		PropertyAccessor aAccessor = AccessorGenerator.generateAccessor(SetterBean.class,
+																		Arrays.asList(SetterBean.class.getMethod("getCount")),
+																		Arrays.asList(SetterBean.class.getMethod("setCount", int.class)));
+
+		assertTrue(isGenerated(aAccessor));
+
+		SetterBean aBean = new SetterBean();
+
+		aAccessor.setInt(aBean, 0, 3);
+
+		assertEquals(3, aBean.getCount());
+		assertEquals(1, aBean.mCalls);
+		assertEquals(3, aAccessor.get(aBean, 0));
+	}
+
+	@Test
+	public void testReflectiveFallback() throws Exception {
+		// private fields cannot be accessed from the generated class, so they are read and written via reflection
+		PropertyAccessor aAccessor = accessor(PrivateBean.class, "aString");
+
+		PrivateBean aBean = new PrivateBean();
+
+		setPrimitives(aAccessor, aBean);
+
+		assertGetPrimitives(aAccessor, aBean);
+
+		aAccessor.set(aBean, PRIMITIVES.length, "value");
+
+		assertEquals("value", aAccessor.get(aBean, PRIMITIVES.length));
+		assertEquals("value", aBean.getString());
+	}
+
+	@Test
+	public void testReflectiveAccessor() throws Exception {
+		List<AccessibleObject> aFields = fields(PrimitiveBean.class, "aString");
+
+		PropertyAccessor aAccessor = PropertyAccessor.reflective(aFields.toArray(new AccessibleObject[aFields.size()]),
+																 aFields.toArray(new AccessibleObject[aFields.size()]));
+
+		assertFalse(isGenerated(aAccessor));
+
+		PrimitiveBean aBean = new PrimitiveBean();
+
+		setPrimitives(aAccessor, aBean);
+
+		assertGetPrimitives(aAccessor, aBean);
+	}
+
+	@Test
+	public void testTypeMismatch() throws Exception {
+		PropertyAccessor aGenerated = accessor(PrimitiveBean.class, "aString");
+		PropertyAccessor aReflective = accessor(PrivateBean.class, "aString");
+
+		for (PropertyAccessor aAccessor : new PropertyAccessor[] { aGenerated, aReflective }) {
+			Object aBean = aAccessor == aGenerated ? new PrimitiveBean() : new PrivateBean();
+
+			// a value which cannot be assigned to the property is reported as an IllegalArgumentException, not as an
+			// error of the property itself
+			assertMismatch(aAccessor, aBean, 3, "not an int");
+			assertMismatch(aAccessor, aBean, PRIMITIVES.length, Integer.valueOf(1));
+
+			try {
+				aAccessor.setInt(aBean, PRIMITIVES.length, 1);
+				fail("An int was assigned to a String property");
+			}
+			catch (IllegalArgumentException e) {
+				// expected
+			}
+		}
+	}
+
+	private static void assertMismatch(final PropertyAccessor theAccessor, final Object theBean, final int theIndex, final Object theValue) throws Exception {
+		try {
+			theAccessor.set(theBean, theIndex, theValue);
+			fail(theValue + " was assigned to the property at index " + theIndex);
+		}
+		catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	private static void setPrimitives(final PropertyAccessor theAccessor, final Object theBean) throws Exception {
+		theAccessor.setBoolean(theBean, 0, true);
+		theAccessor.setByte(theBean, 1, (byte) 1);
+		theAccessor.setShort(theBean, 2, (short) 2);
+		theAccessor.setInt(theBean, 3, 3);
+		theAccessor.setLong(theBean, 4, 4L);
+		theAccessor.setFloat(theBean, 5, 5.5f);
+		theAccessor.setDouble(theBean, 6, 6.5d);
+	}
+
+	private static void assertGetPrimitives(final PropertyAccessor theAccessor, final Object theBean) throws Exception {
+		assertEquals(Boolean.TRUE, theAccessor.get(theBean, 0));
+		assertEquals(Byte.valueOf((byte) 1), theAccessor.get(theBean, 1));
+		assertEquals(Short.valueOf((short) 2), theAccessor.get(theBean, 2));
+		assertEquals(Integer.valueOf(3), theAccessor.get(theBean, 3));
+		assertEquals(Long.valueOf(4L), theAccessor.get(theBean, 4));
+		assertEquals(Float.valueOf(5.5f), theAccessor.get(theBean, 5));
+		assertEquals(Double.valueOf(6.5d), theAccessor.get(theBean, 6));
+	}
+
+	private static boolean isGenerated(final PropertyAccessor theAccessor) {
+		return theAccessor.getClass().getName().endsWith("$EmpireAccessor");
+	}
+
+	private static PropertyAccessor accessor(final Class<?> theClass, final String... theOthers) throws Exception {
+		List<AccessibleObject> aFields = fields(theClass, theOthers);
+
+		return AccessorGenerator.generateAccessor(theClass, aFields, aFields);
+	}
+
+	private static List<AccessibleObject> fields(final Class<?> theClass, final String... theOthers) throws Exception {
+		List<AccessibleObject> aFields = new ArrayList<AccessibleObject>();
+
+		for (String aName : PRIMITIVES) {
+			aFields.add(theClass.getDeclaredField(aName));
+		}
+
+		for (String aName : theOthers) {
+			aFields.add(theClass.getDeclaredField(aName));
+		}
+
+		return aFields;
+	}
+
+	public static class PrimitiveBean {
+		boolean aBoolean;
+		byte aByte;
+		short aShort;
+		int aInt;
+		long aLong;
+		float aFloat;
+		double aDouble;
+		String aString;
+	}
+
+	public static class PrivateBean {
+		private boolean aBoolean;
+		private byte aByte;
+		private short aShort;
+		private int aInt;
+		private long aLong;
+		private float aFloat;
+		private double aDouble;
+		private String aString;
+
+		public String getString() {
+			return aString;
+		}
+	}
+
+	public static class SetterBean {
+		private int mCount;
+		private int mCalls;
+
+		public int getCount() {
+			return mCount;
+		}
+
+		public void setCount(final int theCount) {
+			mCount = theCount;
+			mCalls++;
+		}
+	}
+}